@@ -0,0 +1,58 @@
+#ifdef GL_ES
+#define PRECISION mediump
+precision PRECISION float;
+precision PRECISION int;
+#else
+#define PRECISION
+#endif
+
+// Fuses the portal and flash effects into one pass over the scene.
+// Every effect is skipped when its strength is zero. The branches depend on uniforms
+// only, so they are coherent across the whole screen.
+
+uniform sampler2D u_texture; // 0
+varying vec2 v_texCoords;
+varying PRECISION vec4 v_color;
+
+// spirit mode portal, see portal.frag
+uniform float u_portal; // 0 is off, 1 is on
+uniform float u_time;
+uniform float u_thickness;
+uniform float u_radius;
+uniform vec4 u_edgeColor;
+uniform vec4 u_bgColor;
+
+// flash after resetting/undoing
+uniform vec4 u_flashColor; // alpha 0 is off
+
+//portal adapted from https://www.shadertoy.com/view/fddSWj#
+vec4 portal(vec4 portalColor) {
+    float t = u_time;
+    vec2 uv = (v_texCoords - 0.5)*2.0;
+
+    // polar
+    float d = length(uv);
+    float alpha = atan(uv.y, uv.x); //-pi to pi
+    vec2 pc = vec2(d, alpha); // polar coords
+
+    //fancy calc or irregular shape
+    float sinVal = sin(2.*t)*0.075 + sin(0.5+pc.y*3.+t*7.)*sin(pc.y*18.+t*2.)*0.02 - cos(0.3-pc.y*8.+t*5.)*0.015 + sin(pc.y*8.+t*8.)*0.03 * sin(-pc.y*2.+t*2.);
+    float targetVal = u_radius + sinVal;
+    float thickness = u_thickness + 0.1* sin(t);
+    float res = smoothstep(targetVal-thickness, targetVal+thickness, d);
+    return mix(portalColor, u_bgColor, res) + step(d, targetVal + thickness) * u_edgeColor * res;
+}
+
+void main() {
+    vec4 color = texture2D(u_texture, v_texCoords);
+    if (u_portal > 0.0) color = portal(color);
+
+    // The flash used to be a rectangle blended with (SRC_ALPHA, ONE_MINUS_SRC_ALPHA) over the scene, which is
+    // blended with (ONE, ONE_MINUS_SRC_ALPHA). Together they give the screen
+    //   a * flash.rgb + (1 - a) * (scene.rgb + (1 - scene.a) * screen.rgb)
+    // which is this color blended with (ONE, ONE_MINUS_SRC_ALPHA), whatever the alpha of the scene.
+    float a = u_flashColor.a;
+    color = vec4(a * u_flashColor.rgb + (1.0 - a) * color.rgb, 1.0 - (1.0 - a) * (1.0 - color.a));
+
+    gl_FragColor = v_color * color;
+}
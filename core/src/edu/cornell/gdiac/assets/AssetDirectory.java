@@ -32,6 +32,8 @@ import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.audio.*;
 import edu.cornell.gdiac.util.*;
 
+import java.nio.ByteBuffer;
+
 /**
  * An asset manager that uses a JSON file to define its assets.
  *
@@ -156,6 +158,7 @@ public class AssetDirectory extends AssetManager {
         setLoader( FilmStrip.class, new FilmStripLoader( resolver ) );
 
         setLoader( JsonValue.class, new JsonValueLoader( resolver ) );
+        setLoader( ByteBuffer.class, new BinaryLoader( resolver ) );
 
         // Why not?
         setLoader( Skin.class, new SkinLoader( resolver ) );
@@ -173,6 +176,7 @@ public class AssetDirectory extends AssetManager {
         topLoader.addParser( new SoundEffectParser() );
         topLoader.addParser( new MusicQueueParser() );
         topLoader.addParser( new AudioSourceParser() );
+        topLoader.addParser( new BinaryParser() );
     }
 
     /**
@@ -0,0 +1,81 @@
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Packs the textures listed in the "atlases" section of the asset directory into texture atlases.
+ *
+ * This is run at build time by the <code>packTextures</code> Gradle task. Each atlas entry has a "file"
+ * (the <code>.atlas</code> file to write, relative to the assets directory) and a list of "textures"
+ * (keys in the "textures" section). Every texture is packed as a region named by its key, which is how
+ * {@link TextureRegionParser} finds it again. Atlases that have not been packed are simply ignored at
+ * load time, so the game still runs from the loose textures.
+ *
+ * Regions are never rotated or trimmed, so a packed region has the same size as the original image and
+ * filmstrips can still be split into frames.
+ */
+public class AtlasPacker {
+
+    /**
+     * @param args  the assets directory
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println( "usage: AtlasPacker <assets directory>" );
+            System.exit( 1 );
+        }
+        File assetsDir = new File( args[0] );
+        JsonValue directory = new JsonReader().parse( new FileHandle( new File( assetsDir, "jsons/assets.json" ) ) );
+        JsonValue textures = directory.get( "textures" );
+        JsonValue atlases = directory.get( "atlases" );
+        if (textures == null || atlases == null) {
+            System.out.println( "No texture atlases to pack" );
+            return;
+        }
+
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.rotation = false;
+        settings.stripWhitespaceX = false;
+        settings.stripWhitespaceY = false;
+        settings.useIndexes = false;
+        settings.paddingX = 2;
+        settings.paddingY = 2;
+        settings.duplicatePadding = true;
+        settings.maxWidth = 4096;
+        settings.maxHeight = 4096;
+        settings.filterMin = Texture.TextureFilter.Linear;
+        settings.filterMag = Texture.TextureFilter.Linear;
+
+        for (JsonValue atlas : atlases) {
+            File output = new File( assetsDir, atlas.getString( "file" ) );
+            String name = output.getName();
+            if (name.endsWith( ".atlas" )) {
+                name = name.substring( 0, name.length() - ".atlas".length() );
+            }
+
+            TexturePacker packer = new TexturePacker( settings );
+            int count = 0;
+            for (JsonValue key : atlas.get( "textures" )) {
+                JsonValue entry = textures.get( key.asString() );
+                String file = entry == null ? null : entry.isString() ? entry.asString() : entry.getString( "file", null );
+                File image = file == null ? null : new File( assetsDir, file );
+                if (image == null || !image.exists()) {
+                    //the texture is then loaded from the atlas without a region, so this must fail the build
+                    throw new IOException( "Atlas "+atlas.name()+" has no texture "+key.asString() );
+                }
+                packer.addImage( ImageIO.read( image ), key.asString() );
+                count++;
+            }
+            packer.pack( output.getParentFile(), name );
+            System.out.println( "Packed "+count+" textures into "+output.getPath() );
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * BinaryLoader.java
+ *
+ * This is a simple loader for raw binary files, such as compiled levels. The file is
+ * memory-mapped when possible, so that reading it does not copy it onto the heap.
+ *
+ * This code is based on the template for JsonValueLoader.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AssetLoader;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class is an {@link AssetLoader} to load binary files as read-only {@link ByteBuffer} assets.
+ *
+ * Files on the file system are memory-mapped. Files that cannot be mapped (e.g. files
+ * inside a jar) are read into a heap buffer instead. Users of the buffer should read
+ * from a {@link ByteBuffer#duplicate()} so that they do not move its position.
+ */
+public class BinaryLoader extends AsynchronousAssetLoader<ByteBuffer, BinaryLoader.BinaryParameters> {
+    /** The asynchronously read buffer */
+    protected ByteBuffer cachedData;
+
+    /**
+     * The definable parameters for a binary file.
+     */
+    public static class BinaryParameters extends AssetLoaderParameters<ByteBuffer> {
+        // Since everything is defined in the file, nothing to do here
+    }
+
+    /**
+     * Creates a new BinaryLoader with an internal file resolver
+     */
+    public BinaryLoader() {
+        this(new InternalFileHandleResolver());
+    }
+
+    /**
+     * Creates a new BinaryLoader with the given file resolver
+     *
+     * @param resolver    The file resolver
+     */
+    public BinaryLoader (FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    /**
+     * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
+     *
+     * This maps (or reads) the file, which does not require the context of the main thread.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public void loadAsync (AssetManager manager, String fileName, FileHandle file, BinaryParameters params) {
+        try {
+            cachedData = file.map().asReadOnlyBuffer();
+        } catch (GdxRuntimeException e) {
+            cachedData = ByteBuffer.wrap(file.readBytes()).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Loads the main thread part of the asset.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public ByteBuffer loadSync (AssetManager manager, String fileName, FileHandle file, BinaryParameters params) {
+        ByteBuffer buffer = cachedData;
+        cachedData = null;
+        return buffer;
+    }
+
+    /**
+     * Returns the other assets this asset requires to be loaded first.
+     *
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params parameters for loading the asset
+     *
+     * @return null, as binary files have no dependencies
+     */
+    @Override
+    public Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, BinaryParameters params) {
+        return null;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * BinaryParser.java
+ *
+ * This is an interface for parsing a JSON entry into a binary file asset.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class parses a JSON entry into a {@link ByteBuffer}.
+ *
+ * The asset is only specified by file name, in the "binaries" section of the directory.
+ * Binary files are usually generated at build time, so entries whose file does not exist
+ * are skipped (with a warning) rather than failing the whole directory. Use
+ * {@link AssetDirectory#hasEntry} to check whether a binary was loaded.
+ */
+public class BinaryParser implements AssetParser<ByteBuffer> {
+    /** The current JSON entry in the JSON directory */
+    private JsonValue root;
+
+    /**
+     * Returns the asset type generated by this parser
+     *
+     * @return the asset type generated by this parser
+     */
+    public Class<ByteBuffer> getType() {
+        return ByteBuffer.class;
+    }
+
+    /**
+     * Resets the parser iterator for the given directory.
+     *
+     * The value directory is assumed to be the root of a larger JSON structure.
+     * The individual assets are defined by subtrees in this structure.
+     *
+     * @param directory    The JSON representation of the asset directory
+     */
+    public void reset(JsonValue directory) {
+        root = directory;
+        root = root.getChild( "binaries" );
+    }
+
+    /**
+     * Returns true if there are still assets left to generate
+     *
+     * @return true if there are still assets left to generate
+     */
+    public boolean hasNext() {
+        return root != null;
+    }
+
+    /**
+     * Processes the next available binary file, loading it into the asset manager
+     *
+     * Binary files have no additional loader properties.  They are specified
+     * key : filename.
+     *
+     * This method fails silently if there are no available assets to process.
+     *
+     * @param manager    The asset manager to load an asset
+     * @param keymap    The mapping of JSON keys to asset file names
+     */
+    public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        String file = root.asString();
+        if (manager.getFileHandleResolver().resolve( file ).exists()) {
+            keymap.put(root.name(), file);
+            manager.load( file, ByteBuffer.class, null );
+        } else {
+            System.err.println("WARNING: binary asset " + file + " is missing, skipping it.");
+        }
+        root = root.next();
+    }
+
+    /**
+     * Returns true if o is another BinaryParser
+     *
+     * @return true if o is another BinaryParser
+     */
+    public boolean equals(Object o) {
+        return o instanceof BinaryParser;
+    }
+
+}
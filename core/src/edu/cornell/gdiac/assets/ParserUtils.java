@@ -8,10 +8,12 @@
  */
 package edu.cornell.gdiac.assets;
 
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
 
 /**
  *  This class is a collection of static functions to access data in a JSON file.
@@ -165,4 +167,36 @@ public class ParserUtils {
         }
         return defaultWrap;
     }
+
+    /**
+     * Returns the textures that have been packed into a texture atlas.
+     *
+     * Atlases are listed in the "atlases" section of the directory, each with the file of
+     * the atlas and the keys of the textures packed into it. Atlases are generated at build
+     * time, so an atlas whose file does not exist is ignored, and its textures are loaded
+     * on their own.
+     *
+     * @param directory The JSON representation of the asset directory
+     * @param resolver  The file resolver of the asset manager
+     *
+     * @return a map from texture keys to the file of the atlas they are packed into
+     */
+    public static ObjectMap<String, String> parsePackedTextures(JsonValue directory, FileHandleResolver resolver) {
+        ObjectMap<String, String> packed = new ObjectMap<String, String>();
+        JsonValue atlases = directory.get( "atlases" );
+        if (atlases == null) {
+            return packed;
+        }
+        for (JsonValue atlas : atlases) {
+            String file = atlas.getString( "file", null );
+            JsonValue textures = atlas.get( "textures" );
+            if (file == null || textures == null || !resolver.resolve( file ).exists()) {
+                continue;
+            }
+            for (JsonValue texture : textures) {
+                packed.put( texture.asString(), file );
+            }
+        }
+        return packed;
+    }
 }
@@ -25,12 +25,19 @@ import com.badlogic.gdx.utils.ObjectMap;
  * values of the same name. It is also possible to specify a texture by simply
  * giving the name of the file.  In that case, the default parameters will be
  * used on loading.
+ *
+ * Textures that have been packed into a texture atlas (see {@link ParserUtils#parsePackedTextures})
+ * are skipped, as they are loaded as regions of the atlas by {@link TextureRegionParser}.
  * 
  * all properties) are stored in the file.
  */
 public class TextureParser implements AssetParser<Texture> {
     /** The current font entry in the JSON directory */
     private JsonValue root;
+    /** The JSON representation of the asset directory */
+    private JsonValue directory;
+    /** Map from packed texture keys to their atlas files, or null if not yet computed */
+    private ObjectMap<String,String> packed;
 
     /**
      * Returns the asset type generated by this parser
@@ -50,8 +57,10 @@ public class TextureParser implements AssetParser<Texture> {
      * @param directory    The JSON representation of the asset directory
      */
     public void reset(JsonValue directory) {
+        this.directory = directory;
         root = directory;
         root = root.getChild( "textures" );
+        packed = null;
     }
 
     /**
@@ -79,6 +88,13 @@ public class TextureParser implements AssetParser<Texture> {
      * @param keymap    The mapping of JSON keys to asset file names
      */
     public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        if (packed == null) {
+            packed = ParserUtils.parsePackedTextures( directory, manager.getFileHandleResolver() );
+        }
+        if (packed.containsKey( root.name() )) {
+            root = root.next();
+            return;
+        }
         TextureLoader.TextureParameter params = new TextureLoader.TextureParameter();
         if (root.isString()) {
             params.genMipMaps = false;
@@ -16,6 +16,7 @@ import com.badlogic.gdx.assets.loaders.*;
 import com.badlogic.gdx.assets.loaders.resolvers.*;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
@@ -25,6 +26,10 @@ import com.badlogic.gdx.utils.GdxRuntimeException;
  *
  * A texture region asset should be specified by filename:name where name is a unique
  * name for the region.
+ *
+ * The file is usually a texture. If {@link TextureRegionParameters#region} is set, the file
+ * is instead a {@link TextureAtlas}, and the texture region is taken from the named region
+ * of the atlas.
  */
 public class TextureRegionLoader extends AsynchronousAssetLoader<TextureRegion, TextureRegionLoader.TextureRegionParameters> {
     /** A reference to the file handle resolver (inaccessible in parent class) */
@@ -40,8 +45,10 @@ public class TextureRegionLoader extends AsynchronousAssetLoader<TextureRegion,
      * is fully defined  by these parameters.  The file name is just a symbolic reference.
      */ 
     public static class TextureRegionParameters extends AssetLoaderParameters<TextureRegion> {
-        /** The reference to the texture in the asset manager */
+        /** The reference to the texture (or texture atlas) in the asset manager */
         public String source;
+        /** The name of the region in the texture atlas, or null if the source is a texture */
+        public String region;
         /** The starting x-coordinate for the texture region (measured in pixels) */
         public int x = 0;
         /** The starting y-coordinate for the texture region (measured in pixels)  */
@@ -131,8 +138,13 @@ public class TextureRegionLoader extends AsynchronousAssetLoader<TextureRegion,
      */
     @Override
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureRegionParameters params) {
-        Texture texture = manager.get(manager.getDependencies(fileName).first());
-        cachedRegion = load(texture, params);
+        if (params != null && params.region != null) {
+            TextureAtlas atlas = manager.get(params.source, TextureAtlas.class);
+            cachedRegion = load(atlas, params);
+        } else {
+            Texture texture = manager.get(manager.getDependencies(fileName).first());
+            cachedRegion = load(texture, params);
+        }
     }
 
    /** 
@@ -193,7 +205,11 @@ public class TextureRegionLoader extends AsynchronousAssetLoader<TextureRegion,
             params = new TextureRegionParameters( prefix );
         }
         Array<AssetDescriptor> deps = new Array<AssetDescriptor>(1);
-        deps.add(new AssetDescriptor<Texture>( params.source, Texture.class));
+        if (params.region != null) {
+            deps.add(new AssetDescriptor<TextureAtlas>( params.source, TextureAtlas.class));
+        } else {
+            deps.add(new AssetDescriptor<Texture>( params.source, Texture.class));
+        }
         return deps;
     }
 
@@ -215,4 +231,25 @@ public class TextureRegionLoader extends AsynchronousAssetLoader<TextureRegion,
         int height = params.height < 0 ? texture.getHeight()-params.y : params.height;
         return new TextureRegion(texture,params.x,params.y,width,height);
     }
+
+    /**
+     * Loads a texture region from the given texture atlas and parameters.
+     *
+     * The rectangle in the parameters is relative to the named region of the atlas, so that
+     * it is the same as if the region had not been packed.
+     *
+     * @param atlas     The texture atlas
+     * @param params    The definition of the texture region.
+     *
+     * @return a texture region for the given texture atlas and parameters.
+     */
+    public TextureRegion load (TextureAtlas atlas, TextureRegionParameters params) {
+        TextureRegion base = atlas.findRegion(params.region);
+        if (base == null) {
+            throw new GdxRuntimeException( "Texture atlas "+params.source+" has no region "+params.region );
+        }
+        int width  = params.width  < 0 ? base.getRegionWidth()-params.x  : params.width;
+        int height = params.height < 0 ? base.getRegionHeight()-params.y : params.height;
+        return new TextureRegion(base,params.x,params.y,width,height);
+    }
 }
@@ -1,52 +1,85 @@
 package edu.cornell.gdiac.assets;
 
 import com.badlogic.gdx.assets.AssetManager;
-import com.badlogic.gdx.assets.loaders.TextureLoader;
-import com.badlogic.gdx.graphics.Pixmap;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
 
+/**
+ * This class parses the "textures" section of a JSON directory into {@link TextureRegion} assets.
+ *
+ * Every texture is available as a region of the same name. If the texture has been packed into
+ * a texture atlas (see {@link ParserUtils#parsePackedTextures}), this is the region of the atlas,
+ * and otherwise it is the whole texture. Code that draws regions therefore does not need to know
+ * whether a texture was packed.
+ *
+ * A texture may also define named subregions in an "atlas" child, as rectangles [x0, y0, x1, y1]
+ * in the pixels of the original image. These are available as "texture.name".
+ */
 public class TextureRegionParser implements AssetParser<TextureRegion> {
+    /** The JSON representation of the asset directory */
+    private JsonValue directory;
+    /** The current texture entry in the JSON directory */
     private JsonValue root;
+    /** The current subregion of the texture, or null if the whole texture is next */
     private JsonValue atlas;
+    /** Map from packed texture keys to their atlas files, or null if not yet computed */
+    private ObjectMap<String,String> packed;
 
     public Class<TextureRegion> getType() {
         return TextureRegion.class;
     }
 
     public void reset(JsonValue directory) {
-        root = directory;
-        root = root.getChild( "textures" );
+        this.directory = directory;
+        root = directory.getChild( "textures" );
         atlas = null;
-        advance();
+        packed = null;
     }
 
     public boolean hasNext() {
-        return atlas != null;
+        return root != null;
     }
 
     public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
-        if (atlas.size < 4) {
-            throw new GdxRuntimeException( "Rectangle "+atlas+" is not valid");
+        if (packed == null) {
+            packed = ParserUtils.parsePackedTextures( directory, manager.getFileHandleResolver() );
         }
-        String file = root.getString( "file", null );
+        String file = root.isString() ? root.asString() : root.getString( "file", null );
         if (file == null) {
             advance();
             return;
         }
-        TextureRegionLoader.TextureRegionParameters params = new TextureRegionLoader.TextureRegionParameters(file);
 
-        params.x = atlas.getInt(0);
-        params.y = atlas.getInt(1);
-        params.width  = atlas.getInt(2);
-        params.height = atlas.getInt(3);
-        params.width = params.width == -1 ? -1 : params.width-params.x;
-        params.height = params.height == -1 ? -1 : params.height-params.y;
-        String region = file+":"+atlas.name();
-        keymap.put(root.name()+"."+atlas.name(),region);
+        String atlasFile = packed.get( root.name() );
+        TextureRegionLoader.TextureRegionParameters params;
+        if (atlasFile == null) {
+            params = new TextureRegionLoader.TextureRegionParameters( file );
+        } else {
+            params = new TextureRegionLoader.TextureRegionParameters( atlasFile );
+            params.region = root.name();
+        }
+
+        String key;
+        String region;
+        if (atlas == null) {
+            key = root.name();
+            region = params.source+":"+root.name();
+        } else {
+            if (atlas.size < 4) {
+                throw new GdxRuntimeException( "Rectangle "+atlas+" is not valid");
+            }
+            params.x = atlas.getInt(0);
+            params.y = atlas.getInt(1);
+            params.width  = atlas.getInt(2);
+            params.height = atlas.getInt(3);
+            params.width = params.width == -1 ? -1 : params.width-params.x;
+            params.height = params.height == -1 ? -1 : params.height-params.y;
+            key = root.name()+"."+atlas.name();
+            region = params.source+":"+key;
+        }
+        keymap.put(key,region);
         manager.load( region,TextureRegion.class, params );
         advance();
     }
@@ -56,19 +89,14 @@ public class TextureRegionParser implements AssetParser<TextureRegion> {
     }
 
     private void advance() {
-        if (atlas != null) {
+        if (atlas == null) {
+            atlas = root.isObject() ? root.getChild( "atlas" ) : null;
+        } else {
             atlas = atlas.next();
-            if (atlas == null) {
-                root = root.next();
-            }
         }
-        while (atlas == null && root != null) {
-            if (root.hasChild( "atlas" )) {
-                atlas = root.getChild( "atlas" );
-            } else {
-                root = root.next();
-            }
+        if (atlas == null) {
+            root = root.next();
         }
     }
 
-}
\ No newline at end of file
+}
@@ -41,7 +41,7 @@ public class AIController {
     private MobDetector detectorRay;
 
     /** fields needed for raycasting */
-    private Vector2 rayCastPoint = new Vector2();
+    private final Vector2 rayCastPoint = new Vector2();
     private Fixture rayCastFixture;
     private float closestFraction;
     private Vector2 startPointCache = new Vector2();
@@ -82,18 +82,26 @@ public class AIController {
 
     /**
      * Returns the next action for them mob.
-     * First check if a target was detected in the detector ray.
-     * Then change the mob's state if applicable.
+     * Changes the mob's state if applicable, using the target last detected by {@link #perceive(float)}.
      *
      * @return the horizontal distance to move by
      */
     public float getAction() {
-        detectRayCast(detectorRay);
         changeStateifApplicable();
-        prevPos.set(mob.getPosition());
+        prevPos.set(mob.getX(), mob.getY());
         return getHorizontal();
     }
 
+    /**
+     * Looks for a target in the detector ray. This is scheduled by {@link PerceptionScheduler}, so it
+     * may not run every tick.
+     *
+     * @param sightRange  maximum length of the detector ray
+     */
+    public void perceive(float sightRange) {
+        detectRayCast(detectorRay, sightRange);
+    }
+
     /**
      * Returns the detector ray associated with the mob
      *
@@ -120,7 +128,7 @@ public class AIController {
             }
 
             //change direction if can't move further
-            if (mob.getPosition().epsilonEquals(prevPos, 0.01f)) mob.setFacingRight(!mob.isFacingRight());
+            if (prevPos.epsilonEquals(mob.getX(), mob.getY(), 0.01f)) mob.setFacingRight(!mob.isFacingRight());
 
             // doesn't go into CHASE state, continues walking in same dir
             // check if there's anything blocking it in collision controller
@@ -160,15 +168,16 @@ public class AIController {
     }
 
     /**
-     * Sets the end point cache of the detector
+     * Sets the end point cache of the detector, clipped to the sight range and the level bounds
      * @param start the start position for the detector
      * @param isRight if the mob is facing right
+     * @param sightRange maximum length of the detector ray
      */
-    private void getRayCastEnd(Vector2 start, Boolean isRight){
+    private void getRayCastEnd(Vector2 start, boolean isRight, float sightRange){
         if (isRight) {
-            endPointCache.set(bounds.width, start.y);
+            endPointCache.set(Math.min(start.x + sightRange, bounds.x + bounds.width), start.y);
         } else {
-            endPointCache.set(0, start.y);
+            endPointCache.set(Math.max(start.x - sightRange, bounds.x), start.y);
         }
     }
 
@@ -196,21 +205,30 @@ public class AIController {
      * Sees if a target has been detected
      *
      * @param detector the detector ray of the mob
+     * @param sightRange maximum length of the detector ray
      */
-    public void detectRayCast(MobDetector detector) {
+    public void detectRayCast(MobDetector detector, float sightRange) {
         detector.beginRayCast();
 
         //initial beam
         closestFraction = 1;
-        startPointCache.set(detector.getRayCastStart());
+        detector.getRayCastStart(startPointCache);
         detector.setPointingRight(mob.isFacingRight());
-        getRayCastEnd(startPointCache, mob.isFacingRight());
+        getRayCastEnd(startPointCache, mob.isFacingRight(), sightRange);
 
+        //the mob may be on the edge of the level
+        if (startPointCache.epsilonEquals(endPointCache, 0.01f)) {
+            target = null;
+            detector.addBeamPoint(startPointCache);
+            return;
+        }
         level.world.rayCast(DetectorRayCastCallback, startPointCache, endPointCache);
 
         if (closestFraction == 1) {
-            rayCastPoint = endPointCache;
+            //nothing within sight range
+            rayCastPoint.set(endPointCache);
             rayCastFixture = null;
+            target = null;
         } else {
             boolean detected = rayCastFixture.getBody().getUserData() instanceof Cat;
             if (detected) {
@@ -222,6 +240,6 @@ public class AIController {
             detector.setEndPoint(rayCastFixture.getBody().getPosition());
 
         }
-        detector.addBeamPoint(new Vector2(rayCastPoint));
+        detector.addBeamPoint(rayCastPoint);
     }
 }
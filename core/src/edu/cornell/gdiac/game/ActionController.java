@@ -5,12 +5,12 @@ import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Joint;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
 import com.badlogic.gdx.physics.box2d.RayCastCallback;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
-import com.badlogic.gdx.utils.ObjectSet;
 import edu.cornell.gdiac.game.object.*;
 import edu.cornell.gdiac.game.obstacle.Obstacle;
 import edu.cornell.gdiac.util.Direction;
@@ -48,14 +48,22 @@ public class ActionController {
     /** The level */
     private Level level;
     private Array<AIController> mobControllers;
+    /** Schedules the detection raycasts of the mobs */
+    private final PerceptionScheduler perception = new PerceptionScheduler();
 
     /** Fields needed for raycasting */
-    private Vector2 rayCastPoint = new Vector2();
+    private final Vector2 rayCastPoint = new Vector2();
     private Fixture rayCastFixture;
     private float closestFraction;
     private Vector2 startPointCache = new Vector2();
     private Vector2 endPointCache = new Vector2();
     private ObjectMap<DeadBody, Float> hitDeadbodies = new ObjectMap<>();
+    /** Laser whose beam is being checked for moving bodies */
+    private Laser queryLaser;
+    /** True if a moving body was found near the beam of <code>queryLaser</code> */
+    private boolean beamDisturbed;
+    /** Distance around a laser beam, in physics units, where moving bodies invalidate the beam */
+    private static final float BEAM_QUERY_MARGIN = 0.1f;
     public AudioController audioController;
     /** Camera to set zoom for CameraRegions*/
     private Camera camera;
@@ -65,7 +73,7 @@ public class ActionController {
      * Creates and initialize a new instance of a ActionController
      *
      * @param scale	    The game scale Vector2
-     * @param audioController    The audio controller of the game
+     * @param audioController    The audio controller of the game, or null to run without sound
      */
     public ActionController(Vector2 scale, AudioController audioController) {
         this.scale = scale;
@@ -88,6 +96,11 @@ public class ActionController {
     public void setLevel(Level level){
         this.level = level;
         this.bounds = level.bounds;
+        for (Laser l : level.getLasers()) {
+            l.invalidateBeam();
+        }
+        //contacts of a level that was not current did not update its support graph
+        level.getSupportGraph().invalidateEdges();
     }
 
     /**
@@ -109,8 +122,14 @@ public class ActionController {
         for (Mob mob : level.getMobArray()) {
             mobControllers.add(new AIController(bounds, level, mob));
         }
+        perception.reset();
     }
 
+    /**
+     * @return the scheduler of the detection raycasts of the mobs
+     */
+    public PerceptionScheduler getPerception() { return perception; }
+
     /**
      * Returns array of currently active MobControllers
      * @return Array of active MobControllers with the current level
@@ -195,7 +214,7 @@ public class ActionController {
             cat.applyForce();
 
             for (String soundName : cat.getSoundBuffer()) {
-                audioController.playSoundEffect(soundName);
+                playSoundEffect(soundName);
             }
             cat.getSoundBuffer().clear();
         }
@@ -203,7 +222,7 @@ public class ActionController {
         //Die if off-screen
         if (level.bounds.y - cat.getY() > 10){
             die(false);
-            audioController.playSoundEffect("death-fall");
+            playSoundEffect("death-fall");
         }
 
         //Prepare dead bodies for raycasting
@@ -219,7 +238,7 @@ public class ActionController {
 
         //Raycast lasers
         for (Laser l : level.getLasers()){
-            if (l.isActivated()) {
+            if (l.isActivated() && isBeamStale(l)) {
                 rayCastLaser(l);
             }
         }
@@ -230,6 +249,7 @@ public class ActionController {
             if (level.getActivationRelations().containsKey(a.getID())){
                 for (Activatable s : level.getActivationRelations().get(a.getID())){
                     int activated = s.updateActivated(a.isActivating(), level.getWorld());
+                    if (activated != 0) level.markPhysicsChanged();
 
                     //destroy joints if spikes deactivated
                     if (activated == -1 && s instanceof Spikes){
@@ -246,6 +266,7 @@ public class ActionController {
         }
 
         // Mob control:
+        perception.update(mobControllers, level.getCat(), camera, scale);
         for (AIController mobControl : mobControllers) {
             Mob mob = mobControl.getMob();
             mob.setPosition(mob.getX() + mobControl.getAction(), mob.getY());
@@ -314,78 +335,48 @@ public class ActionController {
         // Note how we use the linked list nodes to delete O(1) in place.
         // This is O(n) without copying.
         Iterator<PooledList<Obstacle>.Entry> iterator = level.getObjects().entryIterator();
-        ObjectMap<Obstacle, Boolean> grounded = new ObjectMap<>();
         while (iterator.hasNext()) {
             PooledList<Obstacle>.Entry entry = iterator.next();
             Obstacle obj = entry.getValue();
             if (obj.isRemoved()) {
+                level.getSupportGraph().remove(obj);
                 obj.deactivatePhysics(level.getWorld());
                 entry.remove();
+                level.markPhysicsChanged();
             } else {
                 // Note that update is called last!
                 obj.update(dt);
-
-                // Update base velocity.
-                if (obj instanceof Movable && ((Movable) obj).isMovable()) {
-                    updateBaseVelocity(obj, grounded);
-                }
-
             }
         }
+
+        // Update base velocities, grounds before the obstacles resting on them.
+        level.getSupportGraph().solve();
     }
 
     /**
-     * Updates the base velocity of a movable obstacle. If the obstacle is not grounded, resets its base velocity to
-     * zero without modifying its linear velocity. If the obstacle is grounded, its base velocity is set to the average
-     * of the linear velocities of its grounds, and its linear velocity is changed accordingly.
-     * <br><br>
-     * If any of the ground fixtures of this obstacle are also movable, this method first recursively updates their
-     * base velocities and stores the result in a hashmap. An obstacle is therefore considered grounded if either it
-     * has no ground fixtures, or any of its ground fixtures are grounded.
+     * Checks if the beam of a laser must be raycast again. The beam is kept if it is valid for the current
+     * physics revision of the level, the bodies its segments ended on have not moved, and no awake body that
+     * could block it overlaps any of its segments. Sleeping and static bodies cannot have moved since the beam
+     * was raycast. The bodies the segments ended on are checked on their own, since they can leave the beam in
+     * a single tick.
      *
-     * @param obj       The obstacle to update
-     * @param grounded  Map where keys are updated obstacles (at this tick), and values are if obstacle is grounded.
-     *                  This prev
-     * @return          True if obstacle is grounded
+     * @param l The laser to check
+     * @return True if the beam may have changed
      */
-    public boolean updateBaseVelocity(Obstacle obj, ObjectMap<Obstacle, Boolean> grounded){
-        if (grounded.containsKey(obj)) { return grounded.get(obj); }
-
-        Vector2 baseVel = new Vector2();
-        ObjectSet<Fixture> fixtures =  ((Movable) obj).getGroundFixtures();
-        float numGrounded = 0;
-
-        if (fixtures.size > 0) {
-
-            for (Fixture f : fixtures) {
-                Obstacle groundObs = (Obstacle) f.getBody().getUserData();
-                //this can cause a stack overflow error if two objects are each other's grounds, which can happen if objects are moving very very fast
-                grounded.put(obj, false);
-                if (!(groundObs instanceof Movable) || updateBaseVelocity(groundObs, grounded)){
-                    numGrounded++;
-                    baseVel.add(groundObs.getLinearVelocity());
-                }
-
-                //wake up if on opening door
-                if (!obj.isAwake() && groundObs instanceof Door && ((Door) groundObs).isMoving()) {
-                    obj.setAwake(true);
-                }
-            }
-
-            //object is grounded, update base velocity to be average of velocities of grounds
-            if (numGrounded > 0 && !baseVel.scl(1f / numGrounded).epsilonEquals(Vector2.Zero, 0.001f)) {
-                obj.setBaseVX(baseVel.x);
-                if (baseVel.y < 0) obj.setBaseVY(baseVel.y); //so that objects fly up but do not bounce when going down
-                grounded.put(obj, true);
-                return true;
-            }
-
+    private boolean isBeamStale(Laser l){
+        if (l.needsRayCast(level.getPhysicsRevision()) || l.isBlockerMoved()) return true;
+        Array<Vector2> points = l.getBeamPoints();
+        queryLaser = l;
+        beamDisturbed = false;
+        for (int i = 0; i < points.size - 1 && !beamDisturbed; i++) {
+            Vector2 p1 = points.get(i);
+            Vector2 p2 = points.get(i+1);
+            level.world.QueryAABB(LaserQueryCallback,
+                    Math.min(p1.x, p2.x) - BEAM_QUERY_MARGIN, Math.min(p1.y, p2.y) - BEAM_QUERY_MARGIN,
+                    Math.max(p1.x, p2.x) + BEAM_QUERY_MARGIN, Math.max(p1.y, p2.y) + BEAM_QUERY_MARGIN);
         }
-
-        //object is no longer grounded
-        obj.resetBaseVelocity();
-        return false;
-
+        queryLaser = null;
+        return beamDisturbed;
     }
 
     /**
@@ -407,12 +398,13 @@ public class ActionController {
         level.world.rayCast(LaserRayCastCallback, startPointCache, endPointCache);
         boolean reflect = false;
         if (closestFraction == 1) {
-            rayCastPoint = endPointCache;
+            rayCastPoint.set(endPointCache);
             rayCastFixture = null;
         } else {
             reflect = rayCastFixture.getBody().getUserData() instanceof Mirror;
+            l.addBlocker(rayCastFixture.getBody());
         }
-        l.addBeamPoint(new Vector2(rayCastPoint));
+        l.addBeamPoint(rayCastPoint);
 
         //reflect off of mirrors
         while(reflect) {
@@ -424,18 +416,19 @@ public class ActionController {
                 getRayCastEnd(startPointCache, dir);
                 level.world.rayCast(LaserRayCastCallback, startPointCache, endPointCache);
                 if (closestFraction == 1) {
-                    rayCastPoint = endPointCache;
+                    rayCastPoint.set(endPointCache);
                     rayCastFixture = null;
                     reflect = false;
                 } else {
                     reflect = rayCastFixture.getBody().getUserData() instanceof Mirror;
+                    l.addBlocker(rayCastFixture.getBody());
                 }
-                l.addBeamPoint(new Vector2(rayCastPoint));
+                l.addBeamPoint(rayCastPoint);
             } else {
                 reflect = false;
             }
         }
-
+        l.endRayCast(level.getPhysicsRevision());
     }
 
     /**
@@ -615,6 +608,17 @@ public class ActionController {
         return sound.play(volume);
     }
 
+    /**
+     * Plays a sound effect by name through the audio controller.
+     * <br><br>
+     * Does nothing if there is no audio controller, as is the case for headless simulations.
+     *
+     * @param soundName  name of the sound effect to play
+     */
+    public void playSoundEffect(String soundName) {
+        if (audioController != null) audioController.playSoundEffect(soundName);
+    }
+
 
     /**
      * A RayCastCallback for lasers. Stores the closest fixture hit into <code>rayCastFixture</code>, and
@@ -639,4 +643,22 @@ public class ActionController {
             return 1;
         }
     };
+
+    /**
+     * A QueryCallback for cached laser beams. Sets <code>beamDisturbed</code> and stops the query if it finds
+     * an awake body that the beam raycast would not ignore, other than the laser itself.
+     */
+    private QueryCallback LaserQueryCallback = new QueryCallback() {
+
+        @Override
+        public boolean reportFixture(Fixture fixture) {
+            Obstacle obs = (Obstacle) fixture.getBody().getUserData();
+            if (obs == queryLaser || (fixture.isSensor() && !(obs instanceof Cat))) return true;
+            if (fixture.getBody().isAwake()) {
+                beamDisturbed = true;
+                return false;
+            }
+            return true;
+        }
+    };
 }
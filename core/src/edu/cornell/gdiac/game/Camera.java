@@ -23,6 +23,10 @@ public class Camera {
     private float x;
     /** Camera center y-coordinate **/
     private float y;
+    /** Camera center x-coordinate before the most recent physics step, used for render interpolation **/
+    private float previousX;
+    /** Camera center y-coordinate before the most recent physics step, used for render interpolation **/
+    private float previousY;
     /** Rate at which camera glides towards destination coordinates**/
     private final float CAMERA_GLIDE_NORMAL = 0.075f;
     /** Rate at which camera glides towards dead body **/
@@ -62,6 +66,8 @@ public class Camera {
         this.viewportHeight = viewportHeight;
         x = camera.position.x;
         y = camera.position.y;
+        previousX = x;
+        previousY = y;
         isGliding = false;
         cameraGlideRate = CAMERA_GLIDE_NORMAL;
     }
@@ -121,6 +127,36 @@ public class Camera {
         camera.update();
     }
 
+    /**
+     * Records the current camera center as the previous physics state for render interpolation.
+     * This should be called before every physics step, and whenever the camera is snapped to a new position.
+     */
+    public void savePreviousPosition(){
+        previousX = x;
+        previousY = y;
+    }
+
+    /**
+     * Moves the underlying camera between the previous and current camera center, the same way obstacles are
+     * drawn between their previous and current positions. The camera center used for gameplay is unchanged.
+     * @param alpha 0 for the previous camera center, 1 for the current one
+     */
+    public void interpolate(float alpha){
+        camera.position.set(previousX + (x - previousX)*alpha, previousY + (y - previousY)*alpha, 0);
+        camera.update();
+    }
+
+    /**
+     * Returns the area that is visible through this camera (in pixels).
+     * @param out rectangle to store the area in
+     * @return <code>out</code>
+     */
+    public Rectangle getViewBounds(Rectangle out){
+        float width = camera.viewportWidth*camera.zoom;
+        float height = camera.viewportHeight*camera.zoom;
+        return out.set(camera.position.x - width/2, camera.position.y - height/2, width, height);
+    }
+
     /**
      * @return unwrapped OrthographicCamera
      */
@@ -6,7 +6,25 @@ import com.badlogic.gdx.utils.Array;
 import edu.cornell.gdiac.game.object.*;
 import edu.cornell.gdiac.game.obstacle.Obstacle;
 
-public class CollisionController implements ContactListener, ContactFilter {
+import static edu.cornell.gdiac.game.object.CollisionTags.*;
+
+/**
+ * Handles contacts between obstacles.
+ * <br><br>
+ * Contacts are dispatched by the type tags of the two obstacles (see {@link CollisionTags}): the handlers for every
+ * pair of types are looked up in a <code>[typeA][typeB]</code> table that is built once, so handling a contact is a
+ * single array lookup followed only by the checks that are relevant to that pair. Fixture roles are compared as
+ * integers.
+ * <br><br>
+ * Which pairs of fixtures may collide at all is decided by the filter bits in {@link CollisionFilters}.
+ * <br><br>
+ * Box2D reports contacts in the middle of <code>World.step</code>, when the world cannot be changed. The callbacks
+ * therefore only record each contact into a ring buffer of preallocated {@link ContactEvent}s, and the handlers run
+ * afterwards in one pass, when {@link #dispatchContacts()} is called after the step. Contacts reported outside of a
+ * step (e.g. when a body is destroyed) are dispatched right away. Deaths are collected over the whole pass, so the
+ * cat dies at most once per dispatch no matter how many hazards it touched.
+ */
+public class CollisionController implements ContactListener, TriggerSystem.Listener {
     //TODO: consider storing a set of current contacts, to ensure no issues with undoing level states
 
     /** The Level model */
@@ -22,6 +40,63 @@ public class CollisionController implements ContactListener, ContactFilter {
     private Camera camera;
     private boolean gameFinished;
 
+    /** Handlers for the start of a contact, indexed by the type tags of the two obstacles */
+    private final ContactHandler[][] beginHandlers;
+    /** Handlers for the end of a contact, indexed by the type tags of the two obstacles */
+    private final ContactHandler[][] endHandlers;
+    /** Pairs of type tags whose begin handlers need the contact points */
+    private final boolean[][] needsPoints;
+
+    /** Ring buffer of contacts that have not been handled yet; the capacity is always a power of two */
+    private ContactEvent[] events;
+    /** Index of the oldest recorded contact */
+    private int eventHead;
+    /** Number of recorded contacts */
+    private int eventCount;
+    /** Whether the recorded contacts are being handled */
+    private boolean dispatching;
+    /** Sound of the first death found while dispatching, or null if the cat did not die */
+    private String deathSound;
+
+    /**
+     * Handles a contact between two obstacles. The first obstacle and fixture always belong to the type of the row
+     * of the table the handler is in.
+     */
+    private interface ContactHandler {
+        void handle(ContactEvent event, Obstacle bd1, Obstacle bd2, Fixture fix1, Fixture fix2, int role1, int role2);
+    }
+
+    /**
+     * A contact recorded during a physics step. Everything the handlers need is copied out of the Box2D contact,
+     * which is not valid after the step.
+     */
+    private static class ContactEvent {
+        /** True for the start of a contact, false for the end */
+        boolean begin;
+        Obstacle bd1;
+        Obstacle bd2;
+        Fixture fix1;
+        Fixture fix2;
+        int role1;
+        int role2;
+        /** Number of valid contact points, only recorded for pairs that need them */
+        int numPoints;
+        /** Contact points in world coordinates */
+        final Vector2[] points = {new Vector2(), new Vector2()};
+        /** Array of the single contact point, so that handlers never have to allocate one */
+        final Vector2[] point = {points[0]};
+
+        /**
+         * @return the valid contact points
+         */
+        Vector2[] getPoints() {
+            return numPoints == 1 ? point : points;
+        }
+    }
+
+    /** Initial capacity of the contact ring buffer */
+    private static final int INITIAL_EVENTS = 64;
+
     /**
      * Creates and initialize a new instance of a CollisionController
      *
@@ -32,6 +107,18 @@ public class CollisionController implements ContactListener, ContactFilter {
         shouldReturn = false;
         didChange = false;
         gameFinished = false;
+
+        ContactHandler[][] begin = new ContactHandler[NUM_TYPES][NUM_TYPES];
+        ContactHandler[][] end = new ContactHandler[NUM_TYPES][NUM_TYPES];
+        addBeginHandlers(begin);
+        addEndHandlers(end);
+        beginHandlers = symmetric(begin);
+        endHandlers = symmetric(end);
+
+        needsPoints = new boolean[NUM_TYPES][NUM_TYPES];
+        needsPoints[DEAD_BODY][SPIKES] = needsPoints[SPIKES][DEAD_BODY] = true;
+        events = new ContactEvent[INITIAL_EVENTS];
+        for (int i = 0; i < events.length; i++) events[i] = new ContactEvent();
     }
 
     /**
@@ -40,6 +127,12 @@ public class CollisionController implements ContactListener, ContactFilter {
      * @param level The Level model to be set to level
      */
     public void setLevel(Level level){
+        if (this.level != null && this.level != level) {
+            //leaving the exit of the old level must not count as leaving the return exit of the new one
+            boolean changed = didChange;
+            this.level.getTriggers().clear(this);
+            didChange = changed;
+        }
         this.level = level;
         shouldReturn = false;
     }
@@ -79,296 +172,208 @@ public class CollisionController implements ContactListener, ContactFilter {
     /**
      * Callback method for the start of a collision
      *
-     * This method is called when we first get a collision between two objects.  We use
-     * this method to test if it is the "right" kind of collision.  In particular, we
-     * use it to test if we made it to the win door.
+     * This method is called when we first get a collision between two objects.  The contact
+     * is recorded, and handled in {@link #dispatchContacts()}.
      *
      * @param contact The two bodies that collided
      */
     public void beginContact(Contact contact) {
+        record(contact, true);
+    }
+
+    /**
+     * Callback method for the end of a collision
+     *
+     * This method is called when two objects cease to touch.  The main use of this method
+     * is to determine when the character is NOT on the ground.  This is how we prevent
+     * double jumping.  The contact is recorded, and handled in {@link #dispatchContacts()}.
+     */
+    public void endContact(Contact contact) {
+        record(contact, false);
+    }
+
+    /**
+     * Records a contact into the ring buffer. Contacts that no handler is interested in are dropped. If the world is
+     * not in the middle of a step, the contact is dispatched immediately.
+     *
+     * @param contact  the contact
+     * @param begin    true if the contact started, false if it ended
+     */
+    private void record(Contact contact, boolean begin) {
         Fixture fix1 = contact.getFixtureA();
         Fixture fix2 = contact.getFixtureB();
-        Body body1 = fix1.getBody();
-        Body body2 = fix2.getBody();
-
-        Object fd1 = fix1.getUserData();
-        Object fd2 = fix2.getUserData();
         try {
-            Obstacle bd1 = (Obstacle) body1.getUserData();
-            Obstacle bd2 = (Obstacle) body2.getUserData();
-
-            for (int i = 0; i < 2; i++){
-
-                //cat collisions
-                Cat cat = level.getCat();
-                if (bd1 == cat) {
-
-                    // See if we have landed on the ground.
-                    if (!fix2.isSensor() && cat.getGroundSensorName().equals(fd1)) {
-                        cat.setGrounded(true);
-                    }
-
-                    // See if right side is touching a wall
-                    if (cat.getRightSensorName().equals(fd1) && bd2 instanceof Wall) {
-                        if (((Wall) bd2).isClimbable()){
-                            cat.incrementRightWalled();
-                        }
-                    }
-
-                    // See if left side is touching a wall
-                    if (cat.getLeftSensorName().equals(fd1) && bd2 instanceof Wall) {
-                        if (((Wall) bd2).isClimbable()){
-                            cat.incrementLeftWalled();
-                        }
-                    }
-
-                    // Check for win condition
-                    if (bd2 == level.getGoalExit() && !didChange) level.setComplete(true);
-                    if (bd2 == level.getReturnExit() && !didChange) setReturn(true);
-
-                    if (bd2 instanceof Spikes && fd2.equals(Spikes.pointyName) && fd1.equals(Cat.bodyName)) {
-                        actionController.die(true);
-                        actionController.audioController.playSoundEffect("death-spike");
-                    }
-                    if (bd2 instanceof Flamethrower.Flame && fd2.equals(Flamethrower.flameSensorName)){
-                        actionController.die(true);
-                        actionController.audioController.playSoundEffect("death-fire");
-                    }
-                    if (bd2 instanceof Laser && fd2.equals(Laser.laserHitboxName)) {
-                        actionController.die(true);
-                        actionController.audioController.playSoundEffect("death-laser");
-                    }
-                    if (bd2 instanceof Checkpoint && ((Checkpoint) bd2).getSensorName().equals(fd2)){
-                        Checkpoint checkpoint = (Checkpoint) bd2;
-                        checkpoint.addTouching();
-                        if (checkpoint.isFirstTouch()) level.updateCheckpoints(checkpoint, true);
-                    }
-                    if (bd2 instanceof Mob){
-                        actionController.die(true);
-                        actionController.audioController.playSoundEffect("death-mob");
-                    }
-                    if (bd2 instanceof SpiritRegion){
-                        cat.addSpiritRegion((SpiritRegion) bd2);
-                    }
-                    if (bd2 instanceof Goal) {
-                        if (((Goal) bd2).isFinal()) {
-                            //TODO: finished the game. go to credits!
-                            gameFinished = true;
-                        }
-                        ((Goal) bd2).activate();
-                        actionController.recombineLives();
-                    }
-                    if (bd2 instanceof CameraRegion){
-                        Array<CameraRegion> cameraRegions = level.getCameraRegions();
-                        ((CameraRegion) bd2).addFixture();
-                        if(!cameraRegions.contains((CameraRegion) bd2,true)){
-                            cameraRegions.add((CameraRegion) bd2);
-                        }
-                        CameraRegion relevantRegion = maxCollidingCamRegion(cameraRegions);
-                        camera.setDefaultZoom(relevantRegion.getZoom());
-                        camera.setGlideMode("CHANGE_ZOOM");
-                        camera.setZoomRate("CAMERA_REGION");
-                        if(relevantRegion.shouldSnap()){
-                            camera.setGameplayBounds(relevantRegion.getSnapBounds(), relevantRegion.getDrawScale(), true);
-                        }
-                    }
-                }
-
-                //dead body collisions
-                if (bd1 instanceof DeadBody) {
-                    DeadBody db = (DeadBody) bd1;
-                    if (bd2 instanceof Spikes) {
-                        if (fd1.equals(DeadBody.spikesSensorName) && fd2.equals(Spikes.centerName)) {
-                            actionController.fixBodyToSpikes(db, (Spikes) bd2, contact.getWorldManifold().getPoints());
-                        }
-                        if (fd1.equals(DeadBody.catBodyName) && fd2.equals(Spikes.pointyName)){
-                            db.addHazard();
-                        }
-                    } else if (bd2 instanceof Flamethrower.Flame) {
-                        db.addFlame();
-                    } else if (bd2 instanceof Laser && fd1.equals(DeadBody.catBodyName) && fd2.equals(Laser.laserHitboxName)){
-                        db.addHazard();
-                    } else if (bd2 instanceof SpiritRegion){
-                        db.addSpiritRegion((SpiritRegion) bd2);
-                    } else if (fd1.equals(DeadBody.centerSensorName) && !fix2.isSensor() && bd2 != level.getCat()) {
-                        //dead body has been squished D:
-//                        level.removeDeadBody(db);
-                    }
-                }
-
-                //Add ground fixture to moveable
-                if (bd1 instanceof Movable && !fix2.isSensor() && bd1 != bd2 && bd2 != cat && ((Movable) bd1).getGroundSensorName().equals(fd1)){
-                    ((Movable) bd1).getGroundFixtures().add(fix2);
-                }
+            Obstacle bd1 = (Obstacle) fix1.getBody().getUserData();
+            Obstacle bd2 = (Obstacle) fix2.getBody().getUserData();
+            int type1 = bd1.getTypeTag();
+            int type2 = bd2.getTypeTag();
+            if ((begin ? beginHandlers : endHandlers)[type1][type2] == null) return;
+
+            if (eventCount == events.length) growEvents();
+            ContactEvent event = events[(eventHead + eventCount) & (events.length - 1)];
+            eventCount++;
+            event.begin = begin;
+            event.bd1 = bd1;
+            event.bd2 = bd2;
+            event.fix1 = fix1;
+            event.fix2 = fix2;
+            event.role1 = roleOf(fix1);
+            event.role2 = roleOf(fix2);
+            event.numPoints = 0;
+            if (begin && needsPoints[type1][type2]) {
+                WorldManifold manifold = contact.getWorldManifold();
+                event.numPoints = manifold.getNumberOfContactPoints();
+                for (int i = 0; i < event.numPoints; i++) event.points[i].set(manifold.getPoints()[i]);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        if (!fix1.getBody().getWorld().isLocked()) dispatchContacts();
+    }
 
-                // TODO: fix collisions when obstacles collide with top and bottom
-                // Mob changes direction when hits a wall
-                if (bd1 instanceof Mob && !(fix2.isSensor()) && !(bd2 instanceof Movable)) {
-                    ((Mob) bd1).setFacingRight(!((Mob) bd1).isFacingRight());
-                }
+    /**
+     * Doubles the capacity of the ring buffer, keeping the recorded contacts in order.
+     */
+    private void growEvents() {
+        ContactEvent[] grown = new ContactEvent[events.length * 2];
+        for (int i = 0; i < events.length; i++) grown[i] = events[(eventHead + i) & (events.length - 1)];
+        for (int i = events.length; i < grown.length; i++) grown[i] = new ContactEvent();
+        events = grown;
+        eventHead = 0;
+    }
 
-                // Activator
-                if (fd1 instanceof Activator) {
-                    ((Activator) fd1).addPress();
-                    actionController.audioController.playSoundEffect("button-click");
-                }
-                //swap everything
-                Body bodyTemp = body1;
-                body1 = body2;
-                body2 = bodyTemp;
-
-                Obstacle bdTemp = bd1;
-                bd1 = bd2;
-                bd2 = bdTemp;
-
-                Object fdTemp = fd1;
-                fd1 = fd2;
-                fd2 = fdTemp;
-
-                Fixture fixTemp = fix1;
-                fix1 = fix2;
-                fix2 = fixTemp;
+    /**
+     * Runs the handlers of every recorded contact, in the order the contacts were reported. This should be called
+     * after every <code>World.step</code>. Contacts reported by the handlers themselves are handled in the same
+     * pass. If any handler killed the cat, the cat dies once at the end of the pass.
+     */
+    public void dispatchContacts() {
+        if (dispatching) return;
+        dispatching = true;
+        while (eventCount > 0) {
+            ContactEvent event = events[eventHead];
+            eventHead = (eventHead + 1) & (events.length - 1);
+            eventCount--;
+            try {
+                ContactHandler handler = (event.begin ? beginHandlers : endHandlers)
+                        [event.bd1.getTypeTag()][event.bd2.getTypeTag()];
+                handler.handle(event, event.bd1, event.bd2, event.fix1, event.fix2, event.role1, event.role2);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
+            //do not keep destroyed obstacles alive
+            event.bd1 = event.bd2 = null;
+            event.fix1 = event.fix2 = null;
+        }
+        dispatching = false;
 
-        }catch (Exception e) {
-            e.printStackTrace();
+        if (deathSound != null) {
+            actionController.die(true);
+            actionController.playSoundEffect(deathSound);
+            deathSound = null;
         }
     }
 
     /**
-     * Callback method for the start of a collision
+     * Kills the cat at the end of the current dispatch. Only the first death of a dispatch plays its sound.
      *
-     * This method is called when two objects cease to touch.  The main use of this method
-     * is to determine when the character is NOT on the ground.  This is how we prevent
-     * double jumping.
+     * @param sound  name of the death sound effect
      */
-    public void endContact(Contact contact) {
-        Fixture fix1 = contact.getFixtureA();
-        Fixture fix2 = contact.getFixtureB();
+    private void kill(String sound) {
+        if (deathSound == null) deathSound = sound;
+    }
 
-        Body body1 = fix1.getBody();
-        Body body2 = fix2.getBody();
+    /**
+     * Tests the cat and dead bodies against the triggers of the level, and runs the handlers of the triggers they
+     * entered or exited. This should be called after {@link #dispatchContacts()}.
+     */
+    public void updateTriggers() {
+        if (level == null) return;
+        level.getTriggers().update(level.getCat(), level.getdeadBodyArray(), this);
+    }
 
-        Object fd1 = fix1.getUserData();
-        Object fd2 = fix2.getUserData();
+    /**
+     * Callback method for a fixture of the cat or a dead body entering a trigger.
+     *
+     * @param body     the cat or a dead body
+     * @param trigger  the trigger
+     */
+    public void enterTrigger(Obstacle body, Obstacle trigger) {
+        if (body instanceof DeadBody) {
+            if (trigger instanceof SpiritRegion) ((DeadBody) body).addSpiritRegion((SpiritRegion) trigger);
+            return;
+        }
+        Cat cat = (Cat) body;
+        if (trigger instanceof Exit) {
+            // Check for win condition
+            if (trigger == level.getGoalExit() && !didChange) level.setComplete(true);
+            if (trigger == level.getReturnExit() && !didChange) setReturn(true);
+        } else if (trigger instanceof Checkpoint) {
+            Checkpoint checkpoint = (Checkpoint) trigger;
+            checkpoint.addTouching();
+            if (checkpoint.isFirstTouch()) level.updateCheckpoints(checkpoint, true);
+        } else if (trigger instanceof SpiritRegion) {
+            cat.addSpiritRegion((SpiritRegion) trigger);
+        } else if (trigger instanceof CameraRegion) {
+            Array<CameraRegion> cameraRegions = level.getCameraRegions();
+            ((CameraRegion) trigger).addFixture();
+            if(!cameraRegions.contains((CameraRegion) trigger,true)){
+                cameraRegions.add((CameraRegion) trigger);
+            }
+            CameraRegion relevantRegion = maxCollidingCamRegion(cameraRegions);
+            camera.setDefaultZoom(relevantRegion.getZoom());
+            camera.setGlideMode("CHANGE_ZOOM");
+            camera.setZoomRate("CAMERA_REGION");
+            if(relevantRegion.shouldSnap()){
+                camera.setGameplayBounds(relevantRegion.getSnapBounds(), relevantRegion.getDrawScale(), true);
+            }
+        }
+    }
 
-        try {
-            Obstacle bd1 = (Obstacle) body1.getUserData();
-            Obstacle bd2 = (Obstacle) body2.getUserData();
-
-            for (int i = 0; i < 2; i++) {
-                //cat collisions
-                Cat cat = level.getCat();
-                if (bd1 == cat) {
-
-                    if (cat.getGroundSensorName().equals(fd1) && cat != bd2) {
-                        cat.getGroundFixtures().remove(fix2);
-                        if (cat.getGroundFixtures().size == 0) {
-                            cat.setGrounded(false);
-                        }
-                    }
-
-                    // Right sensor walled
-                    if (((cat.getRightSensorName().equals(fd1)) && cat != bd2) && (bd2 instanceof Wall) && ((Wall) bd2).isClimbable()) {
-                        cat.decrementRightWalled();
-                    }
-                    // Left sensor walled
-                    if (((cat.getLeftSensorName().equals(fd1)) && cat != bd2) && (bd2 instanceof Wall) && ((Wall) bd2).isClimbable()) {
-                        cat.decrementLeftWalled();
-                    }
-
-                    if (bd2 instanceof SpiritRegion){
-                        cat.removeSpiritRegion((SpiritRegion) bd2);
-                    }
-
-                    if (bd2 instanceof Exit) {
-                        didChange = false;
-                    }
-
-                    if (bd2 instanceof Checkpoint && ((Checkpoint) bd2).getSensorName().equals(fd2)){
-                        ((Checkpoint) (bd2)).removeTouching();
-                    }
-
-                    if (bd2 instanceof CameraRegion) {
-                        ((CameraRegion) bd2).removeFixture();
-                        Array<CameraRegion> cameraRegions = level.getCameraRegions();
-                        for(int index = 0; index < cameraRegions.size; index++){
-                            if(cameraRegions.get(index) == bd2 && cameraRegions.get(index).getFixtureCount() == 0){
-                                cameraRegions.removeIndex(index);
-                                break;
-                            }
-                        }
-                        if(level.getCameraRegions().isEmpty()){
-                            if(level.getCat().isActive()) {
-                                camera.setDefaultZoom(Camera.CAMERA_ZOOM);
-                                camera.setGameplayBounds(camera.getLevelBounds(), level.getScale(), false);
-                            }
-                        }
-                        else {
-                            CameraRegion relevantRegion = maxCollidingCamRegion(cameraRegions);
-                            camera.setDefaultZoom(relevantRegion.getZoom());
-                            if(relevantRegion.shouldSnap()){
-                                camera.setGameplayBounds(relevantRegion.getSnapBounds(), relevantRegion.getDrawScale(), true);
-                            }
-                            else{
-                                camera.setGameplayBounds(camera.getLevelBounds(), relevantRegion.getDrawScale(), false);
-                            }
-                        }
-                    }
+    /**
+     * Callback method for a fixture of the cat or a dead body exiting a trigger.
+     *
+     * @param body     the cat or a dead body
+     * @param trigger  the trigger
+     */
+    public void exitTrigger(Obstacle body, Obstacle trigger) {
+        if (body instanceof DeadBody) {
+            if (trigger instanceof SpiritRegion) ((DeadBody) body).removeSpiritRegion((SpiritRegion) trigger);
+            return;
+        }
+        Cat cat = (Cat) body;
+        if (trigger instanceof Exit) {
+            didChange = false;
+        } else if (trigger instanceof Checkpoint) {
+            ((Checkpoint) trigger).removeTouching();
+        } else if (trigger instanceof SpiritRegion) {
+            cat.removeSpiritRegion((SpiritRegion) trigger);
+        } else if (trigger instanceof CameraRegion) {
+            ((CameraRegion) trigger).removeFixture();
+            Array<CameraRegion> cameraRegions = level.getCameraRegions();
+            for(int index = 0; index < cameraRegions.size; index++){
+                if(cameraRegions.get(index) == trigger && cameraRegions.get(index).getFixtureCount() == 0){
+                    cameraRegions.removeIndex(index);
+                    break;
                 }
-
-                //dead body collisions
-                if (bd1 instanceof DeadBody) {
-                    DeadBody db = (DeadBody) bd1;
-                    if (bd2 instanceof Spikes) {
-                        if (fd1.equals(DeadBody.catBodyName) && fd2.equals(Spikes.pointyName)){
-                            db.removeHazard();
-                        }
-                    } else if (bd2 instanceof Flamethrower.Flame) {
-                        db.removeFlame();
-                    } else if (bd2 instanceof Laser && fd1.equals(DeadBody.catBodyName) && fd2.equals(Laser.laserHitboxName)) {
-                        db.removeHazard();
-                    } else if (bd2 instanceof SpiritRegion){
-                        db.removeSpiritRegion((SpiritRegion) bd2);
-                    }
+            }
+            if(cameraRegions.isEmpty()){
+                if(cat.isActive()) {
+                    camera.setDefaultZoom(Camera.CAMERA_ZOOM);
+                    camera.setGameplayBounds(camera.getLevelBounds(), level.getScale(), false);
                 }
-
-                // Check mobs
-//        if (fd1 instanceof Mob) {
-//            ((Mob) fd1).setFacingRight(!((Mob) fd1).isFacingRight());
-//        } else if (fd2 instanceof Mob) {
-//            ((Mob) fd1).setFacingRight(!((Mob) fd1).isFacingRight());
-//        }
-
-                if (bd1 instanceof Movable && !fix2.isSensor() && bd1 != bd2 && bd2 != cat && ((Movable) bd1).getGroundSensorName().equals(fd1)) {
-                    ((Movable) bd1).getGroundFixtures().remove(fix2);
+            }
+            else {
+                CameraRegion relevantRegion = maxCollidingCamRegion(cameraRegions);
+                camera.setDefaultZoom(relevantRegion.getZoom());
+                if(relevantRegion.shouldSnap()){
+                    camera.setGameplayBounds(relevantRegion.getSnapBounds(), relevantRegion.getDrawScale(), true);
                 }
-
-
-                // Check for button
-                if (fd2 instanceof Activator) {
-                    ((Activator) fd2).removePress();
+                else{
+                    camera.setGameplayBounds(camera.getLevelBounds(), relevantRegion.getDrawScale(), false);
                 }
-
-                //swap everything
-                Body bodyTemp = body1;
-                body1 = body2;
-                body2 = bodyTemp;
-
-                Obstacle bdTemp = bd1;
-                bd1 = bd2;
-                bd2 = bdTemp;
-
-                Object fdTemp = fd1;
-                fd1 = fd2;
-                fd2 = fdTemp;
-
-                Fixture fixTemp = fix1;
-                fix1 = fix2;
-                fix2 = fixTemp;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
@@ -377,69 +382,205 @@ public class CollisionController implements ContactListener, ContactFilter {
     /** Unused ContactListener method */
     public void preSolve(Contact contact, Manifold oldManifold) {}
 
-    /**Contact Filter method */
-    public boolean shouldCollide(Fixture fix1, Fixture fix2) {
-        Body body1 = fix1.getBody();
-        Body body2 = fix2.getBody();
-
-        Object fd1 = fix1.getUserData();
-        Object fd2 = fix2.getUserData();
-
-        try {
-            Obstacle bd1 = (Obstacle) body1.getUserData();
-            Obstacle bd2 = (Obstacle) body2.getUserData();
-
-            for (int i = 0; i < 2; i++) {
-
-                //sensors do not turn on activators
-                if (bd1 instanceof Activator && fix2.isSensor()) { return false; }
-
-                if (fd1 != null && fd1.equals(level.getCat().getGroundSensorName()) && fix2.isSensor()) { return false; }
-
-                if (bd1 instanceof Door && bd2 instanceof Door) return false;
-
-                if (bd1 instanceof Platform && bd2 instanceof Platform) return false;
-
-                if (bd1 instanceof Wall && bd2 instanceof Platform) return false;
+    /**
+     * Fills in the handlers for the start of a contact. Each handler sees the contact from the point of view of the
+     * obstacle in its row.
+     *
+     * @param table  directed handler table to fill
+     */
+    private void addBeginHandlers(ContactHandler[][] table) {
+        //cat collisions
+        onCat(table, -1, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            // See if we have landed on the ground.
+            if (!fix2.isSensor() && role1 == CAT_GROUND_SENSOR) {
+                level.getCat().setGrounded(true);
+            }
+        });
+        onCat(table, WALL, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            // See if either side is touching a wall
+            if (((Wall) bd2).isClimbable()) {
+                if (role1 == CAT_RIGHT_SENSOR) level.getCat().incrementRightWalled();
+                if (role1 == CAT_LEFT_SENSOR) level.getCat().incrementLeftWalled();
+            }
+        });
+        onCat(table, SPIKES, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role2 == SPIKES_POINTY && role1 == CAT_BODY) {
+                kill("death-spike");
+            }
+        });
+        onCat(table, FLAME, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role2 == FLAME_SENSOR) {
+                kill("death-fire");
+            }
+        });
+        onCat(table, LASER, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role2 == LASER_HITBOX) {
+                kill("death-laser");
+            }
+        });
+        onCat(table, MOB, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            kill("death-mob");
+        });
+        onCat(table, GOAL, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (((Goal) bd2).isFinal()) {
+                //TODO: finished the game. go to credits!
+                gameFinished = true;
+            }
+            ((Goal) bd2).activate();
+            actionController.recombineLives();
+        });
+
+        //dead body collisions
+        on(table, DEAD_BODY, SPIKES, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            DeadBody db = (DeadBody) bd1;
+            if (role1 == DEAD_BODY_SPIKES_SENSOR && role2 == SPIKES_CENTER) {
+                actionController.fixBodyToSpikes(db, (Spikes) bd2, event.getPoints());
+            }
+            if (role1 == DEAD_BODY_CAT_BODY && role2 == SPIKES_POINTY){
+                db.addHazard();
+            }
+        });
+        on(table, DEAD_BODY, FLAME, (event, bd1, bd2, fix1, fix2, role1, role2) -> ((DeadBody) bd1).addFlame());
+        on(table, DEAD_BODY, LASER, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role1 == DEAD_BODY_CAT_BODY && role2 == LASER_HITBOX) ((DeadBody) bd1).addHazard();
+        });
+
+        //Add ground fixture to moveable
+        for (int type : new int[]{CAT, DEAD_BODY, BOX}) {
+            on(table, type, -1, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+                if (!fix2.isSensor() && bd1 != bd2 && bd2 != level.getCat() && role1 == ((Movable) bd1).getGroundSensorRole()) {
+                    if (((Movable) bd1).getGroundFixtures().add(fix2)) level.getSupportGraph().addSupport(fix2, bd1);
+                }
+            });
+        }
 
-                if (bd1 instanceof Door && bd2 instanceof Wall) return false;
+        // TODO: fix collisions when obstacles collide with top and bottom
+        // Mob changes direction when hits a wall
+        for (int type = 0; type < NUM_TYPES; type++) {
+            if (type == CAT || type == DEAD_BODY || type == BOX) continue;
+            on(table, MOB, type, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+                if (!fix2.isSensor()) ((Mob) bd1).setFacingRight(!((Mob) bd1).isFacingRight());
+            });
+        }
 
-                if (bd1 instanceof Door && bd2 instanceof Platform) return false;
+        // Activator
+        on(table, ACTIVATOR, -1, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role1 == ACTIVATOR_FIXTURE) {
+                ((Activator) bd1).addPress();
+                actionController.playSoundEffect("button-click");
+            }
+        });
+    }
 
-                //spikes and dead bodies
-                if (bd1 instanceof Spikes && bd2 instanceof DeadBody) {
-//                    System.out.println(fd1 + " and " + fd2 + ": " + (fd2.equals(DeadBody.centerSensorName) && fd1.equals(Spikes.centerName)));
-                    return !fd1.equals(Spikes.solidName) && !fd2.equals(DeadBody.hitboxSensorName);
+    /**
+     * Fills in the handlers for the end of a contact. Each handler sees the contact from the point of view of the
+     * obstacle in its row.
+     *
+     * @param table  directed handler table to fill
+     */
+    private void addEndHandlers(ContactHandler[][] table) {
+        //cat collisions
+        onCat(table, -1, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            Cat cat = level.getCat();
+            if (role1 == CAT_GROUND_SENSOR && cat != bd2) {
+                if (cat.getGroundFixtures().remove(fix2)) level.getSupportGraph().removeSupport(fix2, cat);
+                if (cat.getGroundFixtures().size == 0) {
+                    cat.setGrounded(false);
                 }
-
-                //cat and spikes
-                if (bd1 instanceof Spikes && bd2 instanceof Cat) {
-                    return !fd1.equals(Spikes.solidName);
+            }
+        });
+        onCat(table, WALL, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            // Side sensors walled
+            if (((Wall) bd2).isClimbable()) {
+                if (role1 == CAT_RIGHT_SENSOR) level.getCat().decrementRightWalled();
+                if (role1 == CAT_LEFT_SENSOR) level.getCat().decrementLeftWalled();
+            }
+        });
+
+        //dead body collisions
+        on(table, DEAD_BODY, SPIKES, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role1 == DEAD_BODY_CAT_BODY && role2 == SPIKES_POINTY) ((DeadBody) bd1).removeHazard();
+        });
+        on(table, DEAD_BODY, FLAME, (event, bd1, bd2, fix1, fix2, role1, role2) -> ((DeadBody) bd1).removeFlame());
+        on(table, DEAD_BODY, LASER, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role1 == DEAD_BODY_CAT_BODY && role2 == LASER_HITBOX) ((DeadBody) bd1).removeHazard();
+        });
+
+        for (int type : new int[]{CAT, DEAD_BODY, BOX}) {
+            on(table, type, -1, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+                if (!fix2.isSensor() && bd1 != bd2 && bd2 != level.getCat() && role1 == ((Movable) bd1).getGroundSensorRole()) {
+                    if (((Movable) bd1).getGroundFixtures().remove(fix2)) level.getSupportGraph().removeSupport(fix2, bd1);
                 }
+            });
+        }
 
-                //swap everything
-                Body bodyTemp = body1;
-                body1 = body2;
-                body2 = bodyTemp;
+        // Check for button
+        on(table, ACTIVATOR, -1, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (role1 == ACTIVATOR_FIXTURE) ((Activator) bd1).removePress();
+        });
+    }
 
-                Obstacle bdTemp = bd1;
-                bd1 = bd2;
-                bd2 = bdTemp;
+    /**
+     * Adds a handler for contacts between the current cat and another type. Cats of other loaded levels are ignored.
+     *
+     * @param table    directed handler table
+     * @param other    type tag of the other obstacle, or -1 for every type
+     * @param handler  handler to add
+     */
+    private void onCat(ContactHandler[][] table, int other, ContactHandler handler) {
+        on(table, CAT, other, (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            if (bd1 == level.getCat()) handler.handle(event, bd1, bd2, fix1, fix2, role1, role2);
+        });
+    }
 
-                Object fdTemp = fd1;
-                fd1 = fd2;
-                fd2 = fdTemp;
+    /**
+     * Adds a handler to a directed table. Handlers added to the same pair run in the order they were added.
+     *
+     * @param table    directed handler table
+     * @param type     type tag of the first obstacle
+     * @param other    type tag of the second obstacle, or -1 for every type
+     * @param handler  handler to add
+     */
+    private static void on(ContactHandler[][] table, int type, int other, ContactHandler handler) {
+        if (other < 0) {
+            for (int i = 0; i < NUM_TYPES; i++) on(table, type, i, handler);
+            return;
+        }
+        ContactHandler prev = table[type][other];
+        table[type][other] = prev == null ? handler : (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+            prev.handle(event, bd1, bd2, fix1, fix2, role1, role2);
+            handler.handle(event, bd1, bd2, fix1, fix2, role1, role2);
+        };
+    }
 
-                Fixture fixTemp = fix1;
-                fix1 = fix2;
-                fix2 = fixTemp;
+    /**
+     * Combines a directed handler table into one that handles both points of view of a contact, so that a contact
+     * only needs one lookup. Entry <code>[a][b]</code> runs the directed <code>[a][b]</code> handler, and then the
+     * directed <code>[b][a]</code> handler with the obstacles swapped.
+     *
+     * @param directed  directed handler table
+     * @return combined handler table
+     */
+    private static ContactHandler[][] symmetric(ContactHandler[][] directed) {
+        ContactHandler[][] table = new ContactHandler[NUM_TYPES][NUM_TYPES];
+        for (int a = 0; a < NUM_TYPES; a++) {
+            for (int b = 0; b < NUM_TYPES; b++) {
+                ContactHandler ab = directed[a][b];
+                ContactHandler ba = directed[b][a];
+                if (ab != null && ba != null) {
+                    table[a][b] = (event, bd1, bd2, fix1, fix2, role1, role2) -> {
+                        ab.handle(event, bd1, bd2, fix1, fix2, role1, role2);
+                        ba.handle(event, bd2, bd1, fix2, fix1, role2, role1);
+                    };
+                } else if (ab != null) {
+                    table[a][b] = ab;
+                } else if (ba != null) {
+                    table[a][b] = (event, bd1, bd2, fix1, fix2, role1, role2) ->
+                            ba.handle(event, bd2, bd1, fix2, fix1, role2, role1);
+                }
             }
-
-
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return true;
+        return table;
     }
 
     /**
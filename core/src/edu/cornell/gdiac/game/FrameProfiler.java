@@ -0,0 +1,246 @@
+/*
+ * FrameProfiler.java
+ *
+ * Times the phases of GameController.render so that frame spikes can be traced back
+ * to the phase that caused them. Each phase keeps a ring buffer of per-frame samples,
+ * and the distribution of every phase is printed when the player leaves a level.
+ * The heap allocated by each gameplay tick is measured the same way, since garbage
+ * collection pauses show up as frame spikes too.
+ */
+package edu.cornell.gdiac.game;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * A lightweight profiler for the phases of a frame.
+ *
+ * Phases are timed with {@link #start} and {@link #stop}. A phase may run several times in a
+ * frame (the simulation phases run once per fixed step), so the times are summed and recorded
+ * as one sample per frame by {@link #endFrame}. Samples are kept in a fixed ring buffer per phase,
+ * so recording never allocates or locks. Only the game thread writes and reads the buffers.
+ *
+ * The times are measured on the CPU. A GPU-bound phase shows up wherever the driver blocks,
+ * which is usually the framebuffer pass or the buffer swap.
+ *
+ * Gameplay ticks are bracketed by {@link #startTick} and {@link #stopTick}, which record the bytes
+ * allocated by the game thread during the tick. This uses the HotSpot extension of
+ * {@link ThreadMXBean}, and is skipped on JVMs that do not support it.
+ */
+public class FrameProfiler {
+	/** The timed phases of a frame */
+	public enum Phase {
+		INPUT("readInput"),
+		ACTIONS("ActionController.update"),
+		QUEUED("addQueuedObjects/Joints"),
+		PHYSICS("world.step"),
+		CONTACTS("CollisionController.dispatch"),
+		POST_ACTIONS("ActionController.postUpdate"),
+		DRAW_PREV("Level.draw (prev)"),
+		DRAW_CURR("Level.draw (curr)"),
+		DRAW_NEXT("Level.draw (next)"),
+		LIGHTS("updateAndRenderRayHandler"),
+		HUD("hud.draw"),
+		POST_PROCESS("framebuffer pass"),
+		FRAME("whole frame");
+
+		/** Name of the phase in the dump */
+		public final String label;
+
+		Phase(String label) {
+			this.label = label;
+		}
+	}
+
+	/** Number of frames kept for each phase, about a minute at 60fps */
+	private static final int CAPACITY = 4096;
+	/** Cached values of Phase.values() */
+	private static final Phase[] PHASES = Phase.values();
+
+	/** Ring buffer of samples for each phase, in nanoseconds */
+	private final long[][] samples = new long[PHASES.length][CAPACITY];
+	/** Total number of samples recorded for each phase; the next sample goes at count % CAPACITY */
+	private final long[] counts = new long[PHASES.length];
+	/** Time each phase has taken so far in this frame */
+	private final long[] frameNanos = new long[PHASES.length];
+	/** Start time of each running phase */
+	private final long[] starts = new long[PHASES.length];
+	/** Whether each phase ran in this frame */
+	private final boolean[] ran = new boolean[PHASES.length];
+	/** Scratch buffer for sorting samples */
+	private final long[] sorted = new long[CAPACITY];
+	/** Whether the profiler is recording */
+	private boolean enabled;
+
+	/** Thread allocation counters, or null if the JVM does not support them */
+	private com.sun.management.ThreadMXBean threads;
+	/** Id of the game thread */
+	private long threadId;
+	/** Bytes allocated by reading the allocation counter itself */
+	private long meterOverhead;
+	/** Allocation counter of the game thread when the tick started */
+	private long tickStart;
+	/** Ring buffer of bytes allocated per tick */
+	private final long[] tickBytes = new long[CAPACITY];
+	/** Total number of ticks recorded */
+	private long tickCount;
+	/** Number of recorded ticks that allocated anything */
+	private long allocatingTicks;
+
+	/**
+	 * @return whether the profiler is recording
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns recording on or off. When off, timing a phase does nothing.
+	 *
+	 * @param enabled  whether to record
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		clear();
+		threads = null;
+		if (enabled) initAllocationMeter();
+	}
+
+	/**
+	 * Looks up the allocation counter of the calling thread, which must be the game thread.
+	 */
+	private void initAllocationMeter() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (!(bean instanceof com.sun.management.ThreadMXBean)) return;
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (!sunBean.isThreadAllocatedMemorySupported()) return;
+			sunBean.setThreadAllocatedMemoryEnabled(true);
+			threads = sunBean;
+			threadId = Thread.currentThread().getId();
+			//reading the counter allocates a little on some JVMs, which should not be blamed on the tick
+			long first = threads.getThreadAllocatedBytes(threadId);
+			long second = threads.getThreadAllocatedBytes(threadId);
+			meterOverhead = Math.max(second - first, 0);
+		} catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+			System.err.println("Allocation meter not supported: " + e);
+			threads = null;
+		}
+	}
+
+	/**
+	 * Starts measuring the heap allocated by a gameplay tick.
+	 */
+	public void startTick() {
+		if (threads == null) return;
+		tickStart = threads.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 * Stops measuring the heap allocated by a gameplay tick, and records it.
+	 */
+	public void stopTick() {
+		if (threads == null) return;
+		long bytes = Math.max(threads.getThreadAllocatedBytes(threadId) - tickStart - meterOverhead, 0);
+		tickBytes[(int) (tickCount % CAPACITY)] = bytes;
+		tickCount++;
+		if (bytes > 0) allocatingTicks++;
+	}
+
+	/**
+	 * Starts timing a phase.
+	 *
+	 * @param phase  the phase
+	 */
+	public void start(Phase phase) {
+		if (!enabled) return;
+		starts[phase.ordinal()] = System.nanoTime();
+	}
+
+	/**
+	 * Stops timing a phase, adding the elapsed time to this frame.
+	 *
+	 * @param phase  the phase
+	 */
+	public void stop(Phase phase) {
+		if (!enabled) return;
+		int i = phase.ordinal();
+		frameNanos[i] += System.nanoTime() - starts[i];
+		ran[i] = true;
+	}
+
+	/**
+	 * Records one sample for every phase that ran since the last call.
+	 */
+	public void endFrame() {
+		if (!enabled) return;
+		for (int i = 0; i < PHASES.length; i++) {
+			if (!ran[i]) continue;
+			samples[i][(int) (counts[i] % CAPACITY)] = frameNanos[i];
+			counts[i]++;
+			frameNanos[i] = 0;
+			ran[i] = false;
+		}
+	}
+
+	/**
+	 * Removes every sample.
+	 */
+	public void clear() {
+		tickCount = 0;
+		allocatingTicks = 0;
+		Arrays.fill(counts, 0);
+		Arrays.fill(frameNanos, 0);
+		Arrays.fill(ran, false);
+	}
+
+	/**
+	 * Prints the p50, p95, p99 and worst frame of every phase, in milliseconds, and the same
+	 * distribution of the bytes allocated per tick. Then removes every sample.
+	 *
+	 * @param levelNum  level the samples were recorded on
+	 */
+	public void dump(int levelNum) {
+		if (!enabled || counts[Phase.FRAME.ordinal()] == 0) return;
+		StringBuilder out = new StringBuilder();
+		out.append("Frame profile for level ").append(levelNum).append(" (ms)\n");
+		out.append(String.format("%-30s %8s %8s %8s %8s %8s%n", "phase", "frames", "p50", "p95", "p99", "worst"));
+		for (int i = 0; i < PHASES.length; i++) {
+			int n = (int) Math.min(counts[i], CAPACITY);
+			if (n == 0) continue;
+			System.arraycopy(samples[i], 0, sorted, 0, n);
+			Arrays.sort(sorted, 0, n);
+			out.append(String.format("%-30s %8d %8.3f %8.3f %8.3f %8.3f%n", PHASES[i].label, counts[i],
+					millis(percentile(n, 0.50)), millis(percentile(n, 0.95)),
+					millis(percentile(n, 0.99)), millis(sorted[n - 1])));
+		}
+		int n = (int) Math.min(tickCount, CAPACITY);
+		if (n > 0) {
+			System.arraycopy(tickBytes, 0, sorted, 0, n);
+			Arrays.sort(sorted, 0, n);
+			out.append(String.format("%-30s %8s %8s %8s %8s %8s%n", "allocated per tick (bytes)", "ticks", "p50", "p95", "p99", "worst"));
+			out.append(String.format("%-30s %8d %8d %8d %8d %8d%n", "gameplay tick", tickCount,
+					percentile(n, 0.50), percentile(n, 0.95), percentile(n, 0.99), sorted[n - 1]));
+			out.append(String.format("%d of %d ticks allocated%n", allocatingTicks, tickCount));
+		}
+		System.out.print(out);
+		clear();
+	}
+
+	/**
+	 * Returns a percentile of the first <code>n</code> sorted samples, by the nearest-rank method.
+	 *
+	 * @param n  number of sorted samples
+	 * @param p  percentile, between 0 and 1
+	 * @return the sample at that percentile
+	 */
+	private long percentile(int n, double p) {
+		int rank = (int) Math.ceil(p * n);
+		return sorted[Math.max(rank - 1, 0)];
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+}
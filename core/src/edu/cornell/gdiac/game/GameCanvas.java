@@ -6,6 +6,7 @@ import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.graphics.glutils.*;
+import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
@@ -104,10 +105,25 @@ public class GameCanvas {
 	private Vector2 vertex;
 	/** Cache object to handle raw textures */
 	private TextureRegion holder;
-	protected ShaderProgram spiritModeShader;
 	protected ShaderProgram greyscaleShader;
+	/** Fullscreen effects applied when the main frame buffer is drawn */
+	private PostProcessor postProcessor;
 	private FrameBuffer mainFrameBuffer;
+	/** Picks the fraction of the native resolution that <code>mainFrameBuffer</code> is rendered at */
+	private final RenderScaler renderScaler = new RenderScaler();
 	private final Matrix4 FBO_PROJECTION = new Matrix4().setToOrtho2D(0,0,1,1);
+	/** Shader set on the sprite batch by this canvas, or null for the default shader */
+	private ShaderProgram currentShader;
+	/** Rendering counters of the current frame */
+	private RenderStats stats;
+	/** Value of the sprite batch's totalRenderCalls when the frame began */
+	private int frameRenderCalls;
+	/** Projection matrix used to draw the render stats overlay in screen pixels */
+	private final Matrix4 overlayProjection = new Matrix4();
+	/** Cache for laying out text */
+	private final GlyphLayout layout = new GlyphLayout();
+	/** Font for the render stats overlay, created when the overlay is first drawn */
+	private BitmapFont overlayFont;
 
 	/**
 	 * Creates a new GameCanvas determined by the application configuration.
@@ -143,12 +159,12 @@ public class GameCanvas {
 
 		//shaders
 		ShaderProgram.pedantic =false;
-		spiritModeShader = new ShaderProgram(spriteBatch.getShader().getVertexShaderSource(),
-				Gdx.files.internal("shaders/portal.frag").readString());
 		greyscaleShader = new ShaderProgram(spriteBatch.getShader().getVertexShaderSource(),
 				Gdx.files.internal("shaders/greyscale.frag").readString());
+		postProcessor = new PostProcessor(spriteBatch.getShader().getVertexShaderSource());
 
-		mainFrameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight(), false);
+		createFrameBuffer();
+		stats = new RenderStats();
 
 		setBlendState(BlendState.NO_PREMULT);
 
@@ -165,10 +181,14 @@ public class GameCanvas {
 		spriteBatch = null;
 		debugRender.dispose();
 		mainFrameBuffer.dispose();
-		spiritModeShader.dispose();
+		renderScaler.dispose();
+		postProcessor.dispose();
 		greyscaleShader.dispose();
+		stats.dispose();
+		if (overlayFont != null) overlayFont.dispose();
+		overlayFont = null;
 		greyscaleShader = null;
-		spiritModeShader = null;
+		postProcessor = null;
 		debugRender = null;
 		mainFrameBuffer = null;
 		local  = null;
@@ -334,10 +354,53 @@ ef	 * <br><br>
 		 viewport.update(width, height, true);
 
 		 if (getWidth() != 0 && getHeight() != 0) {
-			 mainFrameBuffer.dispose();
-			 mainFrameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight(), false);
+			 createFrameBuffer();
 		 }
 	}
+
+	/**
+	 * (Re)creates the main frame buffer at the render scale of the back buffer. The scene is upscaled with linear
+	 * filtering when it is drawn to the screen.
+	 */
+	private void createFrameBuffer() {
+		if (mainFrameBuffer != null) mainFrameBuffer.dispose();
+		float scale = renderScaler.getScale();
+		mainFrameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888,
+				Math.max(1, Math.round(Gdx.graphics.getBackBufferWidth() * scale)),
+				Math.max(1, Math.round(Gdx.graphics.getBackBufferHeight() * scale)), false);
+		Texture.TextureFilter filter = scale < 1 ? Texture.TextureFilter.Linear : Texture.TextureFilter.Nearest;
+		mainFrameBuffer.getColorBufferTexture().setFilter(filter, filter);
+	}
+
+	/**
+	 * Returns the fraction of the native resolution that the scene is rendered at.
+	 *
+	 * @return the render scale
+	 */
+	public float getRenderScale() {
+		return renderScaler.getScale();
+	}
+
+	/**
+	 * Sets a fixed fraction of the native resolution to render the scene at, and stops adapting it.
+	 *
+	 * @param scale  the render scale, clamped between {@link RenderScaler#MIN_SCALE} and {@link RenderScaler#MAX_SCALE}
+	 */
+	public void setRenderScale(float scale) {
+		renderScaler.setAdaptive(false);
+		renderScaler.setScale(scale);
+		createFrameBuffer();
+	}
+
+	/**
+	 * Sets whether the render scale adapts to the measured frame time, so that heavy frames are rendered at a lower
+	 * resolution instead of missing the frame budget.
+	 *
+	 * @param adaptive  whether to adapt the render scale
+	 */
+	public void setAdaptiveRenderScale(boolean adaptive) {
+		renderScaler.setAdaptive(adaptive);
+	}
 	
 	/**
 	 * Returns the current color blending state for this canvas.
@@ -382,6 +445,58 @@ ef	 * <br><br>
 		blend = state;
 	}
 
+	/**
+	 * Returns the rendering counters, which are filled in between beginFrame() and endFrame().
+	 *
+	 * @return the rendering counters
+	 */
+	public RenderStats getRenderStats() {
+		return stats;
+	}
+
+	/**
+	 * Starts counting the rendering work of a new animation frame.
+	 */
+	public void beginFrame() {
+		renderScaler.beginFrame();
+		stats.begin();
+		frameRenderCalls = spriteBatch.totalRenderCalls;
+	}
+
+	/**
+	 * Finishes counting the rendering work of an animation frame.
+	 *
+	 * @param levelNum  the level that was drawn, used to export the counters
+	 */
+	public void endFrame(int levelNum) {
+		stats.renderCalls = spriteBatch.totalRenderCalls - frameRenderCalls;
+		stats.end(levelNum);
+		if (renderScaler.endFrame(Gdx.graphics.getDeltaTime())) createFrameBuffer();
+	}
+
+	/**
+	 * Draws the counters of the last frame in the top left corner of the screen, if the overlay is visible.
+	 * <br><br>
+	 * This must be called outside of a drawing sequence, and after endFrame() so the overlay is not counted.
+	 */
+	public void drawRenderStats() {
+		if (!stats.isVisible()) return;
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot draw stats while drawing active", new IllegalStateException());
+			return;
+		}
+		HdpiUtils.glViewport(0, 0, getWidth(), getHeight());
+		overlayProjection.setToOrtho2D(0, 0, getWidth(), getHeight());
+		spriteBatch.setProjectionMatrix(overlayProjection);
+		//the default libGDX font, so that the overlay does not depend on the game's assets
+		if (overlayFont == null) overlayFont = new BitmapFont();
+		spriteBatch.begin();
+		overlayFont.draw(spriteBatch, stats.getText(), 10, getHeight() - 10, 0, Align.left, false);
+		spriteBatch.end();
+		spriteBatch.setProjectionMatrix(camera.getCamera().combined);
+		applyViewport(false);
+	}
+
 	/**
 	 * Clear the screen, so we can start a new animation frame
 	 */
@@ -445,7 +560,24 @@ ef	 * <br><br>
 	public void beginFrameBuffer(){
 		begin();
 		mainFrameBuffer.begin();
+		stats.frameBufferPasses++;
 		ScreenUtils.clear(Color.BLACK);
+		applyFrameBufferViewport();
+	}
+
+	/**
+	 * Sets the GL viewport to the area of the main frame buffer that the viewport covers on screen, so that the scene
+	 * is letterboxed the same way at any render scale. The camera is updated like {@link #applyViewport}.
+	 */
+	public void applyFrameBufferViewport() {
+		viewport.apply(false);
+		float sx = (float) mainFrameBuffer.getWidth() / Gdx.graphics.getBackBufferWidth();
+		float sy = (float) mainFrameBuffer.getHeight() / Gdx.graphics.getBackBufferHeight();
+		Gdx.gl.glViewport(
+				Math.round(HdpiUtils.toBackBufferX(viewport.getScreenX()) * sx),
+				Math.round(HdpiUtils.toBackBufferY(viewport.getScreenY()) * sy),
+				Math.round(HdpiUtils.toBackBufferX(viewport.getScreenWidth()) * sx),
+				Math.round(HdpiUtils.toBackBufferY(viewport.getScreenHeight()) * sy));
 	}
 
 	/**
@@ -461,26 +593,15 @@ ef	 * <br><br>
 	 *
 	 * @param shader   Shader to use.
 	 */
-	public void setShader(ShaderProgram shader) { spriteBatch.setShader(shader); }
+	public void setShader(ShaderProgram shader) { swapShader(shader); }
 
 
 	/**
-	 * Sets the spritebatch to use the spiritmode portal effect shader.
+	 * Returns the post-processing pipeline, whose effects are applied by {@link #drawFrameBuffer}.
 	 *
-	 * @param diameter    diameter of the portal effect in uv coordinates
-	 * @param thickness   thickness (in unspecified units) of the fading part of the portal
-	 * @param bgColor     color of the solid part of the portal
-	 * @param edgeColor   color of the fading part of the portal
-	 * @param time        time since shader was initially applied
+	 * @return the post-processing pipeline
 	 */
-	public void setSpiritModeShader(float diameter, float thickness, Color bgColor, Color edgeColor, float time) {
-		spriteBatch.setShader(spiritModeShader);
-		spiritModeShader.setUniformf("u_radius", diameter);
-		spiritModeShader.setUniformf("u_thickness", thickness);
-		spiritModeShader.setUniformf("u_bgColor", bgColor);
-		spiritModeShader.setUniformf("u_edgeColor", edgeColor);
-		spiritModeShader.setUniformf("u_time", time);
-	}
+	public PostProcessor getPostProcessor() { return postProcessor; }
 
 	/**
 	 * Sets the spritebatch to use the greyscale shader.
@@ -488,10 +609,23 @@ ef	 * <br><br>
 	 * @param greyScale  The amount of greyscale to apply: 0 is none, 1 is full.
 	 */
 	public void setGreyscaleShader(float greyScale) {
-		spriteBatch.setShader(greyscaleShader);
+		swapShader(greyscaleShader);
 		greyscaleShader.setUniformf("u_greyscale", greyScale);
 	}
 
+	/**
+	 * Sets the shader of the sprite batch, counting it if the shader changes.
+	 *
+	 * @param shader   Shader to use, or null for the default shader.
+	 */
+	private void swapShader(ShaderProgram shader) {
+		if (shader != currentShader) {
+			stats.shaderSwaps++;
+			currentShader = shader;
+		}
+		spriteBatch.setShader(shader);
+	}
+
 	/**
 	 * Projects a vector in world units into pixel units, then returns the ratio of its position with respect to
 	 * the screen dimensions. This is specifically used by the shockwave shader effect to get the position of the
@@ -536,20 +670,27 @@ ef	 * <br><br>
 		spriteBatch.end();
 		rayHandler.prepareRender();
 		mainFrameBuffer.begin();
+		stats.frameBufferPasses++;
 		rayHandler.renderOnly();
 		mainFrameBuffer.end();
 		spriteBatch.begin();
 	}
 
 	/**
-	 * Draws the captured framebuffer into the main canvas.
+	 * Draws the captured framebuffer into the main canvas, applying the effects of the post-processor in the same
+	 * pass.
 	 */
 	public void drawFrameBuffer() {
+		Texture scene = mainFrameBuffer.getColorBufferTexture();
 		spriteBatch.setColor(Color.WHITE);
 		setBlendState(BlendState.ALPHA_BLEND);
 		spriteBatch.setProjectionMatrix(FBO_PROJECTION);
-		spriteBatch.draw(mainFrameBuffer.getColorBufferTexture(), 0, 0, 1, 1, 0, 0, 1, 1);
+		ShaderProgram shader = postProcessor.getShader();
+		swapShader(shader);
+		if (shader != null) postProcessor.setUniforms();
+		spriteBatch.draw(scene, 0, 0, 1, 1, 0, 0, 1, 1);
 		spriteBatch.flush(); //this is problem line for debug...
+		swapShader(null);
 		spriteBatch.setProjectionMatrix(camera.getCamera().combined);
 		setBlendState(BlendState.NO_PREMULT);
 		applyViewport(false);
@@ -824,6 +965,39 @@ ef	 * <br><br>
 		spriteBatch.draw(region, region.getRegionWidth(), region.getRegionHeight(), local);
 	}
 
+	/**
+	 * Draws sprites that were compiled into a sprite cache.
+	 * <br><br>
+	 * The sprite batch is flushed first so that the cached sprites are layered in order with everything
+	 * drawn so far. The cache is drawn with the current shader, blend function and projection of the batch.
+	 *
+	 * @param cache  the sprite cache
+	 * @param ids    ids of the cached sprites to draw, as returned by {@link SpriteCache#endCache()}
+	 * @param count  number of ids to draw
+	 */
+	public void drawCache(SpriteCache cache, int[] ids, int count) {
+		if (active != DrawPass.STANDARD) {
+			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+			return;
+		}
+		if (count == 0) return;
+
+		spriteBatch.end();
+		Gdx.gl.glEnable(GL20.GL_BLEND);
+		Gdx.gl.glBlendFuncSeparate(spriteBatch.getBlendSrcFunc(), spriteBatch.getBlendDstFunc(),
+				spriteBatch.getBlendSrcFuncAlpha(), spriteBatch.getBlendDstFuncAlpha());
+		cache.setProjectionMatrix(spriteBatch.getProjectionMatrix());
+		cache.setTransformMatrix(spriteBatch.getTransformMatrix());
+		cache.setShader(spriteBatch.getShader());
+		cache.begin();
+		for (int i = 0; i < count; i++) {
+			cache.draw(ids[i]);
+		}
+		cache.end();
+		stats.cacheDraws += count;
+		spriteBatch.begin();
+	}
+
 	/**
 	 * Draws the tinted texture with the given transformations
 	 * <br><br>
@@ -1057,7 +1231,7 @@ ef	 * <br><br>
 			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
 			return;
 		}
-		GlyphLayout layout = new GlyphLayout(font,text);
+		layout.setText(font,text);
 		font.draw(spriteBatch, layout, x, y);
 	}
 
@@ -1074,7 +1248,7 @@ ef	 * <br><br>
 			return;
 		}
 
-		GlyphLayout layout = new GlyphLayout(font,text);
+		layout.setText(font,text);
 		float x = (getWidth()  - layout.width) / 2.0f;
 		float y = (getHeight() + layout.height) / 2.0f;
 		font.draw(spriteBatch, layout, x, y+offset);
@@ -1311,7 +1485,7 @@ ef	 * <br><br>
 			return;
 		}
 		debugRender.setColor(color);
-		debugRender.line(p1.scl(new Vector2(sx, sy)), p2.scl(new Vector2(sx, sy)));
+		debugRender.line(p1.x*sx, p1.y*sy, p2.x*sx, p2.y*sy);
 	}
 
 	/**
@@ -1333,8 +1507,10 @@ ef	 * <br><br>
 		Path2 path = pathFactory.makeLine(0, 0, (p2.x-p1.x)*sx+0, (p2.y-p1.y)*sy+0);
 		extruder.set(path);
 		extruder.calculate(thickness);
+		PolygonRegion poly = extruder.getPolygon().makePolyRegion(region);
+		stats.polygonVertices += poly.getVertices().length/2;
 		spriteBatch.setColor(color);
-		spriteBatch.draw(extruder.getPolygon().makePolyRegion(region), p1.x*sx, p1.y*sx);
+		spriteBatch.draw(poly, p1.x*sx, p1.y*sx);
 	}
 
 	/**
@@ -1364,6 +1540,7 @@ ef	 * <br><br>
 			return;
 		}
 		PolygonRegion rect = polyFactory.makeRect(x*sx, y*sy, w*sx, h*sy).makePolyRegion(region);
+		stats.polygonVertices += rect.getVertices().length/2;
 		spriteBatch.setColor(color);
 		spriteBatch.draw(rect, 0,0);
 	}
@@ -1387,8 +1564,10 @@ ef	 * <br><br>
 		Path2 splinePath = pather.getPath();
 		extruder.set(splinePath);
 		extruder.calculate(thickness);
+		PolygonRegion poly = extruder.getPolygon().makePolyRegion(region);
+		stats.polygonVertices += poly.getVertices().length/2;
 		spriteBatch.setColor(color);
-		spriteBatch.draw(extruder.getPolygon().makePolyRegion(region), 0, 0);
+		spriteBatch.draw(poly, 0, 0);
 	}
 
 	private float[] getPoints(Array<Vector2> points, float sx, float sy){
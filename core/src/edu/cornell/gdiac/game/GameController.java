@@ -4,6 +4,7 @@ import box2dLight.RayHandler;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.utils.*;
 import com.badlogic.gdx.graphics.*;
@@ -17,6 +18,7 @@ import edu.cornell.gdiac.game.stage.CreditsStage;
 import edu.cornell.gdiac.game.stage.HudStage;
 import edu.cornell.gdiac.util.ScreenListener;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 
 /**
@@ -43,18 +45,26 @@ public class GameController implements Screen {
     public static final int WORLD_VELOC = 6;
     /** Number of position iterations for the constraint solvers */
     public static final int WORLD_POSIT = 2;
+    /** Maximum number of physics steps to catch up on in a single frame */
+    private static final int MAX_STEPS_PER_FRAME = 5;
+    /** Longest frame time that is fed into the simulation, so that a long stall does not fast-forward the game */
+    private static final float MAX_FRAME_TIME = 0.25f;
+    /** Simulation time that has elapsed but not yet been consumed by a physics step */
+    private float accumulator;
+    /** Whether the last tick stepped the world. If not, everything is drawn where it is instead of interpolated */
+    private boolean stepped = true;
     /** Whether debug mode is active */
     private boolean debug;
     /** The default sound volume */
     private float volume;
-    /** JSON representing the level */
-    private JsonValue levelJV;
+    /** Tiled JSON file of the level */
+    private FileHandle levelFile;
     /** Whether to return to previous level */
     private boolean ret;
     /** Reference to the game canvas */
     protected GameCanvas canvas;
     /** The maximum number of lives in the game */
-    private static final int MAX_NUM_LIVES = 9;
+    static final int MAX_NUM_LIVES = 9;
     /** The hashmap for texture regions */
     private HashMap<String, TextureRegion> textureRegionAssetMap;
 //    /** The hashmap for sounds */
@@ -89,12 +99,18 @@ public class GameController implements Screen {
     private int numLevels;
     /** The current level index */
     private int levelNum;
-    /** JSON for the previous level */
-    private JsonValue prevJV;
-    /** JSON for the next level */
-    private JsonValue nextJV;
+    /** Tiled JSON file of the previous level */
+    private FileHandle prevFile;
+    /** Tiled JSON file of the next level */
+    private FileHandle nextFile;
     /** The AssetDirectory */
     private AssetDirectory directory;
+    /** The "levels" section of the asset JSON, which maps level keys to Tiled JSON files */
+    private JsonValue levelFiles;
+    /** Parses upcoming levels in the background */
+    private LevelLoader levelLoader;
+    /** Maximum number of objects added to a partially loaded adjacent level per physics step */
+    private static final int POPULATE_OBJECTS_PER_STEP = 16;
 
     /** Temporary list of activatables to pan to */
     private Array<Activatable> panTarget = new Array<>();
@@ -124,7 +140,7 @@ public class GameController implements Screen {
     private float effectSize;
     public AudioController audioController;
     /** only not null if quick launched from Tiled */
-    private JsonValue quickLaunchLevel;
+    private FileHandle quickLaunchLevel;
     private boolean LIGHTS_ACTIVE = true;
     private Color spiritModeColor = new Color(1, 1, 1, 1);
     private boolean drawAdjacentLevels;
@@ -153,6 +169,18 @@ public class GameController implements Screen {
 
     /** RayHandler that takes care of Box2DLights. This MUST be associated with the active World at all times. */
     private RayHandler rayHandler;
+    /** Picks which lights of the current level are recast every frame */
+    private final LightManager lightManager = new LightManager();
+    /** Cache for the combined matrix of the RayHandler */
+    private final Matrix4 lightMatrix = new Matrix4();
+    /** Cache for the area visible through the camera, in physics units */
+    private final Rectangle lightView = new Rectangle();
+    /** Fraction of the screen resolution that the RayHandler light map is rendered at by default */
+    private static final float LIGHT_MAP_SCALE = 0.25f;
+    /** Render scale the light map was last sized for, or a negative number if it must be sized */
+    private float lightMapRenderScale = -1;
+    /** Times the phases of each frame, dumped when leaving a level */
+    private final FrameProfiler profiler = new FrameProfiler();
 
     /**
      * Points <code>currLevel</code>, <code>nextLevel</code> and <code>prevLevel</code> to the correct elements of the
@@ -215,16 +243,16 @@ public class GameController implements Screen {
     }
 
     /**
-     * Gets the JSON for the currently active level
-     * @return JSON for currently active level
+     * Gets the Tiled JSON file for the currently active level
+     * @return Tiled JSON file for currently active level
      */
-    public JsonValue getJSON() { return levelJV; }
+    public FileHandle getLevelFile() { return levelFile; }
 
     /**
-     * Sets the JSON to be used for the currently active level
-     * @param level Sets JSON for currently active level
+     * Sets the Tiled JSON file to be used for the currently active level
+     * @param level Sets Tiled JSON file for currently active level
      */
-    public void setJSON(JsonValue level) { levelJV = level; }
+    public void setLevelFile(FileHandle level) { levelFile = level; }
 
     /**
      * Sets the ScreenListener for this mode
@@ -246,6 +274,7 @@ public class GameController implements Screen {
                           JsonValue constants){
         //for now levelcontroller will have access to these assets, but in the future we may see that it is unnecessary
         textureRegionAssetMap = tMap;
+        levelLoader.setAssets(tMap);
         fontAssetMap = fMap;
         constantsJSON = constants;
         setConstants(constants);
@@ -263,7 +292,7 @@ public class GameController implements Screen {
      *
      * @param constants  Constants JSON
      */
-    private static void setConstants(JsonValue constants){
+    static void setConstants(JsonValue constants){
         DeadBody.setConstants(constants.get("deadBody"));
         Flamethrower.setConstants(constants.get("flamethrowers"));
         PushableBox.setConstants(constants.get("boxes"));
@@ -279,6 +308,7 @@ public class GameController implements Screen {
         Exit.setConstants(constants.get("exits"));
         Door.setConstants(constants.get("doors"));
         Mob.setConstants(constants.get("mobs"));
+        PerceptionScheduler.setConstants(constants.get("mobs"));
         Goal.setConstants(constants.get("goal"));
     }
 
@@ -302,8 +332,7 @@ public class GameController implements Screen {
      */
     protected GameController(String filepath, AudioController audioController) {
         this(new Vector2(0,DEFAULT_GRAVITY), new Vector2(DEFAULT_SCALE,DEFAULT_SCALE), 1, audioController);
-        JsonReader json = new JsonReader();
-        quickLaunchLevel = json.parse(Gdx.files.internal(filepath));
+        quickLaunchLevel = Gdx.files.internal(filepath);
     }
 
     /**
@@ -328,6 +357,7 @@ public class GameController implements Screen {
             levels[i] = new Level(world, scale, MAX_NUM_LIVES, rayHandler);
         }
         currLevelIndex = 1;
+        levelLoader = new LevelLoader();
 
         setLevels();
         actionController = new ActionController(scale, audioController);
@@ -359,25 +389,30 @@ public class GameController implements Screen {
      * The next level is loaded in<br>
      */
     public void nextLevel(){
+        profiler.dump(levelNum);
+        nextLevel.finishPopulate();
         levelNum++;
         Save.setProgress(levelNum);
-        prevJV = getJSON();
-        setJSON(nextJV);
+        prevFile = getLevelFile();
+        setLevelFile(nextFile);
         setRet(false);
 
         currLevelIndex = (currLevelIndex + 1) % 3;
         currLevel.setComplete(false);
         setLevels();
 //        respawn();
-        currLevel.setCat(prevLevel.getCat());
-        currLevel.updateCheckpoints(prevLevel.getCheckpoint(), true); //because checkpoints and exits lie on the same position
+        //the cat must leave the support graph of its old level before it joins the new one
+        Cat cat = prevLevel.getCat();
         prevLevel.removeCat();
+        currLevel.setCat(cat);
+        currLevel.updateCheckpoints(prevLevel.getCheckpoint(), true); //because checkpoints and exits lie on the same position
 
         nextLevel.dispose();
         if (levelNum < numLevels) {
-            nextJV = tiledJSON(levelNum + 1);
-            nextLevel.populateTiled(nextJV, currLevel.bounds.x + currLevel.bounds.width, currLevel.bounds.y, levelNum + 1, currLevel.goalY, true);
+            nextFile = tiledFile(levelNum + 1);
+            nextLevel.beginPopulate(levelLoader.take(levelNum + 1, nextFile, compiledLevel(levelNum + 1)), currLevel.bounds.x + currLevel.bounds.width, currLevel.bounds.y, currLevel.goalY, true);
         }
+        prepareAdjacentLevels();
         initCurrLevel(true);
         collisionController.setDidChange(true);
         drawAdjacentLevels = true;
@@ -393,24 +428,28 @@ public class GameController implements Screen {
      * The previous level is loaded in<br>
      */
     public void prevLevel(){
+        profiler.dump(levelNum);
+        prevLevel.finishPopulate();
         levelNum--;
-        nextJV = getJSON();
-        setJSON(prevJV);
+        nextFile = getLevelFile();
+        setLevelFile(prevFile);
         setRet(false);
         if (levelNum > 1) {
-            prevJV = tiledJSON(levelNum - 1);
+            prevFile = tiledFile(levelNum - 1);
         }
         currLevelIndex = Math.floorMod(currLevelIndex - 1,  3);
         setLevels();
 
-        currLevel.setCat(nextLevel.getCat());
+        Cat cat = nextLevel.getCat();
         nextLevel.removeCat();
+        currLevel.setCat(cat);
 
         prevLevel.dispose();
         if (levelNum > 1) {
-            prevJV = tiledJSON(levelNum - 1);
-            prevLevel.populateTiled(prevJV, currLevel.bounds.x, currLevel.bounds.y, levelNum - 1, currLevel.returnY, false);
+            prevFile = tiledFile(levelNum - 1);
+            prevLevel.beginPopulate(levelLoader.take(levelNum - 1, prevFile, compiledLevel(levelNum - 1)), currLevel.bounds.x, currLevel.bounds.y, currLevel.returnY, false);
         }
+        prepareAdjacentLevels();
 
         initCurrLevel(true);
         collisionController.setDidChange(true);
@@ -420,13 +459,35 @@ public class GameController implements Screen {
     }
 
     /**
-     * Loads in the JSON of a level
+     * Starts parsing the levels that will become adjacent once the player moves to the next or previous level, and
+     * drops any other levels that were being parsed.
+     */
+    private void prepareAdjacentLevels(){
+        levelLoader.retain(levelNum - 2, levelNum + 2);
+        if (levelNum + 2 <= numLevels) levelLoader.prepare(levelNum + 2, tiledFile(levelNum + 2), compiledLevel(levelNum + 2));
+        if (levelNum - 2 >= 1) levelLoader.prepare(levelNum - 2, tiledFile(levelNum - 2), compiledLevel(levelNum - 2));
+    }
+
+    /**
+     * Returns the Tiled JSON file of a level. The file is only read if the level has no usable compiled blob.
      *
      * @param levelNum the number associated with the level to be loaded in
-     * @return JSON of the level
+     * @return Tiled JSON file of the level
+     */
+    private FileHandle tiledFile(int levelNum){
+        return quickLaunchLevel == null ? Gdx.files.internal(levelFiles.getString("tiledLevel" + levelNum)) : quickLaunchLevel;
+    }
+
+    /**
+     * Returns the compiled blob of a level (see {@link LevelCompiler}).
+     *
+     * @param levelNum the number associated with the level
+     * @return the compiled level, or null if it has not been compiled or we quick launched from Tiled
      */
-    private JsonValue tiledJSON(int levelNum){
-        return quickLaunchLevel == null ? directory.getEntry("tiledLevel" + levelNum, JsonValue.class) : quickLaunchLevel;
+    private ByteBuffer compiledLevel(int levelNum){
+        String key = "compiledLevel" + levelNum;
+        if (quickLaunchLevel != null || !directory.hasEntry(key, ByteBuffer.class)) return null;
+        return directory.getEntry(key, ByteBuffer.class);
     }
 
     /**
@@ -504,7 +565,7 @@ public class GameController implements Screen {
         for (String n : names){
 //            System.out.println(n);
 //            System.out.println(directory.getEntry(n, Texture.class));
-            textureRegionAssetMap.put(n, new TextureRegion(directory.getEntry(n, Texture.class)));
+            textureRegionAssetMap.put(n, directory.getEntry(n, TextureRegion.class));
         }
 
         names = new String[]{"jump", "dash", "metal-landing", "meow-1", "meow-2", "meow-3", "death-fall",
@@ -524,18 +585,51 @@ public class GameController implements Screen {
 
         constants = directory.getEntry("constants", JsonValue.class);
         this.directory = directory;
+        //the Tiled JSONs are not in a loaded section of the asset JSON, so that they are not all parsed at startup
+        levelFiles = new JsonReader().parse(Gdx.files.internal(directory.getDirectory())).get("levels");
 
         background = textureRegionAssetMap.get("bg-lab").getTexture();
 
         setAssets(textureRegionAssetMap, fontAssetMap, constants);
-        setJSON(tiledJSON(1));
-        nextJV = tiledJSON(2);
+        setLevelFile(tiledFile(1));
+        nextFile = tiledFile(2);
 
         //Set controls
         InputController.getInstance().setControls(directory.getEntry("controls", JsonValue.class));
+    }
+
+    /**
+     * Turns the frame profiler on or off. When on, the timings of each phase of a frame and the
+     * heap allocated per tick are printed whenever the player leaves a level.
+     *
+     * @param enabled  whether to profile frames
+     */
+    public void setProfiling(boolean enabled) {
+        profiler.setEnabled(enabled);
+    }
+
+    /**
+     * Starts recording input to a binary log and restarts the current level, so that the
+     * recording starts from a known state with a fresh session seed.
+     *
+     * @param fileName  file to record to
+     */
+    public void recordInput(String fileName) {
+        InputController.getInstance().writeTo(fileName, levelNum);
+        //rebuild the world rather than restoring it, so that the recording starts from the same state as its replay
+        init(levelNum);
+    }
 
-//		InputController.getInstance().writeTo("debug-input/recent.txt");
-//		InputController.getInstance().readFrom("debug-input/recent.txt");
+    /**
+     * Loads the level a binary input log was recorded on and replays the log from the start.
+     * The session is reproduced frame for frame until the log runs out, after which the keyboard
+     * takes over again.
+     *
+     * @param fileName  file to replay
+     */
+    public void replayInput(String fileName) {
+        int level = InputController.getInstance().readFrom(fileName);
+        if (level > 0) init(level);
     }
 
     public void updateControls() {
@@ -561,16 +655,37 @@ public class GameController implements Screen {
 
     /**
      * Resets the status of the game so that we can play again.
+     * <br><br>
+     * If the current level has been populated, the levels are restored from the snapshots taken when they were
+     * populated, keeping the world, lights and bodies. Otherwise, the levels are reloaded with {@link #init(int)}.
      */
-    protected void reset(){ init(levelNum); }
+    protected void reset(){
+        if (!currLevel.hasInitialState()) {
+            init(levelNum);
+            return;
+        }
+        for (Level level : levels) {
+            level.finishPopulate();
+            if (level.hasInitialState()) level.restoreInitialState();
+        }
+        collisionController.setReturn(false);
+        setRet(false);
+
+        respawn(false);
+        currLevel.getCat().setActive(true);
+        justRespawned = true;
+        justReset = true;
+        initCurrLevel(false);
+    }
 
     /**
-     * Initializes the game from a given level number.
+     * Initializes the game from a given level number, rebuilding the world and lights.
      *
      * Note that this method simply repopulates the existing levels. Care needs to be taken to
      * properly dispose the level so that the level reset is clean.
      */
     protected void init(int levelNum) {
+        profiler.dump(this.levelNum);
         this.levelNum = levelNum;
 
         prevLevel.dispose();
@@ -584,6 +699,7 @@ public class GameController implements Screen {
         }
 
         rayHandler = new RayHandler(world);
+        lightMapRenderScale = -1;
         rayHandler.setAmbientLight(0.5f, 0.5f, 0.5f, 1f);
 
         justRespawned = true;
@@ -597,20 +713,20 @@ public class GameController implements Screen {
         currLevel.setRayHandler(rayHandler);
         nextLevel.setRayHandler(rayHandler);
         world.setContactListener(collisionController);
-        world.setContactFilter(collisionController);
         collisionController.setReturn(false);
         setRet(false);
 
-        levelJV = tiledJSON(levelNum);
-        currLevel.populateTiled(levelJV, levelNum);
+        levelFile = tiledFile(levelNum);
+        currLevel.populateTiled(levelLoader.take(levelNum, levelFile, compiledLevel(levelNum)), 0, 0, currLevel.returnY, null);
         if (levelNum < numLevels) {
-            nextJV = tiledJSON(levelNum + 1);
-            nextLevel.populateTiled(nextJV, currLevel.bounds.x + currLevel.bounds.width, currLevel.bounds.y, levelNum + 1, currLevel.goalY, true);
+            nextFile = tiledFile(levelNum + 1);
+            nextLevel.populateTiled(levelLoader.take(levelNum + 1, nextFile, compiledLevel(levelNum + 1)), currLevel.bounds.x + currLevel.bounds.width, currLevel.bounds.y, currLevel.goalY, true);
         }
         if (levelNum > 1) {
-            prevJV = tiledJSON(levelNum - 1);
-            prevLevel.populateTiled(prevJV, currLevel.bounds.x, currLevel.bounds.y, levelNum - 1, currLevel.returnY, false);
+            prevFile = tiledFile(levelNum - 1);
+            prevLevel.populateTiled(levelLoader.take(levelNum - 1, prevFile, compiledLevel(levelNum - 1)), currLevel.bounds.x, currLevel.bounds.y, currLevel.returnY, false);
         }
+        prepareAdjacentLevels();
 
         initCurrLevel(false);
 
@@ -637,9 +753,15 @@ public class GameController implements Screen {
         canvas.getCamera().setLevelBounds(currLevel.bounds, scale, true);
         canvas.getCamera().setGameplayBounds(currLevel.bounds, scale, true);
         canvas.getCamera().updateCamera(currLevel.getCat().getPosition().x*scale.x, currLevel.getCat().getPosition().y*scale.y, cameraGlide, canvas.getCamera().getGameplayBounds());
-        currLevel.unpause();
-        nextLevel.pause();
-        prevLevel.pause();
+        if (!cameraGlide) canvas.getCamera().savePreviousPosition();
+        currLevel.resume();
+        if (cameraGlide) {
+            //adjacent levels are drawn until the camera reaches the new level
+            nextLevel.pause();
+            prevLevel.pause();
+        } else {
+            suspendAdjacentLevels();
+        }
         undoTime = 0;
 
         if (audioController.getCurrMusic().equals("metal") && currLevel.getBiome().equals("forest")) {
@@ -652,16 +774,27 @@ public class GameController implements Screen {
         resume();
     }
 
+    /**
+     * Turns off the bodies and lights of the previous and next levels until the player moves to one of them.
+     */
+    private void suspendAdjacentLevels(){
+        nextLevel.suspend();
+        prevLevel.suspend();
+    }
+
     /**
      * Dispose of all (non-static) resources allocated to this mode.
      */
     public void dispose() {
+        profiler.dump(levelNum);
         prevLevel.dispose();
         currLevel.dispose();
         nextLevel.dispose();
+        levelLoader.dispose();
         world.dispose();
         rayHandler.dispose();
         rayHandler = null;
+        InputController.getInstance().stopRecording();
         scale  = null;
         canvas = null;
     }
@@ -683,7 +816,9 @@ public class GameController implements Screen {
         }
 
         InputController input = InputController.getInstance();
+        profiler.start(FrameProfiler.Phase.INPUT);
         input.readInput();
+        profiler.stop(FrameProfiler.Phase.INPUT);
         // Toggle debug
 //        if (input.didDebug()) {
 //            debug = !debug;
@@ -753,7 +888,9 @@ public class GameController implements Screen {
         if (collisionController.getReturn()) {
             setRet(true);
         }
+        profiler.start(FrameProfiler.Phase.ACTIONS);
         actionController.update(dt);
+        profiler.stop(FrameProfiler.Phase.ACTIONS);
 
         currLevel.getSpiritLine().setOuterColor(spiritModeColor);
         flashColor.a -= flashColor.a/10;
@@ -776,23 +913,39 @@ public class GameController implements Screen {
      */
     public void postUpdate(float dt) {
         // Add any objects created by actions
+        profiler.start(FrameProfiler.Phase.QUEUED);
         currLevel.addQueuedObjects();
         currLevel.addQueuedJoints();
+        profiler.stop(FrameProfiler.Phase.QUEUED);
+        nextLevel.populateStep(POPULATE_OBJECTS_PER_STEP);
+        prevLevel.populateStep(POPULATE_OBJECTS_PER_STEP);
 
         // Turn the physics engine crank.
+        currLevel.savePreviousPositions();
+        profiler.start(FrameProfiler.Phase.PHYSICS);
         world.step(WORLD_STEP,WORLD_VELOC,WORLD_POSIT);
+        profiler.stop(FrameProfiler.Phase.PHYSICS);
+
+        // Handle the contacts of the step, now that the world can be changed
+        profiler.start(FrameProfiler.Phase.CONTACTS);
+        collisionController.dispatchContacts();
+        collisionController.updateTriggers();
+        profiler.stop(FrameProfiler.Phase.CONTACTS);
 
         // Update objects
+        profiler.start(FrameProfiler.Phase.POST_ACTIONS);
         actionController.postUpdate(dt);
+        profiler.stop(FrameProfiler.Phase.POST_ACTIONS);
         justRespawned = false;
         justReset = false;
 
         if (InputController.getInstance().didUndo()) {
             Array<Level.LevelState> levelStates = currLevel.levelStates();
             if (undoTime < MAX_UNDO_TIME && levelStates.size > 1) {
-                levelStates.pop();
+                currLevel.popState();
             }
             loadLevelState(levelStates.peek(), false);
+            currLevel.savePreviousPositions();
             undoTime = 0;
             flashColor.set(1, 1, 1, 1);
         }
@@ -933,6 +1086,7 @@ public class GameController implements Screen {
             if(!cam.isGliding()){
                 gameState = GameState.PLAY;
                 drawAdjacentLevels = false;
+                suspendAdjacentLevels();
             }
         }
 
@@ -945,10 +1099,19 @@ public class GameController implements Screen {
             input.setDisableAll(true);
         }
     }
+    /**
+     * Called when the Screen should render itself.
+     * <br><br>
+     * The simulation is advanced in fixed steps of <code>WORLD_STEP</code>, independent of the display
+     * frame rate. Leftover time is carried over to the next frame and used to interpolate obstacle
+     * positions when drawing. At most <code>MAX_STEPS_PER_FRAME</code> steps are taken per frame; if we fall
+     * further behind than that, the extra time is dropped and the game slows down instead of stalling.
+     *
+     * @param delta Number of seconds since last animation frame
+     */
     @Override
     public void render(float delta) {
         //FOR DEBUGGING
-		delta = 1/60f;
 		if (Gdx.input.isKeyPressed(Input.Keys.F)){
 			try {
 				Thread.sleep(500);
@@ -956,19 +1119,43 @@ public class GameController implements Screen {
 				Thread.currentThread().interrupt();
 			}
 		}
-        if (!paused && preUpdate(delta)) {
-            update(delta); // This is the one that must be defined.
-            postUpdate(delta);
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            canvas.getRenderStats().setVisible(!canvas.getRenderStats().isVisible());
         }
-        else {
-            updateCamera();
+        profiler.start(FrameProfiler.Phase.FRAME);
+        accumulator += Math.min(delta, MAX_FRAME_TIME);
+        int steps = 0;
+        while (accumulator >= WORLD_STEP && steps < MAX_STEPS_PER_FRAME) {
+            accumulator -= WORLD_STEP;
+            steps++;
+            canvas.getCamera().savePreviousPosition();
+            profiler.startTick();
+            if (!paused && preUpdate(WORLD_STEP)) {
+                update(WORLD_STEP); // This is the one that must be defined.
+                postUpdate(WORLD_STEP);
+                profiler.stopTick();
+                stepped = true;
+            } else {
+                profiler.stopTick();
+                // Nothing moved, so hold every obstacle still instead of interpolating towards a stale step
+                currLevel.savePreviousPositions();
+                stepped = false;
+                updateCamera();
+                if (!paused) break;
+            }
         }
+        if (steps == MAX_STEPS_PER_FRAME) accumulator = Math.min(accumulator, WORLD_STEP);
+        Obstacle.setInterpolationAlpha(stepped ? Math.min(accumulator / WORLD_STEP, 1) : 1);
+        canvas.getCamera().interpolate(Obstacle.getInterpolationAlpha());
 
         // Main game draw
+        canvas.beginFrame();
         draw(delta);
 
         if (LIGHTS_ACTIVE) {
+            profiler.start(FrameProfiler.Phase.LIGHTS);
             updateAndRenderRayHandler();
+            profiler.stop(FrameProfiler.Phase.LIGHTS);
         }
 
         if (gameFinished) {
@@ -980,9 +1167,15 @@ public class GameController implements Screen {
             }
         } else {
             // Menu draw
+            profiler.start(FrameProfiler.Phase.HUD);
             hud.draw();
+            profiler.stop(FrameProfiler.Phase.HUD);
             if (paused && stageController != null) { stageController.render(delta); }
         }
+        canvas.endFrame(levelNum);
+        canvas.drawRenderStats();
+        profiler.stop(FrameProfiler.Phase.FRAME);
+        profiler.endFrame();
     }
 
     /**
@@ -994,14 +1187,25 @@ public class GameController implements Screen {
      * in the combined matrix takes care of the transformation for us for all lights.
      */
     private void updateAndRenderRayHandler() {
+        if (canvas.getRenderScale() != lightMapRenderScale) {
+            // The light map follows the render scale of the scene
+            lightMapRenderScale = canvas.getRenderScale();
+            float lightMapScale = LIGHT_MAP_SCALE * lightMapRenderScale;
+            rayHandler.resizeFBO(Math.max(1, Math.round(Gdx.graphics.getWidth() * lightMapScale)),
+                    Math.max(1, Math.round(Gdx.graphics.getHeight() * lightMapScale)));
+        }
         OrthographicCamera c = canvas.getCamera().getCamera();
+        // The view size is in light units too, or the RayHandler culls lights against a view 32 times too big
         rayHandler.setCombinedMatrix(
-                c.combined.cpy().scl(DEFAULT_SCALE),
+                lightMatrix.set(c.combined).scl(DEFAULT_SCALE),
                 c.position.x / DEFAULT_SCALE,
                 c.position.y / DEFAULT_SCALE,
-                c.viewportWidth * c.zoom,
-                c.viewportHeight * c.zoom
+                c.viewportWidth * c.zoom / DEFAULT_SCALE,
+                c.viewportHeight * c.zoom / DEFAULT_SCALE
         );
+        canvas.getCamera().getViewBounds(lightView);
+        lightView.set(lightView.x / scale.x, lightView.y / scale.y, lightView.width / scale.x, lightView.height / scale.y);
+        lightManager.update(currLevel, lightView);
         Viewport vp = canvas.getViewport();
         int bufferScale = Math.round(Gdx.graphics.getBackBufferScale());
         rayHandler.useCustomViewport(
@@ -1024,6 +1228,7 @@ public class GameController implements Screen {
     @Override
     public void resize(int width, int height) {
         hud.getViewport().update(width, height, true);
+        lightMapRenderScale = -1;
     }
 
     /**
@@ -1077,7 +1282,6 @@ public class GameController implements Screen {
 
         canvas.clear();
         canvas.beginFrameBuffer();
-        canvas.applyViewport(false);
         if (currLevel.getBiome() != null && currLevel.getBiome().equals("metal")) {
             background = textureRegionAssetMap.get("bg-lab").getTexture();
         } else {
@@ -1085,26 +1289,35 @@ public class GameController implements Screen {
         }
 
         if (effectSize > 0) { canvas.setGreyscaleShader(effectSize); }
-        canvas.draw(background, Color.WHITE, canvas.getCamera().getX() - canvas.getWidth()/2f, canvas.getCamera().getY()  - canvas.getHeight()/2f, canvas.getWidth(), canvas.getHeight());
+        Vector3 camPos = canvas.getCamera().getCamera().position;
+        canvas.draw(background, Color.WHITE, camPos.x - canvas.getWidth()/2f, camPos.y  - canvas.getHeight()/2f, canvas.getWidth(), canvas.getHeight());
 
         if (drawAdjacentLevels) { //TODO: only draw when necessary
+            profiler.start(FrameProfiler.Phase.DRAW_PREV);
             prevLevel.draw(canvas, false, effectSize);
+            profiler.stop(FrameProfiler.Phase.DRAW_PREV);
+            profiler.start(FrameProfiler.Phase.DRAW_NEXT);
             nextLevel.draw(canvas, false, effectSize);
+            profiler.stop(FrameProfiler.Phase.DRAW_NEXT);
         }
+        profiler.start(FrameProfiler.Phase.DRAW_CURR);
         currLevel.draw(canvas, gameState != GameState.RESPAWN, effectSize);
+        profiler.stop(FrameProfiler.Phase.DRAW_CURR);
 
+        profiler.start(FrameProfiler.Phase.POST_PROCESS);
         canvas.endFrameBuffer();
 
+        PostProcessor postProcessor = canvas.getPostProcessor();
+        postProcessor.setPortalEnabled(effectSize > 0);
         if (effectSize > 0) {
-            canvas.setSpiritModeShader(1.8f - 0.525f * effectSize, 0.3f,
+            postProcessor.setPortal(1.8f - 0.525f * effectSize, 0.3f,
                     spiritModeColor, spiritModeColor, spiritModeTicks/60f);
         }
+        postProcessor.setFlash(flashColor);
         canvas.drawFrameBuffer(); //applyViewport within here
 
-        if (effectSize > 0) canvas.setShader(null);
-        canvas.drawRectangle(canvas.getCamera().getX() - canvas.getWidth()/2f, canvas.getCamera().getY()  - canvas.getHeight()/2f, canvas.getWidth(), canvas.getHeight(), flashColor, 1, 1);
-
         canvas.end();
+        profiler.stop(FrameProfiler.Phase.POST_PROCESS);
 
         if (debug) {
             canvas.beginDebug();
@@ -1126,27 +1339,30 @@ public class GameController implements Screen {
     private void loadLevelState(Level.LevelState state, boolean cameraMovement){
         currLevel.setNumLives(state.numLives);
         for (Obstacle obs : currLevel.getObjects()){
-
             if (obs instanceof DeadBody){
                 //need to remove and rebuild dead body array because number of dead bodies can change between saved states
-                DeadBody db = (DeadBody) obs;
-                currLevel.removeDeadBody(db);
-            } else {
-
-                obs.loadState(state.obstacleData.get(obs));
+                currLevel.removeDeadBody((DeadBody) obs);
+            }
+        }
 
-                if (obs instanceof Spikes){
-                    ((Spikes) obs).destroyJoints(world);
-                }
+        for (int i = 0; i < state.numObstacles(); i++){
+            Obstacle obs = state.getObstacle(i);
+            if (obs.isRemoved()) continue;
+            state.loadObstacle(i);
+            if (obs instanceof Spikes){
+                ((Spikes) obs).destroyJoints(world);
             }
         }
+        currLevel.markPhysicsChanged();
+        currLevel.getSupportGraph().invalidateEdges();
 
         // rebuild dead body array
-        for (ObjectMap<String, Object> dbState : state.deadBodyData){
-            DeadBody db = currLevel.loadDeadBodyState(dbState);
-            HashMap<Spikes, Vector2> jointInfo = (HashMap<Spikes, Vector2>) dbState.get("jointInfo");
-            for (Spikes s : jointInfo.keySet()){
-                actionController.fixBodyToSpikes(db, s, new Vector2[]{db.getBody().getWorldPoint(jointInfo.get(s))});
+        for (int i = 0; i < state.numDeadBodies(); i++){
+            DeadBody db = currLevel.loadDeadBodyState(state.deadBodyState(i));
+            Array<Spikes> jointSpikes = db.getLoadedJointSpikes();
+            for (int j = 0; j < jointSpikes.size; j++){
+                Vector2 anchor = db.getLoadedJointAnchor(j, new Vector2());
+                actionController.fixBodyToSpikes(db, jointSpikes.get(j), new Vector2[]{db.getBody().getWorldPoint(anchor)});
             }
         }
 
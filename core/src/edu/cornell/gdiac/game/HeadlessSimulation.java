@@ -0,0 +1,287 @@
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.game.object.Cat;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+
+/**
+ * Runs levels without a GL context, audio or lights.
+ * <br><br>
+ * Only the Box2D world, the level model, the <code>ActionController</code> and the <code>CollisionController</code>
+ * are created, and the simulation is stepped as fast as the CPU allows. This is meant for regression checks and
+ * benchmarking on machines without a GPU, and should be run from inside a libGDX headless application so that
+ * <code>Gdx.files</code> is available.
+ * <br><br>
+ * Object constructors still need textures to size themselves, so every texture in the asset JSON is replaced by a
+ * stub of the same dimensions. The dimensions are read from the PNG header, so no image data is ever decoded.
+ */
+public class HeadlessSimulation {
+    /** The Box2D world */
+    private World world;
+    /** The level being simulated */
+    private Level level;
+    /** The number of the level being simulated */
+    private int levelNum;
+    /** The world scale */
+    private final Vector2 scale;
+    /** The ActionController */
+    private final ActionController actionController;
+    /** The CollisionController */
+    private final CollisionController collisionController;
+    /** Camera that follows the cat like the camera of the game, so mobs are culled by its view; never drawn */
+    private final Camera camera;
+    /** Stub textures for every texture in the asset JSON */
+    private final HashMap<String, TextureRegion> textureRegionAssetMap;
+    /** The "levels" section of the asset JSON, used to look up levels */
+    private final JsonValue levelFiles;
+    /** Number of physics steps taken since the level was loaded */
+    private int ticks;
+
+    /**
+     * Creates a new headless simulation from an asset JSON.
+     *
+     * @param assetsFile  internal path to the asset JSON, e.g. <code>jsons/assets.json</code>
+     */
+    public HeadlessSimulation(String assetsFile) {
+        if (Gdx.gl == null) {
+            Gdx.gl = Gdx.gl20 = noOpGL();
+        }
+        JsonReader reader = new JsonReader();
+        JsonValue assets = reader.parse(Gdx.files.internal(assetsFile));
+        JsonValue jsonAssets = assets.get("jsons");
+        levelFiles = assets.get("levels");
+        textureRegionAssetMap = stubTextures(assets.get("textures"));
+
+        GameController.setConstants(reader.parse(Gdx.files.internal(jsonAssets.getString("constants"))));
+        InputController.getInstance().setControls(reader.parse(Gdx.files.internal(jsonAssets.getString("controls"))));
+
+        scale = new Vector2(GameController.DEFAULT_SCALE, GameController.DEFAULT_SCALE);
+        camera = new Camera(GameCanvas.STANDARD_WIDTH, GameCanvas.STANDARD_HEIGHT);
+        actionController = new ActionController(scale, null);
+        actionController.setCamera(camera);
+        collisionController = new CollisionController(actionController);
+        collisionController.setCamera(camera);
+    }
+
+    /**
+     * Disposes the current level and world, and loads a level from scratch.
+     *
+     * @param levelNum  the number of the level, as in the <code>levels</code> section of the asset JSON
+     */
+    public void loadLevel(int levelNum) {
+        dispose();
+        this.levelNum = levelNum;
+        world = new World(new Vector2(0, GameController.DEFAULT_GRAVITY), true);
+        world.setContactListener(collisionController);
+
+        level = new Level(world, scale, GameController.MAX_NUM_LIVES, null);
+        level.setAssets(textureRegionAssetMap);
+        FileHandle levelFile = Gdx.files.internal(levelFiles.getString("tiledLevel" + levelNum));
+        level.populateTiled(new JsonReader().parse(levelFile), levelNum);
+
+        collisionController.setLevel(level);
+        collisionController.setReturn(false);
+        actionController.setLevel(level);
+        actionController.setMobControllers(level);
+        if (level.levelStates().size == 0) level.saveState();
+        camera.setLevelBounds(level.bounds, scale, true);
+        camera.setGameplayBounds(level.bounds, scale, true);
+        Cat cat = level.getCat();
+        camera.updateCamera(cat.getPosition().x*scale.x, cat.getPosition().y*scale.y, false, camera.getGameplayBounds());
+        ticks = 0;
+    }
+
+    /**
+     * Advances the simulation by one physics step, in the same order as <code>GameController</code>.
+     * <br><br>
+     * Deaths respawn the cat immediately and running out of lives reloads the level.
+     *
+     * @return true if the level was completed during this step
+     */
+    public boolean step() {
+        InputController.getInstance().readInput();
+        if (level.isFailure()) {
+            loadLevel(levelNum);
+            return false;
+        }
+        if (level.getDied()) {
+            level.setDied(false);
+            Cat cat = level.getCat();
+            cat.reset();
+            cat.setPosition(level.getRespawnPos());
+        }
+
+        actionController.update(GameController.WORLD_STEP);
+        updateCamera();
+
+        level.addQueuedObjects();
+        level.addQueuedJoints();
+        level.savePreviousPositions();
+        world.step(GameController.WORLD_STEP, GameController.WORLD_VELOC, GameController.WORLD_POSIT);
+        collisionController.dispatchContacts();
+        collisionController.updateTriggers();
+        actionController.postUpdate(GameController.WORLD_STEP);
+        ticks++;
+        return level.isComplete();
+    }
+
+    /**
+     * Moves the camera like <code>GameController.updateCamera</code> does while the cat is being played: the zoom
+     * goes back to the default, and the camera glides after the cat within the gameplay bounds, which camera regions
+     * change through the <code>CollisionController</code>. There are no pans, and since deaths respawn the cat
+     * immediately, the camera glides straight to the respawned cat.
+     */
+    private void updateCamera() {
+        Cat cat = level.getCat();
+        camera.setZoom(false, -1f);
+        camera.updateCamera(cat.getPosition().x*scale.x, cat.getPosition().y*scale.y, true, camera.getGameplayBounds());
+        if (level.getCameraRegions().isEmpty() && cat.isActive()) {
+            camera.setDefaultZoom(Camera.CAMERA_ZOOM);
+            camera.setGameplayBounds(camera.getLevelBounds(), level.getScale(), false);
+        }
+    }
+
+    /**
+     * Steps the simulation a fixed number of times, or until the level is completed.
+     *
+     * @param steps  maximum number of physics steps to take
+     * @return number of steps actually taken
+     */
+    public int run(int steps) {
+        for (int i = 0; i < steps; i++) {
+            if (step()) return i + 1;
+        }
+        return steps;
+    }
+
+    /**
+     * @return the level being simulated
+     */
+    public Level getLevel() { return level; }
+
+    /**
+     * @return number of physics steps taken since the level was loaded
+     */
+    public int getTicks() { return ticks; }
+
+    /**
+     * Disposes the current level and world, if there are any.
+     */
+    public void dispose() {
+        if (level != null) {
+            level.dispose();
+            level = null;
+        }
+        if (world != null) {
+            world.dispose();
+            world = null;
+        }
+    }
+
+    /**
+     * Creates a stub texture for every entry of the "textures" section of an asset JSON. Entries are either a file
+     * path, or an object with a "file" field.
+     *
+     * @param textures  the "textures" section of an asset JSON
+     * @return map from texture names to regions covering a stub texture of the same size as the real one
+     */
+    private static HashMap<String, TextureRegion> stubTextures(JsonValue textures) {
+        HashMap<String, TextureRegion> tMap = new HashMap<>();
+        for (JsonValue entry : textures) {
+            String file = entry.isString() ? entry.asString() : entry.getString("file");
+            FileHandle handle = Gdx.files.internal(file);
+            try (DataInputStream in = new DataInputStream(handle.read())) {
+                // PNG signature (8 bytes), IHDR length and type (8 bytes), then width and height
+                if (in.skipBytes(16) != 16) throw new IOException("truncated header");
+                int width = in.readInt();
+                int height = in.readInt();
+                tMap.put(entry.name, new TextureRegion(new Texture(new StubTextureData(width, height))));
+            } catch (IOException | GdxRuntimeException e) {
+                System.err.println("Failed to read texture size for " + entry.name + " (" + file + "):");
+                e.printStackTrace();
+            }
+        }
+        return tMap;
+    }
+
+    /**
+     * Returns a GL20 implementation where every call does nothing and returns zero. This lets stub
+     * <code>Texture</code>s be created when there is no GL context.
+     *
+     * @return no-op GL20
+     */
+    private static GL20 noOpGL() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class},
+                (proxy, method, args) -> {
+                    Class<?> type = method.getReturnType();
+                    if (type == boolean.class) return false;
+                    if (type == int.class) return 0;
+                    if (type == float.class) return 0f;
+                    if (type == String.class) return "";
+                    return null;
+                });
+    }
+
+    /**
+     * Texture data with a size but no pixels. Uploading it does nothing.
+     */
+    private static class StubTextureData implements TextureData {
+        /** Width of the texture in pixels */
+        private final int width;
+        /** Height of the texture in pixels */
+        private final int height;
+
+        private StubTextureData(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public TextureDataType getType() { return TextureDataType.Custom; }
+
+        @Override
+        public boolean isPrepared() { return true; }
+
+        @Override
+        public void prepare() {}
+
+        @Override
+        public Pixmap consumePixmap() { throw new GdxRuntimeException("Stub textures have no pixmap"); }
+
+        @Override
+        public boolean disposePixmap() { return false; }
+
+        @Override
+        public void consumeCustomData(int target) {}
+
+        @Override
+        public int getWidth() { return width; }
+
+        @Override
+        public int getHeight() { return height; }
+
+        @Override
+        public Pixmap.Format getFormat() { return Pixmap.Format.RGBA8888; }
+
+        @Override
+        public boolean useMipMaps() { return false; }
+
+        @Override
+        public boolean isManaged() { return false; }
+    }
+}
@@ -19,6 +19,7 @@ import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.util.RandomController;
 
 import java.io.*;
 
@@ -56,10 +57,16 @@ public class InputController {
 	private ObjectMap<String, Boolean> pressedMap = new ObjectMap<>();
 	/** Array of control names */
 	private Array<String> controlNames = new Array<>();
-	/** For reading input from a text file */
-	private BufferedReader readFile;
-	/** For writing input to a text file */
-	private BufferedWriter writeFile;
+	/** Ticks of a recorded input log being replayed, packed as written by <code>InputRecorder</code> */
+	private byte[] replayData;
+	/** Offset of the next tick to replay in <code>replayData</code> */
+	private int replayPos;
+	/** Names of the controls in the log being replayed, in bit order */
+	private String[] replayControls;
+	/** Number of bytes per tick in the log being replayed */
+	private int replayBytesPerTick;
+	/** For writing input to a binary log */
+	private InputRecorder recorder;
 	/** Json specifying controls */
 	private JsonValue controlsJSON;
 	/** Disables all controls **/
@@ -97,31 +104,81 @@ public class InputController {
 	}
 
 	/**
-	 * Sets the input controller to read input from a file instead of the keyboard.
+	 * Sets the input controller to replay input from a log written by <code>writeTo</code> instead of reading
+	 * the keyboard. Once the log runs out, input is read from the keyboard again.
+	 * <br><br>
+	 * This also reseeds <code>RandomController</code> with the seed of the recorded session. For the replay to
+	 * be frame-for-frame identical, the recorded level must be loaded immediately after this call.
+	 *
 	 * @param fileName  file to read from
+	 * @return the level the recording starts on, or -1 if the log could not be read
 	 */
-	public void readFrom(String fileName){
-		try {
-			FileReader reader = new FileReader(fileName);
-			readFile = new BufferedReader(reader);
+	public int readFrom(String fileName){
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+			if (in.readInt() != InputRecorder.MAGIC || in.readShort() != InputRecorder.VERSION) {
+				throw new IOException(fileName + " is not an input log of a supported version");
+			}
+			long seed = in.readLong();
+			int levelNum = in.readInt();
+			replayControls = new String[in.readShort()];
+			for (int i = 0; i < replayControls.length; i++) {
+				replayControls[i] = in.readUTF();
+			}
+			replayBytesPerTick = (replayControls.length + 7) / 8;
+
+			ByteArrayOutputStream ticks = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				ticks.write(buffer, 0, read);
+			}
+			replayData = ticks.toByteArray();
+			replayPos = 0;
+			RandomController.setSeed(seed);
+			return levelNum;
 		} catch (IOException e) {
 			e.printStackTrace();
+			replayData = null;
+			return -1;
 		}
 	}
 
 	/**
-	 * Sets the input controller to write input to a file as it reads input.
+	 * Sets the input controller to record input to a binary log as it reads input.
+	 * <br><br>
+	 * This starts a new session seed in <code>RandomController</code>, which is stored in the log. For the
+	 * recording to be replayable, <code>levelNum</code> must be (re)loaded immediately after this call.
+	 *
 	 * @param fileName  file to write to
+	 * @param levelNum  level the recording starts on
 	 */
-	public void writeTo(String fileName){
+	public void writeTo(String fileName, int levelNum){
+		stopRecording();
+		long seed = System.nanoTime();
 		try {
-			new PrintWriter(fileName).close();
-			FileWriter writer = new FileWriter(fileName);
-			writeFile = new BufferedWriter(writer);
+			recorder = new InputRecorder(fileName, seed, levelNum, controlNames);
+			RandomController.setSeed(seed);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Stops recording input, writing out everything recorded so far. Does nothing if input is not being recorded.
+	 */
+	public void stopRecording(){
+		if (recorder != null) {
+			recorder.close();
+			recorder = null;
+		}
+	}
+
+	/**
+	 * Returns true if input is currently being replayed from a log.
+	 *
+	 * @return true if input is currently being replayed from a log.
+	 */
+	public boolean isReplaying() { return replayData != null; }
 	
 	// Fields to manage buttons
 	/** if the switch has been cancelled */
@@ -333,8 +390,8 @@ public class InputController {
 		// If we have a game-pad for id, then use it.
 		crosshair = new Vector2();
 		crosscache = new Vector2();
-		writeFile = null;
-		readFile = null;
+		recorder = null;
+		replayData = null;
 	}
 
 	/**
@@ -347,7 +404,7 @@ public class InputController {
 			previousMap.put(control, pressedMap.get(control));
 		}
 
-		if (readFile == null || !readFromFile()) {
+		if (replayData == null || !readFromFile()) {
 			readKeyboard();
 		}
 
@@ -383,43 +440,34 @@ public class InputController {
 				camVertical -= 8f;
 			}
 		}
-		if (writeFile != null){
-			try {
-				String toString = pressedMap.toString();
-				writeFile.write(toString.substring(1, toString.length()-1));
-				writeFile.newLine();
-				writeFile.flush();
-			} catch (IOException e) {
-				e.printStackTrace();
+		if (recorder != null){
+			long bits = 0;
+			for (int i = 0; i < controlNames.size; i++) {
+				if (pressedMap.get(controlNames.get(i))) bits |= 1L << i;
 			}
+			recorder.record(bits);
 		}
 	}
 
 	/**
-	 * Reads keyboard input from a file by updating <code>pressedMap</code>. Each line of the file is a <code>toString()</code>
-	 * representation of <code>pressedMap</code>, excluding the start and end braces.
+	 * Reads the next tick of the log being replayed into <code>pressedMap</code>. Controls that are not in the
+	 * log are treated as not pressed.
 	 *
-	 * @return true if a non-null line was read
+	 * @return true if a tick was read, false if the log has run out
 	 */
 	private boolean readFromFile(){
-		try {
-			String line = readFile.readLine();
-			if (line != null) {
-				String[] args = line.split(",");
-				for (String s : args) {
-					String[] pair = s.split("=");
-					if (pair[0].charAt(0) == ' '){
-						pair[0] = pair[0].substring(1);
-					}
-					pressedMap.put(pair[0], pair[1].charAt(0) == 't');
-				}
-			} else {
-				return false;
-			}
-		} catch (IOException e){
-			e.printStackTrace();
+		if (replayPos + replayBytesPerTick > replayData.length) {
+			replayData = null;
 			return false;
 		}
+		for (String control : controlNames) {
+			pressedMap.put(control, false);
+		}
+		for (int i = 0; i < replayControls.length; i++) {
+			byte b = replayData[replayPos + i / 8];
+			if ((b & (1 << (i % 8))) != 0) pressedMap.put(replayControls[i], true);
+		}
+		replayPos += replayBytesPerTick;
 		return true;
 	}
 
@@ -0,0 +1,126 @@
+/*
+ * InputRecorder.java
+ *
+ * Writes a compact binary log of player input, one bit per control per tick.
+ * Packing and file I/O are kept off the game thread as much as possible: ticks
+ * are packed into fixed-size chunks, and full chunks are handed to a background
+ * thread that writes them out.
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.io.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Records the state of every control for every tick to a binary file.
+ *
+ * The file starts with a header: <code>MAGIC</code>, <code>VERSION</code>, the session seed, the
+ * level the recording starts on and the names of the recorded controls. After the header, every
+ * tick is stored as <code>ceil(controls / 8)</code> bytes, where bit <code>i</code> is set if control
+ * <code>i</code> was pressed.
+ */
+public class InputRecorder {
+	/** Identifies input log files ("9LIV") */
+	public static final int MAGIC = 0x394C4956;
+	/** Version of the input log format */
+	public static final short VERSION = 1;
+	/** Number of bytes buffered on the game thread before being handed to the writer thread */
+	private static final int CHUNK_SIZE = 4096;
+	/** Sentinel telling the writer thread to finish */
+	private static final byte[] END = new byte[0];
+
+	/** Chunks waiting to be written */
+	private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+	/** Thread that writes chunks to disk */
+	private final Thread writer;
+	/** Number of bytes used to store one tick */
+	private final int bytesPerTick;
+	/** Chunk currently being filled by the game thread */
+	private byte[] chunk = new byte[CHUNK_SIZE];
+	/** Number of bytes of <code>chunk</code> that are filled */
+	private int chunkSize;
+
+	/**
+	 * Creates a new recorder and writes the header of the log.
+	 *
+	 * @param fileName      file to write to
+	 * @param seed          seed of <code>RandomController</code> for this session
+	 * @param levelNum      level the recording starts on
+	 * @param controlNames  names of the controls, in the order their bits are given to <code>record</code>
+	 * @throws IOException if the file cannot be opened
+	 */
+	public InputRecorder(String fileName, long seed, int levelNum, Array<String> controlNames) throws IOException {
+		if (controlNames.size > Long.SIZE) {
+			throw new IllegalArgumentException("Cannot record more than " + Long.SIZE + " controls");
+		}
+		bytesPerTick = (controlNames.size + 7) / 8;
+
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)));
+		out.writeInt(MAGIC);
+		out.writeShort(VERSION);
+		out.writeLong(seed);
+		out.writeInt(levelNum);
+		out.writeShort(controlNames.size);
+		for (String name : controlNames) {
+			out.writeUTF(name);
+		}
+
+		writer = new Thread(() -> {
+			try {
+				byte[] next;
+				while ((next = queue.take()) != END) {
+					out.write(next);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				try {
+					out.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}, "InputRecorder");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Records the controls pressed on one tick.
+	 *
+	 * @param bits  bit <code>i</code> is set if control <code>i</code> is pressed
+	 */
+	public void record(long bits) {
+		if (chunkSize + bytesPerTick > CHUNK_SIZE) {
+			queue.add(chunk);
+			chunk = new byte[CHUNK_SIZE];
+			chunkSize = 0;
+		}
+		for (int i = 0; i < bytesPerTick; i++) {
+			chunk[chunkSize++] = (byte) (bits >>> (8 * i));
+		}
+	}
+
+	/**
+	 * Writes out any buffered ticks and closes the file. Blocks until the writer thread is done.
+	 */
+	public void close() {
+		if (chunkSize > 0) {
+			byte[] last = new byte[chunkSize];
+			System.arraycopy(chunk, 0, last, 0, chunkSize);
+			queue.add(last);
+			chunkSize = 0;
+		}
+		queue.add(END);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package edu.cornell.gdiac.game;
 
+import box2dLight.Light;
 import box2dLight.RayHandler;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -12,6 +13,7 @@ import edu.cornell.gdiac.game.object.*;
 import edu.cornell.gdiac.game.obstacle.*;
 import edu.cornell.gdiac.util.Direction;
 import edu.cornell.gdiac.util.PooledList;
+import edu.cornell.gdiac.util.RandomController;
 
 import java.util.HashMap;
 
@@ -74,6 +76,10 @@ public class Level {
     private int tileSize;
     /** cache for setting texture scales */
     private Vector2 textureScaleCache = new Vector2();
+    /** Draw scale of the spirit particles */
+    private static final Vector2 SPIRIT_DRAW_SCALE = new Vector2(32f, 32f);
+    /** Texture size of the spirit particles */
+    private static final Vector2 SPIRIT_TEXTURE_SCALE = new Vector2(20f, 20f);
 
     /** hashmap to represent activator-activatable relationships:
      *   keys are activator ids specified in JSON*/
@@ -82,6 +88,8 @@ public class Level {
     /** object arrays */
     private final Array<Activator> activators;
     private final Array<Activatable> activatables;
+    /** Activation of each activatable before the level was restored, see {@link #restoreInitialState()} */
+    private final BooleanArray restoredActivations = new BooleanArray();
     private final Array<DeadBody> deadBodyArray;
     private final Array<Mob> mobArray;
     private Checkpoint currCheckpoint;
@@ -106,7 +114,7 @@ public class Level {
     /** the initial respawn position for this level */
     private Vector2 startRespawnPos;
     /** properties map cache */
-    private ObjectMap<String, Object> propertiesMap = new ObjectMap<>();
+    private ObjectProperties propertiesMap = new ObjectProperties();
     private Array<LevelState> levelStates;
     private int levelNum;
     /** map of names of the obstacles defined from Tiled JSON */
@@ -125,6 +133,45 @@ public class Level {
     private Array<Decoration> decorations = new Array();
     protected boolean canSwitch;
     protected boolean canDash;
+    /** Parsed level whose objects are still being added, or null if the level is fully populated */
+    private TiledLevelData pendingData;
+    /** Index of the next object layer of <code>pendingData</code> to add */
+    private int pendingLayer;
+    /** Index of the next object to add in the current layer */
+    private int pendingObject;
+    /** True if the cat of <code>pendingData</code> should be added */
+    private boolean pendingCat;
+    /** True if objects of this level are paused */
+    private boolean paused;
+    /** True if the bodies and lights of this level are turned off, since it is not the current level */
+    private boolean suspended;
+    /** Bodies turned off by {@link #suspend()} */
+    private final Array<Body> suspendedBodies = new Array<>();
+    /** Whether each body in <code>suspendedBodies</code> was active before it was turned off */
+    private final BooleanArray suspendedBodyActive = new BooleanArray();
+    /** Lights turned off by {@link #suspend()} */
+    private final Array<Light> suspendedLights = new Array<>();
+    /** Whether each light in <code>suspendedLights</code> was on before it was turned off */
+    private final BooleanArray suspendedLightActive = new BooleanArray();
+    /** Incremented whenever bodies are created, destroyed, activated or teleported without waking them */
+    private int physicsRevision;
+    /** Trigger volumes of this level, tested against the cat and dead bodies */
+    private final TriggerSystem triggers = new TriggerSystem();
+    /** Which movable obstacles of this level rest on which */
+    private final SupportGraph supportGraph = new SupportGraph();
+    /** Distance outside of the camera view, in physics units, where objects are still drawn */
+    private static final float DRAW_MARGIN = 1;
+    /** Area visible through the camera, in pixels */
+    private final Rectangle viewPixels = new Rectangle();
+    /** Area where objects are drawn, in physics units */
+    private final Rectangle view = new Rectangle();
+    /** Snapshot of this level right after it was populated, used to reset it without reloading */
+    private LevelState initialState;
+    /** Level states that have been discarded, kept so their buffers can be reused */
+    private final Pool<LevelState> statePool = new Pool<LevelState>() {
+        @Override
+        protected LevelState newObject() { return new LevelState(); }
+    };
 
 
     /**
@@ -186,6 +233,13 @@ public class Level {
      */
     public Array<Activator> getActivators() { return activators; }
 
+    /**
+     * Returns a reference to the array of activatables
+     *
+     * @return a reference to the activatables
+     */
+    public Array<Activatable> getActivatables() { return activatables; }
+
     /**
      * Returns a reference to the array of lasers
      *
@@ -236,14 +290,20 @@ public class Level {
      */
     public void setCat(Cat cat) {
         objects.remove(this.cat);
+        if (this.cat != null) supportGraph.remove(this.cat);
         objects.add(cat);
+        supportGraph.add(cat);
         this.cat = cat;
     }
 
     /**
      * Removes the cat from this level. This is used for level switching.
      */
-    public void removeCat() { objects.remove(cat); cat = null; }
+    public void removeCat() {
+        objects.remove(cat);
+        if (cat != null) supportGraph.remove(cat);
+        cat = null;
+    }
 
     /**
      * Returns a reference to the hashmap of activation relations
@@ -259,6 +319,11 @@ public class Level {
      */
     public PooledList<Obstacle> getObjects(){ return objects; }
 
+    /**
+     * @return the support graph of the movable obstacles of this level
+     */
+    public SupportGraph getSupportGraph() { return supportGraph; }
+
     /**
      * Returns a reference to the array of dead bodies
      *
@@ -339,7 +404,7 @@ public class Level {
      * <br>
      * Note that currently a new Ray Handler does not do anything unless the world's objects are
      * created with their associated lights linked to the new ray handler.
-     * @param rayHandler new ray handler that this world should use
+     * @param rayHandler new ray handler that this world should use, or null to create objects without lights
      */
     public void setRayHandler(RayHandler rayHandler) { this.rayHandler = rayHandler; }
 
@@ -465,114 +530,62 @@ public class Level {
         respawnPos = startRespawnPos;
     }
 
-    private void loadExitPositions(JsonValue data, int tileSize, int levelHeight){
-        goalY = 0;
-        returnY = 0;
-        JsonValue objects = data.get("objects");
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            if (propertiesMap.get("type", "goal").equals("goal")){
-                goalY = (float)propertiesMap.get("y") - (float)propertiesMap.get("height") - bounds.y;
-            } else {
-                returnY = (float)propertiesMap.get("y") - (float)propertiesMap.get("height") - bounds.y;
-            }
-        }
-    }
-
-    private class InvalidTiledJSON extends RuntimeException {
-        private InvalidTiledJSON(String errorMessage) {
-            super("Error loading Tiled level " + levelNum + ": " + errorMessage);
-        }
-    }
-
     /**
      * Populates this level from data from a Tiled file.
      *
      * @param tiledMap Tiled Json
      */
      public void populateTiled(JsonValue tiledMap, int levelNum) {
-        populateTiled(tiledMap, 0, 0, levelNum, returnY, null);
+        TiledLevelData data = new TiledLevelData(tiledMap, levelNum);
+        data.sliceTilesets(textureRegionAssetMap);
+        populateTiled(data, 0, 0, returnY, null);
     }
 
     /**
-     * Populates this level from data from a Tiled file. Places the level into the world such that the exits between this
+     * Populates this level from a parsed Tiled file. Places the level into the world such that the exits between this
      * level and an adjacent level are aligned.
      *
-     * @param tiledMap    Tiled JSON
+     * @param data        Parsed Tiled level
      * @param xOffset     The x offset in Box2D coordinates to place this world at
      * @param yOffset     The y offset in Box2D coordinates to place this world at
      * @param prevExitY   The y position of the bottom left edge of the adjacent level's exit
      * @param next        True if we are progressing from the previous level (i.e to the right),
      *                    null if we should ignore offsets
      */
-    public void populateTiled(JsonValue tiledMap, float xOffset, float yOffset, int levelNum, float prevExitY, Boolean next) {
-
-        this.levelNum = levelNum;
-
-        canDash = true;
-        canSwitch = true;
-        for (JsonValue property : tiledMap.get("properties")){
-            switch (property.getString("name")) {
-                case "biome":
-                    biome = property.getString("value");
-                    break;
-                case "canDash":
-                    canDash = property.getBoolean("value");
-                    break;
-                case "canSwitch":
-                    canSwitch = property.getBoolean("value");
-                    break;
-            }
-        }
+    public void populateTiled(TiledLevelData data, float xOffset, float yOffset, float prevExitY, Boolean next) {
+        beginPopulate(data, xOffset, yOffset, prevExitY, next);
+        finishPopulate();
+    }
 
-        if (tiledMap == null) throw new InvalidTiledJSON("missing Tiled JSON");
+    /**
+     * Starts populating this level from a parsed Tiled file. This sets up the bounds, properties and tiles of the
+     * level, but does not create any objects: these are added by {@link #populateStep(int)}, so that loading an
+     * adjacent level can be spread over several frames.
+     *
+     * @param data        Parsed Tiled level
+     * @param xOffset     The x offset in Box2D coordinates to place this world at
+     * @param yOffset     The y offset in Box2D coordinates to place this world at
+     * @param prevExitY   The y position of the bottom left edge of the adjacent level's exit
+     * @param next        True if we are progressing from the previous level (i.e to the right),
+     *                    null if we should ignore offsets
+     */
+    public void beginPopulate(TiledLevelData data, float xOffset, float yOffset, float prevExitY, Boolean next) {
+        this.levelNum = data.levelNum;
 
-        if (tiledMap.getBoolean("infinite")) throw new InvalidTiledJSON("map size cannot be infinite");
+        if (data.biome != null) biome = data.biome;
+        canDash = data.canDash;
+        canSwitch = data.canSwitch;
 
-        world.setGravity( new Vector2(0,tiledMap.getFloat("gravity",-14.7f)) );
+        world.setGravity( new Vector2(0, data.gravity) );
         activationRelations = new HashMap<>();
+        clearStates();
+        freeInitialState();
         levelStates = new Array<>();
 
-        JsonValue layers = tiledMap.get("layers");
-        JsonValue climbableData = null;
-        JsonValue windowData = null;
-        JsonValue leafData = null;
-        JsonValue tileData = null;
-        JsonValue labBkgData = null;
-        JsonValue forestTileData = null;
-
-        tileSize = tiledMap.getInt("tilewidth");
-        int levelWidth = tiledMap.getInt("width");
-        int levelHeight = tiledMap.getInt("height");
-        bounds.set(xOffset, yOffset, levelWidth, levelHeight);
-
-        Array<JsonValue> obstacleData = new Array<>();
-        for (JsonValue layer : layers) {
-            if (!layer.getString("type").equals("tilelayer")) {
-                obstacleData.add(layer);
-                if (layer.getString("name").equals("exits")){
-                    loadExitPositions(layer, tileSize, levelHeight);
-                }
-            }
-            else if (layer.getString("name").equals("climbables")) {
-                climbableData = layer;
-            }
-            else if (layer.getString("name").equals("windows")) {
-                windowData = layer;
-            }
-            else if (layer.getString("name").equals("background")) {
-                labBkgData = layer;
-            }
-            else if (layer.getString("name").equals("forestLeaves")) {
-                leafData = layer;
-            }
-            else if (layer.getString("name").equals("forestWalls") && biome.equals("forest") ||
-                    layer.getString("name").equals("metalWalls") && biome.equals("metal")) {
-                tileData = layer;
-            } else if (layer.getString("name").equals("forestWalls") && biome.equals("metal")){
-                forestTileData = layer;
-            }
-        }
+        tileSize = data.tileSize;
+        goalY = data.goalY;
+        returnY = data.returnY;
+        bounds.set(xOffset, yOffset, data.width, data.height);
         if (next != null) {
             if (next) {
                 bounds.y += prevExitY - returnY;
@@ -582,91 +595,65 @@ public class Level {
             }
         }
 
-        populateObstacles(obstacleData, tileSize, levelHeight, next == null);
-
-        TextureRegion tileset = new TextureRegion();
-        TextureRegion tileset_climbable = new TextureRegion();
-
-        int fID = 1;
-        int fID_climbable = 1;
-        int fID_window = 1;
-        int fID_leaves = 1;
-        int fID_bkg = 1;
-        int fID_forestTiles = 1;
-        if (biome.equals("metal")) {
-            tileset = textureRegionAssetMap.get("metal-tileset");
-            for (JsonValue tilesetData : tiledMap.get("tilesets")){
-                if (tilesetData.getString("source").endsWith("metal-walls.tsx")){
-                    fID = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("climbables.tsx")){
-                    fID_climbable = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("windows.tsx")){
-                    fID_window = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("lab-bkg.tsx")){
-                    fID_bkg = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("forestLeaves.tsx")){
-                    fID_leaves = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("forest-walls.tsx")){
-                    fID_forestTiles = tilesetData.getInt("firstgid");
-                }
-            }
-        }
-        else if (biome.equals("forest")) {
-            // TODO: change this in future
-            tileset = textureRegionAssetMap.get("forest-tileset");
-            for (JsonValue tilesetData : tiledMap.get("tilesets")){
-                if (tilesetData.getString("source").endsWith("forest-walls.tsx")){
-                    fID = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("climbables.tsx")){
-                    fID_climbable = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("windows.tsx")){
-                    fID_window = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("lab-bkg.tsx")){
-                    fID_bkg = tilesetData.getInt("firstgid");
-                }
-                else if (tilesetData.getString("source").endsWith("forestLeaves.tsx")){
-                    fID_leaves = tilesetData.getInt("firstgid");
-                }
-            }
-        }
-
-        tiles = new Tiles(tileData, 128, levelWidth, levelHeight,
-                    tileset, bounds, fID, new Vector2(1/4f, 1/4f));
+        disposeTiles();
+        tiles = createTiles(data.tiles, data);
+        climbables = createTiles(data.climbables, data);
+        windows = createTiles(data.windows, data);
+        labBkg = createTiles(data.labBkg, data);
+        leaves = createTiles(data.leaves, data);
+        forestTiles = createTiles(data.forestTiles, data);
 
-        if (climbableData != null) {
-            climbables = new Tiles(climbableData, 128, levelWidth, levelHeight,
-                    biome.equals("metal") ? textureRegionAssetMap.get("climbable-tileset") : textureRegionAssetMap.get("forest-climbable-tileset"),
-                    bounds, fID_climbable, new Vector2(1/4f, 1/4f));
-        }
-
-        if (windowData != null) {
-            windows = new Tiles(windowData, 128, levelWidth, levelHeight,
-                    textureRegionAssetMap.get("windows-tileset"), bounds, fID_window, new Vector2(1/4f, 1/4f));
-        }
+        pendingData = data;
+        pendingLayer = 0;
+        pendingObject = 0;
+        pendingCat = next == null;
+    }
 
-        if (labBkgData != null) {
-            labBkg = new Tiles(labBkgData, 512, levelWidth, levelHeight,
-                    textureRegionAssetMap.get("lab-bkg-tileset"), bounds, fID_bkg, new Vector2(1/4f, 1/4f));
+    /**
+     * Frees the compiled tiles of every tile layer.
+     */
+    private void disposeTiles() {
+        for (Tiles t : new Tiles[]{tiles, climbables, windows, labBkg, leaves, forestTiles}) {
+            if (t != null) t.dispose();
         }
+    }
 
-        if (leafData != null) {
-            leaves = new Tiles(leafData, 128, levelWidth, levelHeight,
-                    textureRegionAssetMap.get("forestLeaves-tileset"), bounds, fID_leaves, new Vector2(1/4f, 1/4f));
-        }
+    /**
+     * Creates the tiles of a tile layer.
+     *
+     * @param layer   Parsed tile layer, or null
+     * @param data    Parsed Tiled level that the layer belongs to
+     * @return the tiles, or null if there is no layer
+     */
+    private Tiles createTiles(TiledLevelData.TileLayer layer, TiledLevelData data) {
+        if (layer == null) return null;
+        return new Tiles(layer.data, layer.tileset, layer.tileSize, data.width, data.height, bounds, layer.fid,
+                new Vector2(1/4f, 1/4f));
+    }
 
-        if (forestTileData != null) {
-            System.out.println(fID_forestTiles);
-            forestTiles = new Tiles(forestTileData, 128, levelWidth, levelHeight,
-                    textureRegionAssetMap.get("forest-tileset"), bounds, fID_forestTiles, new Vector2(1/4f, 1/4f));
+    /**
+     * Adds some of the objects that are left from {@link #beginPopulate}. Once every object has been added, also
+     * creates the joints between objects.
+     *
+     * @param maxObjects  Maximum number of objects to add
+     * @return true if the level is fully populated
+     */
+    public boolean populateStep(int maxObjects) {
+        if (pendingData == null) return true;
+        Array<TiledLevelData.ObjectLayer> layers = pendingData.objectLayers;
+        while (maxObjects > 0 && pendingLayer < layers.size) {
+            TiledLevelData.ObjectLayer layer = layers.get(pendingLayer);
+            if (pendingObject < layer.objects.size) {
+                readProperties(layer.objects.get(pendingObject));
+                populateObject(layer.name);
+                pendingObject++;
+                maxObjects--;
+            } else {
+                pendingLayer++;
+                pendingObject = 0;
+            }
         }
+        if (pendingLayer < layers.size) return false;
 
         //make joints
         for (Obstacle obj : objectJoints.keys()) {
@@ -679,460 +666,158 @@ public class Level {
             joints.add(joint);
         }
 
+        initialState = statePool.obtain();
+        initialState.store(this);
         if (cat != null) saveState();
 
         propertiesMap.clear();
+        pendingData = null;
+        return true;
     }
 
     /**
-     * Populates this level with all the obstacles defined in a Tiled JSON.
-     *
-     * @param data           Array of Tiled JSON layers
-     * @param levelHeight    Height of the level (in grid cell units)
-     * @param tileSize       Size of each tile in the Tiled JSON
-     * @param populateCat    True if we want to populate the cat
-     */
-    public void populateObstacles(Array<JsonValue> data, int tileSize, int levelHeight, boolean populateCat) {
-        for (JsonValue obstacleData : data) {
-            String name = obstacleData.getString("name");
-            if (name.equals("wallsPoly")) {
-                populateWalls(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("platforms")) {
-                populatePlatforms(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("checkpoints")) {
-                populateCheckpoints(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("activators")) {
-                populateActivators(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("lasers")) {
-                populateLasers(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("spikes")) {
-                populateSpikes(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("flamethrowers")){
-                populateFlamethrowers(obstacleData, tileSize, levelHeight);
-            }  else if (name.equals("doors")) {
-                populateDoors(obstacleData, tileSize, levelHeight);
-            }  else if (name.equals("spiritRegions")) {
-                populateSpiritRegions(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("mobs")) {
-                populateMobs(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("boxes")) {
-                populateBoxes(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("mirrors")) {
-                populateMirrors(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("lights")) {
-                populateLights(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("cat")) {
-                populateCat(obstacleData, tileSize, levelHeight, populateCat);
-            } else if (name.equals("exits")) {
-                populateExits(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("cameraRegions")) {
-                populateCameraRegions(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("goal")) {
-                populateGoal(obstacleData, tileSize, levelHeight);
-            } else if (name.equals("decor")){
-                populateDecorations(obstacleData, tileSize, levelHeight);
-            }
-        }
-    }
-
-    private void populateDecorations(JsonValue data, int tileSize, int levelHeight){
-        JsonValue objects = data.get("objects");
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Decoration decoration = new Decoration(propertiesMap, textureRegionAssetMap, scale);
-            decorations.add(decoration);
-        }
-    }
-
-    /**
-     * Populates the walls for this level.
-     *
-     * @param data          Tiled JSON data for all walls
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateWalls(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Wall wall = new Wall(propertiesMap, scale);
-            addObject(wall);
-        }
-    }
-
-    /**
-     * Populates the platforms for this level.
-     *
-     * @param data          Tiled JSON data for all platforms
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populatePlatforms(JsonValue data, int tileSize, int levelHeight){
-        JsonValue objects = data.get("objects");
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Platform platform = new Platform(propertiesMap, textureRegionAssetMap, scale, 128, biome);
-            loadTiledActivatable(platform);
-        }
-    }
-
-    /**
-     * Populates the checkpoints for this level.
-     *
-     * @param data          Tiled JSON data for all checkpoints
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateCheckpoints(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/4f, 1/4f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Checkpoint checkpoint = new Checkpoint(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
-            addObject(checkpoint);
-        }
-    }
-
-    /**
-     * Populates the activators for this level.
-     *
-     * @param data          Tiled JSON data for all activators
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateActivators(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/4f, 1/4f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Activator activator;
-            //TODO: developers should be able to specify in json if they want first pan or not
-            switch ((String) propertiesMap.get("type", "button")){
-                case "button":
-                    activator = new Button(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
-                    break;
-                case "switch":
-                    activator = new Switch(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
-                    break;
-                case "timed":
-                    activator = new TimedButton(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
-                    break;
-                default:
-                    throw new RuntimeException("unrecognised activator type");
-            }
-            activators.add(activator);
-            addObject(activator);
-        }
-    }
-
-    /**
-     * Populates the spikes for this level.
-     *
-     * @param data          Tiled JSON data for all spikes
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateSpikes(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/4f, 1/4f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Spikes spikes = new Spikes(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
-            loadTiledActivatable(spikes);
-        }
-    }
-
-    /**
-     * Populates the flamethrowers for this level.
-     *
-     * @param data          Tiled JSON data for all flamethrowers
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
+     * Adds every object that is left from {@link #beginPopulate}.
      */
-    private void populateFlamethrowers(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/4f, 1/4f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Flamethrower flamethrower = new Flamethrower(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
-            loadTiledActivatable(flamethrower);
-        }
-    }
-
-    /**
-     * Populates the lasers for this level.
-     *
-     * @param data          Tiled JSON data for all lasers
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateLasers(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/8f, 1/8f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Laser laser = new Laser(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
-            loadTiledActivatable(laser);
-            lasers.add(laser);
-        }
-    }
-
-    /**
-     * Populates the doors for this level.
-     *
-     * @param data          Tiled JSON data for all doors
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateDoors(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Door door = new Door(propertiesMap, textureRegionAssetMap, scale, 128, biome);
-            loadTiledActivatable(door);
-        }
-    }
-
-    /**
-     * Populates the goal for this level.
-     *
-     * @param data          Tiled JSON data for the goal
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateGoal(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/32f, 1/32f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            goal = new Goal(propertiesMap, textureRegionAssetMap, scale, 512);
-            addObject(goal);
-        }
-    }
-
-    /**
-     * Populates the spirit regions for this level.
-     *
-     * @param data          Tiled JSON data for all spirit regions
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateSpiritRegions(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1, 1);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            SpiritRegion spiritRegion = new SpiritRegion(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
-            spiritRegionArray.add(spiritRegion);
-            addObject(spiritRegion);
-        }
+    public void finishPopulate() {
+        populateStep(Integer.MAX_VALUE);
     }
 
     /**
-     * Populates the mobs for this level.
-     *
-     * @param data          Tiled JSON data for all mobs
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
+     * @return true if this level still has objects left to add
      */
-    private void populateMobs(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/4f, 1/4f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Mob mob = new Mob(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
-            mobArray.add(mob);
-            addObject(mob);
-        }
-    }
-
-    /**
-     * Populates the boxes for this level.
-     *
-     * @param data          Tiled JSON data for all boxes
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateBoxes(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1f/4, 1f/4);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            PushableBox box = new PushableBox(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
-            boxes.add(box);
-            addObject(box);
-        }
-    }
-
-    /**
-     * Populates the mirrors for this level.
-     *
-     * @param data          Tiled JSON data for all mirrors
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateMirrors(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1, 1);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Mirror mirror = new Mirror(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
-            addObject(mirror);
-        }
-    }
-
-    private void populateLights(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        textureScaleCache.set(1/32f, 1/32f);
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            NoveLight light = new NoveLight(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
-            loadTiledActivatable(light);
-        }
-    }
-
-    /**
-     * Populates the exits for this level.
-     *
-     * @param data          Tiled JSON data for all exits
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateExits(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            Exit exit = new Exit(propertiesMap, scale);
-            addObject(exit);
-            if (exit.exitType() == Exit.ExitType.GOAL) goalExit = exit;
-            if (exit.exitType() == Exit.ExitType.RETURN) returnExit = exit;
-        }
-    }
+    public boolean isPopulating() { return pendingData != null; }
 
     /**
-     * Populates the cameraRegions for this level.
+     * Creates an object from <code>propertiesMap</code> and adds it to this level.
      *
-     * @param data          Tiled JSON data for all exits
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateCameraRegions(JsonValue data, int tileSize, int levelHeight) {
-        JsonValue objects = data.get("objects");
-        for (JsonValue objJV : objects) {
-            readProperties(objJV, tileSize, levelHeight);
-            CameraRegion cameraRegion = new CameraRegion(propertiesMap, scale, bounds);
-            addObject(cameraRegion);
-        }
-    }
-
-    /**
-     * Populates the cat for this level.
-     *
-     * @param data          Tiled JSON data for the cat
-     * @param tileSize      Tile size in the Tiled JSON
-     * @param levelHeight   Level height in Box2D units
-     */
-    private void populateCat(JsonValue data, int tileSize, int levelHeight, boolean shouldPopulate) {
-        try {
-            JsonValue objects = data.get("objects");
-            JsonValue catJV = objects.get(0);
-            readProperties(catJV, tileSize, levelHeight);
-            cat = new Cat(propertiesMap, textureRegionAssetMap, scale);
-            respawnPos = cat.getPosition();
-            startRespawnPos = respawnPos;
-            if (shouldPopulate) {
-                addObject(cat);
-            } else {
-                cat = null;
-            }
-        } catch (NullPointerException e) {
-            throw new InvalidTiledJSON("level must contain a cat");
+     * @param layer  Name of the Tiled layer that the object is in, which determines its type
+     */
+    private void populateObject(String layer) {
+        switch (layer) {
+            case "wallsPoly":
+                addObject(new Wall(propertiesMap, scale));
+                break;
+            case "platforms":
+                loadTiledActivatable(new Platform(propertiesMap, textureRegionAssetMap, scale, 128, biome));
+                break;
+            case "checkpoints":
+                textureScaleCache.set(1/4f, 1/4f);
+                addObject(new Checkpoint(propertiesMap, textureRegionAssetMap, scale, textureScaleCache));
+                break;
+            case "activators":
+                textureScaleCache.set(1/4f, 1/4f);
+                Activator activator;
+                //TODO: developers should be able to specify in json if they want first pan or not
+                switch (propertiesMap.getString("type", "button")){
+                    case "button":
+                        activator = new Button(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
+                        break;
+                    case "switch":
+                        activator = new Switch(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
+                        break;
+                    case "timed":
+                        activator = new TimedButton(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
+                        break;
+                    default:
+                        throw new RuntimeException("unrecognised activator type");
+                }
+                activators.add(activator);
+                addObject(activator);
+                break;
+            case "lasers":
+                textureScaleCache.set(1/8f, 1/8f);
+                Laser laser = new Laser(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
+                loadTiledActivatable(laser);
+                lasers.add(laser);
+                break;
+            case "spikes":
+                textureScaleCache.set(1/4f, 1/4f);
+                loadTiledActivatable(new Spikes(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome));
+                break;
+            case "flamethrowers":
+                textureScaleCache.set(1/4f, 1/4f);
+                loadTiledActivatable(new Flamethrower(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome));
+                break;
+            case "doors":
+                loadTiledActivatable(new Door(propertiesMap, textureRegionAssetMap, scale, 128, biome));
+                break;
+            case "spiritRegions":
+                textureScaleCache.set(1, 1);
+                SpiritRegion spiritRegion = new SpiritRegion(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
+                spiritRegionArray.add(spiritRegion);
+                addObject(spiritRegion);
+                break;
+            case "mobs":
+                textureScaleCache.set(1/4f, 1/4f);
+                Mob mob = new Mob(propertiesMap, textureRegionAssetMap, scale, textureScaleCache, biome);
+                mobArray.add(mob);
+                addObject(mob);
+                break;
+            case "boxes":
+                textureScaleCache.set(1f/4, 1f/4);
+                PushableBox box = new PushableBox(propertiesMap, textureRegionAssetMap, scale, textureScaleCache);
+                boxes.add(box);
+                addObject(box);
+                break;
+            case "mirrors":
+                textureScaleCache.set(1, 1);
+                addObject(new Mirror(propertiesMap, textureRegionAssetMap, scale, textureScaleCache));
+                break;
+            case "lights":
+                textureScaleCache.set(1/32f, 1/32f);
+                loadTiledActivatable(new NoveLight(propertiesMap, textureRegionAssetMap, scale, textureScaleCache));
+                break;
+            case "cat":
+                cat = new Cat(propertiesMap, textureRegionAssetMap, scale);
+                respawnPos = cat.getPosition();
+                startRespawnPos = respawnPos;
+                if (pendingCat) {
+                    addObject(cat);
+                } else {
+                    cat = null;
+                }
+                break;
+            case "exits":
+                Exit exit = new Exit(propertiesMap, scale);
+                addObject(exit);
+                if (exit.exitType() == Exit.ExitType.GOAL) goalExit = exit;
+                if (exit.exitType() == Exit.ExitType.RETURN) returnExit = exit;
+                break;
+            case "cameraRegions":
+                addObject(new CameraRegion(propertiesMap, scale, bounds));
+                break;
+            case "goal":
+                textureScaleCache.set(1/32f, 1/32f);
+                goal = new Goal(propertiesMap, textureRegionAssetMap, scale, 512);
+                addObject(goal);
+                break;
+            case "decor":
+                decorations.add(new Decoration(propertiesMap, textureRegionAssetMap, scale));
+                break;
         }
     }
 
     /**
-     * Reads the properties array of an object in a Tiled JSON, and puts it into <code>propertiesMap</code>.
+     * Puts the properties of a parsed Tiled object into <code>propertiesMap</code>, moving its position by the offset
+     * of this level.
      *
-     * @param objectJV   JSON of the object
-     * @param tileSize   Size of the tiles in the JSON
+     * @param properties   Properties of the object, relative to the bottom left of the level
      */
-    private void readProperties(JsonValue objectJV, int tileSize, int levelHeight){
-        propertiesMap.clear();
+    private void readProperties(ObjectProperties properties){
+        propertiesMap.set(properties);
 
-        propertiesMap.put("width", objectJV.getFloat("width")/tileSize);
-        propertiesMap.put("height", objectJV.getFloat("height")/tileSize);
-        float angle = (360 - objectJV.getFloat("rotation")) % 360;
-        propertiesMap.put("rotation", angle);
-        propertiesMap.put("name", objectJV.getString("name"));
-        propertiesMap.put("gid", objectJV.getInt("gid", -1));
-
-        //this is because tiled rotates about the top left corner
-        float x, y;
-        x = objectJV.getFloat("x");
-        if ((int) angle == 90) {
-            y = objectJV.getFloat("y") - objectJV.getFloat("width");
-        } else {
-            y = objectJV.getFloat("y");
-        }
-        x = x/tileSize + bounds.x;
-        y = levelHeight - y/tileSize + bounds.y;
-        propertiesMap.put("x", x);
-        propertiesMap.put("y", y);
+        propertiesMap.put("x", properties.getFloat("x") + bounds.x);
+        propertiesMap.put("y", properties.getFloat("y") + bounds.y);
 
-        //read polygon if there is one
-        JsonValue poly = objectJV.get("polygon");
+        float[] poly = properties.getFloats("polygon");
         if (poly != null) {
-            float[] shape = new float[poly.size * 2];
-            int i = 0;
-            for (JsonValue point : poly) {
-                shape[i] = x + point.getFloat("x") / tileSize;
-                shape[i + 1] = y - (point.getFloat("y")) / tileSize;
-                i += 2;
+            float[] shape = new float[poly.length];
+            for (int i = 0; i < poly.length; i += 2) {
+                shape[i] = poly[i] + bounds.x;
+                shape[i + 1] = poly[i + 1] + bounds.y;
             }
             propertiesMap.put("polygon", shape);
         }
-
-        //object specific properties if there are any
-        JsonValue properties = objectJV.get("properties");
-        if (properties == null) { return; }
-        for (JsonValue property : properties){
-            String name = property.getString("name");
-            switch (property.getString("type")){
-                case "string":
-                    propertiesMap.put(name, property.getString("value"));
-                    break;
-                case "int":
-                    propertiesMap.put(name, property.getInt("value"));
-                    break;
-                case "bool":
-                    propertiesMap.put(name, property.getBoolean("value"));
-                    break;
-                case "float":
-                    propertiesMap.put(name, property.getFloat("value"));
-                    break;
-                case "color":
-                    //tiles parses colors as ARGB >:(
-                    String color = property.getString("value");
-                    if (color.length() == 9) { // If a color property is left blank on tiled, sometimes it still presents a weird string which is guarded here
-                        propertiesMap.put(name,
-                                Color.valueOf("#" + color.substring(3) + color.substring(1, 3)));
-                    }
-                    break;
-                case "class":
-                    switch (property.getString("propertytype")){
-                        //currently only one class defined in our level editor, but this allows us to be flexible to add more
-                        case "Vector2":
-                            Vector2 v = new Vector2(property.get("value").getFloat("x", 0), property.get("value").getFloat("y", 0));
-                            propertiesMap.put(name, v);
-                            break;
-                        default:
-                            throw new InvalidTiledJSON("unexpected class: " + property.getString("type"));
-                    }
-                    break;
-                default:
-                    throw new InvalidTiledJSON("unexpected property type: " + property.getString("type"));
-            }
-        }
     }
 
     /**
@@ -1159,18 +844,31 @@ public class Level {
         activatables.clear();
         mobArray.clear();
         spiritRegionArray.clear();
+        triggers.reset();
+        supportGraph.clear();
         objectNames.clear();
         objectJoints.clear();
         decorations.clear();
         boxes.clear();
         numLives = maxLives;
+        disposeTiles();
         tiles = null;
         currCheckpoint = null;
         climbables = null;
         windows = null;
         labBkg = null;
         leaves = null;
+        forestTiles = null;
         goal = null;
+        pendingData = null;
+        paused = false;
+        suspended = false;
+        suspendedBodies.clear();
+        suspendedBodyActive.clear();
+        suspendedLights.clear();
+        suspendedLightActive.clear();
+        clearStates();
+        freeInitialState();
         setComplete(false);
         setFailure(false);
     }
@@ -1179,11 +877,19 @@ public class Level {
      * Pauses all objects in the level: stores state locally and sets velocity to 0.
      */
     public void pause(){
+        paused = true;
         for (Obstacle obj : objects) {
             obj.pause();
-            if(obj instanceof CameraRegion){
-                obj.setActive(false);
-            }
+        }
+    }
+
+    /**
+     * Records the current position of every object in the level as its previous physics state, so that
+     * objects are drawn interpolated between this and the next physics step.
+     */
+    public void savePreviousPositions(){
+        for (Obstacle obj : objects) {
+            obj.savePreviousPosition();
         }
     }
 
@@ -1191,14 +897,79 @@ public class Level {
      * Unpauses objects in the level: loads locally stored state if there is one.
      */
     public void unpause(){
+        paused = false;
         for (Obstacle obj : objects) {
             obj.unpause();
-            if(obj instanceof CameraRegion){
-                obj.setActive(true);
+        }
+    }
+
+    /**
+     * Takes this level out of the simulation while it is not the current level. Objects are paused, every body is
+     * made inactive, so that it leaves the broadphase and is not solved, and every light is turned off, so that the
+     * RayHandler stops casting its rays. Objects added to a suspended level are suspended as they are added.
+     * <br><br>
+     * A level that is still drawn (e.g. while the camera glides to a new level) should only be paused, since
+     * inactive activatables are not drawn.
+     */
+    public void suspend(){
+        if (suspended) return;
+        if (!paused) pause();
+        suspended = true;
+        for (Obstacle obj : objects) {
+            suspendObject(obj);
+        }
+        markPhysicsChanged();
+    }
+
+    /**
+     * Turns off the bodies and lights of one object of a suspended level, remembering whether each was on.
+     *
+     * @param obj  the object
+     */
+    private void suspendObject(Obstacle obj){
+        int numBodies = suspendedBodies.size;
+        obj.collectBodies(suspendedBodies);
+        for (int i = numBodies; i < suspendedBodies.size; i++) {
+            Body body = suspendedBodies.get(i);
+            suspendedBodyActive.add(body.isActive());
+            body.setActive(false);
+        }
+        int numLights = suspendedLights.size;
+        obj.collectLights(suspendedLights);
+        for (int i = numLights; i < suspendedLights.size; i++) {
+            Light light = suspendedLights.get(i);
+            suspendedLightActive.add(light.isActive());
+            light.setActive(false);
+        }
+    }
+
+    /**
+     * Puts a level back into the simulation: turns every body and light turned off by {@link #suspend()} back to
+     * what it was, and unpauses the objects.
+     */
+    public void resume(){
+        if (suspended) {
+            suspended = false;
+            for (int i = 0; i < suspendedBodies.size; i++) {
+                suspendedBodies.get(i).setActive(suspendedBodyActive.get(i));
             }
+            for (int i = 0; i < suspendedLights.size; i++) {
+                suspendedLights.get(i).setActive(suspendedLightActive.get(i));
+            }
+            suspendedBodies.clear();
+            suspendedBodyActive.clear();
+            suspendedLights.clear();
+            suspendedLightActive.clear();
+            markPhysicsChanged();
         }
+        unpause();
     }
 
+    /**
+     * @return true if the bodies and lights of this level are turned off
+     */
+    public boolean isSuspended() { return suspended; }
+
     /**
      * Immediately adds the object to the physics world
      *
@@ -1207,16 +978,40 @@ public class Level {
     protected void addObject(Obstacle obj) {
         assert inBounds(obj) : "Object is not in bounds";
         objects.add(obj);
+        if (obj instanceof Movable) supportGraph.add(obj);
+        markPhysicsChanged();
         obj.activatePhysics(world);
-        obj.createLight(rayHandler);
+        CollisionFilters.apply(obj);
+        if (rayHandler != null) obj.createLight(rayHandler);
+        obj.savePreviousPosition();
+        if (paused) obj.pause();
+        if (suspended) suspendObject(obj);
+        if (obj instanceof Trigger) triggers.add(obj);
         if (propertiesMap.containsKey("name")) {
-            objectNames.put((String) propertiesMap.get("name"), obj);
+            objectNames.put(propertiesMap.getString("name"), obj);
         }
-        if (!propertiesMap.get("attachName", "").equals("")) {
-            objectJoints.put(obj, (String) propertiesMap.get("attachName"));
+        if (!propertiesMap.getString("attachName", "").equals("")) {
+            objectJoints.put(obj, propertiesMap.getString("attachName"));
         }
     }
 
+    /**
+     * Records that bodies in this level have changed in a way that sleeping bodies do not show, e.g. a body
+     * was created or destroyed, or obstacles were moved back to a saved state. Cached raycasts, such as
+     * laser beams, are recomputed after this.
+     */
+    public void markPhysicsChanged() { physicsRevision++; }
+
+    /**
+     * @return the number of times {@link #markPhysicsChanged()} has been called
+     */
+    public int getPhysicsRevision() { return physicsRevision; }
+
+    /**
+     * @return the trigger volumes of this level
+     */
+    public TriggerSystem getTriggers() { return triggers; }
+
     /**
      * Adds a physics object in to the insertion queue.
      * <br><br>
@@ -1288,7 +1083,7 @@ public class Level {
 
     /**
      * Loads an activatable into this world. Assumes that the properties for the object is currently stored in
-     * <code>propertiesMap</code> (see {@link Level#readProperties(JsonValue, int, int)}).
+     * <code>propertiesMap</code> (see {@link Level#readProperties(ObjectProperties)}).
      *
      * @param object  Activatable to load.
      */
@@ -1296,7 +1091,7 @@ public class Level {
 
         addObject((Obstacle) object);
 
-        String activatorID = (String) propertiesMap.get("activatorID", "");
+        String activatorID = propertiesMap.getString("activatorID", "");
         if (!activatorID.equals("")) {
             if (activationRelations.containsKey(activatorID)) {
                 activationRelations.get(activatorID).add(object);
@@ -1316,12 +1111,17 @@ public class Level {
      * @param greyscale   amount of greyscale to apply (0-1)
      */
     public void draw(GameCanvas canvas, boolean drawCat, float greyscale) {
+        canvas.getCamera().getViewBounds(viewPixels);
+        view.set(viewPixels.x/scale.x - DRAW_MARGIN, viewPixels.y/scale.y - DRAW_MARGIN,
+                viewPixels.width/scale.x + 2*DRAW_MARGIN, viewPixels.height/scale.y + 2*DRAW_MARGIN);
 
         if (labBkg != null) {
-            labBkg.draw(canvas);
+            labBkg.draw(canvas, viewPixels);
         }
 
-        for (Decoration d : decorations) { d.draw(canvas); }
+        for (Decoration d : decorations) {
+            if (d.isVisible(viewPixels)) d.draw(canvas);
+        }
 
         if (goal != null && goal.isFinal()) {
             goal.draw(canvas);
@@ -1335,23 +1135,24 @@ public class Level {
         for(Obstacle obj : objects) {
             obj.setLightGreyscale(greyscale);
             if (obj != cat && !(obj instanceof DeadBody) && !(obj instanceof SpiritRegion)
-                    && !(obj instanceof Wall && !(obj instanceof Platform)) && !(obj instanceof Activator) ) {
+                    && !(obj instanceof Wall && !(obj instanceof Platform)) && !(obj instanceof Activator)
+                    && obj.getDrawBounds().overlaps(view)) {
                 obj.draw(canvas);
             }
         }
 
         if (biome != null && biome.equals("metal")) {
-            if (tiles != null) tiles.draw(canvas);
+            if (tiles != null) tiles.draw(canvas, viewPixels);
         }
 
-        if (climbables != null && biome.equals("metal")) climbables.draw(canvas);
+        if (climbables != null && biome.equals("metal")) climbables.draw(canvas, viewPixels);
 
         for (Activator a : activators) {
-            a.draw(canvas);
+            if (a.getDrawBounds().overlaps(view)) a.draw(canvas);
         }
 
         for (PushableBox b : boxes) {
-            b.draw(canvas);
+            if (b.getDrawBounds().overlaps(view)) b.draw(canvas);
         }
 
         if (greyscale > 0) {canvas.setShader(null);}
@@ -1359,6 +1160,7 @@ public class Level {
         String spiritRegionColor = "";
         if (cat != null)  spiritRegionColor = cat.getSpiritRegionColor().toString().substring(0, 6);
         for (SpiritRegion s : spiritRegionArray) {
+            if (!s.getDrawBounds().overlaps(view)) continue;
             if (greyscale > 0) {
                 if (!s.getColorString().equals(spiritRegionColor)) {
                     s.setGreyscale(greyscale);
@@ -1370,10 +1172,11 @@ public class Level {
         }
 
         for (Particle spirit : spiritParticles) {
-            spirit.draw(canvas, textureRegionAssetMap.get("spirit-photon").getTexture(), new Vector2(32f, 32f), new Vector2(20f, 20f));
+            spirit.draw(canvas, textureRegionAssetMap.get("spirit-photon"), SPIRIT_DRAW_SCALE, SPIRIT_TEXTURE_SCALE);
         }
 
         for (DeadBody db : deadBodyArray) {
+            if (!db.getDrawBounds().overlaps(view)) continue;
             if (greyscale > 0) {
                 if (db == nextBody){
                     canvas.setShader(null);
@@ -1401,18 +1204,18 @@ public class Level {
         }
 
         if (biome != null && biome.equals("forest")) {
-            if (tiles != null) tiles.draw(canvas);
-            if (climbables != null) climbables.draw(canvas);
+            if (tiles != null) tiles.draw(canvas, viewPixels);
+            if (climbables != null) climbables.draw(canvas, viewPixels);
         }
 
-        if (forestTiles != null) forestTiles.draw(canvas);
+        if (forestTiles != null) forestTiles.draw(canvas, viewPixels);
 
         if (windows != null) {
-            windows.draw(canvas);
+            windows.draw(canvas, viewPixels);
         }
 
         if (leaves != null) {
-            leaves.draw(canvas);
+            leaves.draw(canvas, viewPixels);
         }
 
         if (greyscale > 0) {canvas.setShader(null);}
@@ -1452,7 +1255,7 @@ public class Level {
      * */
     public void spawnDeadBody(){
         textureScaleCache.set(1/4f, 1/4f);
-        double rand = Math.random();
+        float rand = RandomController.rollFloat(0, 1);
         DeadBody deadBody;
         if(rand <0.33){
             deadBody = new DeadBody(textureRegionAssetMap.get("corpse2"),textureRegionAssetMap.get("corpse-burnt"), scale, cat.getPosition(), textureScaleCache,cat.getDashTimer());
@@ -1471,9 +1274,9 @@ public class Level {
 
     /**
      * Loads a dead body into this level from a saved state.
-     * @param state Map of arguments for the dead body, called from storeState() in {@link DeadBody}.
+     * @param state Buffer positioned at the state of the dead body, written by storeState() in {@link DeadBody}.
      */
-    public DeadBody loadDeadBodyState(ObjectMap<String, Object> state){
+    public DeadBody loadDeadBodyState(StateBuffer state){
         textureScaleCache.set(1/4f, 1/4f);
         DeadBody deadBody = new DeadBody(textureRegionAssetMap.get("corpse2"), textureRegionAssetMap.get("corpse-burnt"),scale, Vector2.Zero, textureScaleCache);
         deadBody.loadState(state);
@@ -1545,7 +1348,11 @@ public class Level {
     /**
      * Stores a snapshot of the current level state into the level states array.
      */
-    public void saveState() { levelStates.add(new LevelState(this)); }
+    public void saveState() {
+        LevelState state = statePool.obtain();
+        state.store(this);
+        levelStates.add(state);
+    }
 
     /**
      * @return  <code>LevelStates</code> array
@@ -1553,26 +1360,175 @@ public class Level {
     public Array<LevelState> levelStates() { return levelStates; }
 
     /**
-     * Stores a snapshot of the state of a level. A new <code>LevelState</code> instance is created
+     * Removes the most recent level state, and keeps its buffers for the next {@link #saveState()}.
+     */
+    public void popState() { statePool.free(levelStates.pop()); }
+
+    /**
+     * Removes every level state.
+     */
+    private void clearStates() {
+        if (levelStates == null) return;
+        statePool.freeAll(levelStates);
+        levelStates.clear();
+    }
+
+    /**
+     * Removes the snapshot taken when this level was populated.
+     */
+    private void freeInitialState() {
+        if (initialState == null) return;
+        statePool.free(initialState);
+        initialState = null;
+    }
+
+    /**
+     * @return true if this level has been populated and can be restored with {@link #restoreInitialState()}
+     */
+    public boolean hasInitialState() { return initialState != null; }
+
+    /**
+     * Resets this level to the state it was in right after it was populated, without destroying and recreating
+     * its bodies and lights. Every obstacle is moved back and revived, dead bodies are removed, activatables are
+     * switched back to their initial activation and the lives, checkpoints and stored states are reset.
+     * <br><br>
+     * The cat is not restored, since it may have been moved from another level. It should be respawned afterwards.
+     * <br><br>
+     * Loading the snapshot turns bodies back on, so a paused or suspended level is resumed before it is restored
+     * and paused or suspended again afterwards. This also replaces the states its objects were paused in, which
+     * would otherwise be loaded over the restored state when the level is resumed.
+     */
+    public void restoreInitialState() {
+        boolean wasPaused = paused;
+        boolean wasSuspended = suspended;
+        if (wasPaused) resume();
+        restoredActivations.clear();
+        for (Activatable a : activatables) restoredActivations.add(a.isActivated());
+        for (Obstacle obs : objects) {
+            if (obs instanceof DeadBody) removeDeadBody((DeadBody) obs);
+        }
+        for (int i = 0; i < initialState.numObstacles(); i++) {
+            Obstacle obs = initialState.getObstacle(i);
+            if (obs instanceof Cat || obs.isRemoved()) continue;
+            initialState.loadObstacle(i);
+            if (obs instanceof Spikes) ((Spikes) obs).destroyJoints(world);
+        }
+        // some activatables load their activation with their state, so switch every activatable from where it was
+        // before the reset, so that activated() or deactivated() runs whenever the activation changes
+        for (int i = 0; i < activatables.size; i++) {
+            Activatable a = activatables.get(i);
+            a.setActivated(restoredActivations.get(i));
+            a.updateActivated(false, world);
+        }
+        markPhysicsChanged();
+        supportGraph.invalidateEdges();
+
+        clearStates();
+        resetCheckpoints();
+        numLives = maxLives;
+        nextBody = null;
+        spiritMode = false;
+        setComplete(false);
+        setFailure(false);
+        setDied(false);
+
+        if (wasSuspended) {
+            suspend();
+        } else if (wasPaused) {
+            pause();
+        }
+    }
+
+    /**
+     * Stores a snapshot of the state of a level. A <code>LevelState</code> is saved
      * at the beginning of the level, and everytime the player changes their checkpoint.
+     * <br><br>
+     * Every obstacle writes its state into one shared {@link StateBuffer}. The start of each
+     * obstacle's state is stored in <code>offsets</code>, indexed by the position of the obstacle
+     * in the snapshot, so loading a state is a sequence of reads from primitive arrays.
+     * Dead bodies are stored after every other obstacle since they are recreated on load.
      */
-    protected static class LevelState {
-        public ObjectMap<Obstacle, ObjectMap<String, Object>> obstacleData = new ObjectMap<>();
+    protected static class LevelState implements Pool.Poolable {
         public int numLives;
         public Checkpoint checkpoint;
-        public Array<ObjectMap<String, Object>> deadBodyData = new Array<>();
-
-        public LevelState(Level level){
+        /** State of every obstacle */
+        private final StateBuffer buffer = new StateBuffer(256, 64, 16);
+        /** Obstacles in the snapshot, other than dead bodies */
+        private final Array<Obstacle> obstacles = new Array<>();
+        /** Float, int and object offsets of each obstacle in <code>buffer</code>, followed by those of each dead body */
+        private final IntArray offsets = new IntArray();
+        /** Number of dead bodies in the snapshot */
+        private int numDeadBodies;
+
+        /**
+         * Takes a snapshot of a level, replacing the current contents of this state.
+         *
+         * @param level  the level
+         */
+        public void store(Level level){
+            reset();
             this.numLives = level.getNumLives();
             this.checkpoint = level.getCheckpoint();
+            for (Obstacle obs : level.getObjects()) {
+                if (!(obs instanceof DeadBody)) {
+                    obstacles.add(obs);
+                    store(obs);
+                }
+            }
             for (Obstacle obs : level.getObjects()) {
                 if (obs instanceof DeadBody) {
-                    deadBodyData.add(obs.storeState());
-                } else {
-                    obstacleData.put(obs, obs.storeState());
+                    numDeadBodies++;
+                    store(obs);
                 }
             }
         }
+
+        private void store(Obstacle obs){
+            offsets.add(buffer.floatSize(), buffer.intSize(), buffer.objectSize());
+            obs.storeState(buffer);
+        }
+
+        /**
+         * Moves the buffer to the start of an entry in <code>offsets</code>.
+         *
+         * @param i  index of the entry
+         * @return the buffer, ready to be read
+         */
+        private StateBuffer seek(int i){
+            buffer.seek(offsets.get(3 * i), offsets.get(3 * i + 1), offsets.get(3 * i + 2));
+            return buffer;
+        }
+
+        /** @return the number of obstacles in the snapshot, other than dead bodies */
+        public int numObstacles() { return obstacles.size; }
+
+        /** @return the <code>i</code>th obstacle in the snapshot */
+        public Obstacle getObstacle(int i) { return obstacles.get(i); }
+
+        /**
+         * Loads the state of the <code>i</code>th obstacle in the snapshot.
+         *
+         * @param i  index of the obstacle
+         */
+        public void loadObstacle(int i) { obstacles.get(i).loadState(seek(i)); }
+
+        /** @return the number of dead bodies in the snapshot */
+        public int numDeadBodies() { return numDeadBodies; }
+
+        /**
+         * @param i  index of the dead body
+         * @return the buffer, positioned at the state of the <code>i</code>th dead body
+         */
+        public StateBuffer deadBodyState(int i) { return seek(obstacles.size + i); }
+
+        @Override
+        public void reset() {
+            buffer.clear();
+            obstacles.clear();
+            offsets.clear();
+            numDeadBodies = 0;
+            checkpoint = null;
+        }
     }
 
     private class Decoration {
@@ -1582,23 +1538,38 @@ public class Level {
         private Vector2 textureScale = new Vector2();
         /** direction of this button */
         private float angle;
-        public Decoration(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale) {
-            position.set((float) properties.get("x"), (float) properties.get("y"));
+        public Decoration(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale) {
+            position.set(properties.getFloat("x"), properties.getFloat("y"));
             try {
-                textureRegion = new TextureRegion(tMap.get((String) properties.get("name")));
-                textureRegion.flip((boolean) properties.get("flipX", false),
-                        (boolean) properties.get("flipY", false));
+                textureRegion = new TextureRegion(tMap.get(properties.getString("name")));
+                textureRegion.flip(properties.getBoolean("flipX", false),
+                        properties.getBoolean("flipY", false));
 
                 this.scale.set(scale);
-                textureScale.set((float) properties.get("width") * scale.x / textureRegion.getRegionWidth(),
-                        (float) properties.get("height") * scale.y / textureRegion.getRegionHeight());
+                textureScale.set(properties.getFloat("width") * scale.x / textureRegion.getRegionWidth(),
+                        properties.getFloat("height") * scale.y / textureRegion.getRegionHeight());
             } catch (NullPointerException e) {
-                throw new InvalidTiledJSON("Failed to load in decoration " + properties.get("name"));
+                throw new TiledLevelData.InvalidTiledJSON(levelNum, "Failed to load in decoration " + properties.getString("name"));
             }
 
             // Rotation:
-            angle = ((float) ((float) properties.get("rotation") * Math.PI/180));
+            angle = ((float) (properties.getFloat("rotation") * Math.PI/180));
+        }
+        /**
+         * @param view  visible area, in pixels
+         * @return true if this decoration might overlap the view
+         */
+        public boolean isVisible(Rectangle view){
+            float width = textureRegion.getRegionWidth() * Math.abs(textureScale.x);
+            float height = textureRegion.getRegionHeight() * Math.abs(textureScale.y);
+            //decorations rotate about their corner, so check the circle they can cover
+            float radius = (float) Math.sqrt(width*width + height*height);
+            float x = position.x * scale.x;
+            float y = position.y * scale.y;
+            return x + radius >= view.x && x - radius <= view.x + view.width
+                    && y + radius >= view.y && y - radius <= view.y + view.height;
         }
+
         public void draw(GameCanvas canvas){
 //            float x = position.x * scale.x;
 //            if (Math.round(Math.toDegrees(angle)) == 180) {
@@ -0,0 +1,48 @@
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+
+import java.io.*;
+
+/**
+ * Compiles Tiled JSON levels into the binary format read by {@link TiledLevelData#read}.
+ * <br><br>
+ * This is run at build time by the <code>compileLevels</code> Gradle task. Every <code>.json</code> file in the input
+ * directory is written to a <code>.lvl</code> file with the same name in the output directory. The game loads the
+ * compiled levels through the "binaries" section of the asset directory, and falls back to the Tiled JSON if a level
+ * has not been compiled (or failed to compile).
+ */
+public class LevelCompiler {
+
+    /**
+     * @param args  input directory of Tiled JSON levels, then output directory for compiled levels
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: LevelCompiler <levels directory> <output directory>");
+            System.exit(1);
+        }
+        File inputDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+        File[] levels = inputDir.listFiles((dir, name) -> name.endsWith(".json"));
+        if (levels == null) throw new FileNotFoundException("no such directory: " + inputDir);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) throw new IOException("could not create " + outputDir);
+
+        JsonReader reader = new JsonReader();
+        int failed = 0;
+        for (File level : levels) {
+            String name = level.getName().substring(0, level.getName().length() - ".json".length());
+            File output = new File(outputDir, name + ".lvl");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+                new TiledLevelData(reader.parse(new FileHandle(level)), 0).write(out);
+            } catch (RuntimeException e) {
+                System.err.println("Failed to compile " + level.getName() + ": " + e.getMessage());
+                output.delete();
+                failed++;
+            }
+        }
+        //levels that fail to compile are still loaded from their JSON, so this is only a warning
+        System.out.println("Compiled " + (levels.length - failed) + " of " + levels.length + " levels");
+    }
+}
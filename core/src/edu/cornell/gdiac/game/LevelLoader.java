@@ -0,0 +1,129 @@
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.concurrent.*;
+
+/**
+ * Parses Tiled levels on a background thread.
+ * <br><br>
+ * When the player enters a level, the levels two steps away are queued with {@link #prepare}, so that by the time they
+ * become adjacent they are already parsed into a {@link TiledLevelData}. Only the parsing happens here: the
+ * bodies, lights and joints are still created on the main thread by {@link Level}.
+ */
+public class LevelLoader {
+
+    /** Worker thread that parses levels */
+    private final ExecutorService executor;
+    /** Levels that have been queued, indexed by level number */
+    private final IntMap<Future<TiledLevelData>> pending = new IntMap<>();
+    /** Texture map used to look up tilesets */
+    private HashMap<String, TextureRegion> textureRegionAssetMap;
+
+    public LevelLoader() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "LevelLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the texture map used to look up tilesets.
+     *
+     * @param tMap  the hashmap for Texture Regions
+     */
+    public void setAssets(HashMap<String, TextureRegion> tMap) {
+        textureRegionAssetMap = tMap;
+    }
+
+    /**
+     * Starts parsing a level in the background, if it is not already being parsed.
+     *
+     * @param levelNum  the number of the level
+     * @param json      Tiled JSON file of the level, only read if there is no usable blob
+     * @param compiled  compiled blob of the level, or null to parse the JSON
+     */
+    public void prepare(int levelNum, FileHandle json, ByteBuffer compiled) {
+        if (pending.containsKey(levelNum)) return;
+        HashMap<String, TextureRegion> tMap = textureRegionAssetMap;
+        pending.put(levelNum, executor.submit(() -> load(levelNum, json, compiled, tMap)));
+    }
+
+    /**
+     * Returns a parsed level. If the level was prepared, this waits for the background parse to finish. If it was
+     * not prepared, or its parse was cancelled by {@link #retain}, the level is parsed synchronously on the calling
+     * thread, which is the hitch that preparing the level avoids.
+     *
+     * @param levelNum  the number of the level
+     * @param json      Tiled JSON file of the level, only read if there is no usable blob
+     * @param compiled  compiled blob of the level, or null to parse the JSON
+     * @return the parsed level
+     * @throws GdxRuntimeException if the calling thread is interrupted while waiting. The background parse is
+     *                             cancelled and the interrupt status of the thread is kept.
+     */
+    public TiledLevelData take(int levelNum, FileHandle json, ByteBuffer compiled) {
+        Future<TiledLevelData> future = pending.remove(levelNum);
+        if (future != null) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new GdxRuntimeException("Interrupted while waiting for level " + levelNum, e);
+            } catch (CancellationException e) {
+                //parse it again below
+            }
+        }
+        return load(levelNum, json, compiled, textureRegionAssetMap);
+    }
+
+    /**
+     * Parses a level and splits its tilesets.
+     *
+     * @param levelNum  the number of the level
+     * @param json      Tiled JSON file of the level, only read if there is no usable blob
+     * @param compiled  compiled blob of the level, or null to parse the JSON
+     * @param tMap      texture map, used to look up tilesets
+     * @return the parsed level
+     */
+    private static TiledLevelData load(int levelNum, FileHandle json, ByteBuffer compiled,
+                                       HashMap<String, TextureRegion> tMap) {
+        TiledLevelData data = TiledLevelData.load(json, compiled, levelNum);
+        data.sliceTilesets(tMap);
+        return data;
+    }
+
+    /**
+     * Cancels every prepared level outside of a range of level numbers.
+     *
+     * @param min  smallest level number to keep
+     * @param max  largest level number to keep
+     */
+    public void retain(int min, int max) {
+        IntMap.Keys keys = pending.keys();
+        while (keys.hasNext) {
+            int levelNum = keys.next();
+            if (levelNum < min || levelNum > max) {
+                pending.get(levelNum).cancel(true);
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * Stops the worker thread. Levels that are still being parsed are discarded.
+     */
+    public void dispose() {
+        pending.clear();
+        executor.shutdownNow();
+    }
+}
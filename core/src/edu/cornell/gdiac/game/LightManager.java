@@ -0,0 +1,195 @@
+/*
+ * LightManager.java
+ *
+ * Keeps the box2dlights of the current level cheap to update. Every light used to cast
+ * 100 rays against the world on every frame, even lights that never move and lights
+ * far outside the camera view. Lights now get a ray count that matches their size on
+ * screen, and lights on static bodies are only recast when a body moves near them, which
+ * is as close to a baked lightmap as box2dlights allows.
+ */
+package edu.cornell.gdiac.game;
+
+import box2dLight.Light;
+import box2dLight.PositionalLight;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
+import edu.cornell.gdiac.game.obstacle.Obstacle;
+
+/**
+ * Manages the level of detail of the lights of a level.
+ *
+ * The number of rays of a light is picked when it is created, from the length of its arc on screen at the
+ * default zoom (see {@link #rayCount}). Box2dlights cannot change the ray count of an existing light.
+ *
+ * Point and cone lights attached to static bodies are marked as static lights, so the RayHandler only recasts
+ * them when they are dirty. A static light does not follow its body, so lights are left dynamic for one frame
+ * whenever they are collected, and only lights that are on are made static.
+ *
+ * {@link #update} marks a static light dirty when an awake, non-static body overlaps its radius (and on the frame
+ * after, to catch bodies that just came to rest), and when it comes back into view. The lights are collected again
+ * whenever the bodies of the level change in a way sleeping bodies do not show (see
+ * {@link Level#markPhysicsChanged()}).
+ *
+ * This is how lights on static geometry (walls, checkpoints, activators, goals) are baked: their meshes are cast
+ * once and reused for as long as nothing moves within their radius, and every body still casts shadows from them.
+ * No lightmap texture is rendered per level chunk, since box2dlights has no hook to draw into its light map
+ * between clearing it and drawing the lights, and drawing a texture outside of it would skip its blending with the
+ * ambient light. The trade-off is that a static light with a moving body in range (usually the cat) costs as much
+ * as a dynamic light, where a baked texture would cost nothing but would not shadow the body.
+ *
+ * Lights outside the camera view are culled by the RayHandler itself, as long as its view is set in physics
+ * units.
+ */
+public class LightManager {
+	/** Length of the arc of a light on screen covered by each ray, in pixels */
+	private static final float PIXELS_PER_RAY = 6;
+	/** Fewest rays a light is created with */
+	public static final int MIN_RAYS = 24;
+	/** Most rays a light is created with */
+	public static final int MAX_RAYS = 100;
+
+	/** Level whose static lights are tracked */
+	private Level level;
+	/** Physics revision of the level when its static lights were collected */
+	private int revision;
+	/** Point and cone lights attached to static bodies in the level */
+	private final Array<PositionalLight> staticLights = new Array<>();
+	/** Whether the lights in <code>staticLights</code> are still waiting to be made static */
+	private boolean pendingStatic;
+	/** Whether each static light was in view last frame */
+	private final BooleanArray wasVisible = new BooleanArray();
+	/** Whether a moving body was near each static light last frame */
+	private final BooleanArray wasDisturbed = new BooleanArray();
+	/** Cache for the lights of an obstacle */
+	private final Array<Light> lightCache = new Array<>();
+	/** Callback looking for moving bodies near a light */
+	private final MovingBodyQuery query = new MovingBodyQuery();
+
+	/** Finds whether any body in an area is moving */
+	private static class MovingBodyQuery implements QueryCallback {
+		/** Whether a moving body was found */
+		boolean found;
+
+		@Override
+		public boolean reportFixture(Fixture fixture) {
+			Body body = fixture.getBody();
+			if (body.getType() != BodyDef.BodyType.StaticBody && body.isAwake()) {
+				found = true;
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the number of rays for a new light.
+	 *
+	 * @param radius   radius of the light on screen, in pixels
+	 * @param degrees  angle covered by the light, 360 for a point light
+	 * @return the number of rays, between {@link #MIN_RAYS} and {@link #MAX_RAYS}
+	 */
+	public static int rayCount(float radius, float degrees) {
+		float arc = MathUtils.PI2 * radius * Math.min(degrees, 360) / 360;
+		return MathUtils.clamp(MathUtils.ceil(arc / PIXELS_PER_RAY), MIN_RAYS, MAX_RAYS);
+	}
+
+	/**
+	 * Moves the lights attached to moving obstacles to where the obstacles are drawn, and marks the static lights of
+	 * a level dirty where their occluders may have changed. This should be called every frame before the RayHandler
+	 * is updated.
+	 *
+	 * @param level  the current level
+	 * @param view   area visible through the camera, in physics units
+	 */
+	public void update(Level level, Rectangle view) {
+		for (Obstacle obj : level.getObjects()) {
+			obj.interpolateLight();
+		}
+		if (level != this.level || level.getPhysicsRevision() != revision) {
+			this.level = level;
+			revision = level.getPhysicsRevision();
+			collectStaticLights();
+			return;
+		}
+		if (pendingStatic) {
+			makeLightsStatic();
+			return;
+		}
+		for (int i = 0; i < staticLights.size; i++) {
+			PositionalLight light = staticLights.get(i);
+			if (!light.isActive()) continue;
+			float x = light.getX();
+			float y = light.getY();
+			float d = light.getDistance();
+			boolean visible = x + d >= view.x && x - d <= view.x + view.width
+					&& y + d >= view.y && y - d <= view.y + view.height;
+			boolean entered = visible && !wasVisible.get(i);
+			wasVisible.set(i, visible);
+			if (!visible) continue;
+
+			query.found = false;
+			level.getWorld().QueryAABB(query, x - d, y - d, x + d, y + d);
+			if (query.found || wasDisturbed.get(i) || entered) markDirty(light);
+			wasDisturbed.set(i, query.found);
+		}
+	}
+
+	/**
+	 * Finds the point and cone lights attached to static bodies in the level. Every light is made dynamic, so that
+	 * the RayHandler moves it to its body on the next update.
+	 */
+	private void collectStaticLights() {
+		staticLights.clear();
+		for (Obstacle obj : level.getObjects()) {
+			lightCache.clear();
+			obj.collectLights(lightCache);
+			for (Light light : lightCache) {
+				if (!(light instanceof PositionalLight)) continue;
+				light.setStaticLight(false);
+				Body body = light.getBody();
+				if (body != null && body.getType() == BodyDef.BodyType.StaticBody) {
+					staticLights.add((PositionalLight) light);
+				}
+			}
+		}
+		lightCache.clear();
+		pendingStatic = true;
+	}
+
+	/**
+	 * Makes the collected lights that are on static. Lights that are off have not been moved to their body, so
+	 * they stay dynamic until the lights are collected again.
+	 */
+	private void makeLightsStatic() {
+		pendingStatic = false;
+		int n = 0;
+		for (int i = 0; i < staticLights.size; i++) {
+			PositionalLight light = staticLights.get(i);
+			if (!light.isActive()) continue;
+			light.setStaticLight(true);
+			staticLights.set(n++, light);
+		}
+		staticLights.truncate(n);
+		wasVisible.clear();
+		wasDisturbed.clear();
+		for (int i = 0; i < n; i++) {
+			wasVisible.add(false);
+			wasDisturbed.add(false);
+		}
+	}
+
+	/**
+	 * Makes the RayHandler recast a static light on its next update.
+	 *
+	 * @param light  the light
+	 */
+	private static void markDirty(PositionalLight light) {
+		light.setPosition(light.getX(), light.getY());
+	}
+}
@@ -119,6 +119,29 @@ public class NineLives extends Game implements ScreenListener {
 		controller.gatherAssets(directory);
 		controller.setCanvas(canvas);
 		controller.init(quickLaunchFromTiled ? 1 : startLevel);
+		// Input logs for reproducing bugs, e.g. -Drecord=debug-input/recent.bin
+		if (System.getProperty("replay") != null) {
+			controller.replayInput(System.getProperty("replay"));
+		} else if (System.getProperty("record") != null) {
+			controller.recordInput(System.getProperty("record"));
+		}
+		// Per-phase frame timings, printed when leaving each level, e.g. -Dprofile
+		controller.setProfiling(System.getProperty("profile") != null);
+		// Fraction of the native resolution to render at, e.g. -DrenderScale=0.75, or -DrenderScale=auto to adapt it
+		String renderScale = System.getProperty("renderScale");
+		if ("auto".equals(renderScale)) {
+			canvas.setAdaptiveRenderScale(true);
+		} else if (renderScale != null) {
+			try {
+				canvas.setRenderScale(Float.parseFloat(renderScale));
+			} catch (NumberFormatException e) {
+				System.err.println("Invalid render scale: " + renderScale);
+			}
+		}
+		// Per-level render stats as CSV, e.g. -DrenderStats=render-stats
+		if (System.getProperty("renderStats") != null) {
+			canvas.getRenderStats().exportTo(System.getProperty("renderStats"));
+		}
 		controller.setScreenListener(this);
 		setScreen(controller);
 		menu.dispose();
@@ -0,0 +1,111 @@
+/*
+ * PerceptionScheduler.java
+ *
+ * Decides which mobs look for the cat on each tick. Mob detection raycasts used to run
+ * for every mob on every tick across the whole level, so their cost grew with every mob
+ * a level added. The scheduler clips them to a sight range, runs them less often for
+ * mobs far from the cat, and skips mobs that are outside the camera view.
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.game.object.Cat;
+import edu.cornell.gdiac.game.object.Mob;
+
+/**
+ * Schedules the detection raycasts of every mob in a level.
+ *
+ * Mobs within <code>near_distance</code> of the cat look every tick. Mobs farther away look every
+ * <code>far_interval</code> ticks, staggered so that they do not all raycast on the same tick. Mobs outside
+ * the camera view (expanded by <code>view_margin</code>) do not look at all, and keep whatever they last saw.
+ * Every ray is at most <code>sight_range</code> long.
+ *
+ * The constants are read from the "perception" entry of the mob constants, and every one is optional.
+ */
+public class PerceptionScheduler {
+	/** Constants shared by every scheduler, or null to use the defaults */
+	private static JsonValue objectConstants;
+
+	/** Maximum length of a detection ray, in physics units */
+	private float sightRange;
+	/** Distance from the cat within which mobs look every tick, in physics units */
+	private float nearDistance;
+	/** Number of ticks between looks for mobs far from the cat */
+	private int farInterval;
+	/** Distance outside of the camera view where mobs still look, in physics units */
+	private float viewMargin;
+	/** Whether mobs outside the camera view are skipped */
+	private boolean viewCulling = true;
+	/** Number of ticks scheduled */
+	private int tick;
+	/** Area where mobs look, in physics units */
+	private final Rectangle view = new Rectangle();
+
+	/**
+	 * Creates a scheduler with the shared constants.
+	 */
+	public PerceptionScheduler() {
+		reset();
+	}
+
+	/**
+	 * Rereads the shared constants and restarts the schedule, e.g. when a new level is loaded.
+	 */
+	public void reset() {
+		tick = 0;
+		JsonValue constants = objectConstants == null ? null : objectConstants.get("perception");
+		sightRange = Math.max(constants == null ? 12 : constants.getFloat("sight_range", 12), 0);
+		nearDistance = constants == null ? 8 : constants.getFloat("near_distance", 8);
+		farInterval = Math.max(constants == null ? 4 : constants.getInt("far_interval", 4), 1);
+		viewMargin = constants == null ? 2 : constants.getFloat("view_margin", 2);
+	}
+
+	/**
+	 * Sets whether mobs outside the camera view are skipped. This should only be off when the camera does not
+	 * follow the cat.
+	 *
+	 * @param viewCulling  whether to skip mobs outside the view
+	 */
+	public void setViewCulling(boolean viewCulling) {
+		this.viewCulling = viewCulling;
+	}
+
+	/**
+	 * Lets the mobs that are due this tick look for the cat.
+	 *
+	 * @param controllers  controllers of the mobs in the level
+	 * @param cat          the cat, or null if there is none
+	 * @param camera       camera showing the level, or null to not cull by view
+	 * @param scale        physics scale of the level
+	 */
+	public void update(Array<AIController> controllers, Cat cat, Camera camera, Vector2 scale) {
+		boolean cull = viewCulling && camera != null;
+		if (cull) {
+			camera.getViewBounds(view);
+			view.set(view.x/scale.x - viewMargin, view.y/scale.y - viewMargin,
+					view.width/scale.x + 2*viewMargin, view.height/scale.y + 2*viewMargin);
+		}
+		float nearDistance2 = nearDistance*nearDistance;
+		for (int i = 0; i < controllers.size; i++) {
+			AIController controller = controllers.get(i);
+			Mob mob = controller.getMob();
+			float x = mob.getX();
+			float y = mob.getY();
+			if (cull && !view.contains(x, y)) continue;
+			boolean near = cat != null && Vector2.dst2(x, y, cat.getX(), cat.getY()) <= nearDistance2;
+			if (near || (tick + i) % farInterval == 0) {
+				controller.perceive(sightRange);
+			}
+		}
+		tick++;
+	}
+
+	/**
+	 * Sets the shared constants for all schedulers
+	 * @param constants JSON storing the mob constants.
+	 */
+	public static void setConstants(JsonValue constants) { objectConstants = constants; }
+}
@@ -0,0 +1,135 @@
+/*
+ * PostProcessor.java
+ *
+ * Applies the fullscreen effects to the scene when the main frame buffer is drawn to the
+ * screen. The spirit mode portal and the reset flash used to be a shader swap and an
+ * extra fullscreen rectangle, and every new effect would have added a pass of its own.
+ * The effects are now fused into a single uber shader pass, and effects that are off
+ * cost nothing.
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+/**
+ * The post-processing pipeline of the canvas.
+ *
+ * The portal and flash effects are fused into the uber shader (shaders/uber.frag), which replaces the default
+ * shader of the sprite batch while the scene is drawn to the screen. An effect that is off is skipped by the
+ * shader, and if every effect is off, the scene is drawn with the default shader, so the pipeline costs no shader
+ * swap at all. A new effect goes into the uber shader as a function with a uniform that turns it off.
+ *
+ * The greyscale of spirit mode is not part of the pipeline, since it is applied to every sprite except the cat,
+ * the next body and the spirit regions of the cat's color.
+ */
+public class PostProcessor {
+	/** Flash alpha below which the flash is not visible */
+	private static final float MIN_FLASH_ALPHA = 1/255f;
+
+	/** The uber shader, or null if it failed to compile */
+	private ShaderProgram shader;
+
+	/** Whether the portal is drawn */
+	private boolean portalEnabled;
+	/** Radius of the portal in uv coordinates */
+	private float portalRadius = 1;
+	/** Thickness of the fading part of the portal */
+	private float portalThickness;
+	/** Color of the solid part of the portal */
+	private final Color portalBgColor = new Color();
+	/** Color of the fading part of the portal */
+	private final Color portalEdgeColor = new Color();
+	/** Time since the portal was opened */
+	private float portalTime;
+	/** Color of the flash, alpha 0 if there is no flash */
+	private final Color flashColor = new Color(1, 1, 1, 0);
+
+	/**
+	 * Creates the post-processing pipeline.
+	 *
+	 * @param vertexShader  source of the vertex shader of the sprite batch
+	 */
+	public PostProcessor(String vertexShader) {
+		shader = new ShaderProgram(vertexShader, Gdx.files.internal("shaders/uber.frag").readString());
+		if (!shader.isCompiled()) {
+			Gdx.app.error("PostProcessor", "Post-processing is disabled: " + shader.getLog());
+			shader.dispose();
+			shader = null;
+		}
+	}
+
+	/**
+	 * Sets whether the spirit mode portal is drawn.
+	 *
+	 * @param enabled  whether to draw the portal
+	 */
+	public void setPortalEnabled(boolean enabled) {
+		portalEnabled = enabled;
+	}
+
+	/**
+	 * Sets the spirit mode portal.
+	 *
+	 * @param diameter    diameter of the portal effect in uv coordinates
+	 * @param thickness   thickness (in unspecified units) of the fading part of the portal
+	 * @param bgColor     color of the solid part of the portal
+	 * @param edgeColor   color of the fading part of the portal
+	 * @param time        time since the portal was opened
+	 */
+	public void setPortal(float diameter, float thickness, Color bgColor, Color edgeColor, float time) {
+		portalRadius = diameter;
+		portalThickness = thickness;
+		portalBgColor.set(bgColor);
+		portalEdgeColor.set(edgeColor);
+		portalTime = time;
+	}
+
+	/**
+	 * Sets the flash drawn over the scene.
+	 *
+	 * @param color  color of the flash, alpha 0 for no flash
+	 */
+	public void setFlash(Color color) {
+		flashColor.set(color);
+	}
+
+	/**
+	 * @return whether any fused effect is on
+	 */
+	private boolean anyFusedEffects() {
+		return portalEnabled || flashColor.a >= MIN_FLASH_ALPHA;
+	}
+
+	/**
+	 * Returns the shader to draw the scene with. The uniforms must be set with {@link #setUniforms} once the shader
+	 * is bound.
+	 *
+	 * @return the uber shader, or null for the default shader if every fused effect is off
+	 */
+	public ShaderProgram getShader() {
+		return anyFusedEffects() ? shader : null;
+	}
+
+	/**
+	 * Sets the uniforms of the uber shader, which must be bound.
+	 */
+	public void setUniforms() {
+		shader.setUniformf("u_portal", portalEnabled ? 1 : 0);
+		shader.setUniformf("u_radius", portalRadius);
+		shader.setUniformf("u_thickness", portalThickness);
+		shader.setUniformf("u_bgColor", portalBgColor);
+		shader.setUniformf("u_edgeColor", portalEdgeColor);
+		shader.setUniformf("u_time", portalTime);
+		shader.setUniformf("u_flashColor", flashColor.a >= MIN_FLASH_ALPHA ? flashColor : Color.CLEAR);
+	}
+
+	/**
+	 * Disposes the uber shader.
+	 */
+	public void dispose() {
+		if (shader != null) shader.dispose();
+		shader = null;
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * RenderScaler.java
+ *
+ * Picks the resolution the scene is rendered at. On high resolution displays, the scene
+ * frame buffer, the light map and the fullscreen shaders cost too much for integrated
+ * GPUs. The scene can instead be rendered at a fraction of the native resolution and
+ * upscaled, either at a fixed fraction or at one that adapts to the measured frame time,
+ * so that heavy moments drop resolution instead of frames.
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.BufferUtils;
+
+import java.nio.IntBuffer;
+
+/**
+ * The render scale of the canvas, as a fraction of the native resolution.
+ *
+ * When adaptive, the scale is adjusted at the end of every frame from the smoothed GPU time of the frame, measured
+ * with timer queries. The result of a query is read a few frames later, so measuring never stalls the pipeline. If
+ * timer queries are not supported (e.g. on an OpenGL 2 context), the time between frames is used instead. That time
+ * cannot go below the refresh interval with vsync, so the scale is only raised again after a long run of frames
+ * that met the budget.
+ *
+ * Since every change of scale reallocates the frame buffers, the scale moves in steps of {@link #STEP} and waits
+ * between changes.
+ */
+public class RenderScaler {
+	/** Lowest render scale */
+	public static final float MIN_SCALE = 0.5f;
+	/** Highest render scale */
+	public static final float MAX_SCALE = 1;
+	/** Smallest change of the render scale */
+	private static final float STEP = 0.05f;
+	/** Time available to render a frame, in seconds */
+	private static final float FRAME_BUDGET = 1/60f;
+	/** Weight of each new sample in the smoothed frame time */
+	private static final float SMOOTHING = 0.1f;
+	/** Frames to wait after lowering the scale */
+	private static final int DROP_COOLDOWN = 30;
+	/** Frames to wait after raising the scale, or before raising it again */
+	private static final int RAISE_COOLDOWN = 300;
+	/** Number of timer queries in flight */
+	private static final int NUM_QUERIES = 3;
+	/** OpenGL target of timer queries (GL_TIME_ELAPSED), which is not in the GL30 interface */
+	private static final int GL_TIME_ELAPSED = 0x88BF;
+
+	/** Current render scale */
+	private float scale = MAX_SCALE;
+	/** Whether the scale adapts to the frame time */
+	private boolean adaptive;
+	/** Smoothed time of a frame in seconds, or a negative number if there is no sample yet */
+	private float frameTime = -1;
+	/** Frames left before the scale may change */
+	private int cooldown;
+	/** Timer queries, or null if the GPU is not timed */
+	private IntBuffer queries;
+	/** Number of frames timed */
+	private int queryFrame;
+	/** Whether a timer query was started this frame */
+	private boolean queryActive;
+	/** Cache for query results */
+	private final IntBuffer result = BufferUtils.newIntBuffer(1);
+
+	/**
+	 * @return the current render scale
+	 */
+	public float getScale() {
+		return scale;
+	}
+
+	/**
+	 * Sets a fixed render scale. The scale is clamped between {@link #MIN_SCALE} and {@link #MAX_SCALE}.
+	 *
+	 * @param scale  fraction of the native resolution to render at
+	 */
+	public void setScale(float scale) {
+		this.scale = MathUtils.clamp(scale, MIN_SCALE, MAX_SCALE);
+	}
+
+	/**
+	 * @return whether the render scale adapts to the frame time
+	 */
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * Sets whether the render scale adapts to the frame time. The GPU is timed if the OpenGL context supports timer
+	 * queries.
+	 *
+	 * @param adaptive  whether to adapt the render scale
+	 */
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+		frameTime = -1;
+		cooldown = 0;
+		if (adaptive && queries == null && Gdx.gl30 != null) createQueries();
+	}
+
+	/**
+	 * Creates the timer queries, and checks that the context accepts them.
+	 */
+	private void createQueries() {
+		queries = BufferUtils.newIntBuffer(NUM_QUERIES);
+		Gdx.gl30.glGenQueries(NUM_QUERIES, queries);
+		while (Gdx.gl.glGetError() != GL20.GL_NO_ERROR) {}
+		Gdx.gl30.glBeginQuery(GL_TIME_ELAPSED, queries.get(0));
+		Gdx.gl30.glEndQuery(GL_TIME_ELAPSED);
+		if (Gdx.gl.glGetError() != GL20.GL_NO_ERROR) {
+			System.err.println("Timer queries are not supported, the render scale adapts to the frame interval");
+			Gdx.gl30.glDeleteQueries(NUM_QUERIES, queries);
+			queries = null;
+		}
+		queryFrame = 0;
+	}
+
+	/**
+	 * Starts timing the GPU work of a frame. This should be called before anything is drawn.
+	 */
+	public void beginFrame() {
+		if (!adaptive || queries == null) return;
+		Gdx.gl30.glBeginQuery(GL_TIME_ELAPSED, queries.get(queryFrame % NUM_QUERIES));
+		queryActive = true;
+	}
+
+	/**
+	 * Finishes timing a frame and adapts the render scale. This should be called after everything is drawn.
+	 *
+	 * @param delta  seconds since the last frame
+	 * @return true if the render scale changed
+	 */
+	public boolean endFrame(float delta) {
+		if (!adaptive) return false;
+		float sample = delta;
+		if (queryActive) {
+			queryActive = false;
+			Gdx.gl30.glEndQuery(GL_TIME_ELAPSED);
+			queryFrame++;
+			//the next slot holds the oldest query, which is about to be reused
+			if (queryFrame < NUM_QUERIES) return false;
+			int query = queries.get(queryFrame % NUM_QUERIES);
+			Gdx.gl30.glGetQueryObjectuiv(query, GL30.GL_QUERY_RESULT_AVAILABLE, result);
+			if (result.get(0) == 0) return false;
+			Gdx.gl30.glGetQueryObjectuiv(query, GL30.GL_QUERY_RESULT, result);
+			sample = (result.get(0) & 0xFFFFFFFFL) / 1e9f;
+		}
+		frameTime = frameTime < 0 ? sample : frameTime + SMOOTHING*(sample - frameTime);
+		if (cooldown > 0) {
+			cooldown--;
+			return false;
+		}
+
+		boolean gpuTimed = queries != null;
+		float load = frameTime / FRAME_BUDGET;
+		float target = scale;
+		if (load > (gpuTimed ? 0.85f : 1.2f)) {
+			//the pixel cost grows with the square of the scale
+			target = Math.min(scale*(float) Math.sqrt(0.8f / load), scale - STEP);
+			cooldown = DROP_COOLDOWN;
+		} else if (load < (gpuTimed ? 0.6f : 1.05f)) {
+			target = scale + STEP;
+			cooldown = RAISE_COOLDOWN;
+		}
+		target = MathUtils.clamp(Math.round(target / STEP) * STEP, MIN_SCALE, MAX_SCALE);
+		if (target == scale) return false;
+		scale = target;
+		frameTime = -1;
+		return true;
+	}
+
+	/**
+	 * Deletes the timer queries.
+	 */
+	public void dispose() {
+		if (queries != null) Gdx.gl30.glDeleteQueries(NUM_QUERIES, queries);
+		queries = null;
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * RenderStats.java
+ *
+ * Per-frame rendering counters collected by GameCanvas. The counters can be shown
+ * in an overlay, and exported as one CSV file per level so that the cost of a level
+ * can be compared before and after a change.
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+
+import java.io.*;
+
+/**
+ * Counts the work done to render one frame.
+ *
+ * The counters are filled in by {@link GameCanvas} between {@link GameCanvas#beginFrame} and
+ * {@link GameCanvas#endFrame}. Sprite batch flushes, shader swaps, framebuffer passes and the
+ * vertices of generated polygons are always counted, since they cost almost nothing. The raw GL
+ * counters (draw calls, texture binds and GL shader switches) come from a {@link GLProfiler}, which
+ * is only enabled while the overlay is visible or the stats are being exported.
+ */
+public class RenderStats {
+	/** Columns of the exported CSV files */
+	public static final String CSV_HEADER = "frame,renderCalls,cacheDraws,shaderSwaps,frameBufferPasses," +
+			"polygonVertices,glDrawCalls,glTextureBindings,glShaderSwitches,glVertices";
+
+	/** Sprite batch flushes, i.e. <code>renderCalls</code> summed over every batch begin/end */
+	public int renderCalls;
+	/** Sprite caches drawn */
+	public int cacheDraws;
+	/** Shader swaps made by the canvas */
+	public int shaderSwaps;
+	/** Passes rendered into an offscreen framebuffer */
+	public int frameBufferPasses;
+	/** Vertices of the polygons generated for splines, paths and rectangles */
+	public int polygonVertices;
+	/** GL draw calls, or 0 if the profiler is off */
+	public int glDrawCalls;
+	/** GL texture binds, or 0 if the profiler is off */
+	public int glTextureBindings;
+	/** GL shader switches, or 0 if the profiler is off */
+	public int glShaderSwitches;
+	/** Vertices submitted to GL, or 0 if the profiler is off */
+	public int glVertices;
+
+	/** Profiler for the raw GL counters */
+	private final GLProfiler profiler;
+	/** Whether the overlay is shown */
+	private boolean visible;
+	/** Directory to export CSV files to, or null if not exporting */
+	private File exportDir;
+	/** CSV file of the level being played, or null */
+	private Writer out;
+	/** Level that <code>out</code> is writing */
+	private int outLevel;
+	/** Number of frames rendered */
+	private int frame;
+	/** Overlay text for the last complete frame */
+	private final StringBuilder text = new StringBuilder();
+
+	/**
+	 * Creates a new set of counters for the current graphics context.
+	 */
+	public RenderStats() {
+		profiler = new GLProfiler(Gdx.graphics);
+	}
+
+	/**
+	 * @return whether the overlay is shown
+	 */
+	public boolean isVisible() {
+		return visible;
+	}
+
+	/**
+	 * Shows or hides the overlay.
+	 *
+	 * @param visible  whether the overlay is shown
+	 */
+	public void setVisible(boolean visible) {
+		this.visible = visible;
+		updateProfiler();
+	}
+
+	/**
+	 * Starts exporting the counters of every frame. Each level is written to
+	 * <code>level[n].csv</code> in the given directory, appending if the file already exists.
+	 *
+	 * @param dirName  directory to write to
+	 */
+	public void exportTo(String dirName) {
+		File dir = new File(dirName);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			System.err.println("Could not create render stats directory " + dir);
+			return;
+		}
+		exportDir = dir;
+		updateProfiler();
+	}
+
+	/**
+	 * Resets the counters for a new frame.
+	 */
+	public void begin() {
+		renderCalls = cacheDraws = shaderSwaps = frameBufferPasses = polygonVertices = 0;
+		if (profiler.isEnabled()) profiler.reset();
+	}
+
+	/**
+	 * Finishes a frame, updating the overlay and writing the counters if they are exported.
+	 *
+	 * @param levelNum  level that was drawn, used to pick the CSV file
+	 */
+	public void end(int levelNum) {
+		if (profiler.isEnabled()) {
+			glDrawCalls = profiler.getDrawCalls();
+			glTextureBindings = profiler.getTextureBindings();
+			glShaderSwitches = profiler.getShaderSwitches();
+			glVertices = (int) profiler.getVertexCount().total;
+		} else {
+			glDrawCalls = glTextureBindings = glShaderSwitches = glVertices = 0;
+		}
+		frame++;
+		if (visible) updateText();
+		if (exportDir != null) write(levelNum);
+	}
+
+	/**
+	 * @return the overlay text for the last complete frame
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * Closes the CSV file being written and disables the profiler.
+	 */
+	public void dispose() {
+		closeFile();
+		exportDir = null;
+		visible = false;
+		updateProfiler();
+	}
+
+	/**
+	 * Enables the GL profiler only when its counters are used, as it wraps every GL call.
+	 */
+	private void updateProfiler() {
+		if (visible || exportDir != null) {
+			profiler.enable();
+		} else {
+			profiler.disable();
+		}
+	}
+
+	private void updateText() {
+		text.setLength(0);
+		text.append("render calls: ").append(renderCalls)
+			.append("\ncache draws: ").append(cacheDraws)
+			.append("\nshader swaps: ").append(shaderSwaps)
+			.append("\nframebuffer passes: ").append(frameBufferPasses)
+			.append("\npolygon vertices: ").append(polygonVertices)
+			.append("\ngl draw calls: ").append(glDrawCalls)
+			.append("\ngl texture binds: ").append(glTextureBindings)
+			.append("\ngl shader switches: ").append(glShaderSwitches)
+			.append("\ngl vertices: ").append(glVertices);
+	}
+
+	/**
+	 * Appends the counters of this frame to the CSV file of a level.
+	 *
+	 * @param levelNum  level that was drawn
+	 */
+	private void write(int levelNum) {
+		try {
+			if (out == null || outLevel != levelNum) {
+				closeFile();
+				File file = new File(exportDir, "level" + levelNum + ".csv");
+				boolean exists = file.exists();
+				out = new BufferedWriter(new FileWriter(file, true));
+				outLevel = levelNum;
+				if (!exists) {
+					out.write(CSV_HEADER);
+					out.write('\n');
+				}
+			}
+			out.write(Integer.toString(frame));
+			writeColumn(renderCalls);
+			writeColumn(cacheDraws);
+			writeColumn(shaderSwaps);
+			writeColumn(frameBufferPasses);
+			writeColumn(polygonVertices);
+			writeColumn(glDrawCalls);
+			writeColumn(glTextureBindings);
+			writeColumn(glShaderSwitches);
+			writeColumn(glVertices);
+			out.write('\n');
+		} catch (IOException e) {
+			e.printStackTrace();
+			//stop exporting rather than failing every frame
+			closeFile();
+			exportDir = null;
+			updateProfiler();
+		}
+	}
+
+	private void writeColumn(int value) throws IOException {
+		out.write(',');
+		out.write(Integer.toString(value));
+	}
+
+	private void closeFile() {
+		if (out == null) return;
+		try {
+			out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		out = null;
+	}
+}
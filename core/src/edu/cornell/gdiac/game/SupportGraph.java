@@ -0,0 +1,303 @@
+/*
+ * SupportGraph.java
+ *
+ * Propagates ground velocities through stacks of movable obstacles, e.g. dead bodies
+ * on a pushable box on a moving platform. The supports of each obstacle are solved
+ * in topological order, so the propagation is linear in the size of the stacks and
+ * needs no recursion.
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectSet;
+import edu.cornell.gdiac.game.object.Door;
+import edu.cornell.gdiac.game.object.Movable;
+import edu.cornell.gdiac.game.obstacle.Obstacle;
+
+import java.util.Arrays;
+
+/**
+ * The graph of which movable obstacles rest on which, for one level.
+ *
+ * Every {@link Movable} of the level is a node, and keeps its slot in the graph (see
+ * {@link Obstacle#getSupportSlot()}) from when it is added to the level until it is removed. The edges of the
+ * graph are the ground fixtures of each movable: an edge goes from the obstacle of a ground fixture to the movable
+ * resting on it. {@link CollisionController} adds and removes edges as it adds and removes ground fixtures, so
+ * the edges are only rebuilt from the ground fixtures when those are changed some other way, i.e. when a level
+ * state is loaded (see {@link #invalidateEdges}).
+ *
+ * Every tick, {@link #solve} visits the movables so that each one comes after all of its grounds, and sets its
+ * base velocity to the average velocity of the grounds that are themselves grounded. A movable is grounded if its
+ * base velocity is not zero. Ground that is not a node (walls, platforms, doors, and movables of other levels)
+ * always counts as grounded. Movables that rest on each other form a cycle, which is broken at the unsolved
+ * movable with the lowest slot. That movable treats its unsolved grounds as not grounded, like a movable in the
+ * middle of being updated did in the old recursive update.
+ *
+ * All buffers are kept between ticks, so solving does not allocate once they have grown to the size of the
+ * level.
+ */
+public class SupportGraph {
+	/** Movable in each slot, null if the slot is free */
+	private final Array<Obstacle> nodes = new Array<>();
+	/** Slots that were freed by removed movables, reused before the graph grows */
+	private final IntArray freeSlots = new IntArray();
+	/** Edges as pairs (ground slot, resting slot), one for each ground fixture */
+	private final IntArray edges = new IntArray();
+	/** Whether the edges must be rebuilt from the ground fixtures before solving */
+	private boolean edgesDirty;
+	/** Whether the edges changed since <code>dependents</code> was built */
+	private boolean dependentsDirty;
+	/** Start of the dependents of each node in <code>dependents</code> (compressed rows) */
+	private int[] firstDependent = new int[16];
+	/** Nodes resting on each node, grouped by ground node */
+	private int[] dependents = new int[16];
+	/** Number of edges into each node */
+	private int[] numGrounds = new int[16];
+	/** Number of edges from unsolved grounds into each node */
+	private int[] pending = new int[16];
+	/** Whether each node has been solved this tick */
+	private boolean[] solved = new boolean[16];
+	/** Whether each solved node is grounded */
+	private boolean[] grounded = new boolean[16];
+	/** Queue of nodes whose grounds are all solved */
+	private int[] queue = new int[16];
+
+	/**
+	 * Adds a movable to the graph, along with the edges from its current ground fixtures.
+	 *
+	 * @param obj  a movable obstacle of the level
+	 */
+	public void add(Obstacle obj) {
+		int slot;
+		if (freeSlots.size > 0) {
+			slot = freeSlots.pop();
+			nodes.set(slot, obj);
+		} else {
+			slot = nodes.size;
+			nodes.add(obj);
+		}
+		obj.setSupportSlot(slot);
+		dependentsDirty = true;
+		for (Fixture f : ((Movable) obj).getGroundFixtures()) addSupport(f, obj);
+	}
+
+	/**
+	 * Removes a movable and every edge to or from it. Does nothing if the obstacle is not in this graph.
+	 *
+	 * @param obj  an obstacle
+	 */
+	public void remove(Obstacle obj) {
+		int slot = slotOf(obj);
+		if (slot < 0) return;
+		for (int e = edges.size - 2; e >= 0; e -= 2) {
+			if (edges.get(e) == slot || edges.get(e + 1) == slot) removeEdge(e);
+		}
+		nodes.set(slot, null);
+		freeSlots.add(slot);
+		obj.setSupportSlot(-1);
+	}
+
+	/**
+	 * Adds the edge of a new ground fixture of a movable.
+	 *
+	 * @param ground   the ground fixture
+	 * @param resting  the movable whose ground fixtures <code>ground</code> was added to
+	 */
+	public void addSupport(Fixture ground, Obstacle resting) {
+		int i = slotOf(resting);
+		int j = slotOf((Obstacle) ground.getBody().getUserData());
+		if (i < 0 || j < 0 || i == j) return;
+		edges.add(j, i);
+		dependentsDirty = true;
+	}
+
+	/**
+	 * Removes the edge of a ground fixture that a movable no longer touches.
+	 *
+	 * @param ground   the ground fixture
+	 * @param resting  the movable whose ground fixtures <code>ground</code> was removed from
+	 */
+	public void removeSupport(Fixture ground, Obstacle resting) {
+		int i = slotOf(resting);
+		int j = slotOf((Obstacle) ground.getBody().getUserData());
+		if (i < 0 || j < 0) return;
+		for (int e = 0; e < edges.size; e += 2) {
+			if (edges.get(e) == j && edges.get(e + 1) == i) {
+				removeEdge(e);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the edges from the ground fixtures of every movable before the next solve. This must be called
+	 * whenever ground fixtures change without {@link #addSupport} or {@link #removeSupport}.
+	 */
+	public void invalidateEdges() { edgesDirty = true; }
+
+	/**
+	 * Updates the base velocities of every movable in the graph.
+	 */
+	public void solve() {
+		if (edgesDirty) rebuildEdges();
+		int n = nodes.size;
+		if (dependentsDirty || firstDependent.length < n + 1) buildDependents();
+
+		System.arraycopy(numGrounds, 0, pending, 0, n);
+		int head = 0, tail = 0;
+		int remaining = 0;
+		for (int i = 0; i < n; i++) {
+			solved[i] = nodes.get(i) == null;
+			if (solved[i]) continue;
+			remaining++;
+			if (pending[i] == 0) queue[tail++] = i;
+		}
+		int nextUnsolved = 0;
+		for (; remaining > 0; remaining--) {
+			int node;
+			if (head < tail) {
+				node = queue[head++];
+			} else {
+				//every unsolved node is in or above a cycle; break it at the one with the lowest slot
+				while (solved[nextUnsolved]) nextUnsolved++;
+				node = nextUnsolved;
+			}
+			grounded[node] = solveNode(node);
+			solved[node] = true;
+			for (int e = firstDependent[node]; e < firstDependent[node + 1]; e++) {
+				int dependent = dependents[e];
+				if (--pending[dependent] == 0 && !solved[dependent]) queue[tail++] = dependent;
+			}
+		}
+	}
+
+	/**
+	 * Sets the base velocity of one movable from its grounds. Grounds that are movable must be solved first,
+	 * or they are treated as not grounded.
+	 *
+	 * @param node  slot of the movable
+	 * @return true if the movable is grounded
+	 */
+	private boolean solveNode(int node) {
+		Obstacle obj = nodes.get(node);
+		ObjectSet<Fixture> fixtures = ((Movable) obj).getGroundFixtures();
+		float baseVX = 0;
+		float baseVY = 0;
+		int numGrounded = 0;
+		for (Fixture f : fixtures) {
+			Obstacle ground = (Obstacle) f.getBody().getUserData();
+			int j = slotOf(ground);
+			if (j < 0 || (j != node && solved[j] && grounded[j])) {
+				numGrounded++;
+				Vector2 groundVel = ground.getLinearVelocity();
+				baseVX += groundVel.x;
+				baseVY += groundVel.y;
+			}
+
+			//wake up if on opening door
+			if (!obj.isAwake() && ground instanceof Door && ((Door) ground).isMoving()) {
+				obj.setAwake(true);
+			}
+		}
+
+		//object is grounded, update base velocity to be average of velocities of grounds
+		if (numGrounded > 0) {
+			baseVX /= numGrounded;
+			baseVY /= numGrounded;
+			if (Math.abs(baseVX) > 0.001f || Math.abs(baseVY) > 0.001f) {
+				obj.setBaseVX(baseVX);
+				if (baseVY < 0) obj.setBaseVY(baseVY); //so that objects fly up but do not bounce when going down
+				return true;
+			}
+		}
+
+		//object is no longer grounded
+		obj.resetBaseVelocity();
+		return false;
+	}
+
+	/**
+	 * @param obj  an obstacle, or null
+	 * @return the slot of the obstacle in this graph, or -1 if it is not a node of this graph
+	 */
+	private int slotOf(Obstacle obj) {
+		if (obj == null) return -1;
+		int slot = obj.getSupportSlot();
+		return slot >= 0 && slot < nodes.size && nodes.get(slot) == obj ? slot : -1;
+	}
+
+	/**
+	 * Removes an edge by moving the last edge into its place.
+	 *
+	 * @param e  index of the ground slot of the edge in <code>edges</code>
+	 */
+	private void removeEdge(int e) {
+		int last = edges.size - 2;
+		edges.set(e, edges.get(last));
+		edges.set(e + 1, edges.get(last + 1));
+		edges.size = last;
+		dependentsDirty = true;
+	}
+
+	/**
+	 * Replaces the edges with those of the current ground fixtures of every movable.
+	 */
+	private void rebuildEdges() {
+		edgesDirty = false;
+		edges.clear();
+		for (Obstacle obj : nodes) {
+			if (obj == null) continue;
+			for (Fixture f : ((Movable) obj).getGroundFixtures()) addSupport(f, obj);
+		}
+		dependentsDirty = true;
+	}
+
+	/**
+	 * Groups the edges by ground node, and counts the edges into each node.
+	 */
+	private void buildDependents() {
+		dependentsDirty = false;
+		int n = nodes.size;
+		int m = edges.size / 2;
+		if (firstDependent.length < n + 1) {
+			int capacity = Math.max(n + 1, firstDependent.length * 2);
+			firstDependent = new int[capacity];
+			numGrounds = new int[capacity];
+			pending = new int[capacity];
+			solved = new boolean[capacity];
+			grounded = new boolean[capacity];
+			queue = new int[capacity];
+		}
+		if (dependents.length < m) dependents = new int[Math.max(m, dependents.length * 2)];
+		Arrays.fill(firstDependent, 0, n + 1, 0);
+		Arrays.fill(numGrounds, 0, n, 0);
+
+		for (int e = 0; e < m; e++) {
+			firstDependent[edges.get(2 * e) + 1]++;
+			numGrounds[edges.get(2 * e + 1)]++;
+		}
+		for (int i = 0; i < n; i++) firstDependent[i + 1] += firstDependent[i];
+		// queue is used as a cursor for each row while filling, and is reset before solving
+		System.arraycopy(firstDependent, 0, queue, 0, n);
+		for (int e = 0; e < m; e++) {
+			dependents[queue[edges.get(2 * e)]++] = edges.get(2 * e + 1);
+		}
+	}
+
+	/**
+	 * Removes every movable and edge, so that no removed obstacles are kept alive.
+	 */
+	public void clear() {
+		for (Obstacle obj : nodes) {
+			if (obj != null) obj.setSupportSlot(-1);
+		}
+		nodes.clear();
+		freeSlots.clear();
+		edges.clear();
+		edgesDirty = false;
+		dependentsDirty = true;
+	}
+}
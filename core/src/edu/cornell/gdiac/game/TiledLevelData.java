@@ -0,0 +1,578 @@
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.game.object.ObjectProperties;
+import edu.cornell.gdiac.game.object.Tiles;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * A Tiled level, parsed into plain property records.
+ * <br><br>
+ * Building this only reads the Tiled JSON and the texture map: it does not touch the Box2D world, lights or GL, so it
+ * can be done on a worker thread (see {@link LevelLoader}). {@link Level} then only has to create the objects.
+ * <br><br>
+ * All positions are relative to the bottom left corner of the level. The level adds its own offset when it creates
+ * the objects, so the same data can be placed anywhere in the world.
+ * <br><br>
+ * Levels can also be compiled ahead of time into a binary blob (see {@link #write} and {@link LevelCompiler}), which
+ * is read back by {@link #read} without building a JSON tree.
+ */
+public class TiledLevelData {
+
+    /** An object layer of the Tiled JSON */
+    static class ObjectLayer {
+        /** Name of the layer, which determines the type of its objects */
+        final String name;
+        /** Properties of each object in the layer, in the format of {@link Level#readProperties} */
+        final Array<ObjectProperties> objects = new Array<>();
+
+        ObjectLayer(String name) {
+            this.name = name;
+        }
+    }
+
+    /** A tile layer of the Tiled JSON */
+    static class TileLayer {
+        /** Tile ids of the layer, row by row from the top */
+        final int[] data;
+        /** Key of the tileset texture in the texture map */
+        final String tilesetName;
+        /** Size of a tile in the tileset texture */
+        final int tileSize;
+        /** Id of the first tile of the tileset */
+        final int fid;
+        /** The tileset, split into tiles by {@link #sliceTilesets} */
+        TextureRegion[] tileset;
+
+        TileLayer(int[] data, String tilesetName, int tileSize, int fid) {
+            this.data = data;
+            this.tilesetName = tilesetName;
+            this.tileSize = tileSize;
+            this.fid = fid;
+        }
+    }
+
+    static class InvalidTiledJSON extends RuntimeException {
+        InvalidTiledJSON(int levelNum, String errorMessage) {
+            super("Error loading Tiled level " + levelNum + ": " + errorMessage);
+        }
+    }
+
+    /** Identifies a compiled level blob */
+    private static final int MAGIC = 0x4E4C564C; // "NLVL"
+    /** Version of the compiled level format. Bump this whenever {@link #write} changes. */
+    public static final int VERSION = 1;
+
+    /** Number of tile layers in compiled levels (see {@link #tileLayers()}) */
+    private static final int NUM_TILE_LAYERS = 6;
+
+    /** The number of the level */
+    int levelNum;
+    /** The biome of the level, or null if the level does not set one */
+    String biome;
+    boolean canDash = true;
+    boolean canSwitch = true;
+    /** Gravity of the level */
+    float gravity;
+    /** Size of a tile in the Tiled JSON */
+    int tileSize;
+    /** Width of the level in tiles */
+    int width;
+    /** Height of the level in tiles */
+    int height;
+    /** The y position of the bottom of the goal exit */
+    float goalY;
+    /** The y position of the bottom of the return exit */
+    float returnY;
+    /** Every object layer, in the order of the Tiled JSON */
+    final Array<ObjectLayer> objectLayers = new Array<>();
+    TileLayer tiles;
+    TileLayer climbables;
+    TileLayer windows;
+    TileLayer labBkg;
+    TileLayer leaves;
+    TileLayer forestTiles;
+
+    private TiledLevelData() {}
+
+    /**
+     * Parses a Tiled JSON. The tilesets are not split until {@link #sliceTilesets} is called.
+     *
+     * @param tiledMap  Tiled JSON
+     * @param levelNum  the number of the level
+     */
+    public TiledLevelData(JsonValue tiledMap, int levelNum) {
+        this.levelNum = levelNum;
+        if (tiledMap == null) throw new InvalidTiledJSON(levelNum, "missing Tiled JSON");
+
+        for (JsonValue property : tiledMap.get("properties")){
+            switch (property.getString("name")) {
+                case "biome":
+                    biome = property.getString("value");
+                    break;
+                case "canDash":
+                    canDash = property.getBoolean("value");
+                    break;
+                case "canSwitch":
+                    canSwitch = property.getBoolean("value");
+                    break;
+            }
+        }
+
+        if (tiledMap.getBoolean("infinite")) throw new InvalidTiledJSON(levelNum, "map size cannot be infinite");
+
+        gravity = tiledMap.getFloat("gravity",-14.7f);
+        tileSize = tiledMap.getInt("tilewidth");
+        width = tiledMap.getInt("width");
+        height = tiledMap.getInt("height");
+
+        JsonValue climbableData = null;
+        JsonValue windowData = null;
+        JsonValue leafData = null;
+        JsonValue tileData = null;
+        JsonValue labBkgData = null;
+        JsonValue forestTileData = null;
+        for (JsonValue layer : tiledMap.get("layers")) {
+            String name = layer.getString("name");
+            if (!layer.getString("type").equals("tilelayer")) {
+                readObjectLayer(layer);
+            }
+            else if (name.equals("climbables")) {
+                climbableData = layer;
+            }
+            else if (name.equals("windows")) {
+                windowData = layer;
+            }
+            else if (name.equals("background")) {
+                labBkgData = layer;
+            }
+            else if (name.equals("forestLeaves")) {
+                leafData = layer;
+            }
+            else if (name.equals("forestWalls") && "forest".equals(biome) ||
+                    name.equals("metalWalls") && "metal".equals(biome)) {
+                tileData = layer;
+            } else if (name.equals("forestWalls") && "metal".equals(biome)){
+                forestTileData = layer;
+            }
+        }
+
+        String tileset = null;
+        int fID = 1;
+        int fID_climbable = 1;
+        int fID_window = 1;
+        int fID_leaves = 1;
+        int fID_bkg = 1;
+        int fID_forestTiles = 1;
+        String wallTileset = null;
+        if ("metal".equals(biome)) {
+            tileset = "metal-tileset";
+            wallTileset = "metal-walls.tsx";
+        } else if ("forest".equals(biome)) {
+            tileset = "forest-tileset";
+            wallTileset = "forest-walls.tsx";
+        }
+        if (wallTileset != null) {
+            for (JsonValue tilesetData : tiledMap.get("tilesets")){
+                String source = tilesetData.getString("source");
+                if (source.endsWith(wallTileset)){
+                    fID = tilesetData.getInt("firstgid");
+                }
+                else if (source.endsWith("climbables.tsx")){
+                    fID_climbable = tilesetData.getInt("firstgid");
+                }
+                else if (source.endsWith("windows.tsx")){
+                    fID_window = tilesetData.getInt("firstgid");
+                }
+                else if (source.endsWith("lab-bkg.tsx")){
+                    fID_bkg = tilesetData.getInt("firstgid");
+                }
+                else if (source.endsWith("forestLeaves.tsx")){
+                    fID_leaves = tilesetData.getInt("firstgid");
+                }
+                else if (source.endsWith("forest-walls.tsx") && "metal".equals(biome)){
+                    fID_forestTiles = tilesetData.getInt("firstgid");
+                }
+            }
+        }
+
+        tiles = tileLayer(tileData, tileset, 128, fID);
+        climbables = tileLayer(climbableData, "metal".equals(biome) ? "climbable-tileset" : "forest-climbable-tileset",
+                128, fID_climbable);
+        windows = tileLayer(windowData, "windows-tileset", 128, fID_window);
+        labBkg = tileLayer(labBkgData, "lab-bkg-tileset", 512, fID_bkg);
+        leaves = tileLayer(leafData, "forestLeaves-tileset", 128, fID_leaves);
+        forestTiles = tileLayer(forestTileData, "forest-tileset", 128, fID_forestTiles);
+    }
+
+    /**
+     * Reads a tile layer of a Tiled JSON.
+     *
+     * @param layer        JSON of the layer, or null
+     * @param tilesetName  key of the tileset texture
+     * @param tileSize     size of a tile in the tileset texture
+     * @param fid          id of the first tile of the tileset
+     * @return the tile layer, or null if there is no layer
+     */
+    private static TileLayer tileLayer(JsonValue layer, String tilesetName, int tileSize, int fid) {
+        if (layer == null) return null;
+        return new TileLayer(layer.get("data").asIntArray(), tilesetName, tileSize, fid);
+    }
+
+    /**
+     * @return every tile layer, in the order they are stored in compiled levels (some may be null)
+     */
+    private TileLayer[] tileLayers() {
+        return new TileLayer[]{tiles, climbables, windows, labBkg, leaves, forestTiles};
+    }
+
+    /**
+     * Splits the tileset of every tile layer into tiles. This only creates texture regions, so it can be done off the
+     * render thread.
+     *
+     * @param tMap  texture map, used to look up tilesets
+     */
+    public void sliceTilesets(HashMap<String, TextureRegion> tMap) {
+        for (TileLayer layer : tileLayers()) {
+            if (layer != null) layer.tileset = Tiles.split(tMap.get(layer.tilesetName), layer.tileSize);
+        }
+    }
+
+    /**
+     * Loads a level, preferring its compiled blob. The Tiled JSON is only read and parsed if there is no blob or if
+     * the blob was compiled by an older version of the game.
+     *
+     * @param tiledFile  Tiled JSON file of the level
+     * @param compiled   compiled blob of the level, or null
+     * @param levelNum   the number of the level
+     * @return the parsed level
+     */
+    public static TiledLevelData load(FileHandle tiledFile, ByteBuffer compiled, int levelNum) {
+        if (compiled != null && isCompiled(compiled)) return read(compiled, levelNum);
+        if (tiledFile == null) throw new InvalidTiledJSON(levelNum, "missing Tiled JSON");
+        return new TiledLevelData(new JsonReader().parse(tiledFile), levelNum);
+    }
+
+    /**
+     * @param buffer  a compiled level blob
+     * @return true if the blob can be read by this version of the game
+     */
+    public static boolean isCompiled(ByteBuffer buffer) {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        in.rewind();
+        return in.remaining() >= 8 && in.getInt() == MAGIC && in.getInt() == VERSION;
+    }
+
+    /**
+     * Writes this level as a compiled blob. All multi-byte values are big endian.
+     *
+     * @param out  the stream to write to
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, biome);
+        out.writeBoolean(canDash);
+        out.writeBoolean(canSwitch);
+        out.writeFloat(gravity);
+        out.writeInt(tileSize);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeFloat(goalY);
+        out.writeFloat(returnY);
+
+        for (TileLayer layer : tileLayers()) {
+            out.writeBoolean(layer != null);
+            if (layer == null) continue;
+            writeString(out, layer.tilesetName);
+            out.writeInt(layer.tileSize);
+            out.writeInt(layer.fid);
+            out.writeInt(layer.data.length);
+            for (int tile : layer.data) out.writeInt(tile);
+        }
+
+        out.writeInt(objectLayers.size);
+        for (ObjectLayer layer : objectLayers) {
+            writeString(out, layer.name);
+            out.writeInt(layer.objects.size);
+            for (ObjectProperties object : layer.objects) {
+                out.writeInt(object.size());
+                for (int i = 0; i < object.size(); i++) {
+                    writeString(out, object.getKey(i));
+                    writeValue(out, object, i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a compiled blob written by {@link #write}. The position of <code>buffer</code> is not changed, so one
+     * blob can be read any number of times.
+     *
+     * @param buffer    the compiled blob
+     * @param levelNum  the number of the level
+     * @return the parsed level
+     */
+    public static TiledLevelData read(ByteBuffer buffer, int levelNum) {
+        ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        in.rewind();
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new InvalidTiledJSON(levelNum, "compiled level has the wrong format or version");
+        }
+        TiledLevelData data = new TiledLevelData();
+        data.levelNum = levelNum;
+        data.biome = readString(in);
+        data.canDash = in.get() != 0;
+        data.canSwitch = in.get() != 0;
+        data.gravity = in.getFloat();
+        data.tileSize = in.getInt();
+        data.width = in.getInt();
+        data.height = in.getInt();
+        data.goalY = in.getFloat();
+        data.returnY = in.getFloat();
+
+        TileLayer[] layers = new TileLayer[NUM_TILE_LAYERS];
+        for (int i = 0; i < NUM_TILE_LAYERS; i++) {
+            if (in.get() == 0) continue;
+            String tilesetName = readString(in);
+            int tileSize = in.getInt();
+            int fid = in.getInt();
+            int[] tiles = new int[in.getInt()];
+            in.asIntBuffer().get(tiles);
+            in.position(in.position() + tiles.length * 4);
+            layers[i] = new TileLayer(tiles, tilesetName, tileSize, fid);
+        }
+        data.tiles = layers[0];
+        data.climbables = layers[1];
+        data.windows = layers[2];
+        data.labBkg = layers[3];
+        data.leaves = layers[4];
+        data.forestTiles = layers[5];
+
+        int numLayers = in.getInt();
+        for (int i = 0; i < numLayers; i++) {
+            ObjectLayer layer = new ObjectLayer(readString(in));
+            int numObjects = in.getInt();
+            for (int j = 0; j < numObjects; j++) {
+                int numProperties = in.getInt();
+                ObjectProperties object = new ObjectProperties(numProperties);
+                for (int k = 0; k < numProperties; k++) {
+                    readValue(in, readString(in), object, levelNum);
+                }
+                layer.objects.add(object);
+            }
+            data.objectLayers.add(layer);
+        }
+        return data;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeValue(DataOutputStream out, ObjectProperties object, int i) throws IOException {
+        byte type = object.getType(i);
+        out.writeByte(type);
+        switch (type) {
+            case ObjectProperties.FLOAT:
+                out.writeFloat(object.getFloatAt(i));
+                break;
+            case ObjectProperties.INT:
+                out.writeInt(object.getIntAt(i));
+                break;
+            case ObjectProperties.BOOL:
+                out.writeBoolean(object.getIntAt(i) != 0);
+                break;
+            case ObjectProperties.STRING:
+                writeString(out, (String) object.getRefAt(i));
+                break;
+            case ObjectProperties.COLOR:
+                out.writeInt(Color.rgba8888((Color) object.getRefAt(i)));
+                break;
+            case ObjectProperties.VECTOR2:
+                Vector2 v = (Vector2) object.getRefAt(i);
+                out.writeFloat(v.x);
+                out.writeFloat(v.y);
+                break;
+            case ObjectProperties.FLOATS:
+                float[] floats = (float[]) object.getRefAt(i);
+                out.writeInt(floats.length);
+                for (float f : floats) out.writeFloat(f);
+                break;
+            default:
+                throw new IllegalArgumentException("cannot compile property " + object.getKey(i));
+        }
+    }
+
+    private static void readValue(ByteBuffer in, String key, ObjectProperties object, int levelNum) {
+        byte type = in.get();
+        switch (type) {
+            case ObjectProperties.FLOAT:
+                object.put(key, in.getFloat());
+                break;
+            case ObjectProperties.INT:
+                object.put(key, in.getInt());
+                break;
+            case ObjectProperties.BOOL:
+                object.put(key, in.get() != 0);
+                break;
+            case ObjectProperties.STRING:
+                object.put(key, readString(in));
+                break;
+            case ObjectProperties.COLOR:
+                object.put(key, new Color(in.getInt()));
+                break;
+            case ObjectProperties.VECTOR2:
+                object.put(key, new Vector2(in.getFloat(), in.getFloat()));
+                break;
+            case ObjectProperties.FLOATS:
+                float[] floats = new float[in.getInt()];
+                in.asFloatBuffer().get(floats);
+                in.position(in.position() + floats.length * 4);
+                object.put(key, floats);
+                break;
+            default:
+                throw new InvalidTiledJSON(levelNum, "unexpected compiled property type: " + type);
+        }
+    }
+
+    /**
+     * Reads the properties of every object in an object layer. Also finds the exit positions if this is the exit
+     * layer.
+     *
+     * @param layer  JSON of the layer
+     */
+    private void readObjectLayer(JsonValue layer) {
+        ObjectLayer objectLayer = new ObjectLayer(layer.getString("name"));
+        for (JsonValue objJV : layer.get("objects")) {
+            objectLayer.objects.add(readProperties(objJV));
+            if (objectLayer.name.equals("cat")) break;
+        }
+        if (objectLayer.name.equals("cat") && objectLayer.objects.size == 0) {
+            throw new InvalidTiledJSON(levelNum, "level must contain a cat");
+        }
+        if (objectLayer.name.equals("exits")) {
+            for (ObjectProperties exit : objectLayer.objects) {
+                float bottom = exit.getFloat("y") - exit.getFloat("height");
+                if (exit.getString("type", "goal").equals("goal")) {
+                    goalY = bottom;
+                } else {
+                    returnY = bottom;
+                }
+            }
+        }
+        objectLayers.add(objectLayer);
+    }
+
+    /**
+     * Reads the properties array of an object in a Tiled JSON.
+     *
+     * @param objectJV   JSON of the object
+     * @return the object's properties, with positions relative to the bottom left of the level
+     */
+    private ObjectProperties readProperties(JsonValue objectJV){
+        ObjectProperties propertiesMap = new ObjectProperties();
+
+        propertiesMap.put("width", objectJV.getFloat("width")/tileSize);
+        propertiesMap.put("height", objectJV.getFloat("height")/tileSize);
+        float angle = (360 - objectJV.getFloat("rotation")) % 360;
+        propertiesMap.put("rotation", angle);
+        propertiesMap.put("name", objectJV.getString("name"));
+        propertiesMap.put("gid", objectJV.getInt("gid", -1));
+
+        //this is because tiled rotates about the top left corner
+        float x, y;
+        x = objectJV.getFloat("x");
+        if ((int) angle == 90) {
+            y = objectJV.getFloat("y") - objectJV.getFloat("width");
+        } else {
+            y = objectJV.getFloat("y");
+        }
+        x = x/tileSize;
+        y = height - y/tileSize;
+        propertiesMap.put("x", x);
+        propertiesMap.put("y", y);
+
+        //read polygon if there is one
+        JsonValue poly = objectJV.get("polygon");
+        if (poly != null) {
+            float[] shape = new float[poly.size * 2];
+            int i = 0;
+            for (JsonValue point : poly) {
+                shape[i] = x + point.getFloat("x") / tileSize;
+                shape[i + 1] = y - (point.getFloat("y")) / tileSize;
+                i += 2;
+            }
+            propertiesMap.put("polygon", shape);
+        }
+
+        //object specific properties if there are any
+        JsonValue properties = objectJV.get("properties");
+        if (properties == null) { return propertiesMap; }
+        for (JsonValue property : properties){
+            String name = property.getString("name");
+            switch (property.getString("type")){
+                case "string":
+                    propertiesMap.put(name, property.getString("value"));
+                    break;
+                case "int":
+                    propertiesMap.put(name, property.getInt("value"));
+                    break;
+                case "bool":
+                    propertiesMap.put(name, property.getBoolean("value"));
+                    break;
+                case "float":
+                    propertiesMap.put(name, property.getFloat("value"));
+                    break;
+                case "color":
+                    //tiles parses colors as ARGB >:(
+                    String color = property.getString("value");
+                    if (color.length() == 9) { // If a color property is left blank on tiled, sometimes it still presents a weird string which is guarded here
+                        propertiesMap.put(name,
+                                Color.valueOf("#" + color.substring(3) + color.substring(1, 3)));
+                    }
+                    break;
+                case "class":
+                    switch (property.getString("propertytype")){
+                        //currently only one class defined in our level editor, but this allows us to be flexible to add more
+                        case "Vector2":
+                            Vector2 v = new Vector2(property.get("value").getFloat("x", 0), property.get("value").getFloat("y", 0));
+                            propertiesMap.put(name, v);
+                            break;
+                        default:
+                            throw new InvalidTiledJSON(levelNum, "unexpected class: " + property.getString("type"));
+                    }
+                    break;
+                default:
+                    throw new InvalidTiledJSON(levelNum, "unexpected property type: " + property.getString("type"));
+            }
+        }
+        return propertiesMap;
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * TriggerSystem.java
+ *
+ * Tests the cat and dead bodies against the trigger volumes of a level (spirit regions,
+ * camera regions, checkpoints and exits). These used to be Box2D sensors, which made the
+ * broadphase create and update a contact for every body overlapping them. Triggers are
+ * axis-aligned rectangles that almost never move, so they are kept in a uniform grid
+ * instead, and only the few bodies that care about them are tested, once per tick.
+ */
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import edu.cornell.gdiac.game.object.Cat;
+import edu.cornell.gdiac.game.object.CollisionTags;
+import edu.cornell.gdiac.game.object.DeadBody;
+import edu.cornell.gdiac.game.object.Trigger;
+import edu.cornell.gdiac.game.obstacle.Obstacle;
+
+import java.util.Arrays;
+
+/**
+ * The trigger volumes of one level.
+ *
+ * Every fixture of the cat (except its ground sensor, which never touched sensors) and of the dead bodies is a
+ * probe. Each tick, {@link #update} finds the triggers whose area overlaps the bounding box of each probe, and
+ * reports the triggers that a probe entered or exited since the last tick, exactly like the begin and end contacts
+ * of the old sensors. A body with several fixtures in a trigger therefore enters it several times. Probes whose body
+ * has not moved are not tested again.
+ *
+ * Triggers that do not move are bucketed into a uniform grid when they are added. Moving triggers (checkpoints
+ * attached to platforms) are rare, so they are tested against every probe.
+ */
+public class TriggerSystem {
+	/** Receives the enter and exit events of the triggers */
+	public interface Listener {
+		/**
+		 * Called when a fixture of a body enters a trigger.
+		 *
+		 * @param body     the cat or a dead body
+		 * @param trigger  the trigger, which implements {@link Trigger}
+		 */
+		void enterTrigger(Obstacle body, Obstacle trigger);
+
+		/**
+		 * Called when a fixture of a body exits a trigger, or stops being tested.
+		 *
+		 * @param body     the cat or a dead body
+		 * @param trigger  the trigger, which implements {@link Trigger}
+		 */
+		void exitTrigger(Obstacle body, Obstacle trigger);
+	}
+
+	/** Side of a grid cell, in physics units */
+	private static final float CELL_SIZE = 4;
+
+	/** A fixture tested against the triggers */
+	private static class Probe implements Pool.Poolable {
+		/** Obstacle the fixture belongs to */
+		Obstacle body;
+		/** Triggers the fixture is inside, sorted by index */
+		final IntArray inside = new IntArray();
+		/** Tick the probe was last seen on */
+		int tick;
+		/** Transform of the body when the probe was last tested */
+		float x, y, angle;
+
+		@Override
+		public void reset() {
+			body = null;
+			inside.clear();
+		}
+	}
+
+	/** Triggers of the level, in the order they were added */
+	private final Array<Obstacle> triggers = new Array<>();
+	/** Bounds of each trigger, as minX, minY, maxX, maxY */
+	private float[] bounds = new float[64];
+	/** Indices of the triggers that can move */
+	private final IntArray moving = new IntArray();
+	/** Whether the grid must be rebuilt before the next test */
+	private boolean gridDirty;
+	/** Whether the triggers have changed since the probes were last tested */
+	private boolean triggersChanged;
+
+	/** Bottom left corner of the grid */
+	private float gridX, gridY;
+	/** Number of columns and rows of the grid */
+	private int gridWidth, gridHeight;
+	/** Start of the triggers of each cell in <code>cellItems</code> */
+	private int[] cellStart = new int[1];
+	/** Triggers of every cell, grouped by cell */
+	private int[] cellItems = new int[0];
+	/** Last query that found each trigger, so that triggers in several cells are only tested once */
+	private int[] stamps = new int[16];
+	/** Number of queries made */
+	private int stamp;
+
+	/** Probes, by fixture */
+	private final ObjectMap<Fixture, Probe> probes = new ObjectMap<>();
+	/** Recycles probes of removed fixtures */
+	private final Pool<Probe> probePool = new Pool<Probe>() {
+		@Override
+		protected Probe newObject() { return new Probe(); }
+	};
+	/** Number of ticks tested */
+	private int tick;
+	/** Triggers found by the current query, sorted */
+	private final IntArray found = new IntArray();
+	/** Fixtures that were not seen this tick */
+	private final Array<Fixture> stale = new Array<>();
+	/** Cache for the bounds of a trigger */
+	private final Rectangle rectCache = new Rectangle();
+	/** Cache for a vertex of a fixture */
+	private final Vector2 vertexCache = new Vector2();
+	/** Bounding box of the current probe, as minX, minY, maxX, maxY */
+	private final float[] probeBounds = new float[4];
+
+	/**
+	 * Adds a trigger.
+	 *
+	 * @param trigger  an obstacle that implements {@link Trigger}
+	 */
+	public void add(Obstacle trigger) {
+		int i = triggers.size;
+		triggers.add(trigger);
+		if (bounds.length < 4*(i + 1)) bounds = Arrays.copyOf(bounds, bounds.length*2);
+		if (stamps.length < i + 1) stamps = Arrays.copyOf(stamps, stamps.length*2);
+		stamps[i] = 0;
+		readBounds(i);
+		if (((Trigger) trigger).isTriggerMoving()) moving.add(i);
+		gridDirty = true;
+		triggersChanged = true;
+	}
+
+	/**
+	 * Removes every trigger and probe, without reporting any exits. Used when the level is disposed.
+	 */
+	public void reset() {
+		for (Probe p : probes.values()) probePool.free(p);
+		probes.clear();
+		triggers.clear();
+		moving.clear();
+		gridWidth = gridHeight = 0;
+		gridDirty = false;
+		triggersChanged = false;
+	}
+
+	/**
+	 * Reports every trigger as exited by every probe, and forgets the probes. Used when the level stops being
+	 * the current level.
+	 *
+	 * @param listener  listener to report the exits to
+	 */
+	public void clear(Listener listener) {
+		for (ObjectMap.Entry<Fixture, Probe> e : probes) stale.add(e.key);
+		removeStale(listener);
+	}
+
+	/**
+	 * Tests the cat and dead bodies of a level against its triggers, and reports the triggers they entered and
+	 * exited since the last tick. Fixtures that no longer exist exit all of their triggers.
+	 *
+	 * @param cat         the cat of the level, or null
+	 * @param deadBodies  the dead bodies of the level
+	 * @param listener    listener to report the events to
+	 */
+	public void update(Cat cat, Array<DeadBody> deadBodies, Listener listener) {
+		tick++;
+		for (int k = 0; k < moving.size; k++) readBounds(moving.get(k));
+		if (gridDirty) buildGrid();
+		//moving triggers may have moved into resting bodies
+		boolean retest = triggersChanged || moving.size > 0;
+
+		if (cat != null && !cat.isRemoved()) probeBody(cat, true, retest, listener);
+		for (int k = 0; k < deadBodies.size; k++) {
+			DeadBody db = deadBodies.get(k);
+			if (!db.isRemoved()) probeBody(db, false, retest, listener);
+		}
+		triggersChanged = false;
+
+		for (ObjectMap.Entry<Fixture, Probe> e : probes) {
+			if (e.value.tick != tick) stale.add(e.key);
+		}
+		removeStale(listener);
+	}
+
+	/**
+	 * Tests the fixtures of a body against the triggers.
+	 *
+	 * @param obj         the body
+	 * @param skipGround  whether to skip the cat's ground sensor
+	 * @param retest      whether to test the fixtures even if the body has not moved
+	 * @param listener    listener to report the events to
+	 */
+	private void probeBody(Obstacle obj, boolean skipGround, boolean retest, Listener listener) {
+		Body body = obj.getBody();
+		if (body == null || !body.isActive()) return;
+		Vector2 pos = body.getPosition();
+		float angle = body.getAngle();
+		for (Fixture f : body.getFixtureList()) {
+			if (skipGround && CollisionTags.roleOf(f) == CollisionTags.CAT_GROUND_SENSOR) continue;
+			Probe p = probes.get(f);
+			boolean fresh = false;
+			if (p != null && p.body != obj) {
+				//the fixture object was recycled by Box2D for another body
+				for (int k = 0; k < p.inside.size; k++) listener.exitTrigger(p.body, triggers.get(p.inside.get(k)));
+				p.reset();
+			}
+			if (p == null) {
+				p = probePool.obtain();
+				probes.put(f, p);
+			}
+			if (p.body == null) {
+				p.body = obj;
+				fresh = true;
+			}
+			p.tick = tick;
+			if (!fresh && !retest && p.x == pos.x && p.y == pos.y && p.angle == angle) continue;
+			p.x = pos.x;
+			p.y = pos.y;
+			p.angle = angle;
+			if (!fixtureBounds(f, body)) continue;
+			query();
+			diff(p, listener);
+		}
+	}
+
+	/**
+	 * Reports the changes between the triggers a probe was inside and the triggers just found, and stores the
+	 * triggers found as the triggers the probe is inside.
+	 *
+	 * @param p         the probe
+	 * @param listener  listener to report the events to
+	 */
+	private void diff(Probe p, Listener listener) {
+		IntArray inside = p.inside;
+		int i = 0, j = 0;
+		while (i < inside.size) {
+			int id = inside.get(i++);
+			while (j < found.size && found.get(j) < id) j++;
+			if (j == found.size || found.get(j) != id) listener.exitTrigger(p.body, triggers.get(id));
+		}
+		i = 0;
+		j = 0;
+		while (j < found.size) {
+			int id = found.get(j++);
+			while (i < inside.size && inside.get(i) < id) i++;
+			if (i == inside.size || inside.get(i) != id) listener.enterTrigger(p.body, triggers.get(id));
+		}
+		inside.clear();
+		inside.addAll(found);
+	}
+
+	/**
+	 * Finds every trigger that overlaps <code>probeBounds</code>, and stores them sorted into <code>found</code>.
+	 */
+	private void query() {
+		found.clear();
+		stamp++;
+		if (gridWidth > 0) {
+			int cx0 = Math.max((int) Math.floor((probeBounds[0] - gridX) / CELL_SIZE), 0);
+			int cy0 = Math.max((int) Math.floor((probeBounds[1] - gridY) / CELL_SIZE), 0);
+			int cx1 = Math.min((int) Math.floor((probeBounds[2] - gridX) / CELL_SIZE), gridWidth - 1);
+			int cy1 = Math.min((int) Math.floor((probeBounds[3] - gridY) / CELL_SIZE), gridHeight - 1);
+			for (int cy = cy0; cy <= cy1; cy++) {
+				for (int cx = cx0; cx <= cx1; cx++) {
+					int cell = cy*gridWidth + cx;
+					for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) test(cellItems[k]);
+				}
+			}
+		}
+		for (int k = 0; k < moving.size; k++) test(moving.get(k));
+		found.sort();
+	}
+
+	/**
+	 * Adds a trigger to <code>found</code> if it overlaps <code>probeBounds</code> and has not been tested yet.
+	 *
+	 * @param id  index of the trigger
+	 */
+	private void test(int id) {
+		if (stamps[id] == stamp) return;
+		stamps[id] = stamp;
+		int b = 4*id;
+		if (probeBounds[0] < bounds[b + 2] && probeBounds[2] > bounds[b]
+				&& probeBounds[1] < bounds[b + 3] && probeBounds[3] > bounds[b + 1]) {
+			found.add(id);
+		}
+	}
+
+	/**
+	 * Computes the bounding box of a fixture into <code>probeBounds</code>.
+	 *
+	 * @param f     the fixture
+	 * @param body  the body of the fixture
+	 * @return false if the shape of the fixture is not supported
+	 */
+	private boolean fixtureBounds(Fixture f, Body body) {
+		Transform transform = body.getTransform();
+		Shape shape = f.getShape();
+		switch (shape.getType()) {
+			case Circle: {
+				CircleShape circle = (CircleShape) shape;
+				transform.mul(vertexCache.set(circle.getPosition()));
+				float r = circle.getRadius();
+				probeBounds[0] = vertexCache.x - r;
+				probeBounds[1] = vertexCache.y - r;
+				probeBounds[2] = vertexCache.x + r;
+				probeBounds[3] = vertexCache.y + r;
+				return true;
+			}
+			case Polygon: {
+				PolygonShape polygon = (PolygonShape) shape;
+				probeBounds[0] = probeBounds[1] = Float.MAX_VALUE;
+				probeBounds[2] = probeBounds[3] = -Float.MAX_VALUE;
+				for (int k = 0; k < polygon.getVertexCount(); k++) {
+					polygon.getVertex(k, vertexCache);
+					transform.mul(vertexCache);
+					probeBounds[0] = Math.min(probeBounds[0], vertexCache.x);
+					probeBounds[1] = Math.min(probeBounds[1], vertexCache.y);
+					probeBounds[2] = Math.max(probeBounds[2], vertexCache.x);
+					probeBounds[3] = Math.max(probeBounds[3], vertexCache.y);
+				}
+				return true;
+			}
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Reads the bounds of a trigger.
+	 *
+	 * @param id  index of the trigger
+	 */
+	private void readBounds(int id) {
+		((Trigger) triggers.get(id)).getTriggerBounds(rectCache);
+		int b = 4*id;
+		bounds[b] = rectCache.x;
+		bounds[b + 1] = rectCache.y;
+		bounds[b + 2] = rectCache.x + rectCache.width;
+		bounds[b + 3] = rectCache.y + rectCache.height;
+	}
+
+	/**
+	 * Buckets every trigger that does not move into the grid cells its bounds overlap.
+	 */
+	private void buildGrid() {
+		gridDirty = false;
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		int numStatic = 0;
+		for (int i = 0; i < triggers.size; i++) {
+			if (moving.contains(i)) continue;
+			minX = Math.min(minX, bounds[4*i]);
+			minY = Math.min(minY, bounds[4*i + 1]);
+			maxX = Math.max(maxX, bounds[4*i + 2]);
+			maxY = Math.max(maxY, bounds[4*i + 3]);
+			numStatic++;
+		}
+		if (numStatic == 0) {
+			gridWidth = gridHeight = 0;
+			return;
+		}
+		gridX = minX;
+		gridY = minY;
+		gridWidth = (int) Math.floor((maxX - minX) / CELL_SIZE) + 1;
+		gridHeight = (int) Math.floor((maxY - minY) / CELL_SIZE) + 1;
+		int numCells = gridWidth*gridHeight;
+		if (cellStart.length < numCells + 1) cellStart = new int[numCells + 1];
+		Arrays.fill(cellStart, 0, numCells + 1, 0);
+
+		//count the triggers of each cell, then fill them in
+		int numItems = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < triggers.size; i++) {
+				if (moving.contains(i)) continue;
+				int cx0 = (int) ((bounds[4*i] - gridX) / CELL_SIZE);
+				int cy0 = (int) ((bounds[4*i + 1] - gridY) / CELL_SIZE);
+				int cx1 = (int) ((bounds[4*i + 2] - gridX) / CELL_SIZE);
+				int cy1 = (int) ((bounds[4*i + 3] - gridY) / CELL_SIZE);
+				for (int cy = cy0; cy <= cy1; cy++) {
+					for (int cx = cx0; cx <= cx1; cx++) {
+						int cell = cy*gridWidth + cx;
+						if (pass == 0) {
+							cellStart[cell + 1]++;
+							numItems++;
+						} else {
+							cellItems[--cellStart[cell + 1]] = i;
+						}
+					}
+				}
+			}
+			if (pass == 0) {
+				for (int c = 0; c < numCells; c++) cellStart[c + 1] += cellStart[c];
+				if (cellItems.length < numItems) cellItems = new int[numItems];
+			}
+		}
+		//filling moved each start back by the size of its cell, so cellStart[c + 1] is now the start of cell c
+		System.arraycopy(cellStart, 1, cellStart, 0, numCells);
+		cellStart[numCells] = numItems;
+	}
+
+	/**
+	 * Removes the probes in <code>stale</code>, reporting the triggers they were inside as exited.
+	 *
+	 * @param listener  listener to report the exits to
+	 */
+	private void removeStale(Listener listener) {
+		for (int k = 0; k < stale.size; k++) {
+			Probe p = probes.remove(stale.get(k));
+			for (int i = 0; i < p.inside.size; i++) listener.exitTrigger(p.body, triggers.get(p.inside.get(i)));
+			probePool.free(p);
+		}
+		stale.clear();
+	}
+}
@@ -2,7 +2,6 @@ package edu.cornell.gdiac.game.object;
 
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 
 
 /** Interface implemented by all game objects that can be activated by buttons,
@@ -41,11 +40,11 @@ public interface Activatable {
         setInitialActivation(isActivated());
     }
 
-    default void initTiledActivations(ObjectMap<String, Object> properties){
+    default void initTiledActivations(ObjectProperties properties){
         if (properties == null) {
             setActivated(false);
         } else {
-            setActivated((boolean) properties.get("active", true));
+            setActivated(properties.getBoolean("active", true));
         }
         setInitialActivation(isActivated());
     }
@@ -3,13 +3,11 @@ package edu.cornell.gdiac.game.object;
 import box2dLight.PositionalLight;
 import box2dLight.RayHandler;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.*;
 import com.badlogic.gdx.Gdx;
@@ -35,7 +33,7 @@ public abstract class Activator extends PolygonObstacle {
     /** How long the activator has been animating */
     private float animationTime;
     /** Shape of the sensor that presses this activator */
-    private Texture topTexture;
+    private TextureRegion topTexture;
     private TextureRegion bottomTexture;
     private PolygonShape sensorShape;
     /** The number of objects pressing on this activator */
@@ -80,15 +78,16 @@ public abstract class Activator extends PolygonObstacle {
     /**
      * Creates a new Activator object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public Activator(ObjectMap<String, Object> properties, String texture_name, String base_name, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome, boolean resize){
+    public Activator(ObjectProperties properties, String texture_name, String base_name, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome, boolean resize){
         super(objectConstants.get("body_shape").asFloatArray());
-        topTexture = tMap.get(texture_name).getTexture();
-        spriteFrames = TextureRegion.split(topTexture, 256,256);
+        setTypeTag(CollisionTags.ACTIVATOR);
+        topTexture = tMap.get(texture_name);
+        spriteFrames = topTexture.split(256,256);
         this.biome = biome;
         setTextureScale(textureScale);
 
@@ -109,21 +108,21 @@ public abstract class Activator extends PolygonObstacle {
         animation.setPlayMode(Animation.PlayMode.REVERSED);
         animationTime = 0f;
 
-        setAngle((float) ((float) properties.get("rotation") * Math.PI/180));
-        dir = Direction.angleToDir((int) ((float) properties.get("rotation")));
+        setAngle((float) (properties.getFloat("rotation") * Math.PI/180));
+        dir = Direction.angleToDir((int) properties.getFloat("rotation"));
         Vector2 offset = new Vector2(objectConstants.get("offset").getFloat(0), objectConstants.get("offset").getFloat(1));
         Direction.rotateVector(offset, dir);
-        setX((float) properties.get("x") + offset.x);
-        setY((float) properties.get("y") + offset.y);
+        setX(properties.getFloat("x") + offset.x);
+        setY(properties.getFloat("y") + offset.y);
 
         setDrawScale(scale);
         setFixedRotation(true);
 
-        id = (String) properties.get("id");
-//        setX((float) properties.get("x")+objectConstants.get("offset").getFloat(0));
-//        setY((float) properties.get("y")+objectConstants.get("offset").getFloat(1));
-        color.set((Color) properties.get("color", Color.RED));
-        pan = (boolean) properties.get("shouldPan", false);
+        id = properties.getString("id");
+//        setX(properties.getFloat("x")+objectConstants.get("offset").getFloat(0));
+//        setY(properties.getFloat("y")+objectConstants.get("offset").getFloat(1));
+        color.set(properties.getColor("color", Color.RED));
+        pan = properties.getBoolean("shouldPan", false);
         activating = false;
         prevPressed = false;
     }
@@ -152,15 +151,15 @@ public abstract class Activator extends PolygonObstacle {
             animationTime += Gdx.graphics.getDeltaTime();
             currentFrame = animation.getKeyFrame(animationTime);
         }
-        float x = (getX() - 0.5f)*drawScale.x;
+        float x = getDrawX() - 0.5f*drawScale.x;
 
 //        System.out.println();
         if (Math.round(Math.toDegrees(getAngle())) == 180) {
             x = x + drawScale.x;
         }
 
-        canvas.draw(currentFrame, color, origin.x, origin.y, x, getY()*drawScale.y, getAngle(), textureScale.x,textureScale.y);
-        if (biome.equals("metal")) canvas.draw(bottomTexture, Color.WHITE, origin.x, origin.y, x, (getY())*drawScale.y, getAngle(), textureScale.x, textureScale.y);
+        canvas.draw(currentFrame, color, origin.x, origin.y, x, getDrawY(), getAngle(), textureScale.x,textureScale.y);
+        if (biome.equals("metal")) canvas.draw(bottomTexture, Color.WHITE, origin.x, origin.y, x, getDrawY(), getAngle(), textureScale.x, textureScale.y);
     }
 
     /**
@@ -175,7 +174,7 @@ public abstract class Activator extends PolygonObstacle {
             return false;
         }
         for (Fixture fd : body.getFixtureList()){
-            fd.setUserData(this);
+            fd.setUserData(CollisionTags.ACTIVATOR_FIXTURE);
         }
         //create top sensor
         FixtureDef sensorDef = new FixtureDef();
@@ -188,7 +187,7 @@ public abstract class Activator extends PolygonObstacle {
         Fixture sensorFixture = body.createFixture( sensorDef );
         sensorFixture.setRestitution(0);
         sensorFixture.setFriction(0);
-        sensorFixture.setUserData(this);
+        sensorFixture.setUserData(CollisionTags.ACTIVATOR_FIXTURE);
 
         return true;
     }
@@ -222,14 +221,13 @@ public abstract class Activator extends PolygonObstacle {
     }
 
     @Override
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("activating", activating);
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putBoolean(activating);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap) {
-        super.loadState(stateMap);
-        activating = (boolean) stateMap.get("activating");
+    public void loadState(StateBuffer state) {
+        super.loadState(state);
+        activating = state.getBoolean();
     }
 }
@@ -3,7 +3,6 @@ package edu.cornell.gdiac.game.object;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 
-import com.badlogic.gdx.utils.ObjectMap;
 
 import java.util.HashMap;
 
@@ -15,12 +14,12 @@ public class Button extends Activator {
     /**
      * Creates a new Button object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public Button(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
+    public Button(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
         super(properties, biome.equals("metal") ? "button-top" : "forest-button-top",
                 biome.equals("metal") ? "button-base" : "forest-button-top",tMap,scale, textureScale, biome, true);
     }
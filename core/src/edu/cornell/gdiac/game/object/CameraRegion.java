@@ -4,7 +4,6 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 import com.badlogic.gdx.math.Rectangle;
@@ -17,14 +16,14 @@ import com.badlogic.gdx.math.Rectangle;
  * the collision region or another specified rectangle of your choice.
  */
 
-public class CameraRegion extends BoxObstacle {
+public class CameraRegion extends BoxObstacle implements Trigger {
     /** Zoom percentage of camera after collision with this camera tile/Zoom percentage of camera relative to the camera region size **/
     private float zoom;
     /** Whether zoom is relative to viewport or to camera region size*/
     private boolean relativeZoom;
     /** Constants that are shared between all instances of this class */
     private static JsonValue objectConstants;
-    /** Number of fixture colliding with this camera region */
+    /** Number of fixtures of the cat inside this camera region */
     private int fixtureCount;
     /** Whether camera should snap to snapBounds */
     private boolean shouldSnap;
@@ -32,29 +31,30 @@ public class CameraRegion extends BoxObstacle {
     private Rectangle snapBounds;
 
     /**
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param scale World scale
      */
-    public CameraRegion(ObjectMap<String, Object> properties, Vector2 scale, Rectangle bounds){
-        super((float)properties.get("width"), (float)properties.get("height"));
-        zoom = (float) properties.get("zoom", 0.6f);
+    public CameraRegion(ObjectProperties properties, Vector2 scale, Rectangle bounds){
+        super(properties.getFloat("width"), properties.getFloat("height"));
+        zoom = properties.getFloat("zoom", 0.6f);
         setBodyType(BodyDef.BodyType.StaticBody); //lmao
         setSensor(true);
         setDrawScale(scale);
-        setX((float) properties.get("x") + getDimension().x/2);
-        setY((float) properties.get("y") - getDimension().y/2);
-        setName((String) properties.get("name"));
+        setX(properties.getFloat("x") + getDimension().x/2);
+        setY(properties.getFloat("y") - getDimension().y/2);
+        setName(properties.getString("name"));
+        setTypeTag(CollisionTags.CAMERA_REGION);
         fixtureCount = 0;
-        shouldSnap = (boolean) properties.get("shouldSnap", false);
-        if((boolean) properties.get("snapCollisionArea", true)){
+        shouldSnap = properties.getBoolean("shouldSnap", false);
+        if(properties.getBoolean("snapCollisionArea", true)){
             snapBounds = this.getBounds();
         }
         else{
-            snapBounds = new Rectangle((float) properties.get("bX", 0f) + bounds.x, (float) properties.get("bY", 0f) + bounds.y, (float) properties.get("bWidth", 18f), (float) properties.get("bHeight", 32f));
+            snapBounds = new Rectangle(properties.getFloat("bX", 0f) + bounds.x, properties.getFloat("bY", 0f) + bounds.y, properties.getFloat("bWidth", 18f), properties.getFloat("bHeight", 32f));
         }
         float expectedWidth = snapBounds.getWidth() * zoom;
         float expectedHeight = snapBounds.getHeight() * zoom;
-        relativeZoom = (boolean) properties.get("isZoomRelative", false);
+        relativeZoom = properties.getBoolean("isZoomRelative", false);
         if(relativeZoom)
             zoom = Math.min(expectedWidth*scale.x/GameCanvas.STANDARD_WIDTH, expectedHeight*scale.y/GameCanvas.STANDARD_HEIGHT);
         zoom = Math.round(zoom*100)/100f;
@@ -112,6 +112,14 @@ public class CameraRegion extends BoxObstacle {
         return shouldSnap;
     }
 
+    @Override
+    public Rectangle getTriggerBounds(Rectangle out) {
+        return out.set(getX() - getWidth()/2, getY() - getHeight()/2, getWidth(), getHeight());
+    }
+
+    @Override
+    public boolean isTriggerMoving() { return false; }
+
     @Override
     public void drawDebug(GameCanvas canvas){
 //        float xTranslate = (canvas.getCamera().getX()-canvas.getWidth()/2)/drawScale.x;
@@ -22,13 +22,12 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.Pool;
 import com.badlogic.gdx.utils.Queue;
 import edu.cornell.gdiac.game.*;
 import edu.cornell.gdiac.game.Camera;
 import edu.cornell.gdiac.game.obstacle.*;
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Set;
+import edu.cornell.gdiac.util.RandomController;
 
 import java.util.HashMap;
 
@@ -58,7 +57,7 @@ public class Cat extends CapsuleObstacle implements Movable {
      * We use a Set here to prevent duplicate sounds from entering, which cannot be reliably prevented
      * if we used a Queue.
      */
-    private Set<String> soundBuffer;
+    private ObjectSet<String> soundBuffer;
     //endregion
     /*/////*/
 
@@ -143,28 +142,6 @@ public class Cat extends CapsuleObstacle implements Movable {
     private int coyoteTimer = 6;
 
 
-    /**
-     * Identifier to allow us to track the sensor in ContactListener
-     */
-    private final String groundSensorName;
-
-    /**
-     * Identifier to allow us to track right side sensor in ContactListener
-     */
-    private final String rightSensorName;
-
-    /**
-     * User data of body fixtures for this cat. Used in Contact Listener
-     */
-    public static final String bodyName = "catBody";
-
-    /**
-     * Whether we are in contact with a wall
-     *
-     * Identifier to allow us to track left side sensor in ContactListener
-     */
-    private final String leftSensorName;
-
     private Fixture rightFixture;
     private Fixture leftFixture;
 
@@ -231,6 +208,13 @@ public class Cat extends CapsuleObstacle implements Movable {
     private static final float FAILED_SWITCH_TICKS = 30f;
     private Color failColor = new Color(1, 0, 0, 1);
     private Queue<DashShadow> dashShadowQueue = new Queue<>();
+    /** Recycles dash shadows, which are added every few ticks while dashing */
+    private final Pool<DashShadow> dashShadowPool = new Pool<DashShadow>() {
+        @Override
+        protected DashShadow newObject() {
+            return new DashShadow();
+        }
+    };
     private Color dashColor = new Color(0.68f, 0.85f, 0.9f, 1f);
     private TextureRegion currentFrame;
     /** Used in getSpiritRegionColor() */
@@ -250,7 +234,7 @@ public class Cat extends CapsuleObstacle implements Movable {
         objectConstants = constants;
     }
 
-    public Set<String> getSoundBuffer() {
+    public ObjectSet<String> getSoundBuffer() {
         return soundBuffer;
     }
     //endregion
@@ -378,7 +362,7 @@ public class Cat extends CapsuleObstacle implements Movable {
         onGroundedReset();
         setGravityScale(2);
         setLinearVelocity(Vector2.Zero);
-        dashShadowQueue.clear();
+        while (dashShadowQueue.notEmpty()) dashShadowPool.free(dashShadowQueue.removeFirst());
         isGrounded = true;
         jumpPressed = false;
         canDash = true;
@@ -410,42 +394,20 @@ public class Cat extends CapsuleObstacle implements Movable {
      */
 
     /**
-     * Returns the name of the ground sensor
+     * Returns the role tag of the ground sensor
      * <p>
      * This is used by ContactListener
      *
-     * @return the name of the ground sensor
+     * @return the role tag of the ground sensor
      */
-    public String getGroundSensorName() {
-        return groundSensorName;
+    public int getGroundSensorRole() {
+        return CollisionTags.CAT_GROUND_SENSOR;
     }
 
     public ObjectSet<Fixture> getGroundFixtures() {
         return groundFixtures;
     }
 
-    /**
-     * Returns the name of the right side sensor
-     * <p>
-     * This is used by ContactListener
-     *
-     * @return the name of the right side sensor
-     */
-    public String getRightSensorName() {
-        return rightSensorName;
-    }
-
-    /**
-     * Returns the name of the left side sensor
-     * <p>
-     * This is used by ContactListener
-     *
-     * @return the name of the right side sensor
-     */
-    public String getLeftSensorName() {
-        return leftSensorName;
-    }
-
     /**
      * Increments when the right side sensor is in contact with a wall
      */
@@ -485,8 +447,7 @@ public class Cat extends CapsuleObstacle implements Movable {
 
     public void setMeowing(boolean value) {
         if (value && !isMeowing) {
-            Random rand = new Random();
-            int randomNum = rand.nextInt((3 - 1) + 1) + 1;
+            int randomNum = RandomController.rollInt(1, 3);
             soundBuffer.add("meow-"+randomNum);
         }
         isMeowing = value;
@@ -593,9 +554,9 @@ public class Cat extends CapsuleObstacle implements Movable {
      * converts the physics units to pixels.
      *
      */
-    public Cat(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale){
-        super((float) properties.get("x") + objectConstants.get("offset").getFloat(0),
-                (float) properties.get("y") + objectConstants.get("offset").getFloat(1),
+    public Cat(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale){
+        super(properties.getFloat("x") + objectConstants.get("offset").getFloat(0),
+                properties.getFloat("y") + objectConstants.get("offset").getFloat(1),
                 tMap.get("cat").getRegionWidth()/scale.x*objectConstants.get("shrink").getFloat( 0 ),
                 tMap.get("cat").getRegionHeight()/scale.y*objectConstants.get("shrink").getFloat( 1 ),
                 Orientation.TOP);
@@ -611,25 +572,22 @@ public class Cat extends CapsuleObstacle implements Movable {
         jumpForce = objectConstants.getFloat("jumpForce", 0);
         dashForce = objectConstants.getFloat("dashForce", 0);
         jumpDamping = objectConstants.getFloat("jumpDamping", 0);
-        groundSensorName = "catGroundSensor";
-        rightSensorName = "catRightSensor";
-        leftSensorName = "catLeftSensor";
         sensorShapes = new Array<>();
         groundFixtures = new ObjectSet<>();
         spiritRegions = new ObjectMap<>();
-        soundBuffer = new HashSet<>();
+        soundBuffer = new ObjectSet<>();
 
         normalTexture = tMap.get("cat");
 
-        walkAnimation = new Animation<>(0.10f, TextureRegion.split(tMap.get("walk-anim").getTexture(),256,256)[0]);
-        jumpAnimation = new Animation<>(0.025f, TextureRegion.split(tMap.get("jump-anim").getTexture(),256,256)[0]);
-        meowAnimation = new Animation<>(0.05f, TextureRegion.split(tMap.get("meow-anim").getTexture(),256,256)[0]);
-        transAnimation = new Animation<>(0.08f, TextureRegion.split(tMap.get("trans-anim").getTexture(),256,256)[0]);
-        idleAnimation = new Animation<>(0.15f, TextureRegion.split(tMap.get("idle-sit-anim").getTexture(),256,256)[0]);
-        idleStandAnimation = new Animation<>(0.15f, TextureRegion.split(tMap.get("idle-stand-anim").getTexture(),256,256)[0]);
-        climbAnimation = new Animation<>(0.05f, TextureRegion.split(tMap.get("climb-anim").getTexture(),256,256)[0]);
-        transAnimation2 = new Animation<>(0.02f, TextureRegion.split(tMap.get("trans2-anim").getTexture(),256,256)[0]);
-        midJumpAnimation = new Animation<>(0.1f, TextureRegion.split(tMap.get("jump-mid").getTexture(),256,256)[0]);
+        walkAnimation = new Animation<>(0.10f, tMap.get("walk-anim").split(256,256)[0]);
+        jumpAnimation = new Animation<>(0.025f, tMap.get("jump-anim").split(256,256)[0]);
+        meowAnimation = new Animation<>(0.05f, tMap.get("meow-anim").split(256,256)[0]);
+        transAnimation = new Animation<>(0.08f, tMap.get("trans-anim").split(256,256)[0]);
+        idleAnimation = new Animation<>(0.15f, tMap.get("idle-sit-anim").split(256,256)[0]);
+        idleStandAnimation = new Animation<>(0.15f, tMap.get("idle-stand-anim").split(256,256)[0]);
+        climbAnimation = new Animation<>(0.05f, tMap.get("climb-anim").split(256,256)[0]);
+        transAnimation2 = new Animation<>(0.02f, tMap.get("trans2-anim").split(256,256)[0]);
+        midJumpAnimation = new Animation<>(0.1f, tMap.get("jump-mid").split(256,256)[0]);
         meowAnimation.setPlayMode(Animation.PlayMode.REVERSED);
         idleStandAnimation.setPlayMode(Animation.PlayMode.LOOP_PINGPONG);
         idleAnimation.setPlayMode(Animation.PlayMode.LOOP_PINGPONG);
@@ -641,6 +599,7 @@ public class Cat extends CapsuleObstacle implements Movable {
         // Gameplay attributes
         reset();
         setName("cat");
+        setTypeTag(CollisionTags.CAT);
     }
 
     /**
@@ -657,7 +616,7 @@ public class Cat extends CapsuleObstacle implements Movable {
             return false;
         }
 
-        for (Fixture f : body.getFixtureList()) f.setUserData(bodyName);
+        for (Fixture f : body.getFixtureList()) f.setUserData(CollisionTags.CAT_BODY);
         // Ground Sensor
         // -------------
         // We only allow the cat to jump when he's on the ground.
@@ -670,18 +629,18 @@ public class Cat extends CapsuleObstacle implements Movable {
         Fixture a = generateSensor(new Vector2(0, -getHeight() / 2),
                 groundSensorJV.getFloat("shrink", 0) * getWidth() / 1.3f,
                 groundSensorJV.getFloat("height", 0),
-                getGroundSensorName());
+                CollisionTags.CAT_GROUND_SENSOR);
 
         // Side sensors to help detect for wall climbing
         JsonValue sideSensorJV = objectConstants.get("side_sensor");
         rightFixture = generateSensor(new Vector2(getWidth() / 2, 0),
                 sideSensorJV.getFloat("width", 0),
                 sideSensorJV.getFloat("shrink") * getHeight() / 2.0f,
-                getRightSensorName());
+                CollisionTags.CAT_RIGHT_SENSOR);
         leftFixture = generateSensor(new Vector2(-getWidth() / 2, 0),
                 sideSensorJV.getFloat("width", 0),
                 sideSensorJV.getFloat("shrink") * getHeight() / 2.0f,
-                getLeftSensorName());
+                CollisionTags.CAT_LEFT_SENSOR);
 
         return true;
     }
@@ -694,10 +653,10 @@ public class Cat extends CapsuleObstacle implements Movable {
      * @param location relative location of the sensor fixture
      * @param hx       half-width used for PolygonShape
      * @param hy       half-height used for PolygonShape
-     * @param name     name for the sensor UserData
+     * @param role     role tag for the sensor UserData
      * @return
      */
-    private Fixture generateSensor(Vector2 location, float hx, float hy, String name) {
+    private Fixture generateSensor(Vector2 location, float hx, float hy, int role) {
         FixtureDef sensorDef = new FixtureDef();
         sensorDef.friction = 0;
         sensorDef.isSensor = true;
@@ -706,7 +665,7 @@ public class Cat extends CapsuleObstacle implements Movable {
         sensorDef.shape = sensorShape;
 
         Fixture sensorFixture = body.createFixture(sensorDef);
-        sensorFixture.setUserData(name);
+        sensorFixture.setUserData(role);
         sensorShapes.add(sensorShape);
         return sensorFixture;
     }
@@ -717,7 +676,7 @@ public class Cat extends CapsuleObstacle implements Movable {
      */
     public void createLight(RayHandler rayHandler) {
         createPointLight(objectConstants.get("light"), rayHandler);
-        getLight().attachToBody(getBody());
+        attachLightTo(this);
         getLight().setSoft(true);
         getLight().setXray(true);
     }
@@ -897,7 +856,7 @@ public class Cat extends CapsuleObstacle implements Movable {
      */
     private void addDashShadow() {
         if (dashTimer % 3 == 0) {
-            dashShadowQueue.addLast(new DashShadow(getTextureCenterX(), getTextureCenterY(), getDirectionFactor(), currentFrame));
+            dashShadowQueue.addLast(dashShadowPool.obtain().set(getTextureCenterX(), getTextureCenterY(), getDirectionFactor(), currentFrame));
         }
     }
 
@@ -1021,6 +980,8 @@ public class Cat extends CapsuleObstacle implements Movable {
             if (shadow.timer - 1 > 0) {
                 shadow.timer--;
                 dashShadowQueue.addLast(shadow);
+            } else {
+                dashShadowPool.free(shadow);
             }
         }
     }
@@ -1061,7 +1022,7 @@ public class Cat extends CapsuleObstacle implements Movable {
     /**
      * Inner data class to hold relevant information for dash shadows
      */
-    private class DashShadow {
+    private static class DashShadow implements Pool.Poolable {
         public float x;
         public float y;
         public float directionFactor;
@@ -1069,18 +1030,26 @@ public class Cat extends CapsuleObstacle implements Movable {
         public int timer = 10;
 
         /**
-         * Creates a new DashShadow object. We use the cat's current state to populate the shadow data,
+         * Sets the data of this DashShadow. We use the cat's current state to populate the shadow data,
          * namely the cat's current position, heading, and texture.
          * @param x Current drawing x position of the cat
          * @param y Current drawing y position of the cat
          * @param dir Current directionFactor of the cat (isFacingRight() ? -1 : 1)
          * @param shadowTexture Current texture of the cat
+         * @return this shadow, for chaining
          */
-        public DashShadow(float x, float y, float dir, TextureRegion shadowTexture) {
+        public DashShadow set(float x, float y, float dir, TextureRegion shadowTexture) {
             this.x = x;
             this.y = y;
             this.directionFactor = dir;
             this.shadowTexture = shadowTexture;
+            return this;
+        }
+
+        @Override
+        public void reset() {
+            shadowTexture = null;
+            timer = 10;
         }
     }
 
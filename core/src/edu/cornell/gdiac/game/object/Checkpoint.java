@@ -5,17 +5,18 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 import edu.cornell.gdiac.util.Direction;
 
 import java.util.HashMap;
 
-public class Checkpoint extends BoxObstacle
+public class Checkpoint extends BoxObstacle implements Trigger
 {
     /** The origin position of the checkpoint */
     protected Vector2 origin;
@@ -25,7 +26,6 @@ public class Checkpoint extends BoxObstacle
     private PolygonShape sensorShape;
     /** The constants for the checkpoint */
     protected static JsonValue objectConstants;
-    private static final String sensorName = "checkpointSensor";
     /** The texture for the non-active checkpoint base */
     private TextureRegion baseTexture;
     /** The texture for the active checkpoint base */
@@ -58,12 +58,12 @@ public class Checkpoint extends BoxObstacle
     /**
      * Creates a new Checkpoint object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public Checkpoint(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
+    public Checkpoint(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
 
         super(32/scale.x, 64/scale.y);
         current = false;
@@ -74,9 +74,9 @@ public class Checkpoint extends BoxObstacle
         int spriteHeight = 256;
         this.baseTexture = tMap.get("checkpoint-base");
         this.activeBaseTexture = tMap.get("checkpoint-base-active");
-        spriteFrames = TextureRegion.split(tMap.get("checkpoint-anim").getTexture(), spriteWidth, spriteHeight);
-        activeSpriteFrames = TextureRegion.split(tMap.get("checkpoint-active-anim").getTexture(), spriteWidth, spriteHeight);
-        activationSpriteFrames = TextureRegion.split(tMap.get("checkpoint-activation-anim").getTexture(), spriteWidth, spriteHeight+spriteHeight/2);
+        spriteFrames = tMap.get("checkpoint-anim").split(spriteWidth, spriteHeight);
+        activeSpriteFrames = tMap.get("checkpoint-active-anim").split(spriteWidth, spriteHeight);
+        activationSpriteFrames = tMap.get("checkpoint-activation-anim").split(spriteWidth, spriteHeight+spriteHeight/2);
 
         float frameDuration = 1/10f;
 
@@ -86,17 +86,18 @@ public class Checkpoint extends BoxObstacle
 
         animation.setPlayMode(Animation.PlayMode.LOOP);
         animationTime = 0f;
-        setAngle((float) ((float) properties.get("rotation") * Math.PI/180));
-        dir = Direction.angleToDir((int) ((float) properties.get("rotation")));
+        setAngle((float) (properties.getFloat("rotation") * Math.PI/180));
+        dir = Direction.angleToDir((int) properties.getFloat("rotation"));
         setMass(0);
         setName("checkpoint");
+        setTypeTag(CollisionTags.CHECKPOINT);
         setDrawScale(scale);
         setSensor(true);
 
         Vector2 offset = new Vector2(objectConstants.get("offset").getFloat(0), objectConstants.get("offset").getFloat(1));
         Direction.rotateVector(offset, dir);
-        setX((float) properties.get("x") + offset.x);
-        setY((float) properties.get("y") + offset.y);
+        setX(properties.getFloat("x") + offset.x);
+        setY(properties.getFloat("y") + offset.y);
         setSensor(true);
         setBodyType(properties.containsKey("attachName") ? BodyDef.BodyType.DynamicBody : BodyDef.BodyType.StaticBody);
         Vector2 solidCenter = new Vector2(0,0);
@@ -132,6 +133,24 @@ public class Checkpoint extends BoxObstacle
 
     public boolean facingRight() { return facingRight; }
 
+    /**
+     * The trigger area of a checkpoint is its sensor, rotated with the checkpoint.
+     */
+    @Override
+    public Rectangle getTriggerBounds(Rectangle out) {
+        float halfWidth = getWidth() / 2 * objectConstants.getFloat("solid_width_scale");
+        float halfHeight = getHeight() / 2 * objectConstants.getFloat("solid_height_scale");
+        if (dir == Direction.LEFT || dir == Direction.RIGHT) {
+            float swap = halfWidth;
+            halfWidth = halfHeight;
+            halfHeight = swap;
+        }
+        return out.set(getX() - halfWidth, getY() - halfHeight, 2*halfWidth, 2*halfHeight);
+    }
+
+    @Override
+    public boolean isTriggerMoving() { return getBodyType() != BodyDef.BodyType.StaticBody; }
+
     public void addTouching() {numTouching++;}
     public void removeTouching() {numTouching--;}
     public boolean isFirstTouch() { return numTouching == 1; }
@@ -154,7 +173,7 @@ public class Checkpoint extends BoxObstacle
         sensorDef.shape = sensorShape;
 
         Fixture sensorFixture = body.createFixture(sensorDef);
-        sensorFixture.setUserData(sensorName);
+        sensorFixture.setUserData(CollisionTags.CHECKPOINT_SENSOR);
 
         return true;
     }
@@ -244,13 +263,9 @@ public class Checkpoint extends BoxObstacle
         canvas.drawPhysics(sensorShape, Color.RED, getX(), getY(), getAngle(), drawScale.x, drawScale.y);
     }
 
-    public String getSensorName(){ return sensorName; }
-
     @Override
-    public void loadState(ObjectMap<String, Object> state){
+    public void loadState(StateBuffer state){
         super.loadState(state);
-        Vector2 pos = (Vector2) state.get("position");
-        setX(pos.x + baseOffset.x);
-        setY(pos.y + baseOffset.y);
+        setPosition(getX() + baseOffset.x, getY() + baseOffset.y);
     }
 }
@@ -0,0 +1,175 @@
+package edu.cornell.gdiac.game.object;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Filter;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import edu.cornell.gdiac.game.obstacle.ComplexObstacle;
+import edu.cornell.gdiac.game.obstacle.Obstacle;
+
+/**
+ * Central collision matrix, expressed as Box2D category and mask bits.
+ * <br><br>
+ * Every fixture is put in exactly one category, chosen from the type tag of its obstacle, its role tag and whether it
+ * is a sensor (see {@link CollisionTags}). The mask of a category is every category it is allowed to touch, so pairs
+ * that should never collide are rejected by the default Box2D filter without any game code being run.
+ * <br><br>
+ * Filters must be reapplied whenever a fixture changes between sensor and solid.
+ * <br><br>
+ * Fixtures of {@link Trigger}s collide with nothing, since triggers are tested by the trigger system of their level.
+ */
+public final class CollisionFilters {
+
+    /// Categories
+    /** Solid fixtures without special rules */
+    public static final short DEFAULT = 0x0001;
+    /** Sensor fixtures without special rules */
+    public static final short SENSOR = 0x0002;
+    /** Solid fixtures of the cat */
+    public static final short CAT = 0x0004;
+    /** Sensor fixtures of the cat, except the ground sensor */
+    public static final short CAT_SENSOR = 0x0008;
+    /** Ground sensor of the cat */
+    public static final short CAT_GROUND = 0x0010;
+    /** Solid fixtures of dead bodies, except the hitbox */
+    public static final short DEAD_BODY = 0x0020;
+    /** Sensor fixtures of dead bodies */
+    public static final short DEAD_BODY_SENSOR = 0x0040;
+    /** Hitbox of dead bodies */
+    public static final short DEAD_BODY_HITBOX = 0x0080;
+    /** Solid fixtures of spikes, except the solid base */
+    public static final short SPIKES = 0x0100;
+    /** Sensor fixtures of spikes */
+    public static final short SPIKES_SENSOR = 0x0200;
+    /** Solid base of spikes */
+    public static final short SPIKES_SOLID = 0x0400;
+    /** Solid fixtures of doors and platforms */
+    public static final short PLATFORM = 0x0800;
+    /** Sensor fixtures of doors and platforms, such as an open door */
+    public static final short PLATFORM_SENSOR = 0x1000;
+    /** Walls */
+    public static final short WALL = 0x2000;
+    /** Solid fixtures of activators */
+    public static final short ACTIVATOR = 0x4000;
+    /** Sensor fixtures of activators */
+    public static final short ACTIVATOR_SENSOR = (short) 0x8000;
+
+    /** Every sensor category */
+    private static final int SENSORS = SENSOR | CAT_SENSOR | CAT_GROUND | DEAD_BODY_SENSOR | SPIKES_SENSOR
+            | PLATFORM_SENSOR | ACTIVATOR_SENSOR;
+
+    /** Mask bits of each category, indexed by the bit number of the category */
+    private static final short[] masks = new short[16];
+
+    /** Filter reused when applying filters */
+    private static final Filter filter = new Filter();
+
+    static {
+        for (int i = 0; i < masks.length; i++) masks[i] = (short) 0xFFFF;
+
+        //sensors do not turn on activators
+        never(ACTIVATOR | ACTIVATOR_SENSOR, SENSORS);
+        //sensors are not ground
+        never(CAT_GROUND, SENSORS);
+
+        never(PLATFORM | PLATFORM_SENSOR, PLATFORM | PLATFORM_SENSOR | WALL);
+
+        //spikes and dead bodies
+        never(SPIKES_SOLID, DEAD_BODY | DEAD_BODY_SENSOR | DEAD_BODY_HITBOX);
+        never(DEAD_BODY_HITBOX, SPIKES | SPIKES_SENSOR | SPIKES_SOLID);
+
+        //cat and spikes
+        never(SPIKES_SOLID, CAT | CAT_SENSOR | CAT_GROUND);
+    }
+
+    private CollisionFilters() {}
+
+    /**
+     * Removes every category in <code>b</code> from the masks of the categories in <code>a</code>, and vice versa.
+     *
+     * @param a  categories that should never touch <code>b</code>
+     * @param b  categories that should never touch <code>a</code>
+     */
+    private static void never(int a, int b) {
+        for (int i = 0; i < masks.length; i++) {
+            if ((a & (1 << i)) != 0) masks[i] &= ~b;
+            if ((b & (1 << i)) != 0) masks[i] &= ~a;
+        }
+    }
+
+    /**
+     * Returns the category of a fixture.
+     *
+     * @param type    type tag of the fixture's obstacle
+     * @param role    role tag of the fixture
+     * @param sensor  whether the fixture is a sensor
+     * @return the category bit of the fixture
+     */
+    public static short categoryOf(int type, int role, boolean sensor) {
+        switch (type) {
+            case CollisionTags.CAT:
+                if (role == CollisionTags.CAT_GROUND_SENSOR) return CAT_GROUND;
+                return sensor ? CAT_SENSOR : CAT;
+            case CollisionTags.DEAD_BODY:
+                if (role == CollisionTags.DEAD_BODY_HITBOX) return DEAD_BODY_HITBOX;
+                return sensor ? DEAD_BODY_SENSOR : DEAD_BODY;
+            case CollisionTags.SPIKES:
+                if (role == CollisionTags.SPIKES_SOLID) return SPIKES_SOLID;
+                return sensor ? SPIKES_SENSOR : SPIKES;
+            case CollisionTags.DOOR:
+            case CollisionTags.PLATFORM:
+                return sensor ? PLATFORM_SENSOR : PLATFORM;
+            case CollisionTags.WALL:
+                return sensor ? SENSOR : WALL;
+            case CollisionTags.ACTIVATOR:
+                return sensor ? ACTIVATOR_SENSOR : ACTIVATOR;
+            default:
+                return sensor ? SENSOR : DEFAULT;
+        }
+    }
+
+    /**
+     * Returns the mask of a category.
+     *
+     * @param category  a single category bit
+     * @return every category that <code>category</code> may touch
+     */
+    public static short maskOf(short category) {
+        return masks[Integer.numberOfTrailingZeros(category & 0xFFFF)];
+    }
+
+    /**
+     * Sets the filter data of every fixture of an obstacle. For complex obstacles, this includes the fixtures of all
+     * their bodies. Must be called after the obstacle's physics are activated and its fixture roles are set.
+     *
+     * @param obj  the obstacle
+     */
+    public static void apply(Obstacle obj) {
+        if (obj instanceof ComplexObstacle) {
+            for (Obstacle child : ((ComplexObstacle) obj).getBodies()) {
+                apply(child);
+            }
+        } else {
+            apply(obj.getBody());
+        }
+    }
+
+    /**
+     * Sets the filter data of every fixture of a body. The type tag is taken from the obstacle in the body's user
+     * data, which is not always the obstacle that created the body (e.g. the cap of a door).
+     *
+     * @param body  the body, or null
+     */
+    public static void apply(Body body) {
+        if (body == null) return;
+        Object data = body.getUserData();
+        int type = data instanceof Obstacle ? ((Obstacle) data).getTypeTag() : CollisionTags.OTHER;
+        boolean trigger = data instanceof Trigger;
+        for (Fixture f : body.getFixtureList()) {
+            short category = categoryOf(type, CollisionTags.roleOf(f), f.isSensor());
+            filter.categoryBits = category;
+            filter.maskBits = trigger ? 0 : maskOf(category);
+            filter.groupIndex = 0;
+            f.setFilterData(filter);
+        }
+    }
+}
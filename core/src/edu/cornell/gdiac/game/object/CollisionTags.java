@@ -0,0 +1,75 @@
+package edu.cornell.gdiac.game.object;
+
+import com.badlogic.gdx.physics.box2d.Fixture;
+import edu.cornell.gdiac.game.obstacle.Obstacle;
+
+/**
+ * Integer tags used by {@link edu.cornell.gdiac.game.CollisionController} to dispatch contacts.
+ * <br><br>
+ * Every obstacle is given a type tag when it is created (see {@link Obstacle#setTypeTag(int)}), and fixtures that
+ * play a special role in collisions (sensors, hitboxes, ...) store a role tag as their user data. Type tags index
+ * the contact handler tables directly, so they must stay in <code>[0, NUM_TYPES)</code>.
+ */
+public final class CollisionTags {
+
+    /// Obstacle type tags
+    /** Obstacles that no contact handler cares about */
+    public static final int OTHER = 0;
+    public static final int CAT = 1;
+    public static final int DEAD_BODY = 2;
+    public static final int SPIKES = 3;
+    public static final int FLAME = 4;
+    public static final int LASER = 5;
+    public static final int CHECKPOINT = 6;
+    public static final int MOB = 7;
+    public static final int SPIRIT_REGION = 8;
+    public static final int GOAL = 9;
+    public static final int CAMERA_REGION = 10;
+    public static final int WALL = 11;
+    public static final int EXIT = 12;
+    public static final int DOOR = 13;
+    public static final int PLATFORM = 14;
+    public static final int ACTIVATOR = 15;
+    public static final int BOX = 16;
+    public static final int MIRROR = 17;
+    /** Number of obstacle type tags */
+    public static final int NUM_TYPES = 18;
+
+    /// Fixture role tags
+    /** Fixtures without a special role */
+    public static final int NO_ROLE = 0;
+    public static final int CAT_BODY = 1;
+    public static final int CAT_GROUND_SENSOR = 2;
+    public static final int CAT_RIGHT_SENSOR = 3;
+    public static final int CAT_LEFT_SENSOR = 4;
+    public static final int DEAD_BODY_CAT_BODY = 5;
+    public static final int DEAD_BODY_GROUND_SENSOR = 6;
+    public static final int DEAD_BODY_CENTER_SENSOR = 7;
+    public static final int DEAD_BODY_CAT_SENSORS = 8;
+    public static final int DEAD_BODY_HITBOX = 9;
+    public static final int DEAD_BODY_SPIKES_SENSOR = 10;
+    public static final int SPIKES_SOLID = 11;
+    public static final int SPIKES_POINTY = 12;
+    public static final int SPIKES_CENTER = 13;
+    public static final int SPIKES_TEXTURE = 14;
+    public static final int FLAME_SENSOR = 15;
+    public static final int LASER_SENSOR = 16;
+    public static final int LASER_HITBOX = 17;
+    public static final int CHECKPOINT_SENSOR = 18;
+    public static final int GOAL_SENSOR = 19;
+    public static final int BOX_GROUND_SENSOR = 20;
+    public static final int ACTIVATOR_FIXTURE = 21;
+
+    private CollisionTags() {}
+
+    /**
+     * Returns the role tag stored in a fixture's user data.
+     *
+     * @param fixture  the fixture
+     * @return the role of the fixture, or <code>NO_ROLE</code> if it has none
+     */
+    public static int roleOf(Fixture fixture) {
+        Object data = fixture.getUserData();
+        return data instanceof Integer ? (Integer) data : NO_ROLE;
+    }
+}
@@ -7,13 +7,14 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.CapsuleObstacle;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 
-import java.util.HashMap;
 
 public class DeadBody extends CapsuleObstacle implements Movable {
     /** Constants that are shared between all instances of this class */
@@ -41,12 +42,6 @@ public class DeadBody extends CapsuleObstacle implements Movable {
     private Animation<TextureRegion> animation;
     private float time;
     private ObjectSet<Fixture> groundFixtures = new ObjectSet<>();
-    public static final String groundSensorName = "deadBodyGround";
-    public static final String centerSensorName = "deadBodyCenter";
-    public static final String catBodyName = "deadCatBody";
-    public static final String catSensorsName = "deadCatSensors";
-    public static final String hitboxSensorName = "deadBodyHitBox";
-    public static final String spikesSensorName = "deadBodySpikes";
     private int flameCounter;
     private int dashTimer;
     private PolygonShape hitboxShape;
@@ -54,6 +49,10 @@ public class DeadBody extends CapsuleObstacle implements Movable {
     private Array<Shape> sensorShapes;
     /** Set of joints that are attached to this object */
     private ObjectSet<Joint> joints = new ObjectSet<>();
+    /** Spikes that this body was attached to in the last loaded state */
+    private final Array<Spikes> loadedJointSpikes = new Array<>();
+    /** Anchors of the joints in the last loaded state, as (x, y) pairs */
+    private final FloatArray loadedJointAnchors = new FloatArray();
 
     /**
      * Returns ow hard the brakes are applied to get a dead body to stop moving
@@ -137,7 +136,7 @@ public class DeadBody extends CapsuleObstacle implements Movable {
     public DeadBody(TextureRegion texture, TextureRegion burnTexture, Vector2 scale, Vector2 position, Vector2 textureScale, int dashTimer) {
         super(0, 0, objectConstants.getFloat("capsuleWidth"), objectConstants.getFloat("capsuleHeight"), Orientation.TOP);
 
-        spriteFrames = TextureRegion.split(burnTexture.getTexture(), 256,256);
+        spriteFrames = burnTexture.split(256,256);
         animation = new Animation<>(0.025f, spriteFrames[0]);
         time = 0f;
         setTexture(texture);
@@ -166,6 +165,7 @@ public class DeadBody extends CapsuleObstacle implements Movable {
         //create centre sensor (for fixing to spikes)
 
         setName("deadBody");
+        setTypeTag(CollisionTags.DEAD_BODY);
     }
 
     public int getDashTimer() { return dashTimer; }
@@ -184,7 +184,7 @@ public class DeadBody extends CapsuleObstacle implements Movable {
             return false;
         }
         for (Fixture f : body.getFixtureList()) {
-            f.setUserData(catBodyName);
+            f.setUserData(CollisionTags.DEAD_BODY_CAT_BODY);
         }
 
         //the actual physical hitbox
@@ -199,25 +199,25 @@ public class DeadBody extends CapsuleObstacle implements Movable {
         hitboxDef.friction = objectConstants.getFloat("friction");
         sensorShapes.add(hitboxShape);
         Fixture solidFixture = body.createFixture(hitboxDef);
-        solidFixture.setUserData(hitboxSensorName);
+        solidFixture.setUserData(CollisionTags.DEAD_BODY_HITBOX);
 
         //spikes solid sensor
         JsonValue spikesSensorJV = objectConstants.get("spikes_sensor");
         Fixture fix = generateSensor(solidOffset,
                 spikesSensorJV.getFloat("width", 0) * getWidth()/2, hy,
-                spikesSensorName);
+                CollisionTags.DEAD_BODY_SPIKES_SENSOR);
         fix.setSensor(false);
 
         //center sensor
         JsonValue centerSensorJV = objectConstants.get("center_sensor");
         generateSensor(new Vector2(0, -centerSensorJV.getFloat("y_offset")), centerSensorJV.getFloat("width"),
-                centerSensorJV.getFloat("height"), centerSensorName);
+                centerSensorJV.getFloat("height"), CollisionTags.DEAD_BODY_CENTER_SENSOR);
 
         JsonValue groundSensorJV = objectConstants.get("ground_sensor");
         Fixture a = generateSensor(new Vector2(0, -getHeight() / 2),
                 groundSensorJV.getFloat("shrink", 0) * getWidth() / 1.3f,
                 groundSensorJV.getFloat("height", 0),
-                getGroundSensorName());
+                CollisionTags.DEAD_BODY_GROUND_SENSOR);
         a.setFriction(objectConstants.getFloat("friction"));
 
         // Side sensors to help detect for wall climbing
@@ -225,12 +225,12 @@ public class DeadBody extends CapsuleObstacle implements Movable {
         Fixture b = generateSensor(new Vector2(-getWidth() / 2, 0),
                 sideSensorJV.getFloat("width", 0),
                 sideSensorJV.getFloat("shrink") * getHeight() / 2.0f,
-                catSensorsName);
+                CollisionTags.DEAD_BODY_CAT_SENSORS);
 
         generateSensor(new Vector2(getWidth() / 2, 0),
                 sideSensorJV.getFloat("width", 0),
                 sideSensorJV.getFloat("shrink") * getHeight() / 2.0f,
-                catSensorsName);
+                CollisionTags.DEAD_BODY_CAT_SENSORS);
 
         return true;
     }
@@ -243,10 +243,10 @@ public class DeadBody extends CapsuleObstacle implements Movable {
      * @param location relative location of the sensor fixture
      * @param hx       half-width used for PolygonShape
      * @param hy       half-height used for PolygonShape
-     * @param name     name for the sensor UserData
+     * @param role     role tag for the sensor UserData
      * @return
      */
-    private Fixture generateSensor(Vector2 location, float hx, float hy, String name) {
+    private Fixture generateSensor(Vector2 location, float hx, float hy, int role) {
         FixtureDef sensorDef = new FixtureDef();
         sensorDef.friction = 0;
         sensorDef.density = 0;
@@ -256,7 +256,7 @@ public class DeadBody extends CapsuleObstacle implements Movable {
         sensorDef.shape = sensorShape;
 
         Fixture sensorFixture = body.createFixture(sensorDef);
-        sensorFixture.setUserData(name);
+        sensorFixture.setUserData(role);
         sensorShapes.add(sensorShape);
         return sensorFixture;
     }
@@ -337,18 +337,16 @@ public class DeadBody extends CapsuleObstacle implements Movable {
     public void draw(GameCanvas canvas) {
         float effect = faceRight ? 1.0f : -1.0f;
         Color color = new Color(1, 1, 1, 1f - ((float)burnTicks)/((float)totalBurnTicks));
-        float textureX = getX() + drawOffset.x;
-        float textureY = getY() + drawOffset.y;
+        float x = getDrawX() + drawOffset.x * drawScale.x;
+        float y = getDrawY() + drawOffset.y * drawScale.y;
         if(burning){
             animation.setPlayMode(Animation.PlayMode.LOOP);
             time += Gdx.graphics.getDeltaTime();
             TextureRegion frame = animation.getKeyFrame(time);
-            float x = textureX * drawScale.x;
-            float y = textureY * drawScale.y;
             canvas.draw(frame, color, origin.x, origin.y,  x,y, getAngle(), -effect * textureScale.x, textureScale.y);
         }
         else{
-            canvas.draw(texture, color, origin.x, origin.y, textureX * drawScale.x, textureY * drawScale.y, getAngle(), effect * textureScale.x, textureScale.y);
+            canvas.draw(texture, color, origin.x, origin.y, x, y, getAngle(), effect * textureScale.x, textureScale.y);
         }
     }
 
@@ -387,30 +385,60 @@ public class DeadBody extends CapsuleObstacle implements Movable {
     public ObjectSet<Fixture> getGroundFixtures() { return groundFixtures; }
 
     @Override
-    public String getGroundSensorName() { return groundSensorName; }
-
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("burnTicks", burnTicks);
-        HashMap<Spikes, Vector2> jointInfo = new HashMap<>();
-        stateMap.put("faceRight", faceRight);
+    public int getGroundSensorRole() { return CollisionTags.DEAD_BODY_GROUND_SENSOR; }
+
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putInt(burnTicks);
+        state.putBoolean(faceRight);
+        state.putInt(dashTimer);
+        state.putInt(joints.size);
         for (Joint j : joints) {
-            jointInfo.put((Spikes) j.getBodyB().getUserData(), j.getAnchorA());
+            state.putObject(j.getBodyB().getUserData());
+            state.putVector(j.getAnchorA());
         }
-        stateMap.put("jointInfo", jointInfo);
-        stateMap.put("dashTimer", dashTimer);
-        return stateMap;
     }
 
     public Vector2 getSwitchPosition() {
         return getPosition().add(objectConstants.get("switch_offset").getFloat(0),objectConstants.get("switch_offset").getFloat(1));
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        burnTicks = (int) stateMap.get("burnTicks");
-        faceRight = (boolean) stateMap.get("faceRight");
-        dashTimer = (int) stateMap.get("dashTimer");
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        burnTicks = state.getInt();
+        faceRight = state.getBoolean();
+        dashTimer = state.getInt();
         joints.clear();
+        loadedJointSpikes.clear();
+        loadedJointAnchors.clear();
+        for (int i = state.getInt(); i > 0; i--) {
+            Spikes spikes = state.getObject();
+            Vector2 anchor = state.getVector();
+            //at most one joint per spikes, as before
+            int index = loadedJointSpikes.indexOf(spikes, true);
+            if (index == -1) {
+                loadedJointSpikes.add(spikes);
+                loadedJointAnchors.add(anchor.x, anchor.y);
+            } else {
+                loadedJointAnchors.set(2 * index, anchor.x);
+                loadedJointAnchors.set(2 * index + 1, anchor.y);
+            }
+        }
+    }
+
+    /**
+     * @return the spikes this body was attached to in the last state loaded by {@link #loadState}
+     */
+    public Array<Spikes> getLoadedJointSpikes() { return loadedJointSpikes; }
+
+    /**
+     * Returns the anchor of a joint in the last state loaded by {@link #loadState}.
+     *
+     * @param i     index of the joint, matching {@link #getLoadedJointSpikes()}
+     * @param out   vector to store the anchor in
+     * @return <code>out</code>
+     */
+    public Vector2 getLoadedJointAnchor(int i, Vector2 out) {
+        return out.set(loadedJointAnchors.get(2 * i), loadedJointAnchors.get(2 * i + 1));
     }
 }
\ No newline at end of file
@@ -4,13 +4,15 @@ import com.badlogic.gdx.Game;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 import edu.cornell.gdiac.game.obstacle.ComplexObstacle;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 import edu.cornell.gdiac.util.Direction;
 
 import java.util.HashMap;
@@ -67,13 +69,14 @@ public class Door extends BoxObstacle implements Activatable {
      *
      * @param width          Width of the door
      * @param height         Height of the door
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureSize    Size of texture in pixels
      */
-    public Door(float width, float height, ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize, String biome){
+    public Door(float width, float height, ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize, String biome){
         super(width, height);
+        setTypeTag(CollisionTags.DOOR);
         if (labTileset == null) {
             labTileset = tMap.get("door").split(textureSize, textureSize);
         }
@@ -85,19 +88,19 @@ public class Door extends BoxObstacle implements Activatable {
         middle = tiles[0][2];
         bottom = tiles[0][0];
         bottom.setRegion(0, textureSize/2, textureSize, textureSize/2); //remove weird line
-        baseColor.set((Color) properties.get("baseColor",  Color.WHITE));
+        baseColor.set(properties.getColor("baseColor",  Color.WHITE));
         this.textureSize = textureSize;
         setDrawScale(scale);
         setDensity(objectConstants.getFloat( "density", 0.0f ));
         setFriction(objectConstants.getFloat( "friction", 0.0f ));
         setRestitution(objectConstants.getFloat( "restitution", 0.0f ));
 
-        angle = Direction.angleToDir((int) properties.get("closeAngle", 0));
-        totalTicks = (int) properties.get("totalTicks", 60);
+        angle = Direction.angleToDir(properties.getInt("closeAngle", 0));
+        totalTicks = properties.getInt("totalTicks", 60);
         ticks = (int) totalTicks;
         closing = 0;
-        x =(float) properties.get("x") + objectConstants.get("offset").getFloat(0) + width/2f;
-        y = (float) properties.get("y") + objectConstants.get("offset").getFloat(1) - height/2f;
+        x =properties.getFloat("x") + objectConstants.get("offset").getFloat(0) + width/2f;
+        y = properties.getFloat("y") + objectConstants.get("offset").getFloat(1) - height/2f;
         switch (angle) {
             case UP:
                 width -= shrink;
@@ -159,13 +162,13 @@ public class Door extends BoxObstacle implements Activatable {
     /**
      * Creates a new Door object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureSize    Size of texture in pixels
      */
-    public Door(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize, String biome){
-        this((float) properties.get("width"), (float) properties.get("height"),
+    public Door(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize, String biome){
+        this(properties.getFloat("width"), properties.getFloat("height"),
                 properties, tMap, scale, textureSize, biome);
     }
 
@@ -179,7 +182,7 @@ public class Door extends BoxObstacle implements Activatable {
 
         if (closing == -1 && cap.getPosition().dst(capClosedPos) > capOpenPos.dst(capClosedPos)) {
             cap.setPosition(capOpenPos);
-            cap.setSensor(true);
+            setCapSensor(true);
             setActive(false);
             closing = 0;
         } else if (closing == 1 && cap.getPosition().dst(capOpenPos) > capOpenPos.dst(capClosedPos)){
@@ -236,9 +239,26 @@ public class Door extends BoxObstacle implements Activatable {
             cap.setPosition(capOpenPos);
         }
         cap.getBody().setUserData(this);
+        CollisionFilters.apply(cap.getBody());
         return true;
     }
 
+    @Override
+    public void collectBodies(Array<Body> out) {
+        super.collectBodies(out);
+        cap.collectBodies(out);
+    }
+
+    /**
+     * Opens or closes the cap, and updates its collision filter to match.
+     *
+     * @param value  true if the cap should be a sensor (i.e. the door is open)
+     */
+    private void setCapSensor(boolean value) {
+        cap.setSensor(value);
+        CollisionFilters.apply(cap.getBody());
+    }
+
     /**
      * Begins closing door.
      */
@@ -246,7 +266,7 @@ public class Door extends BoxObstacle implements Activatable {
     public void activated(World world){
         closing = 1;
         setActive(true);
-        cap.setSensor(false);
+        setCapSensor(false);
     }
 
     /**
@@ -365,26 +385,25 @@ public class Door extends BoxObstacle implements Activatable {
         capSize = constants.getFloat("cap_size");
     }
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("closing", closing);
-        stateMap.put("activated", activated);
-        stateMap.put("capState", cap.storeState());
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putFloat(closing);
+        state.putBoolean(activated);
+        cap.storeState(state);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        closing = (float) stateMap.get("closing");
-        activated = (boolean) stateMap.get("activated");
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        closing = state.getFloat();
+        activated = state.getBoolean();
         if (activated) {
             closing = 1;
             setActive(true);
-            cap.setSensor(false);
+            setCapSensor(false);
         } else {
             cap.setBodyType(BodyDef.BodyType.DynamicBody);
             closing = -1;
         }
-        cap.loadState((ObjectMap<String, Object>) stateMap.get("capState"));
+        cap.loadState(state);
     }
 }
@@ -2,11 +2,11 @@ package edu.cornell.gdiac.game.object;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 
@@ -15,7 +15,7 @@ import java.util.HashMap;
 /**
  * A simple BoxObstacle that represents an exit (goal or return) of a level.
  */
-public class Exit extends BoxObstacle {
+public class Exit extends BoxObstacle implements Trigger {
 
     /** Enum representing the two types of exits. */
     public enum ExitType {GOAL, RETURN}
@@ -28,27 +28,28 @@ public class Exit extends BoxObstacle {
     /**
      * Creates a new Exit.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param scale          Draw scale for drawing
      */
-    public Exit(ObjectMap<String, Object> properties, Vector2 scale){
-        super((float) properties.get("width"), (float) properties.get("height"));
+    public Exit(ObjectProperties properties, Vector2 scale){
+        super(properties.getFloat("width"), properties.getFloat("height"));
         setBodyType(BodyDef.BodyType.StaticBody);
         setDensity(0);
         setFriction(0);
         setRestitution(0);
         setSensor(true);
-        setX((float) properties.get("x") + getDimension().x/2);
-        setY((float) properties.get("y") - getDimension().y/2);
+        setX(properties.getFloat("x") + getDimension().x/2);
+        setY(properties.getFloat("y") - getDimension().y/2);
         setDrawScale(scale);
-        if (((properties.get("type", "goal")).equals("goal"))){
+        if ((properties.getString("type", "goal").equals("goal"))){
             exitType = ExitType.GOAL;
             setX(getX() + 1);
         } else {
             exitType = ExitType.RETURN;
             setX(getX() - 1);
         }
-        setName((String) properties.get("type"));
+        setName(properties.getString("type"));
+        setTypeTag(CollisionTags.EXIT);
     }
 
     @Override
@@ -75,4 +76,12 @@ public class Exit extends BoxObstacle {
      * @return The exit type of this exit.
      */
     public ExitType exitType() {return exitType;}
+
+    @Override
+    public Rectangle getTriggerBounds(Rectangle out) {
+        return out.set(getX() - getWidth()/2, getY() - getHeight()/2, getWidth(), getHeight());
+    }
+
+    @Override
+    public boolean isTriggerMoving() { return false; }
 }
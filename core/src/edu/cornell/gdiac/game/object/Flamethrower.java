@@ -11,11 +11,11 @@ import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 import edu.cornell.gdiac.game.obstacle.ComplexObstacle;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 import edu.cornell.gdiac.util.Direction;
 
 import java.util.HashMap;
@@ -34,18 +34,17 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
     /** Starting activation state */
     private boolean initialActivation;
     private final Vector2 flameOffset;
-    public static final String flameSensorName = "flameSensor";
     private Direction dir;
 
     /**
      * Creates a new Flamethrower object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param drawScale      Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public Flamethrower(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 drawScale, Vector2 textureScale, String biome) {
+    public Flamethrower(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 drawScale, Vector2 textureScale, String biome) {
         super();
 
 
@@ -62,14 +61,14 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
         flameBase.setDensity(objectConstants.getFloat("density", 0));
         flameBase.setMass(objectConstants.getFloat("mass", 0));
         flameBase.setName("flamethrower");
-        float angle = (float) ((float) properties.get("rotation") * Math.PI/180);
-        dir = Direction.angleToDir((int) ((float) properties.get("rotation")));
+        float angle = (float) (properties.getFloat("rotation") * Math.PI/180);
+        dir = Direction.angleToDir((int) properties.getFloat("rotation"));
         flameBase.setAngle(angle);
         Vector2 offset = new Vector2(objectConstants.get("base_offset").getFloat(0), objectConstants.get("base_offset").getFloat(1));
         Direction.rotateVector(offset, dir);
-        flameBase.setX((float) properties.get("x") + offset.x);
-        flameBase.setY((float) properties.get("y") + offset.y);
-        flameBase.setSensor((boolean) properties.get("baseSensor", false));
+        flameBase.setX(properties.getFloat("x") + offset.x);
+        flameBase.setY(properties.getFloat("y") + offset.y);
+        flameBase.setSensor(properties.getBoolean("baseSensor", false));
 
 
 
@@ -129,7 +128,7 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
 
     public void createLight(RayHandler rayHandler) {
         createPointLight(objectConstants.get("light"), rayHandler);
-        getLight().attachToBody(flame.getBody());
+        attachLightTo(flame);
         getLight().setXray(true);
         getLight().setSoft(true);
     }
@@ -138,7 +137,7 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
     @Override
     public void activated(World world){
         flame.setActive(true);
-        getLight().setActive(true);
+        setLightActive(true);
         flame.setPosition(flameBase.getX()+flameOffset.x, flameBase.getY()+flameOffset.y);
         createJoints(world);
     }
@@ -147,7 +146,7 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
     @Override
     public void deactivated(World world){
         flame.setActive(false);
-        getLight().setActive(false);
+        setLightActive(false);
         for (Joint j : joints){
             world.destroyJoint(j);
         }
@@ -184,22 +183,20 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
      */
     public static void setConstants(JsonValue constants) { objectConstants = constants; }
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = new ObjectMap<>();
-        stateMap.put("basePosition", flameBase.getPosition().cpy());
-        stateMap.put("flamePosition", flame.getPosition().cpy());
-        stateMap.put("relativeVelocity", relativeVelocity.cpy());
-        stateMap.put("baseVelocity", baseVelocity.cpy());
-        stateMap.put("linearVelocity", getLinearVelocity().cpy());
-        return stateMap;
+    public void storeState(StateBuffer state){
+        state.putVector(flameBase.getPosition());
+        state.putVector(flame.getPosition());
+        state.putVector(getLinearVelocity());
+        state.putVector(relativeVelocity);
+        state.putVector(baseVelocity);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        flameBase.setPosition((Vector2) stateMap.get("basePosition"));
-        flame.setPosition((Vector2) stateMap.get("flamePosition"));
-        setLinearVelocity((Vector2) stateMap.get("linearVelocity"));
-        relativeVelocity.set((Vector2) stateMap.get("relativeVelocity"));
-        baseVelocity.set((Vector2) stateMap.get("baseVelocity"));
+    public void loadState(StateBuffer state){
+        flameBase.setPosition(state.getVector());
+        flame.setPosition(state.getVector());
+        setLinearVelocity(state.getVector());
+        relativeVelocity.set(state.getVector());
+        baseVelocity.set(state.getVector());
         markDirty(true);
     }
 
@@ -228,7 +225,7 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
             super(texture.getRegionWidth()/scale.x*textureScale.x/7, texture.getRegionHeight()/scale.y*textureScale.y);
             int spriteWidth = 128;
             int spriteHeight = 256;
-            spriteFrames = TextureRegion.split(texture.getTexture(), spriteWidth, spriteHeight);
+            spriteFrames = texture.split(spriteWidth, spriteHeight);
             float frameDuration = 0.1f;
             animation = new Animation<>(frameDuration, spriteFrames[0]);
             animation.setPlayMode(Animation.PlayMode.LOOP);
@@ -236,6 +233,7 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
             setAngle(angle);
             setMass(0);
             setName("flame");
+            setTypeTag(CollisionTags.FLAME);
             setDrawScale(scale);
             setTextureScale(textureScale);
             setSensor(true);
@@ -249,7 +247,7 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
             if (!super.activatePhysics(world)) {
                 return false;
             }
-            body.getFixtureList().get(0).setUserData("");
+            body.getFixtureList().get(0).setUserData(CollisionTags.NO_ROLE);
             FixtureDef sensorDef = new FixtureDef();
             sensorDef.density = 0;
             sensorDef.isSensor = true;
@@ -258,7 +256,7 @@ public class Flamethrower extends ComplexObstacle implements Activatable {
             sensorDef.shape = sensorShape;
 
             Fixture sensorFixture = body.createFixture( sensorDef );
-            sensorFixture.setUserData(flameSensorName);
+            sensorFixture.setUserData(CollisionTags.FLAME_SENSOR);
             return true;
         }
 
@@ -8,9 +8,9 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 import edu.cornell.gdiac.util.Direction;
 
 import java.util.HashMap;
@@ -44,7 +44,6 @@ public class Goal extends BoxObstacle
     private PolygonShape sensorShape;
     /** The constants for the goal */
     protected static JsonValue objectConstants;
-    private static final String sensorName = "goalobjsensor";
     /** The texture for the non-active goal */
     private TextureRegion texture;
     /** The texture for the active goal */
@@ -67,13 +66,13 @@ public class Goal extends BoxObstacle
     /**
      * Creates a new Door object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureSize    Size of texture in pixels
      */
-    public Goal(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize){
-        this((float) properties.get("width"), (float) properties.get("height"),
+    public Goal(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize){
+        this(properties.getFloat("width"), properties.getFloat("height"),
                 properties, tMap, scale, textureSize);
     }
 
@@ -82,26 +81,26 @@ public class Goal extends BoxObstacle
      *
      * @param width          Width of the door
      * @param height         Height of the door
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureSize    Size of texture in pixels
      */
-    public Goal(float width, float height, ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize){
+    public Goal(float width, float height, ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int textureSize){
         super(width, height);
 
         activated = false;
-        if (properties.get("final") != null) {
-            isFinal = (boolean) properties.get("final");
+        if (properties.containsKey("final")) {
+            isFinal = properties.getBoolean("final");
             if (isFinal) {
                 finalGoal = tMap.get("goal-final");
-                textureScale.set((float) properties.get("width") * scale.x / finalGoal.getRegionWidth(),
-                        (float) properties.get("height") * scale.y / finalGoal.getRegionHeight());
+                textureScale.set(properties.getFloat("width") * scale.x / finalGoal.getRegionWidth(),
+                        properties.getFloat("height") * scale.y / finalGoal.getRegionHeight());
             }
         }
 
         // Get the bases, split texture
-        TextureRegion[][] bases = tMap.get("goal-bases").split(tMap.get("goal-bases").getTexture(), textureSize, textureSize);
+        TextureRegion[][] bases = tMap.get("goal-bases").split(textureSize, textureSize);
         bottomBase = bases[0][0];
         topBase = bases[0][1];
 
@@ -113,8 +112,8 @@ public class Goal extends BoxObstacle
         int spriteHeight = 512;
 //        this.texture = tMap.get("goal");
 //        this.activeTexture = tMap.get("goal");
-        spriteFrames = TextureRegion.split(tMap.get("goal-idle-anim").getTexture(), spriteWidth, spriteHeight);
-//        activeSpriteFrames = TextureRegion.split(tMap.get("checkpoint-active-anim").getTexture(), spriteWidth, spriteHeight);
+        spriteFrames = tMap.get("goal-idle-anim").split(spriteWidth, spriteHeight);
+//        activeSpriteFrames = tMap.get("checkpoint-active-anim").split(spriteWidth, spriteHeight);
         float frameDuration = 0.1f;
 //
         animation = new Animation<>(frameDuration, spriteFrames[0]);
@@ -125,7 +124,7 @@ public class Goal extends BoxObstacle
 
 
         // Split the texture
-        TextureRegion[][] tiles = tMap.get("goal-active").split(tMap.get("goal-active").getTexture(), textureSize, textureSize);
+        TextureRegion[][] tiles = tMap.get("goal-active").split(textureSize, textureSize);
         top = tiles[0][2];
         middle = tiles[0][1];
         bottom = tiles[0][0];
@@ -136,10 +135,11 @@ public class Goal extends BoxObstacle
 
         setMass(0);
         setName("goal");
+        setTypeTag(CollisionTags.GOAL);
         setDrawScale(scale);
         setSensor(true);
-        x =(float) properties.get("x") + objectConstants.get("offset").getFloat(0) + width/2f;
-        y = (float) properties.get("y") + objectConstants.get("offset").getFloat(1) - height;
+        x =properties.getFloat("x") + objectConstants.get("offset").getFloat(0) + width/2f;
+        y = properties.getFloat("y") + objectConstants.get("offset").getFloat(1) - height;
 
         this.width = width;
         this.height = height;
@@ -149,8 +149,8 @@ public class Goal extends BoxObstacle
         setX(x);
         setY(y);
 
-//        setX((float) properties.get("x") + objectConstants.get("offset").getFloat(0));
-//        setY((float) properties.get("y") + objectConstants.get("offset").getFloat(1));
+//        setX(properties.getFloat("x") + objectConstants.get("offset").getFloat(0));
+//        setY(properties.getFloat("y") + objectConstants.get("offset").getFloat(1));
 
 //        setSensor(true);
         setBodyType(BodyDef.BodyType.StaticBody);
@@ -189,7 +189,7 @@ public class Goal extends BoxObstacle
         sensorDef.shape = sensorShape;
 
         Fixture sensorFixture = body.createFixture(sensorDef);
-        sensorFixture.setUserData(sensorName);
+        sensorFixture.setUserData(CollisionTags.GOAL_SENSOR);
 
         return true;
     }
@@ -235,8 +235,6 @@ public class Goal extends BoxObstacle
         canvas.drawPhysics(sensorShape, Color.RED, getX(), getY(), getAngle(), drawScale.x, drawScale.y);
     }
 
-    public String getSensorName(){ return sensorName; }
-
     /**
      * Creates PointLight for final goal with soft and xray true
      * @param rayHandler Ray Handler associated with the currently active box2d world
@@ -251,10 +249,9 @@ public class Goal extends BoxObstacle
     }
 
     @Override
-    public void loadState(ObjectMap<String, Object> state){
+    public void loadState(StateBuffer state){
         super.loadState(state);
-        Vector2 pos = (Vector2) state.get("position");
-        setX(pos.x + objectConstants.get("base_offset").getFloat(0));
-        setY(pos.y + objectConstants.get("base_offset").getFloat(1));
+        setPosition(getX() + objectConstants.get("base_offset").getFloat(0),
+                getY() + objectConstants.get("base_offset").getFloat(1));
     }
 }
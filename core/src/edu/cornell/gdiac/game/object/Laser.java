@@ -8,8 +8,9 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 import edu.cornell.gdiac.util.Direction;
@@ -20,6 +21,13 @@ public class Laser extends BoxObstacle implements Activatable{
 
     /** Points of the beam */
     private Array<Vector2> points;
+    /** Recycles the beam points, which are recomputed whenever the beam may have changed */
+    private final Pool<Vector2> pointPool = new Pool<Vector2>() {
+        @Override
+        protected Vector2 newObject() {
+            return new Vector2();
+        }
+    };
     /** The offset vector between the center of the laser body and the beginning of the beam */
     private Vector2 beamOffset;
     /** Thickness of beams */
@@ -40,22 +48,38 @@ public class Laser extends BoxObstacle implements Activatable{
     private ChainLight[] lights;
     /** Hitbox of the Laser. This will not work if the laser is reflected. */
     public BoxObstacle hitbox;
-    public static final String laserHitboxName = "laserHitbox";
+    /** Distance under which two beam points are considered the same */
+    private static final float POINT_EPSILON = 0.0001f;
+    /** True if the beam points are the result of a raycast that has not been invalidated */
+    private boolean beamValid;
+    /** Physics revision of the level when the beam was last raycast */
+    private int beamRevision;
+    /** Number of points added since the last call to {@link #beginRayCast()} */
+    private int numCastPoints;
+    /** True if the points added since the last call to {@link #beginRayCast()} differ from the previous beam */
+    private boolean pathChanged;
+    /** True if the chains of the lights have changed since they were last updated */
+    private boolean chainDirty;
+    /** Bodies that the segments of the beam ended on when it was last raycast */
+    private final Array<Body> blockers = new Array<>();
+    /** Position and angle of each body in <code>blockers</code> when the beam was last raycast */
+    private final FloatArray blockerTransforms = new FloatArray();
 
     /**
      * Creates a new Laser object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public Laser(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
+    public Laser(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
         super(tMap.get("laser").getRegionWidth()/scale.x*textureScale.x,
                 tMap.get("laser").getRegionHeight()/scale.y*textureScale.y);
 
         setBodyType(properties.containsKey("attachName") ? BodyDef.BodyType.DynamicBody : BodyDef.BodyType.StaticBody);
         setName("laser");
+        setTypeTag(CollisionTags.LASER);
         setDrawScale(scale);
         setTexture(tMap.get("laser"));
         setTextureScale(textureScale);
@@ -64,12 +88,12 @@ public class Laser extends BoxObstacle implements Activatable{
         setFriction(objectConstants.getFloat("friction", 0));
         setDensity(objectConstants.getFloat("density", 0));
         setMass(objectConstants.getFloat("mass", 0));
-        dir = Direction.angleToDir((int) ((float) properties.get("rotation")));
+        dir = Direction.angleToDir((int) properties.getFloat("rotation"));
         Vector2 offset = new Vector2(objectConstants.get("offset").getFloat(0), objectConstants.get("offset").getFloat(1));
         Direction.rotateVector(offset, dir);
-        setX((float) properties.get("x") + offset.x);
-        setY((float) properties.get("y") + offset.y);
-        setAngle((float) ((float) properties.get("rotation") * Math.PI/180));
+        setX(properties.getFloat("x") + offset.x);
+        setY(properties.getFloat("y") + offset.y);
+        setAngle((float) (properties.getFloat("rotation") * Math.PI/180));
         setSensor(true);
         setFixedRotation(true);
         beamOffset = new Vector2(objectConstants.get("beamOffset").getFloat(0), objectConstants.get("beamOffset").getFloat(1));
@@ -96,9 +120,10 @@ public class Laser extends BoxObstacle implements Activatable{
     public boolean activatePhysics(World world){
         if (!super.activatePhysics(world) || !hitbox.activatePhysics(world)) return false;
 
-        body.getFixtureList().get(0).setUserData("laserSensor");
-        hitbox.getBody().getFixtureList().get(0).setUserData(laserHitboxName);
+        body.getFixtureList().get(0).setUserData(CollisionTags.LASER_SENSOR);
+        hitbox.getBody().getFixtureList().get(0).setUserData(CollisionTags.LASER_HITBOX);
         hitbox.getBody().setUserData(this);
+        CollisionFilters.apply(hitbox.getBody());
 
         return true;
     }
@@ -121,13 +146,29 @@ public class Laser extends BoxObstacle implements Activatable{
 
         // Set the superclass light field to be null for future disposal
         setLight(null);
+        rebuildChains();
+    }
+
+    @Override
+    public void collectLights(Array<Light> out) {
+        for (ChainLight l : lights) {
+            if (l != null) out.add(l);
+        }
+    }
+
+    @Override
+    public void collectBodies(Array<Body> out) {
+        super.collectBodies(out);
+        hitbox.collectBodies(out);
     }
 
     @Override
     public void destroyLight() {
         for (int i = 0; i < lights.length; i++) {
-            lights[i].remove(true);
-            lights[i] = null;
+            if (lights[i] != null) {
+                lights[i].remove(true);
+                lights[i] = null;
+            }
         }
     }
 
@@ -139,6 +180,7 @@ public class Laser extends BoxObstacle implements Activatable{
     @Override
     public void setLightGreyscale(float greyscale){
         for (Light light : lights) {
+            if (light == null) continue;
             light.setColor(lightColor.r * (1 - greyscale) + greyColor * greyscale,
                     lightColor.g * (1 - greyscale) + greyColor * greyscale,
                     lightColor.b * (1 - greyscale) + greyColor * greyscale, lightColor.a);
@@ -151,27 +193,116 @@ public class Laser extends BoxObstacle implements Activatable{
     public Direction getDirection(){ return dir; }
 
     /**
-     * Adds a new point to the laser's beam.
+     * Adds a new point to the laser's beam. The point is copied, so the caller may reuse it.
+     * The points of the previous beam are overwritten in place, so that the lights are only
+     * rebuilt if the beam actually changed.
      * @param point The point to add.
      */
     public void addBeamPoint(Vector2 point){
-        points.add(point);
-        for (ChainLight l : lights) {
-            l.chain.add(point.x, point.y);
+        if (numCastPoints < points.size) {
+            Vector2 old = points.get(numCastPoints);
+            if (!old.epsilonEquals(point, POINT_EPSILON)) {
+                old.set(point);
+                pathChanged = true;
+            }
+        } else {
+            points.add(pointPool.obtain().set(point));
+            pathChanged = true;
         }
+        numCastPoints++;
     }
 
     /**
      * Resets the state of the laser to prepare for raycasting.
      */
     public void beginRayCast(){
-        Vector2 beamStart = getBeamStart();
-        points.clear();
-        points.add(new Vector2(beamStart));
+        numCastPoints = 0;
+        pathChanged = false;
+        blockers.clear();
+        blockerTransforms.clear();
+        addBeamPoint(getBeamStart());
+    }
+
+    /**
+     * Finishes raycasting the beam. Removes the points of the previous beam that were not overwritten,
+     * and rebuilds the chains of the lights if the beam changed.
+     *
+     * @param revision  physics revision of the level the beam was raycast in
+     */
+    public void endRayCast(int revision){
+        if (points.size > numCastPoints) {
+            for (int i = numCastPoints; i < points.size; i++) pointPool.free(points.get(i));
+            points.truncate(numCastPoints);
+            pathChanged = true;
+        }
+        if (pathChanged) rebuildChains();
+        beamValid = true;
+        beamRevision = revision;
+    }
+
+    /**
+     * Checks if the beam must be raycast again regardless of the bodies around it, i.e. if it was
+     * invalidated, if bodies in the level were created, destroyed or teleported since it was raycast,
+     * or if the laser itself has moved.
+     *
+     * @param revision  current physics revision of the level
+     * @return true if the beam is out of date
+     */
+    public boolean needsRayCast(int revision){
+        return !beamValid || revision != beamRevision || points.size == 0
+                || !points.get(0).epsilonEquals(getBeamStart(), POINT_EPSILON);
+    }
+
+    /**
+     * Records a body that a segment of the beam ended on, so that the beam is raycast again once the body moves,
+     * even if it leaves the beam before it is checked.
+     *
+     * @param body  the body that blocked or reflected the beam
+     */
+    public void addBlocker(Body body){
+        blockers.add(body);
+        blockerTransforms.add(body.getPosition().x, body.getPosition().y, body.getAngle());
+    }
+
+    /**
+     * Checks if a body that the beam ended on may have moved since the beam was raycast, i.e. if it is awake or
+     * its transform has changed. This must only be called if {@link #needsRayCast} is false, since the bodies
+     * may have been destroyed otherwise.
+     *
+     * @return true if the end of a segment of the beam may have changed
+     */
+    public boolean isBlockerMoved(){
+        for (int i = 0; i < blockers.size; i++) {
+            Body body = blockers.get(i);
+            if (body.isAwake() || Math.abs(body.getPosition().x - blockerTransforms.get(3*i)) > POINT_EPSILON
+                    || Math.abs(body.getPosition().y - blockerTransforms.get(3*i+1)) > POINT_EPSILON
+                    || Math.abs(body.getAngle() - blockerTransforms.get(3*i+2)) > POINT_EPSILON) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forces the beam to be raycast again on the next tick.
+     */
+    public void invalidateBeam(){ beamValid = false; }
+
+    /**
+     * @return The points of the beam. These must not be modified.
+     */
+    public Array<Vector2> getBeamPoints(){ return points; }
+
+    /**
+     * Copies the beam points into the chains of the lights.
+     */
+    private void rebuildChains(){
         for (ChainLight l : lights) {
+            if (l == null) continue;
             l.chain.clear();
-            l.chain.add(beamStart.x, beamStart.y);
+            for (Vector2 p : points) l.chain.add(p.x, p.y);
         }
+        chainDirty = true;
     }
 
     /**
@@ -185,15 +316,22 @@ public class Laser extends BoxObstacle implements Activatable{
     public void drawLaser(GameCanvas canvas){
         if (activated) {
             if (points.size > 1) {
+                boolean blocked = points.size == 2 && points.get(0).dst(points.get(1)) < 0.8;
                 for (ChainLight l : lights) {
+                    if (l == null) continue;
                     // In levels where a wall "blocks" the laser beam, the light can still show up through
                     // the blocking wall. My fix for it now is to just compare the raycasted points of the
                     // laser, and if their distance is too small (0.8 in this case), we just set the light
                     // color to transparent to avoid drawing it. We don't change light.setActive() here bc
                     // it's different when the laser is actually deactivated vs just blocked.
-                    if (points.size == 2 && points.get(0).cpy().sub(points.get(1)).len() < 0.8) l.setColor(Color.CLEAR);
-                    else { l.updateChain(); l.setColor(color); }
+                    // The chain is only updated when the beam has changed, since it rebuilds every ray of the light.
+                    if (blocked) l.setColor(Color.CLEAR);
+                    else {
+                        if (chainDirty) l.updateChain();
+                        l.setColor(color);
+                    }
                 }
+                if (!blocked) chainDirty = false;
                 canvas.drawFactoryPath(points, thickness, color, drawScale.x, drawScale.y);
                 canvas.drawFactoryPath(points, thickness*0.3f, Color.WHITE, drawScale.x, drawScale.y);
             }
@@ -241,7 +379,10 @@ public class Laser extends BoxObstacle implements Activatable{
      * @param world  Box2D world
      */
     @Override
-    public void activated(World world){ hitbox.setActive(true); }
+    public void activated(World world){
+        hitbox.setActive(true);
+        invalidateBeam();
+    }
 
     /**
      * Turns off laser.
@@ -249,7 +390,9 @@ public class Laser extends BoxObstacle implements Activatable{
      */
     @Override
     public void deactivated(World world){
+        pointPool.freeAll(points);
         points.clear();
+        invalidateBeam();
         hitbox.setActive(false);
         totalTime = 0;
     }
@@ -5,7 +5,6 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.PolygonObstacle;
 import edu.cornell.gdiac.util.Direction;
@@ -33,22 +32,23 @@ public class Mirror extends PolygonObstacle {
     /**
      * Creates a new Mirror object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public Mirror(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
+    public Mirror(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
         super(objectConstants.get("shape").asFloatArray());
 
-        setBodyType((boolean) properties.get("pushable", false) ? BodyDef.BodyType.DynamicBody : BodyDef.BodyType.StaticBody);
+        setBodyType(properties.getBoolean("pushable", false) ? BodyDef.BodyType.DynamicBody : BodyDef.BodyType.StaticBody);
         setFixedRotation(true);
         setName("mirror");
+        setTypeTag(CollisionTags.MIRROR);
         setDrawScale(scale);
         setTextureScale(textureScale);
         setTexture(tMap.get("steel"));
-        setAngle((float) ((float) properties.get("rotation") * Math.PI/180));
-        dir = Direction.angleToDir((int) ((float) properties.get("rotation")));
+        setAngle((float) (properties.getFloat("rotation") * Math.PI/180));
+        dir = Direction.angleToDir((int) properties.getFloat("rotation"));
 
         setRestitution(objectConstants.getFloat("restitution", 0));
         setFriction(objectConstants.getFloat("friction", 0));
@@ -77,8 +77,8 @@ public class Mirror extends PolygonObstacle {
             default:
                 throw new IllegalArgumentException("undefined angle");
         }
-        setX((float) properties.get("x")+objectConstants.get("offset").getFloat(0) + xOffset);
-        setY((float) properties.get("y")+objectConstants.get("offset").getFloat(1) + yOffset);
+        setX(properties.getFloat("x")+objectConstants.get("offset").getFloat(0) + xOffset);
+        setY(properties.getFloat("y")+objectConstants.get("offset").getFloat(1) + yOffset);
     }
 
     /**
@@ -125,7 +125,7 @@ public class Mirror extends PolygonObstacle {
     @Override
     public void draw(GameCanvas canvas){
         if (region != null) {
-            canvas.draw(region, color,0,0,getX()*drawScale.x,getY()*drawScale.y,getAngle(),1,1);
+            canvas.draw(region, color,0,0,getDrawX(),getDrawY(),getAngle(),1,1);
         }
     }
 
@@ -20,7 +20,6 @@ import com.badlogic.gdx.physics.box2d.*;
 
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.*;
 import edu.cornell.gdiac.game.obstacle.*;
 
@@ -131,24 +130,25 @@ public class Mob extends CapsuleObstacle {
     /**
      * Creates a new Mob object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
 
-    public Mob(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
+    public Mob(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
         super(objectConstants.get("scale").getFloat(0), 2*objectConstants.get("scale").getFloat(1));
 
         setFixedRotation(true);
         setName("mob");
-        setX((float) properties.get("x") + objectConstants.get("offset").getFloat(0));
-        setY((float) properties.get("y") + objectConstants.get("offset").getFloat(1)-getDimension().y/2);
+        setTypeTag(CollisionTags.MOB);
+        setX(properties.getFloat("x") + objectConstants.get("offset").getFloat(0));
+        setY(properties.getFloat("y") + objectConstants.get("offset").getFloat(1)-getDimension().y/2);
         setDrawScale(scale);
         setTextureScale(textureScale);
         walkTime = 0f;
-        if (labSpriteFrames == null) labSpriteFrames = TextureRegion.split(tMap.get("robot-anim").getTexture(), 256, 256);
-        if (forestSpriteFrames == null) forestSpriteFrames = TextureRegion.split(tMap.get("forest-mob-anim").getTexture(), 208, 256);
+        if (labSpriteFrames == null) labSpriteFrames = tMap.get("robot-anim").split(256, 256);
+        if (forestSpriteFrames == null) forestSpriteFrames = tMap.get("forest-mob-anim").split(208, 256);
         if (biome.equals("metal")) {
             walkAnimation = new Animation<>(0.1f, labSpriteFrames[0]);
         } else {
@@ -164,10 +164,10 @@ public class Mob extends CapsuleObstacle {
 
         // Gameplay attributes
         isGrounded = false;
-        setFacingRight((boolean) properties.get("facingRight", true));
-        isAggressive = (boolean) properties.get("aggressive", false);
-        maxspeed = (float) properties.get("maxspeed", 0f);
-        damping = (float) properties.get("damping", 0f);
+        setFacingRight(properties.getBoolean("facingRight", true));
+        isAggressive = properties.getBoolean("aggressive", false);
+        maxspeed = properties.getFloat("maxspeed", 0f);
+        damping = properties.getFloat("damping", 0f);
         // setName("mob");
 
         detectorRay = new MobDetector(this);
@@ -215,7 +215,7 @@ public class Mob extends CapsuleObstacle {
      */
     public void createLight(RayHandler rayHandler) {
         createPointLight(objectConstants.get("light"), rayHandler);
-        getLight().attachToBody(getBody());
+        attachLightTo(this);
         getLight().setSoft(true);
         getLight().setXray(true);
     }
@@ -262,8 +262,8 @@ public class Mob extends CapsuleObstacle {
      */
     public void draw(GameCanvas canvas) {
         float effect = faceRight ? 1.0f : -1.0f;
-        float x = getX() * drawScale.x;
-        float y = getY()*drawScale.y;
+        float x = getDrawX();
+        float y = getDrawY();
         walkAnimation.setPlayMode(Animation.PlayMode.LOOP_REVERSED);
         walkTime += Gdx.graphics.getDeltaTime();
         TextureRegion currentFrame = walkAnimation.getKeyFrame(walkTime);
@@ -291,15 +291,14 @@ public class Mob extends CapsuleObstacle {
         }
     }
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("faceRight", faceRight);
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putBoolean(faceRight);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        faceRight = (boolean) stateMap.get("faceRight");
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        faceRight = state.getBoolean();
     }
 
 
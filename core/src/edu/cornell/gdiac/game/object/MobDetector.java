@@ -10,8 +10,12 @@ public class MobDetector {
 
     /** points of the beam */
     private Array<Vector2> points;
-    /** End of the beam */
-    private Vector2 endPointCache;
+    /** Start of the beam, owned by this detector so that it is not changed by the mob */
+    private final Vector2 beamStart = new Vector2();
+    /** End of the beam; the beam is a single segment, so points added are copied into this */
+    private final Vector2 beamEnd = new Vector2();
+    /** Position of the first obstacle the beam hit */
+    private final Vector2 endPointCache = new Vector2();
     /** Beam thickness */
     private float thickness;
     /** The color of the beam */
@@ -56,7 +60,7 @@ public class MobDetector {
      *
      * @param point to add to the beam
      */
-    public void addBeamPoint(Vector2 point){ points.add(point);}
+    public void addBeamPoint(Vector2 point){ points.add(beamEnd.set(point));}
 
     /**
      * Begins casting the ray.
@@ -66,16 +70,17 @@ public class MobDetector {
      */
     public void beginRayCast(){
         points.clear();
-        points.add(mob.getPosition());
+        points.add(getRayCastStart(beamStart));
     }
 
     /**
-     * Returns the start position of the detector ray
+     * Stores the start position of the detector ray, without copying the position of the mob
      *
-     * @return associated mob's current position
+     * @param out vector to store the start in
+     * @return <code>out</code>, set to the associated mob's current position
      */
-    public Vector2 getRayCastStart(){
-        return mob.getPosition();
+    public Vector2 getRayCastStart(Vector2 out){
+        return out.set(mob.getX(), mob.getY());
     }
 
     /**
@@ -98,7 +103,7 @@ public class MobDetector {
      * (but under assumption that the laser is guaranteed to hit something)
      * @param endPoint
      */
-    public void setEndPoint(Vector2 endPoint) {endPointCache = endPoint;}
+    public void setEndPoint(Vector2 endPoint) {endPointCache.set(endPoint);}
 
     /**
      * Returns the end point cache of the ray
@@ -25,12 +25,12 @@ public interface Movable {
     ObjectSet<Fixture> getGroundFixtures();
 
     /**
-     * Returns the name of the ground sensor
+     * Returns the role tag of the ground sensor
      *
      * This is used by ContactListener
      *
-     * @return the name of the ground sensor
+     * @return the role tag of the ground sensor, one of the roles in {@link CollisionTags}
      */
-    String getGroundSensorName();
+    int getGroundSensorRole();
 
 }
@@ -12,7 +12,6 @@ import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 import edu.cornell.gdiac.game.obstacle.SimpleObstacle;
@@ -34,18 +33,18 @@ public class NoveLight extends BoxObstacle implements Activatable {
     /**
      * Creates a new NoveLight object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public NoveLight(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
+    public NoveLight(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
         super(1, 1); // Width and height of this obstacle won't actually matter, as it cannot be collidable
 
-        type = properties.get("type", "ceiling").equals("ceiling") ? LightType.CEILING : LightType.WALL;
-        distance = (int) properties.get("distance", 0);
-        offset = (Vector2) properties.get("offset", Vector2.Zero);
-        color = (Color) properties.get("color", null);
+        type = properties.getString("type", "ceiling").equals("ceiling") ? LightType.CEILING : LightType.WALL;
+        distance = properties.getInt("distance", 0);
+        offset = properties.getVector2("offset", Vector2.Zero);
+        color = properties.getColor("color", null);
         if (color != null) {
             color.a = 136; // Full alpha is too imposing for lights, so we tone it down.
         }
@@ -59,9 +58,9 @@ public class NoveLight extends BoxObstacle implements Activatable {
         setFriction(objectConstants.getFloat("friction", 0));
         setDensity(objectConstants.getFloat("density", 0));
         setMass(objectConstants.getFloat("mass", 0));
-        Vector2 offset = new Vector2(objectConstants.get((String)properties.get("type", "ceiling")).get("offset").getFloat(0), objectConstants.get((String)properties.get("type", "ceiling")).get("offset").getFloat(1));
-        setX((float) properties.get("x") + offset.x);
-        setY((float) properties.get("y") + offset.y);
+        Vector2 offset = new Vector2(objectConstants.get(properties.getString("type", "ceiling")).get("offset").getFloat(0), objectConstants.get(properties.getString("type", "ceiling")).get("offset").getFloat(1));
+        setX(properties.getFloat("x") + offset.x);
+        setY(properties.getFloat("y") + offset.y);
         setFixedRotation(true);
         initTiledActivations(properties);
     }
@@ -97,12 +96,12 @@ public class NoveLight extends BoxObstacle implements Activatable {
 
     @Override
     public void activated(World world) {
-        getLight().setActive(true);
+        setLightActive(true);
     }
 
     @Override
     public void deactivated(World world) {
-        getLight().setActive(false);
+        setLightActive(false);
     }
 
     @Override
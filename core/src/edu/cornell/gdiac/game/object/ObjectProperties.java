@@ -0,0 +1,331 @@
+package edu.cornell.gdiac.game.object;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.util.Arrays;
+
+/**
+ * The properties of a Tiled object, which are passed to the constructor of the object.
+ * <br><br>
+ * Numbers and booleans are stored unboxed, so that reading a level does not allocate a wrapper per property. Strings,
+ * colors, vectors and polygons are stored as references. The type of each property is one of the constants below,
+ * which are also the type tags of properties in compiled levels.
+ */
+public class ObjectProperties {
+    /** Type of a float property */
+    public static final byte FLOAT = 0;
+    /** Type of an int property */
+    public static final byte INT = 1;
+    /** Type of a boolean property */
+    public static final byte BOOL = 2;
+    /** Type of a string property */
+    public static final byte STRING = 3;
+    /** Type of a color property */
+    public static final byte COLOR = 4;
+    /** Type of a vector property */
+    public static final byte VECTOR2 = 5;
+    /** Type of a float array property, e.g. the vertices of a polygon */
+    public static final byte FLOATS = 6;
+
+    /** Slot of each property */
+    private final ObjectIntMap<String> slots = new ObjectIntMap<>();
+    /** Key of each slot */
+    private String[] keys;
+    /** Type of each slot */
+    private byte[] types;
+    /** Value of each number or boolean slot, floats as their raw bits */
+    private int[] bits;
+    /** Value of each reference slot */
+    private Object[] refs;
+    /** Number of properties */
+    private int size;
+
+    /**
+     * Creates an empty set of properties.
+     */
+    public ObjectProperties() {
+        this(16);
+    }
+
+    /**
+     * @param capacity  number of properties that can be stored before the arrays grow
+     */
+    public ObjectProperties(int capacity) {
+        keys = new String[capacity];
+        types = new byte[capacity];
+        bits = new int[capacity];
+        refs = new Object[capacity];
+    }
+
+    /**
+     * @return the number of properties
+     */
+    public int size() { return size; }
+
+    /**
+     * @param i  slot of a property, from 0 to {@link #size()}
+     * @return the key of the property
+     */
+    public String getKey(int i) { return keys[i]; }
+
+    /**
+     * @param i  slot of a property, from 0 to {@link #size()}
+     * @return the type of the property
+     */
+    public byte getType(int i) { return types[i]; }
+
+    /**
+     * @param i  slot of a FLOAT property
+     * @return the value of the property
+     */
+    public float getFloatAt(int i) { return Float.intBitsToFloat(bits[i]); }
+
+    /**
+     * @param i  slot of an INT or BOOL property
+     * @return the value of the property, 1 or 0 for booleans
+     */
+    public int getIntAt(int i) { return bits[i]; }
+
+    /**
+     * @param i  slot of a STRING, COLOR, VECTOR2 or FLOATS property
+     * @return the value of the property
+     */
+    public Object getRefAt(int i) { return refs[i]; }
+
+    /**
+     * @param key  key of a property
+     * @return true if there is a property with this key, of any type
+     */
+    public boolean containsKey(String key) { return slots.containsKey(key); }
+
+    /**
+     * Sets a FLOAT property, replacing any property with the same key.
+     *
+     * @param key    key of the property
+     * @param value  value of the property
+     */
+    public void put(String key, float value) {
+        int i = slot(key, FLOAT);
+        bits[i] = Float.floatToRawIntBits(value);
+    }
+
+    /**
+     * Sets an INT property, replacing any property with the same key.
+     *
+     * @param key    key of the property
+     * @param value  value of the property
+     */
+    public void put(String key, int value) {
+        int i = slot(key, INT);
+        bits[i] = value;
+    }
+
+    /**
+     * Sets a BOOL property, replacing any property with the same key.
+     *
+     * @param key    key of the property
+     * @param value  value of the property
+     */
+    public void put(String key, boolean value) {
+        int i = slot(key, BOOL);
+        bits[i] = value ? 1 : 0;
+    }
+
+    /**
+     * Sets a STRING property, replacing any property with the same key. The value is stored by reference.
+     *
+     * @param key    key of the property
+     * @param value  value of the property
+     */
+    public void put(String key, String value) { refs[slot(key, STRING)] = value; }
+
+    /**
+     * Sets a COLOR property, replacing any property with the same key. The value is stored by reference.
+     *
+     * @param key    key of the property
+     * @param value  value of the property
+     */
+    public void put(String key, Color value) { refs[slot(key, COLOR)] = value; }
+
+    /**
+     * Sets a VECTOR2 property, replacing any property with the same key. The value is stored by reference.
+     *
+     * @param key    key of the property
+     * @param value  value of the property
+     */
+    public void put(String key, Vector2 value) { refs[slot(key, VECTOR2)] = value; }
+
+    /**
+     * Sets a FLOATS property, replacing any property with the same key. The value is stored by reference.
+     *
+     * @param key    key of the property
+     * @param value  value of the property
+     */
+    public void put(String key, float[] value) { refs[slot(key, FLOATS)] = value; }
+
+    /**
+     * @param key  key of a FLOAT or INT property
+     * @return the value of the property as a float
+     * @throws IllegalArgumentException if there is no property with this key
+     */
+    public float getFloat(String key) {
+        int i = require(key);
+        return types[i] == INT ? bits[i] : Float.intBitsToFloat(bits[i]);
+    }
+
+    /**
+     * @param key           key of a FLOAT or INT property
+     * @param defaultValue  value returned if there is no property with this key
+     * @return the value of the property as a float, or <code>defaultValue</code>
+     */
+    public float getFloat(String key, float defaultValue) {
+        return containsKey(key) ? getFloat(key) : defaultValue;
+    }
+
+    /**
+     * @param key  key of an INT or FLOAT property
+     * @return the value of the property as an int, with floats truncated
+     * @throws IllegalArgumentException if there is no property with this key
+     */
+    public int getInt(String key) {
+        int i = require(key);
+        return types[i] == FLOAT ? (int) Float.intBitsToFloat(bits[i]) : bits[i];
+    }
+
+    /**
+     * @param key           key of an INT or FLOAT property
+     * @param defaultValue  value returned if there is no property with this key
+     * @return the value of the property as an int, or <code>defaultValue</code>
+     */
+    public int getInt(String key, int defaultValue) {
+        return containsKey(key) ? getInt(key) : defaultValue;
+    }
+
+    /**
+     * @param key  key of a BOOL property
+     * @return the value of the property
+     * @throws IllegalArgumentException if there is no property with this key
+     */
+    public boolean getBoolean(String key) {
+        return bits[require(key)] != 0;
+    }
+
+    /**
+     * @param key           key of a BOOL property
+     * @param defaultValue  value returned if there is no property with this key
+     * @return the value of the property, or <code>defaultValue</code>
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return containsKey(key) ? getBoolean(key) : defaultValue;
+    }
+
+    /**
+     * @param key  key of a STRING property
+     * @return the value of the property, or null if there is none
+     */
+    public String getString(String key) {
+        return getString(key, null);
+    }
+
+    /**
+     * @param key           key of a STRING property
+     * @param defaultValue  value returned if there is no property with this key
+     * @return the value of the property, or <code>defaultValue</code>
+     */
+    public String getString(String key, String defaultValue) {
+        int i = slots.get(key, -1);
+        return i < 0 ? defaultValue : (String) refs[i];
+    }
+
+    /**
+     * @param key           key of a COLOR property
+     * @param defaultValue  value returned if there is no property with this key
+     * @return the value of the property, or <code>defaultValue</code>
+     */
+    public Color getColor(String key, Color defaultValue) {
+        int i = slots.get(key, -1);
+        return i < 0 ? defaultValue : (Color) refs[i];
+    }
+
+    /**
+     * @param key           key of a VECTOR2 property
+     * @param defaultValue  value returned if there is no property with this key
+     * @return the value of the property, or <code>defaultValue</code>
+     */
+    public Vector2 getVector2(String key, Vector2 defaultValue) {
+        int i = slots.get(key, -1);
+        return i < 0 ? defaultValue : (Vector2) refs[i];
+    }
+
+    /**
+     * @param key  key of a FLOATS property
+     * @return the value of the property, or null if there is none
+     */
+    public float[] getFloats(String key) {
+        int i = slots.get(key, -1);
+        return i < 0 ? null : (float[]) refs[i];
+    }
+
+    /**
+     * Replaces every property with the properties of another object. References are shared, not copied.
+     *
+     * @param other  properties to copy
+     */
+    public void set(ObjectProperties other) {
+        clear();
+        ensureCapacity(other.size);
+        System.arraycopy(other.keys, 0, keys, 0, other.size);
+        System.arraycopy(other.types, 0, types, 0, other.size);
+        System.arraycopy(other.bits, 0, bits, 0, other.size);
+        System.arraycopy(other.refs, 0, refs, 0, other.size);
+        size = other.size;
+        for (int i = 0; i < size; i++) slots.put(keys[i], i);
+    }
+
+    /**
+     * Removes every property.
+     */
+    public void clear() {
+        slots.clear();
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(refs, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the slot of a property, adding it if there is none.
+     *
+     * @param key   key of the property
+     * @param type  new type of the property
+     * @return the slot of the property
+     */
+    private int slot(String key, byte type) {
+        int i = slots.get(key, -1);
+        if (i < 0) {
+            ensureCapacity(size + 1);
+            i = size++;
+            keys[i] = key;
+            slots.put(key, i);
+        }
+        types[i] = type;
+        refs[i] = null;
+        return i;
+    }
+
+    private int require(String key) {
+        int i = slots.get(key, -1);
+        if (i < 0) throw new IllegalArgumentException("missing property " + key);
+        return i;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) return;
+        int length = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, length);
+        types = Arrays.copyOf(types, length);
+        bits = Arrays.copyOf(bits, length);
+        refs = Arrays.copyOf(refs, length);
+    }
+}
@@ -13,10 +13,11 @@
 package edu.cornell.gdiac.game.object;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.utils.*;
 import edu.cornell.gdiac.game.GameCanvas;
+import edu.cornell.gdiac.game.obstacle.Obstacle;
 
 /**
  * Instances are a single particle.
@@ -32,6 +33,9 @@ public class Particle implements Pool.Poolable {
     /** The particle position */
     private Vector2 position;
 
+    /** The particle position before the most recent physics step, used for render interpolation */
+    private Vector2 previousPosition;
+
     /** The particle velocity (not directly accessible) */
     private Vector2 velocity;
 
@@ -63,12 +67,13 @@ public class Particle implements Pool.Poolable {
     }
 
     /**
-     * Sets the x-coordinate of the particle position.
+     * Sets the x-coordinate of the particle position. The particle is not drawn sliding to it.
      *
      * @param x  the x-coordinate of the particle position
      */
     public void setX(float x) {
         position.x = x;
+        previousPosition.x = x;
     }
 
     /**
@@ -81,12 +86,33 @@ public class Particle implements Pool.Poolable {
     }
 
     /**
-     * Sets the y-coordinate of the particle position.
+     * Sets the y-coordinate of the particle position. The particle is not drawn sliding to it.
      *
      * @param y  the y-coordinate of the particle position
      */
     public void setY(float y) {
         position.y = y;
+        previousPosition.y = y;
+    }
+
+    /**
+     * Returns the x-coordinate of the particle, interpolated between the last two physics steps
+     * the same way as obstacles.
+     *
+     * @return the x-coordinate to draw the particle at
+     */
+    public float getInterpolatedX() {
+        return previousPosition.x + (position.x - previousPosition.x) * Obstacle.getInterpolationAlpha();
+    }
+
+    /**
+     * Returns the y-coordinate of the particle, interpolated between the last two physics steps
+     * the same way as obstacles.
+     *
+     * @return the y-coordinate to draw the particle at
+     */
+    public float getInterpolatedY() {
+        return previousPosition.y + (position.y - previousPosition.y) * Obstacle.getInterpolationAlpha();
     }
 
     /**
@@ -139,16 +165,27 @@ public class Particle implements Pool.Poolable {
      */
     public Particle() {
         position = new Vector2();
+        previousPosition = new Vector2();
         velocity = new Vector2();
     }
 
     /**
-     * Move the particle one frame, adding the velocity to the position.
+     * Move the particle one frame, adding the velocity to the position. The particle is drawn
+     * interpolated from its position before the move.
      */
     public void move() {
+        previousPosition.set(position);
         position.add(velocity);
     }
 
+    /**
+     * Records the current position as the previous one, so that a particle that stops moving
+     * is drawn still.
+     */
+    public void savePreviousPosition() {
+        previousPosition.set(position);
+    }
+
     /**
      * Resets the particle as if it were just allocated.
      *
@@ -157,6 +194,7 @@ public class Particle implements Pool.Poolable {
      */
     public void reset() {
         position.set(0,0);
+        previousPosition.set(0,0);
         velocity.set(0,0);
         angle = 0;
     }
@@ -169,8 +207,8 @@ public class Particle implements Pool.Poolable {
 
     public float getTop() { return top; }
 
-    public void draw(GameCanvas canvas, Texture texture, Vector2 drawScale, Vector2 textureScale) {
-        canvas.draw(texture, new Color(Color.WHITE), getX()*drawScale.x,
-                getY()*drawScale.y, textureScale.x, textureScale.y);
+    public void draw(GameCanvas canvas, TextureRegion texture, Vector2 drawScale, Vector2 textureScale) {
+        canvas.draw(texture, Color.WHITE, getInterpolatedX()*drawScale.x,
+                getInterpolatedY()*drawScale.y, textureScale.x, textureScale.y);
     }
 }
\ No newline at end of file
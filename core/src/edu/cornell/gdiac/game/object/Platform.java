@@ -7,10 +7,10 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 import edu.cornell.gdiac.game.obstacle.PolygonObstacle;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 
 import java.util.HashMap;
 
@@ -52,16 +52,17 @@ public class Platform extends BoxObstacle implements Activatable {
      *
      * @param width          Width of the door
      * @param height         Height of the door
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param tileSize       Size in pixels of tileset tiles
      */
-    public Platform(float width, float height, ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int tileSize, String biome){
+    public Platform(float width, float height, ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int tileSize, String biome){
         super(width, height);
         this.width = width;
         this.height = height;
         setName("platform");
+        setTypeTag(CollisionTags.PLATFORM);
         setBodyType(BodyDef.BodyType.KinematicBody);
         setGravityScale(0);
         setFixedRotation(true);
@@ -78,13 +79,13 @@ public class Platform extends BoxObstacle implements Activatable {
             forestTileset = tMap.get("forest-platform").split(tileSize, tileSize);
         }
         initTextures(biome.equals("metal") ? labTileset : forestTileset, (int) width, (int) height);
-        setX((float) properties.get("x") + width/2f);
-        setY((float) properties.get("y") - height/2f);
+        setX(properties.getFloat("x") + width/2f);
+        setY(properties.getFloat("y") - height/2f);
         startPos = getPosition().cpy();
-        speed = (float) properties.get("speed", 5f);
-        damping = (float) properties.get("damping", 0.1f);
-        disp = (Vector2) properties.get("disp", Vector2.Zero);
-        isClimbable = (boolean) properties.get("climbable", false);
+        speed = properties.getFloat("speed", 5f);
+        damping = properties.getFloat("damping", 0.1f);
+        disp = properties.getVector2("disp", Vector2.Zero);
+        isClimbable = properties.getBoolean("climbable", false);
         target = new Vector2();
         other = new Vector2();
         initTiledActivations(properties);
@@ -145,13 +146,13 @@ public class Platform extends BoxObstacle implements Activatable {
     /**
      * Creates a new Platform object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param tileSize       Size in pixels of tileset tiles
      */
-    public Platform(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int tileSize, String biome){
-        this((float) properties.get("width"), (float) properties.get("height"), properties, tMap, scale, tileSize, biome);
+    public Platform(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, int tileSize, String biome){
+        this(properties.getFloat("width"), properties.getFloat("height"), properties, tMap, scale, tileSize, biome);
     }
 
     /**
@@ -236,8 +237,8 @@ public class Platform extends BoxObstacle implements Activatable {
         for (int dx = 0; dx < getWidth(); dx++) {
             for (int dy = 0; dy < getHeight(); dy++){
                 TextureRegion platformTile = textures[dx][dy];
-                canvas.draw(platformTile, Color.WHITE, 0, 0, (getX() - width/2f + dx)*drawScale.x,
-                        (getY() - height/2f +  dy)*drawScale.y, 0, drawScale.x/tileSize, drawScale.y/tileSize);
+                canvas.draw(platformTile, Color.WHITE, 0, 0, getDrawX() + (dx - width/2f)*drawScale.x,
+                        getDrawY() + (dy - height/2f)*drawScale.y, 0, drawScale.x/tileSize, drawScale.y/tileSize);
             }
         }
     }
@@ -288,17 +289,16 @@ public class Platform extends BoxObstacle implements Activatable {
      */
     public static void setConstants(JsonValue constants) {objectConstants = constants;}
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("moving", moving);
-        stateMap.put("targetVel", targetVel.cpy());
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putFloat(moving);
+        state.putVector(targetVel);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        moving = (float) stateMap.get("moving");
-        targetVel.set((Vector2) stateMap.get("targetVel"));
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        moving = state.getFloat();
+        targetVel.set(state.getVector());
     }
 
 }
@@ -5,10 +5,10 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 
 import java.util.HashMap;
 
@@ -18,7 +18,6 @@ public class PushableBox extends BoxObstacle implements Movable {
     private static JsonValue objectConstants;
     private ObjectSet<Fixture> groundFixtures = new ObjectSet<>();
     private PolygonShape sensorShape;
-    private final String groundSensorName;
     private float damping;
 
     /**
@@ -31,18 +30,19 @@ public class PushableBox extends BoxObstacle implements Movable {
     /**
      * Creates a new Box object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public PushableBox(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
+    public PushableBox(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
         super(tMap.get("box").getRegionWidth()/scale.x*textureScale.x * objectConstants.getFloat("shrink"),
                 tMap.get("box").getRegionHeight()/scale.y*textureScale.y * objectConstants.getFloat("shrink"));
 
         setBodyType(BodyDef.BodyType.DynamicBody);
         setFixedRotation(true);
         setName("box");
+        setTypeTag(CollisionTags.BOX);
         setDrawScale(scale);
         setTexture(tMap.get("box"));
         setTextureScale(textureScale);
@@ -51,11 +51,9 @@ public class PushableBox extends BoxObstacle implements Movable {
         setFriction(objectConstants.getFloat("friction", 0));
         setDensity(objectConstants.getFloat("density", 0));
         setMass(objectConstants.getFloat("mass", 0));
-        setX((float) properties.get("x")+objectConstants.get("offset").getFloat(0));
-        setY((float) properties.get("y")+objectConstants.get("offset").getFloat(1));
+        setX(properties.getFloat("x")+objectConstants.get("offset").getFloat(0));
+        setY(properties.getFloat("y")+objectConstants.get("offset").getFloat(1));
         damping = objectConstants.getFloat("damping", 0);
-
-        groundSensorName = "boxGroundSensor";
     }
 
     /**
@@ -78,7 +76,7 @@ public class PushableBox extends BoxObstacle implements Movable {
         sensorDef.shape = sensorShape;
 
         Fixture sensorFixture = body.createFixture( sensorDef );
-        sensorFixture.setUserData(groundSensorName);
+        sensorFixture.setUserData(CollisionTags.BOX_GROUND_SENSOR);
 
         return true;
     }
@@ -88,7 +86,7 @@ public class PushableBox extends BoxObstacle implements Movable {
     public void update(float dt){ setRelativeVX(getRelativeVelocity().x/damping); }
 
     public ObjectSet<Fixture> getGroundFixtures() { return groundFixtures; }
-    public String getGroundSensorName(){ return groundSensorName; }
+    public int getGroundSensorRole(){ return CollisionTags.BOX_GROUND_SENSOR; }
     @Override
     public void drawDebug(GameCanvas canvas){
         super.drawDebug(canvas);
@@ -97,21 +95,19 @@ public class PushableBox extends BoxObstacle implements Movable {
         canvas.drawPhysics(sensorShape, Color.RED,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
     }
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("groundFixtures", copyObjectSet(groundFixtures));
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putInt(groundFixtures.size);
+        for (Fixture f : groundFixtures){
+            state.putObject(f);
+        }
     }
 
-    private <T> ObjectSet<T> copyObjectSet(ObjectSet<T> base) {
-        ObjectSet<T> copy = new ObjectSet<>();
-        for (T el : base){
-            copy.add(el);
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        groundFixtures.clear();
+        for (int i = state.getInt(); i > 0; i--){
+            groundFixtures.add(state.getObject());
         }
-        return copy;
-    }
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        groundFixtures = (ObjectSet<Fixture>) stateMap.get("groundFixtures");
     }
 }
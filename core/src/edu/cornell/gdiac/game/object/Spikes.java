@@ -5,7 +5,6 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ObjectMap;
 
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectSet;
@@ -29,10 +28,6 @@ public class Spikes extends BoxObstacle implements Activatable {
     private boolean activated;
     /** Starting activation state */
     private boolean initialActivation;
-    public static final String solidName = "spikesSolid";
-    public static final String pointyName = "spikesPointy";
-    public static final String centerName = "spikesCenter";
-    public static final String textureShapeName = "spikesTexture";
     /** The total number of ticks for the spikes to open/close */
     private static final int totalTicks = 7;
     /** ticks/totalTicks represents the fraction of the spikes showing */
@@ -51,44 +46,45 @@ public class Spikes extends BoxObstacle implements Activatable {
     /**
      * Creates a new Spikes object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      * @param biome          biome
      */
-    public Spikes(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
+    public Spikes(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
         super(1, 1);
         setBodyType(properties.containsKey("attachName") ? BodyDef.BodyType.DynamicBody : BodyDef.BodyType.StaticBody);
         setSensor(true);
         setFixedRotation(true);
         setName("spikes");
+        setTypeTag(CollisionTags.SPIKES);
         setDrawScale(scale);
         setTextureScale(textureScale);
         if (labTileset == null) {
-            labTileset = tMap.get("spikes").split(tMap.get("spikes").getTexture(),(int) (scale.x/textureScale.x), (int) (scale.y/textureScale.y));
+            labTileset = tMap.get("spikes").split((int) (scale.x/textureScale.x), (int) (scale.y/textureScale.y));
         }
         if (forestTileset == null) {
-            forestTileset = tMap.get("forest-spikes").split(tMap.get("forest-spikes").getTexture(),(int) (scale.x/textureScale.x), (int) (scale.y/textureScale.y));
+            forestTileset = tMap.get("forest-spikes").split((int) (scale.x/textureScale.x), (int) (scale.y/textureScale.y));
         }
         if (biome.equals("metal")) {
-            setTexture(labTileset[0][gidMap.get(properties.get("gid"))]);
+            setTexture(labTileset[0][gidMap.get(properties.getInt("gid"))]);
         } else {
-            setTexture(forestTileset[0][gidMap.get(properties.get("gid"))]);
+            setTexture(forestTileset[0][gidMap.get(properties.getInt("gid"))]);
         }
         setFriction(objectConstants.getFloat("friction"));
         fixtureShapes = new Array<>();
 
-        dir = Direction.angleToDir((int) ((float) properties.get("rotation", 0f)));
+        dir = Direction.angleToDir((int) properties.getFloat("rotation", 0f));
         Vector2 offset = new Vector2(objectConstants.get("offset").getFloat(0), objectConstants.get("offset").getFloat(1));
         Direction.rotateVector(offset, dir);
-        setX((float) properties.get("x") + offset.x);
-        setY((float) properties.get("y") + offset.y);
+        setX(properties.getFloat("x") + offset.x);
+        setY(properties.getFloat("y") + offset.y);
         x = getX();
         y = getY();
         ticks = totalTicks;
         closing = 0;
-        setAngle((float) ((float) properties.get("rotation") * Math.PI/180));
+        setAngle((float) (properties.getFloat("rotation") * Math.PI/180));
 //        System.out.println(getPosition());
         initTiledActivations(properties);
     }
@@ -169,27 +165,27 @@ public class Spikes extends BoxObstacle implements Activatable {
     protected void createFixtures(){
         super.createFixtures();
 
-        body.getFixtureList().get(0).setUserData(textureShapeName);
+        body.getFixtureList().get(0).setUserData(CollisionTags.SPIKES_TEXTURE);
 
         //solid fixture
         float hx = getWidth()*objectConstants.get("solid_scale").getFloat(0)/2f;
         float hy = getHeight()*objectConstants.get("solid_scale").getFloat(1)/2f;
-        Fixture fix = generateFixture(new Vector2(0, hy - getHeight()/2f), hx, hy, solidName, false);
+        Fixture fix = generateFixture(new Vector2(0, hy - getHeight()/2f), hx, hy, CollisionTags.SPIKES_SOLID, false);
         fix.setFriction(objectConstants.getFloat("friction"));
 
         //pointy fixture - the part that actually kills the player
         hx = getWidth()*objectConstants.get("pointy_scale").getFloat(0)/2f;
         hy = getHeight()*objectConstants.get("pointy_scale").getFloat(1)/2f;
-        generateFixture(Vector2.Zero, hx, hy, pointyName, true);
+        generateFixture(Vector2.Zero, hx, hy, CollisionTags.SPIKES_POINTY, true);
 
         //center fixture - the part that dead bodies weld to
         hx = getWidth()*objectConstants.get("center_scale").getFloat(0)/2f;
         hy = getHeight()*objectConstants.get("center_scale").getFloat(1)/2f;
-        generateFixture(new Vector2(0, hy - getHeight()/2f), hx, hy, centerName, false);
+        generateFixture(new Vector2(0, hy - getHeight()/2f), hx, hy, CollisionTags.SPIKES_CENTER, false);
     }
 
 
-    private Fixture generateFixture(Vector2 location, float hx, float hy, String name, boolean sensor){
+    private Fixture generateFixture(Vector2 location, float hx, float hy, int role, boolean sensor){
         FixtureDef fixtureDef = new FixtureDef();
         fixtureDef.friction = 0;
         fixtureDef.density = 0;
@@ -199,7 +195,7 @@ public class Spikes extends BoxObstacle implements Activatable {
         fixtureDef.shape = fixtureShape;
 
         Fixture fixture = body.createFixture(fixtureDef);
-        fixture.setUserData(name);
+        fixture.setUserData(role);
         fixtureShapes.add(fixtureShape);
         return fixture;
     }
@@ -277,18 +273,16 @@ public class Spikes extends BoxObstacle implements Activatable {
         return getY();
     }
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("ticks", ticks);
-        stateMap.put("closing", closing);
-        stateMap.put("activated", activated);
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putFloat(ticks);
+        state.putFloat(closing);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        ticks = (float) stateMap.get("ticks");
-        closing = (float) stateMap.get("closing");
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        ticks = state.getFloat();
+        closing = state.getFloat();
         joints.clear();
     }
 }
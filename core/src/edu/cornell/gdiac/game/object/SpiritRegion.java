@@ -1,20 +1,19 @@
 package edu.cornell.gdiac.game.object;
 
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ObjectSet;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
+import edu.cornell.gdiac.util.RandomController;
 
 import java.util.HashMap;
-import java.util.Random;
 
-public class SpiritRegion extends BoxObstacle {
+public class SpiritRegion extends BoxObstacle implements Trigger {
 
     /** Base color without greyscale */
     private final Color baseColor = new Color();
@@ -22,8 +21,10 @@ public class SpiritRegion extends BoxObstacle {
     private Color particleColor = new Color();
     /** Color of spirit region background */
     private Color regionColor = new Color();
+    /** Cache for the faded color of each particle */
+    private final Color particleColorCache = new Color();
     /** The frames of the spirit animation */
-    private Texture regionTexture;
+    private TextureRegion regionTexture;
     /** Vector2 position of bottom left corner of spirit region */
     private Vector2 pos;
     /** width of spirit region */
@@ -53,31 +54,39 @@ public class SpiritRegion extends BoxObstacle {
     /** Collection of particle objects (MODEL) */
     private ObjectSet<Particle> particles;
     /** Texture image for the photon */
-    private Texture photonTexture;
+    private TextureRegion photonTexture;
     /** Memory pool for (pre)allocation of particles (???) */
     private ParticlePool memory;
     /** Simple field to slow down the allocation of photons */
     private int cooldown = 0;
-    private Random random;
     private boolean hideBackground;
 
     public String getColorString(){ return baseColor.toString().substring(0, 6); }
 
+    @Override
+    public Rectangle getTriggerBounds(Rectangle out) {
+        return out.set(getX() - getWidth()/2, getY() - getHeight()/2, getWidth(), getHeight());
+    }
+
+    @Override
+    public boolean isTriggerMoving() { return false; }
+
     /**
      * Creates a new SpiritRegion Model.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public SpiritRegion(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
-        super((float) properties.get("width"), (float) properties.get("height"));
-        this.photonTexture = tMap.get("spirit-photon").getTexture();
-        this.regionTexture = tMap.get("spirit-region").getTexture();
+    public SpiritRegion(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale){
+        super(properties.getFloat("width"), properties.getFloat("height"));
+        setTypeTag(CollisionTags.SPIRIT_REGION);
+        this.photonTexture = tMap.get("spirit-photon");
+        this.regionTexture = tMap.get("spirit-region");
         hideBackground = false;
 
-        baseColor.set((Color) properties.get("color", Color.RED));
+        baseColor.set(properties.getColor("color", Color.RED));
 
         particleColor.set(baseColor);
         particleColor.a = PARTICLE_OPACITY_INACTIVE;
@@ -92,16 +101,15 @@ public class SpiritRegion extends BoxObstacle {
         setSensor(true);
         setBodyType(BodyDef.BodyType.StaticBody);
 
-        width = (float) properties.get("width");
-        height = (float) properties.get("height");
+        width = properties.getFloat("width");
+        height = properties.getFloat("height");
 
-        this.pos = new Vector2((float) properties.get("x") + width/2, (float) properties.get("y") - height/2);
+        this.pos = new Vector2(properties.getFloat("x") + width/2, properties.getFloat("y") - height/2);
 
         setPosition(pos);
 
 
 //         PHOTON PARTICLES
-        random = new Random();
         particles = new ObjectSet<Particle>();
         int capacity = Math.min((int) width * (int) height, MAX_PARTICLES);
         memory = new ParticlePool(capacity);
@@ -109,11 +117,11 @@ public class SpiritRegion extends BoxObstacle {
             Particle item = addParticle();
             float low = item.getBottom() * drawScale.y;
             float high = item.getTop() * drawScale.y - PARTICLE_SIZE;
-            item.setY(random.nextFloat()*(high-low)+low);
+            item.setY(RandomController.rollFloat(low, high));
         }
 
-        if (properties.get("hideBkg") != null) {
-            hideBackground = (boolean) properties.get("hideBkg");
+        if (properties.containsKey("hideBkg")) {
+            hideBackground = properties.getBoolean("hideBkg");
             particleColor.a = PARTICLE_OPACITY_ACTIVE;
         }
 
@@ -129,7 +137,7 @@ public class SpiritRegion extends BoxObstacle {
             // Make angle mainly upwards to simulate floating up (not any direction)
             float min_angle = (float) Math.PI/3;
             float max_angle = (float) (3*Math.PI/4);
-            float rand_angle = min_angle + (max_angle - min_angle) * (float) Math.random();
+            float rand_angle = RandomController.rollFloat(min_angle, max_angle);
             // Random pos within region
             // Cluster the y pos near the bottom to give more "floating up" feeling
 
@@ -137,18 +145,18 @@ public class SpiritRegion extends BoxObstacle {
             float maxValueY = pos.y + height;
             float stdDev = height/5;
 
-            float rand_bot = (float) (Math.abs(random.nextGaussian()) * stdDev + minValueY);
+            float rand_bot = (float) (Math.abs(RandomController.rollGaussian()) * stdDev + minValueY);
             rand_bot = Math.min(rand_bot, pos.y + height/2);
             item.setBottom(rand_bot);
 
             float rand_top = rand_bot;
             while (rand_top <= rand_bot){
-                rand_top = (float) (maxValueY - Math.abs(random.nextGaussian()) * stdDev);
+                rand_top = (float) (maxValueY - Math.abs(RandomController.rollGaussian()) * stdDev);
             }
             rand_top = Math.min(rand_top, maxValueY);
             item.setTop(rand_top);
 
-            float rand_x = pos.x + width * (float) Math.random();
+            float rand_x = pos.x + RandomController.rollFloat(0, width);
 
             item.setX(rand_x* drawScale.x);
             item.setY(rand_bot* drawScale.y);
@@ -168,7 +176,6 @@ public class SpiritRegion extends BoxObstacle {
      */
     public void dispose() {
         memory.clear();
-        photonTexture.dispose();
     }
 
     /**
@@ -236,6 +243,17 @@ public class SpiritRegion extends BoxObstacle {
         }
     }
 
+    /**
+     * Pauses the region. Its particles stop moving, so they are drawn where they are.
+     */
+    @Override
+    public void pause() {
+        super.pause();
+        for (Particle item : particles) {
+            item.savePreviousPosition();
+        }
+    }
+
     /**
      * Draws the Spirit Region and its particles
      *
@@ -274,9 +292,9 @@ public class SpiritRegion extends BoxObstacle {
             // TODO: particles scaled very weirdly rn
             float bot = item.getBottom()* drawScale.y ;
             float top = item.getTop()* drawScale.y - PARTICLE_SIZE;
-            Color c = new Color(particleColor);
-            float y = item.getY();
-            float x = item.getX();
+            Color c = particleColorCache.set(particleColor);
+            float y = item.getInterpolatedY();
+            float x = item.getInterpolatedX();
             c.a = c.a * (float) (Math.max(Math.pow(y-bot, ySharpness) * Math.pow(top-y, ySharpness)/Math.pow((top-bot)/2, 2*ySharpness), 0));
             c.a = c.a * (float) (Math.max(Math.pow(x-left, xSharpness) * Math.pow(right-x, xSharpness)/Math.pow((right-left)/2, 2*xSharpness), 0));
             if (hideBackground) {
@@ -3,7 +3,7 @@ package edu.cornell.gdiac.game.object;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 
-import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 
 import java.util.HashMap;
 
@@ -17,12 +17,12 @@ public class Switch extends Activator {
     /**
      * Creates a new switch object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public Switch(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
+    public Switch(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
         super(properties, biome.equals("metal") ? "switch-top" : "forest-switch-top", "switch-base",tMap, scale, textureScale, biome, false);
         prevPressed = false;
         setName("switch");
@@ -36,15 +36,14 @@ public class Switch extends Activator {
         prevPressed = isPressed();
     }
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("prevPressed", prevPressed);
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putBoolean(prevPressed);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        prevPressed = (boolean) stateMap.get("prevPressed");
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        prevPressed = state.getBoolean();
     }
 
 }
@@ -1,16 +1,31 @@
 package edu.cornell.gdiac.game.object;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import edu.cornell.gdiac.game.GameCanvas;
 
 import java.util.Arrays;
 
-public class Tiles {
+/**
+ * A tile layer of a level.
+ * <br><br>
+ * Tiles never change once a level is populated, so the first time a layer is drawn its tiles are compiled into a
+ * {@link SpriteCache}, split into square chunks of {@link #CHUNK_SIZE} tiles. Each frame only the chunks that overlap
+ * the camera view are drawn, with one draw call per chunk.
+ */
+public class Tiles implements Disposable {
+    /** Number of tiles along each side of a chunk */
+    private static final int CHUNK_SIZE = 16;
+    /** Largest number of sprites in a sprite cache */
+    private static final int MAX_CACHE_SIZE = 8191;
+
     private TextureRegion[] tileset;
     private int[] levelTiles;
     private int levelWidth;
@@ -21,61 +36,179 @@ public class Tiles {
 
     private Vector2 offset = new Vector2();
 
+    /** Compiled tiles, or null if the tiles have not been drawn yet or do not fit in a cache */
+    private SpriteCache cache;
+    /** True if the tiles have been compiled, or did not fit in a cache */
+    private boolean compiled;
+    /** Cache id of each chunk, indexed by row from the bottom then column, or -1 if the chunk is empty */
+    private int[] chunkIds;
+    /** Number of chunks in each row */
+    private int chunksX;
+    /** Number of chunk rows */
+    private int chunksY;
+    /** Number of tiles that a tile texture can cover past its own cell, e.g. for tiles that are drawn enlarged */
+    private int overhang;
+    /** Cache for the ids of visible chunks */
+    private IntArray visibleChunks = new IntArray();
+
     public Tiles(JsonValue data, int tileSize, int levelWidth, int levelHeight, TextureRegion tileset, Rectangle bounds, int fid, Vector2 textureScale) {
+        this(data.get("data").asIntArray(), split(tileset, tileSize), tileSize, levelWidth, levelHeight, bounds, fid, textureScale);
+    }
 
-        levelTiles = data.get("data").asIntArray();
+    /**
+     * Creates tiles from an already split tileset (see {@link #split(TextureRegion, int)}).
+     */
+    public Tiles(int[] levelTiles, TextureRegion[] tileset, int tileSize, int levelWidth, int levelHeight, Rectangle bounds, int fid, Vector2 textureScale) {
+        this.levelTiles = levelTiles;
+        this.tileset = tileset;
         this.levelWidth = levelWidth;
         this.levelHeight = levelHeight;
         this.tileSize = tileSize;
         this.textureScale = textureScale;
         this.fid = fid;
         this.offset.set(bounds.x, bounds.y);
+    }
 
-        // turn tileset into 1D texture arr for easy indexing
-        // numbers in data correspond to numbers in tileset + 1
-
-        TextureRegion[][] tiles = TextureRegion.split(tileset.getTexture(), tileSize, tileSize);
+    /**
+     * Turns a tileset into a 1D texture array for easy indexing. Numbers in the tile data correspond to indices in
+     * this array + fid.
+     * <br><br>
+     * This only creates texture regions, so it is safe to call off the render thread.
+     *
+     * @param tileset  texture containing the tileset
+     * @param tileSize size of a tile in the texture
+     * @return every tile in the tileset, row by row
+     */
+    public static TextureRegion[] split(TextureRegion tileset, int tileSize) {
+        TextureRegion[][] tiles = tileset.split(tileSize, tileSize);
 
         //flatten 2d array into 1d array
         int numTiles = 0;
         for (int i = 0; i < tiles.length; i++) {
             numTiles += tiles[i].length;
         }
-        this.tileset = new TextureRegion[numTiles];
+        TextureRegion[] flat = new TextureRegion[numTiles];
         int j = 0;
         for (int i = 0; i < tiles.length; i++) {
-            System.arraycopy(tiles[i], 0, this.tileset, j, tiles[i].length);
+            System.arraycopy(tiles[i], 0, flat, j, tiles[i].length);
             j += tiles[i].length;
         }
+        return flat;
+    }
 
+    /** @return width of a cell on screen, in pixels */
+    private float cellWidth() { return (tileSize == 512 ? 128 : tileSize) * textureScale.x; }
+
+    /** @return height of a cell on screen, in pixels */
+    private float cellHeight() { return (tileSize == 512 ? 128 : tileSize) * textureScale.y; }
+
+    /**
+     * Returns the texture of a tile, or null if the cell is empty or has an invalid id.
+     *
+     * @param i  index of the tile in the tile data
+     * @return the texture of the tile
+     */
+    private TextureRegion tileTexture(int i) {
+        if (levelTiles[i] <= 0) return null;
+        if (levelTiles[i] - fid >= tileset.length || levelTiles[i] < fid) {
+            System.err.println("WARNING: tile " + i + " at (" + i % levelWidth + ", " + (levelHeight - 1 - i / levelWidth) +
+                    ") has invalid id " + levelTiles[i] + ". (fid is " + fid + ", tileset size is " + tileset.length + ").");
+            levelTiles[i] = 0;
+            return null;
+        }
+        return tileset[levelTiles[i] - fid];
     }
 
-    public void draw(GameCanvas canvas){
-        int i = 0;
-        for (float y = levelHeight - 1; y >= 0; y--){
-            for (float x = 0; x < levelWidth; x++){
-                try {
-                    if (levelTiles[i] > 0) {
-                        TextureRegion tileTexture = tileset[levelTiles[i] - fid];
-                        if (tileSize == 512) {
-                            canvas.draw(tileTexture, Color.WHITE, 0, 0, (x + offset.x) * 128 * textureScale.x,
-                                    (y + offset.y) * 128 * textureScale.y, 0, textureScale.x, textureScale.y);
-                        } else {
-                            canvas.draw(tileTexture, Color.WHITE, 0, 0, (x + offset.x) * tileSize * textureScale.x,
-                                    (y + offset.y) * tileSize * textureScale.y, 0, textureScale.x, textureScale.y);
+    /**
+     * Compiles the tiles into a sprite cache, one cache id per chunk. If there are too many tiles to fit in a cache,
+     * the tiles are drawn one by one instead.
+     */
+    private void compile() {
+        compiled = true;
+        int numTiles = 0;
+        for (int i = 0; i < levelTiles.length; i++) {
+            TextureRegion texture = tileTexture(i);
+            if (texture != null) {
+                numTiles++;
+                overhang = Math.max(overhang, (int) Math.ceil(texture.getRegionWidth() * textureScale.x / cellWidth()) - 1);
+                overhang = Math.max(overhang, (int) Math.ceil(texture.getRegionHeight() * textureScale.y / cellHeight()) - 1);
+            }
+        }
+        if (numTiles == 0 || numTiles > MAX_CACHE_SIZE) return;
+
+        cache = new SpriteCache(numTiles, true);
+        chunksX = (levelWidth + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunksY = (levelHeight + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunkIds = new int[chunksX * chunksY];
+        for (int cy = 0; cy < chunksY; cy++) {
+            for (int cx = 0; cx < chunksX; cx++) {
+                boolean empty = true;
+                cache.beginCache();
+                //add rows from the top down, so that enlarged tiles overlap the rows above them
+                for (int y = Math.min((cy + 1) * CHUNK_SIZE, levelHeight) - 1; y >= cy * CHUNK_SIZE; y--) {
+                    //tile data is stored from the top row down
+                    int i = (levelHeight - 1 - y) * levelWidth + cx * CHUNK_SIZE;
+                    for (int x = cx * CHUNK_SIZE; x < Math.min((cx + 1) * CHUNK_SIZE, levelWidth); x++, i++) {
+                        TextureRegion texture = tileTexture(i);
+                        if (texture != null) {
+                            cache.add(texture, (x + offset.x) * cellWidth(), (y + offset.y) * cellHeight(),
+                                    texture.getRegionWidth() * textureScale.x, texture.getRegionHeight() * textureScale.y);
+                            empty = false;
                         }
                     }
-                } catch (ArrayIndexOutOfBoundsException e) {
-                    System.err.println("WARNING: tile " + i + " at (" + x +", " + y + ") has invalid id " +
-                            levelTiles[i] + ". (fid is " + fid + ", tileset size is " + tileset.length + ").");
-                    levelTiles[i] = 0;
                 }
-                i++;
+                int id = cache.endCache();
+                chunkIds[cy * chunksX + cx] = empty ? -1 : id;
             }
         }
     }
 
+    /**
+     * Draws the tiles that overlap an area of the screen.
+     *
+     * @param canvas  the drawing context
+     * @param view    visible area, in pixels
+     */
+    public void draw(GameCanvas canvas, Rectangle view){
+        if (!compiled) compile();
 
+        int minX = Math.max((int) Math.floor(view.x / cellWidth() - offset.x) - overhang, 0);
+        int maxX = Math.min((int) Math.ceil((view.x + view.width) / cellWidth() - offset.x), levelWidth - 1);
+        int minY = Math.max((int) Math.floor(view.y / cellHeight() - offset.y) - overhang, 0);
+        int maxY = Math.min((int) Math.ceil((view.y + view.height) / cellHeight() - offset.y), levelHeight - 1);
+        if (minX > maxX || minY > maxY) return;
 
+        if (cache != null) {
+            visibleChunks.clear();
+            for (int cy = maxY / CHUNK_SIZE; cy >= minY / CHUNK_SIZE; cy--) {
+                for (int cx = minX / CHUNK_SIZE; cx <= maxX / CHUNK_SIZE; cx++) {
+                    int id = chunkIds[cy * chunksX + cx];
+                    if (id >= 0) visibleChunks.add(id);
+                }
+            }
+            canvas.drawCache(cache, visibleChunks.items, visibleChunks.size);
+            return;
+        }
 
+        for (int y = maxY; y >= minY; y--){
+            int i = (levelHeight - 1 - y) * levelWidth + minX;
+            for (int x = minX; x <= maxX; x++, i++){
+                TextureRegion texture = tileTexture(i);
+                if (texture != null) {
+                    canvas.draw(texture, Color.WHITE, 0, 0, (x + offset.x) * cellWidth(),
+                            (y + offset.y) * cellHeight(), 0, textureScale.x, textureScale.y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Frees the compiled tiles.
+     */
+    @Override
+    public void dispose() {
+        if (cache != null) cache.dispose();
+        cache = null;
+        compiled = false;
+    }
 }
@@ -3,7 +3,7 @@ package edu.cornell.gdiac.game.object;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 
-import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.game.obstacle.StateBuffer;
 
 import java.util.HashMap;
 
@@ -20,14 +20,14 @@ public class TimedButton extends Activator {
     /**
      * Creates a new TimedButton object.
      *
-     * @param properties     String-Object map of properties for this object
+     * @param properties     Properties of this object
      * @param tMap           Texture map for loading textures
      * @param scale          Draw scale for drawing
      * @param textureScale   Texture scale for rescaling texture
      */
-    public TimedButton(ObjectMap<String, Object> properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
+    public TimedButton(ObjectProperties properties, HashMap<String, TextureRegion> tMap, Vector2 scale, Vector2 textureScale, String biome){
         super(properties, "button-top","button-base",tMap, scale, textureScale, biome, true);
-        totalDurationTicks = (int) properties.get("duration");
+        totalDurationTicks = properties.getInt("duration");
         pressedTicks = 0;
         setName("timedButton");
     }
@@ -42,15 +42,14 @@ public class TimedButton extends Activator {
         activating = pressedTicks > 0;
     }
 
-    public ObjectMap<String, Object> storeState(){
-        ObjectMap<String, Object> stateMap = super.storeState();
-        stateMap.put("pressedTicks", pressedTicks);
-        return stateMap;
+    public void storeState(StateBuffer state){
+        super.storeState(state);
+        state.putInt(pressedTicks);
     }
 
-    public void loadState(ObjectMap<String, Object> stateMap){
-        super.loadState(stateMap);
-        pressedTicks = (int) stateMap.get("pressedTicks");
+    public void loadState(StateBuffer state){
+        super.loadState(state);
+        pressedTicks = state.getInt();
     }
 
 }
@@ -0,0 +1,28 @@
+package edu.cornell.gdiac.game.object;
+
+import com.badlogic.gdx.math.Rectangle;
+import edu.cornell.gdiac.game.TriggerSystem;
+
+/**
+ * Represents an axis-aligned trigger volume, such as a spirit region or a camera region. Triggers are not tested by
+ * Box2D: their fixtures collide with nothing (see {@link CollisionFilters}), and the cat and dead bodies are tested
+ * against them by the {@link TriggerSystem} of their level instead.
+ */
+public interface Trigger {
+
+    /**
+     * Stores the area of this trigger in physics units.
+     *
+     * @param out  rectangle to store the area in
+     * @return <code>out</code>
+     */
+    Rectangle getTriggerBounds(Rectangle out);
+
+    /**
+     * Returns true if this trigger can move, e.g. a checkpoint attached to a moving platform. The area of a moving
+     * trigger is read again every tick, and the area of any other trigger only when it is added.
+     *
+     * @return true if the trigger can move
+     */
+    boolean isTriggerMoving();
+}
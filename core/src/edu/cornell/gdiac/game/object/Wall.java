@@ -7,7 +7,6 @@ import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 import edu.cornell.gdiac.game.obstacle.BoxObstacle;
 import edu.cornell.gdiac.game.obstacle.PolygonObstacle;
@@ -25,15 +24,16 @@ public class Wall extends PolygonObstacle  {
      * @param properties Data for object
      * @param scale    Draw scale for drawing.
      */
-    public Wall(ObjectMap<String, Object> properties, Vector2 scale){
-        super((float[]) properties.get("polygon"));
+    public Wall(ObjectProperties properties, Vector2 scale){
+        super(properties.getFloats("polygon"));
         setBodyType(BodyDef.BodyType.StaticBody);
         setDensity(objectConstants.getFloat( "density", 0.0f ));
         setFriction(objectConstants.getFloat( "friction", 0.0f ));
         setRestitution(objectConstants.getFloat( "restitution", 0.0f ));
-        this.isClimbable = (boolean) properties.get("climbable", false);
+        this.isClimbable = properties.getBoolean("climbable", false);
         setDrawScale(scale);
         setName("wall");
+        setTypeTag(CollisionTags.WALL);
     }
 
     /**
@@ -43,7 +43,7 @@ public class Wall extends PolygonObstacle  {
 
     public void draw(GameCanvas canvas){
         if (isClimbable){
-            canvas.draw(region, Color.GREEN,0,0,getX()*drawScale.x,getY()*drawScale.y,getAngle(),1,1);
+            canvas.draw(region, Color.GREEN,0,0,getDrawX(),getDrawY(),getAngle(),1,1);
         } else {
             super.draw(canvas);
         }
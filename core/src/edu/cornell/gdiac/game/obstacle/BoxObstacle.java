@@ -15,7 +15,6 @@ import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.physics.box2d.*;
 
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.*;  // For GameCanvas
 import edu.cornell.gdiac.game.object.Flamethrower;
 
@@ -254,15 +253,14 @@ public class BoxObstacle extends SimpleObstacle {
 		canvas.drawPhysics(shape,Color.YELLOW,getX(),getY(),getAngle(),drawScale.x,drawScale.y);
 	}
 
-	public ObjectMap<String, Object> storeState(){
-		ObjectMap<String, Object> stateMap = super.storeState();
-		stateMap.put("dimension", dimension.cpy());
-		return stateMap;
+	public void storeState(StateBuffer state){
+		super.storeState(state);
+		state.putVector(dimension);
 	}
 
-	public void loadState(ObjectMap<String, Object> stateMap){
-		super.loadState(stateMap);
-		setDimension((Vector2) stateMap.get("dimension"), false);
+	public void loadState(StateBuffer state){
+		super.loadState(state);
+		setDimension(state.getVector(), false);
 	}
 
 
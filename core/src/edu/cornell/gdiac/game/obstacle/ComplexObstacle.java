@@ -984,6 +984,18 @@ public abstract class ComplexObstacle extends Obstacle {
 	public Body getBody() {
 		return (bodies.size > 0 ? bodies.get(0).getBody() : null);
 	}
+
+	/**
+	 * Adds the root body (if any) and the bodies of every component object to an array.
+	 *
+	 * @param out  the array to add the bodies to
+	 */
+	public void collectBodies(Array<Body> out) {
+		if (body != null) out.add(body);
+		for (Obstacle obj : bodies) {
+			obj.collectBodies(out);
+		}
+	}
 	
 	/** 
 	 * Returns the collection of component physics objects.
@@ -1128,6 +1140,18 @@ public abstract class ComplexObstacle extends Obstacle {
 		}
     }
 
+	/**
+	 * Records the current position of the root and of every component as the previous physics state for
+	 * render interpolation, since the components are drawn at their own interpolated positions.
+	 */
+	@Override
+	public void savePreviousPosition() {
+		super.savePreviousPosition();
+		for (Obstacle obj : bodies) {
+			obj.savePreviousPosition();
+		}
+	}
+
 	/**
 	 * Draws the physics object.
 	 *
@@ -1140,6 +1164,22 @@ public abstract class ComplexObstacle extends Obstacle {
 		}
 	}
 
+	/**
+	 * Returns an axis-aligned box, in physics units, that contains everything this object draws.
+	 *
+	 * The components move independently, so this is the union of their draw bounds.
+	 *
+	 * @return the bounds of this object when drawn
+	 */
+	@Override
+	public Rectangle getDrawBounds() {
+		drawBoundsCache.set(getX(), getY(), 0, 0);
+		for (Obstacle obj : bodies) {
+			drawBoundsCache.merge(obj.getDrawBounds());
+		}
+		return drawBoundsCache;
+	}
+
 	/**
 	 * Draws the outline of the physics body.
 	 *
@@ -1154,31 +1194,17 @@ public abstract class ComplexObstacle extends Obstacle {
 		}
 	}
 
-	public ObjectMap<String, Object> storeState(){
-		if (body != null){
-			ObjectMap<String, Object> stateMap = new ObjectMap<>();
-			stateMap.put("position", getPosition().cpy());
-			stateMap.put("relativeVelocity", relativeVelocity.cpy());
-			stateMap.put("baseVelocity", baseVelocity.cpy());
-			stateMap.put("linearVelocity", getLinearVelocity().cpy());
-			stateMap.put("active", isActive());
-			stateMap.put("toRemove", isRemoved());
-			return stateMap;
-		} else {
-			return super.storeState();
-		}
-	}
-
-	public void loadState(ObjectMap<String, Object> stateMap){
+	public void loadState(StateBuffer state){
 		if (body != null) {
-			setPosition((Vector2) stateMap.get("position"));
-			setLinearVelocity((Vector2) stateMap.get("linearVelocity"));
-			relativeVelocity.set((Vector2) stateMap.get("relativeVelocity"));
-			baseVelocity.set((Vector2) stateMap.get("baseVelocity"));
-			setActive((boolean) stateMap.get("active"));
+			setPosition(state.getVector());
+			setLinearVelocity(state.getVector());
+			relativeVelocity.set(state.getVector());
+			baseVelocity.set(state.getVector());
+			setActive(state.getBoolean());
+			state.getBoolean(); // toRemove
 			setAwake(true);
 		} else {
-			super.loadState(stateMap);
+			super.loadState(state);
 		}
 	}
 
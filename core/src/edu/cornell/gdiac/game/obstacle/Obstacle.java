@@ -21,14 +21,15 @@ import box2dLight.ChainLight;
 import box2dLight.ConeLight;
 import box2dLight.Light;
 import box2dLight.PointLight;
+import box2dLight.PositionalLight;
 import box2dLight.RayHandler;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.*;  // For GameCanvas
 
 
@@ -57,6 +58,8 @@ public abstract class Obstacle {
 	protected boolean masseffect;
 	/** A tag for debugging purposes */
 	private String nametag;
+	/** Small integer identifying the kind of object, used to dispatch contacts (0 if untagged) */
+	private int typeTag;
 	/** Drawing scale to convert physics units to pixels */
 	protected Vector2 drawScale;
 	/** Texture scale to scale the texture to the correct size */
@@ -65,6 +68,8 @@ public abstract class Obstacle {
 	/// Track garbage collection status
 	/** Whether the object should be removed from the world on next pass */
 	private boolean toRemove;
+	/** Slot of this object in the support graph of its level, or -1 if it is not in one */
+	private int supportSlot = -1;
 	/** Whether the object has changed shape and needs a new fixture */
 	private boolean isDirty;
 	
@@ -83,16 +88,32 @@ public abstract class Obstacle {
 	/** The relative velocity for this obstacle if relative motion is desired. Linear velocity is defined as
 	 * <code>baseVelocity + relativeVelocity</code>*/
 	protected Vector2 relativeVelocity = new Vector2();
-	/** Hashmap to store data if this obstacle is paused. */
-	private ObjectMap<String, Object> pausedState;
+	/** Buffer to store data if this obstacle is paused. */
+	private StateBuffer pausedState;
+	/** Whether <code>pausedState</code> holds a state that has not been loaded by {@link #unpause()} yet */
+	private boolean hasPausedState;
 	/** box2dlight associated with this object */
 	private Light light;
+	/** Obstacle whose body the light is attached to with {@link #attachLightTo}, or null */
+	private Obstacle lightAnchor;
 	/** Color of the box2dlight associated with this object */
 	protected Color lightColor = new Color();
 	/** Greyscale RGB values of box2dlight color*/
 	protected float greyColor;
 	/** RGB weights for converting light colors to greyscale.*/
 	private Vector3 greyConv = new Vector3(0.333f, 0.333f, 0.333f);
+	/** Position of this obstacle before the most recent physics step, used for render interpolation */
+	protected Vector2 previousPosition = new Vector2();
+	/** Box around everything this object draws, relative to its position */
+	private Rectangle drawExtents = new Rectangle();
+	/** Whether drawExtents must be recomputed */
+	private boolean drawExtentsDirty = true;
+	/** Cache for the draw bounds */
+	protected Rectangle drawBoundsCache = new Rectangle();
+	/** Cache for reading fixture vertices */
+	private static final Vector2 vertexCache = new Vector2();
+	/** Fraction of a physics step that has elapsed since the last step. Shared by all obstacles. */
+	private static float interpolationAlpha = 1;
 
 	/// BodyDef Methods
 	/**
@@ -396,6 +417,42 @@ public abstract class Obstacle {
 	 */
 	public void setLight(Light l) { light = l;}
 
+	/**
+	 * Adds every box2dlight of this object to an array. Objects with more than one light should
+	 * override this.
+	 *
+	 * @param out  the array to add the lights to
+	 */
+	public void collectLights(Array<Light> out) { if (light != null) out.add(light); }
+
+	/**
+	 * Attaches the light of this obstacle to the body of an obstacle. Unlike attaching the light to the
+	 * body directly, the light is then drawn where the obstacle is drawn (see {@link #interpolateLight}).
+	 *
+	 * @param anchor  the obstacle to attach the light to
+	 */
+	public void attachLightTo(Obstacle anchor) {
+		light.attachToBody(anchor.getBody());
+		lightAnchor = anchor;
+	}
+
+	/**
+	 * Offsets the light of this obstacle to the interpolated position of the obstacle it is attached to,
+	 * so that the light does not lead the sprite by up to one physics step. This should be called every
+	 * frame before the lights are updated.
+	 */
+	public void interpolateLight() {
+		if (lightAnchor == null || !(light instanceof PositionalLight) || light.isStaticLight()) return;
+		Body body = lightAnchor.getBody();
+		if (body == null) return;
+		float dx = lightAnchor.getDrawX()/lightAnchor.drawScale.x - body.getPosition().x;
+		float dy = lightAnchor.getDrawY()/lightAnchor.drawScale.y - body.getPosition().y;
+		//the offset is rotated with the body, so undo the rotation
+		float cos = MathUtils.cos(body.getAngle());
+		float sin = MathUtils.sin(body.getAngle());
+		((PositionalLight) light).attachToBody(body, dx*cos + dy*sin, dy*cos - dx*sin);
+	}
+
 	/**
 	 * Sets the current light associated with this obstacle to active, if such light exists
 	 *
@@ -421,7 +478,8 @@ public abstract class Obstacle {
 		float xOffset = lightData.get("offset").getFloat(0), yOffset = lightData.get("offset").getFloat(1);
 		lightColor.set(Color.valueOf(lightData.getString("color")));
 		greyColor = greyColor(lightColor);
-		light = new PointLight(rayHandler, 100, lightColor, lightData.getFloat("distance"), xOffset, yOffset);
+		float distance = lightData.getFloat("distance");
+		light = new PointLight(rayHandler, LightManager.rayCount(distance*drawScale.x, 360), lightColor, distance, xOffset, yOffset);
 	}
 
 	/**
@@ -437,7 +495,8 @@ public abstract class Obstacle {
 		float xOffset = offset.x != 0 ? offset.x : lightData.get("offset").getFloat(0), yOffset = offset.y != 0 ? offset.y : lightData.get("offset").getFloat(1);
 		lightColor.set(color != null ? color : Color.valueOf(lightData.getString("color")));
 		greyColor = greyColor(lightColor);
-		light = new PointLight(rayHandler, 100, lightColor, distance != 0 ? distance : lightData.getFloat("distance"), xOffset, yOffset);
+		float lightDistance = distance != 0 ? distance : lightData.getFloat("distance");
+		light = new PointLight(rayHandler, LightManager.rayCount(lightDistance*drawScale.x, 360), lightColor, lightDistance, xOffset, yOffset);
 	}
 
 	/**
@@ -459,11 +518,12 @@ public abstract class Obstacle {
 		float xOffset = lightData.get("offset").getFloat(0), yOffset = lightData.get("offset").getFloat(1);
 		lightColor.set(Color.valueOf(lightData.getString("color")));
 		greyColor = greyColor(lightColor);
+		float distance = lightData.getFloat("distance");
 		light = new ConeLight(
 				rayHandler,
-				100,
+				LightManager.rayCount(distance*drawScale.x, 2*lightData.getFloat("coneDegree")),
 				lightColor,
-				lightData.getFloat("distance"),
+				distance,
 				xOffset,
 				yOffset,
 				lightData.getFloat("directionDegree"),
@@ -1086,6 +1146,27 @@ public abstract class Obstacle {
 	public void markRemoved(boolean value) {
 		toRemove = value;
 	}
+
+	/**
+	 * Returns the slot of this object in the support graph of its level.
+	 *
+	 * Only movable objects are in a support graph. The slot is assigned when the object is added to a level,
+	 * and stays the same until the object is removed.
+	 *
+	 * @return the slot of this object, or -1 if it is not in a support graph
+	 */
+	public int getSupportSlot() {
+		return supportSlot;
+	}
+
+	/**
+	 * Sets the slot of this object in the support graph of its level.
+	 *
+	 * @param value  the slot of this object, or -1 if it is not in a support graph
+	 */
+	public void setSupportSlot(int value) {
+		supportSlot = value;
+	}
 	
 	/**
 	 * Returns true if the shape information must be updated.
@@ -1111,6 +1192,7 @@ public abstract class Obstacle {
 	 */
 	public void markDirty(boolean value) {
 		isDirty = value;
+		if (value) drawExtentsDirty = true;
 	}
 		
 	/**
@@ -1123,25 +1205,141 @@ public abstract class Obstacle {
 	public Body getBody() {
 		return null;
 	}
+
+	/**
+	 * Adds every Box2D body of this object to an array.
+	 *
+	 * Unlike {@link #getBody()}, this includes the bodies of component objects, and
+	 * bodies that belong to this object without being obstacles in the level.
+	 *
+	 * @param out  the array to add the bodies to
+	 */
+	public void collectBodies(Array<Body> out) {}
 	
 	/// DRAWING METHODS
 
 	/**
 	 * Returns the x-coordinate of this object scaled by its draw scale.
 	 *
-	 * Useful for when you need the object's x position for drawing coordinates.
+	 * Useful for when you need the object's x position for drawing coordinates. The position is
+	 * interpolated between the last two physics steps so that drawing is smooth at any frame rate.
 	 *
 	 * @return float representing this body's x-coordinate * the drawScale's x coordinate
 	 */
-	public float getDrawX() { return getX() * drawScale.x; }
+	public float getDrawX() {
+		return (previousPosition.x + (getX() - previousPosition.x) * interpolationAlpha) * drawScale.x;
+	}
 	/**
 	 * Returns the y-coordinate of this object scaled by its draw scale.
 	 *
-	 * Useful for when you need the object's y position for drawing coordinates.
+	 * Useful for when you need the object's y position for drawing coordinates. The position is
+	 * interpolated between the last two physics steps so that drawing is smooth at any frame rate.
 	 *
 	 * @return float representing this body's y-coordinate * the drawScale's y coordinate
 	 */
-	public float getDrawY() { return getY() * drawScale.y; }
+	public float getDrawY() {
+		return (previousPosition.y + (getY() - previousPosition.y) * interpolationAlpha) * drawScale.y;
+	}
+
+	/**
+	 * Records the current position as the previous physics state for render interpolation.
+	 *
+	 * This should be called immediately before every physics step, and whenever the obstacle is
+	 * teleported so that it is not drawn sliding to its new position.
+	 */
+	public void savePreviousPosition() { previousPosition.set(getX(), getY()); }
+
+	/**
+	 * Sets how far between the last two physics steps all obstacles should be drawn.
+	 *
+	 * @param alpha  0 draws obstacles at their previous step, 1 at their current step
+	 */
+	public static void setInterpolationAlpha(float alpha) { interpolationAlpha = alpha; }
+
+	/**
+	 * Returns how far between the last two physics steps all obstacles are drawn.
+	 *
+	 * @return 0 if obstacles are drawn at their previous step, 1 at their current step
+	 */
+	public static float getInterpolationAlpha() { return interpolationAlpha; }
+
+	/**
+	 * Returns an axis-aligned box, in physics units, that contains everything this object draws.
+	 *
+	 * The extents of the box around the position are computed once by {@link #computeDrawExtents},
+	 * and are only recomputed when the shape changes, so this is cheap enough to call on every
+	 * object every frame. The box is conservative: it may be larger than the drawing.
+	 *
+	 * This method returns the same rectangle each time it is called, and so cannot be used
+	 * as an allocator.
+	 *
+	 * @return the bounds of this object when drawn
+	 */
+	public Rectangle getDrawBounds() {
+		if (drawExtentsDirty) {
+			drawExtents.set(0, 0, 0, 0);
+			computeDrawExtents(drawExtents);
+			if (getAngle() != 0 || !isFixedRotation()) {
+				//the body can rotate, so use the circle around the extents
+				float radius = Vector2.len(Math.max(-drawExtents.x, drawExtents.x + drawExtents.width),
+						Math.max(-drawExtents.y, drawExtents.y + drawExtents.height));
+				drawExtents.set(-radius, -radius, 2*radius, 2*radius);
+			}
+			drawExtentsDirty = getBody() == null;
+		}
+		return drawBoundsCache.set(getX() + drawExtents.x, getY() + drawExtents.y, drawExtents.width, drawExtents.height);
+	}
+
+	/**
+	 * Marks the draw bounds of this object to be recomputed, e.g. when its texture changes size.
+	 */
+	protected void invalidateDrawBounds() { drawExtentsDirty = true; }
+
+	/**
+	 * Grows a box, relative to the position of this object, to contain everything this object draws.
+	 *
+	 * By default this contains the fixtures of the body. Subclasses that draw outside their
+	 * fixtures should override this method.
+	 *
+	 * @param extents  box to grow, in physics units
+	 */
+	protected void computeDrawExtents(Rectangle extents) {
+		Body body = getBody();
+		if (body == null) return;
+		for (Fixture f : body.getFixtureList()) {
+			Shape shape = f.getShape();
+			switch (shape.getType()) {
+				case Circle:
+					CircleShape circle = (CircleShape) shape;
+					Vector2 pos = circle.getPosition();
+					float r = circle.getRadius();
+					extents.merge(pos.x - r, pos.y - r);
+					extents.merge(pos.x + r, pos.y + r);
+					break;
+				case Polygon:
+					PolygonShape polygon = (PolygonShape) shape;
+					for (int i = 0; i < polygon.getVertexCount(); i++) {
+						polygon.getVertex(i, vertexCache);
+						extents.merge(vertexCache.x, vertexCache.y);
+					}
+					break;
+				case Edge:
+					EdgeShape edge = (EdgeShape) shape;
+					edge.getVertex1(vertexCache);
+					extents.merge(vertexCache.x, vertexCache.y);
+					edge.getVertex2(vertexCache);
+					extents.merge(vertexCache.x, vertexCache.y);
+					break;
+				case Chain:
+					ChainShape chain = (ChainShape) shape;
+					for (int i = 0; i < chain.getVertexCount(); i++) {
+						chain.getVertex(i, vertexCache);
+						extents.merge(vertexCache.x, vertexCache.y);
+					}
+					break;
+			}
+		}
+	}
 
 	/**
 	* Returns the drawing scale for this physics object
@@ -1260,6 +1458,29 @@ public abstract class Obstacle {
 	public void setName(String value) {
      	nametag = value; 
 	}
+
+	/**
+	 * Returns the type tag of this object.
+	 *
+	 * Unlike the name, the type tag is a small integer so that it can be used to index
+	 * lookup tables, such as the contact handlers of a ContactListener.
+	 *
+	 * @return the type tag of this object
+	 */
+	public int getTypeTag() {
+		return typeTag;
+	}
+
+	/**
+	 * Sets the type tag of this object.
+	 *
+	 * This should be set once, when the object is created.
+	 *
+	 * @param  value    the type tag of this object
+	 */
+	public void setTypeTag(int value) {
+		typeTag = value;
+	}
 	
 	/**
 	 * Create a new physics object at the origin.
@@ -1370,22 +1591,36 @@ public abstract class Obstacle {
 	 */
 	public abstract void drawDebug(GameCanvas canvas);
 
-	public ObjectMap<String, Object> storeState(){
-		ObjectMap<String, Object> stateMap = new ObjectMap<>();
-		stateMap.put("position", bodyinfo.position);
-		stateMap.put("relativeVelocity", relativeVelocity);
-		stateMap.put("baseVelocity", baseVelocity);
-		stateMap.put("linearVelocity", bodyinfo.linearVelocity);
-		stateMap.put("toRemove", toRemove);
-		return stateMap;
-	}
-
-	public void loadState(ObjectMap<String, Object> stateMap){
-		bodyinfo.position.set((Vector2) stateMap.get("position"));
-		bodyinfo.linearVelocity.set((Vector2) stateMap.get("linearVelocity"));
-		relativeVelocity.set((Vector2) stateMap.get("relativeVelocity"));
-		baseVelocity.set((Vector2) stateMap.get("baseVelocity"));
-		markRemoved((boolean) stateMap.get("toRemove"));
+	/**
+	 * Writes the state of this obstacle to a buffer.
+	 *
+	 * Subclasses that override this must call super first, and must always write the same
+	 * number of values so that {@link #loadState} can read them back in the same order.
+	 *
+	 * @param state  the buffer to write to
+	 */
+	public void storeState(StateBuffer state){
+		state.putVector(getPosition());
+		state.putVector(getLinearVelocity());
+		state.putVector(relativeVelocity);
+		state.putVector(baseVelocity);
+		state.putBoolean(isActive());
+		state.putBoolean(toRemove);
+	}
+
+	/**
+	 * Reads the state of this obstacle from a buffer, at the position it was written by
+	 * {@link #storeState}.
+	 *
+	 * @param state  the buffer to read from
+	 */
+	public void loadState(StateBuffer state){
+		bodyinfo.position.set(state.getVector());
+		bodyinfo.linearVelocity.set(state.getVector());
+		relativeVelocity.set(state.getVector());
+		baseVelocity.set(state.getVector());
+		setActive(state.getBoolean());
+		markRemoved(state.getBoolean());
 		setAwake(true);
 	}
 
@@ -1393,19 +1628,30 @@ public abstract class Obstacle {
 	 * Saves the current state of this obstacle, and sets all velocities to zero.
 	 */
 	public void pause() {
-		pausedState = storeState();
+		if (pausedState == null) pausedState = new StateBuffer();
+		pausedState.clear();
+		storeState(pausedState);
+		hasPausedState = true;
 		setBaseVelocity(Vector2.Zero);
 		setRelativeVelocity(Vector2.Zero);
 		setLinearVelocity(Vector2.Zero);
 		setAwake(false);
+		savePreviousPosition();
 	}
 
 	/**
-	 * If this obstacle has been paused before, loads the state from the paused state, otherwise does nothing.
+	 * If this obstacle has been paused since it was last unpaused, loads the state it was paused in, otherwise does
+	 * nothing. The paused state is only loaded once, so that it cannot overwrite a state loaded later, e.g. when
+	 * the level is reset.
 	 */
 	public void unpause() {
-		if (pausedState != null) loadState(pausedState);
+		if (hasPausedState) {
+			pausedState.rewind();
+			loadState(pausedState);
+			hasPausedState = false;
+		}
 		setAwake(true);
+		savePreviousPosition();
 	}
 
 }
\ No newline at end of file
@@ -432,7 +432,7 @@ public class PolygonObstacle extends SimpleObstacle {
 	 */
 	public void draw(GameCanvas canvas) {
 		if (region != null) {
-			canvas.draw(region,Color.WHITE,0,0,getX()*drawScale.x,getY()*drawScale.y,getAngle(),textureScale.x,textureScale.y);
+			canvas.draw(region,Color.WHITE,0,0,getDrawX(),getDrawY(),getAngle(),textureScale.x,textureScale.y);
 		}
 	}
 
@@ -451,19 +451,18 @@ public class PolygonObstacle extends SimpleObstacle {
 		}
 	}
 
-	public ObjectMap<String, Object> storeState(){
-		ObjectMap<String, Object> stateMap = super.storeState();
-		stateMap.put("dimension", dimension);
-		stateMap.put("shapes", shapes);
-		stateMap.put("scaled", scaled);
-		return stateMap;
+	public void storeState(StateBuffer state){
+		super.storeState(state);
+		state.putVector(dimension);
+		state.putObject(shapes);
+		state.putObject(scaled);
 	}
 
-	public void loadState(ObjectMap<String, Object> stateMap){
-		super.loadState(stateMap);
-		dimension.set((Vector2) stateMap.get("dimension"));
-		shapes = (PolygonShape[]) stateMap.get("shapes");
-		scaled = (float[]) stateMap.get("scaled");
+	public void loadState(StateBuffer state){
+		super.loadState(state);
+		dimension.set(state.getVector());
+		shapes = state.getObject();
+		scaled = state.getObject();
 	}
 	
 }
\ No newline at end of file
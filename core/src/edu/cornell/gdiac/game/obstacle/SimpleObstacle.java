@@ -21,8 +21,8 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.utils.Array;
 
-import com.badlogic.gdx.utils.ObjectMap;
 import edu.cornell.gdiac.game.GameCanvas;
 
 /**
@@ -865,9 +865,29 @@ public abstract class SimpleObstacle extends Obstacle {
 	 * @param value  the object texture for drawing purposes.
 	 */
 	public void setTexture(TextureRegion value) {
+		if (texture == null || texture.getRegionWidth() != value.getRegionWidth()
+				|| texture.getRegionHeight() != value.getRegionHeight()) {
+			invalidateDrawBounds();
+		}
 		texture = value;
 		origin.set(texture.getRegionWidth()/2.0f, texture.getRegionHeight()/2.0f);
 	}
+
+	/**
+	 * Grows a box, relative to the position of this object, to contain its fixtures and texture.
+	 *
+	 * @param extents  box to grow, in physics units
+	 */
+	@Override
+	protected void computeDrawExtents(Rectangle extents) {
+		super.computeDrawExtents(extents);
+		if (texture != null) {
+			float sx = Math.abs(textureScale.x) / drawScale.x;
+			float sy = Math.abs(textureScale.y) / drawScale.y;
+			extents.merge(-origin.x * sx, -origin.y * sy);
+			extents.merge((texture.getRegionWidth() - origin.x) * sx, (texture.getRegionHeight() - origin.y) * sy);
+		}
+	}
 	
 	/**
 	 * Draws the physics object.
@@ -876,7 +896,7 @@ public abstract class SimpleObstacle extends Obstacle {
 	 */
 	public void draw(GameCanvas canvas) {
 		if (texture != null) {
-			canvas.draw(texture,Color.WHITE,origin.x,origin.y,getX()*drawScale.x,getY()*drawScale.y,getAngle(),textureScale.x,textureScale.y);
+			canvas.draw(texture,Color.WHITE,origin.x,origin.y,getDrawX(),getDrawY(),getAngle(),textureScale.x,textureScale.y);
 		}
 	}
 	
@@ -890,6 +910,15 @@ public abstract class SimpleObstacle extends Obstacle {
 	public Body getBody() {
 		return body;
 	}
+
+	/**
+	 * Adds the Box2D body of this object to an array, if it has one.
+	 *
+	 * @param out  the array to add the body to
+	 */
+	public void collectBodies(Array<Body> out) {
+		if (body != null) out.add(body);
+	}
 	
 	/**
 	 * Creates a new simple physics object at the origin.
@@ -931,6 +960,7 @@ public abstract class SimpleObstacle extends Obstacle {
 		// Only initialize if a body was created.
 		if (body != null) {
 			createFixtures();
+			invalidateDrawBounds();
 			return true;
 		} 
 		
@@ -986,31 +1016,17 @@ public abstract class SimpleObstacle extends Obstacle {
 		}
 	}
 
-	public ObjectMap<String, Object> storeState(){
-		if (body != null){
-			ObjectMap<String, Object> stateMap = new ObjectMap<>();
-			stateMap.put("position", getPosition().cpy());
-			stateMap.put("relativeVelocity", relativeVelocity.cpy());
-			stateMap.put("baseVelocity", baseVelocity.cpy());
-			stateMap.put("linearVelocity", getLinearVelocity().cpy());
-			stateMap.put("active", isActive());
-			stateMap.put("toRemove", isRemoved());
-			return stateMap;
-		} else {
-			return super.storeState();
-		}
-	}
-
-	public void loadState(ObjectMap<String, Object> stateMap){
+	public void loadState(StateBuffer state){
 		if (body != null) {
-			setPosition((Vector2) stateMap.get("position"));
-			setLinearVelocity((Vector2) stateMap.get("linearVelocity"));
-			relativeVelocity.set((Vector2) stateMap.get("relativeVelocity"));
-			baseVelocity.set((Vector2) stateMap.get("baseVelocity"));
-			setActive((boolean) stateMap.get("active"));
+			setPosition(state.getVector());
+			setLinearVelocity(state.getVector());
+			relativeVelocity.set(state.getVector());
+			baseVelocity.set(state.getVector());
+			setActive(state.getBoolean());
+			state.getBoolean(); // toRemove
 			setAwake(true);
 		} else {
-			super.loadState(stateMap);
+			super.loadState(state);
 		}
 	}
 
@@ -0,0 +1,147 @@
+/*
+ * StateBuffer.java
+ *
+ * Storage for obstacle snapshots (see Obstacle.storeState). Values are written
+ * into primitive arrays instead of maps so that saving and loading states does
+ * not box or hash anything, and a buffer can be reused for many snapshots.
+ */
+package edu.cornell.gdiac.game.obstacle;
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * A growable struct-of-arrays buffer of floats, ints and object references.
+ *
+ * Values are written with the <code>put</code> methods and read back, in the same
+ * order, with the <code>get</code> methods. Each of the three arrays has its own
+ * cursor, so a snapshot of one obstacle starts at the triple of positions returned
+ * by {@link #floatSize()}, {@link #intSize()} and {@link #objectSize()} before it
+ * was written, and can be read again by {@link #seek}ing to them.
+ */
+public class StateBuffer {
+	/** Float values, including vector components */
+	private float[] floats;
+	/** Int values, including booleans */
+	private int[] ints;
+	/** Object references */
+	private Object[] objects;
+	/** Number of values written to each array */
+	private int floatSize, intSize, objectSize;
+	/** Read position in each array */
+	private int floatIndex, intIndex, objectIndex;
+	/** Cache for reading vectors */
+	private final Vector2 vector = new Vector2();
+
+	/**
+	 * Creates an empty buffer
+	 */
+	public StateBuffer() {
+		this(32, 16, 4);
+	}
+
+	/**
+	 * Creates an empty buffer with the given initial capacities
+	 *
+	 * @param floatCapacity   initial number of floats
+	 * @param intCapacity     initial number of ints
+	 * @param objectCapacity  initial number of object references
+	 */
+	public StateBuffer(int floatCapacity, int intCapacity, int objectCapacity) {
+		floats = new float[floatCapacity];
+		ints = new int[intCapacity];
+		objects = new Object[objectCapacity];
+	}
+
+	/**
+	 * Removes every value from this buffer, keeping its capacity.
+	 */
+	public void clear() {
+		Arrays.fill(objects, 0, objectSize, null);
+		floatSize = intSize = objectSize = 0;
+		rewind();
+	}
+
+	/**
+	 * Moves the read positions back to the start of the buffer.
+	 */
+	public void rewind() {
+		seek(0, 0, 0);
+	}
+
+	/**
+	 * Moves the read positions.
+	 *
+	 * @param floatIndex   index of the next float to read
+	 * @param intIndex     index of the next int to read
+	 * @param objectIndex  index of the next object reference to read
+	 */
+	public void seek(int floatIndex, int intIndex, int objectIndex) {
+		this.floatIndex = floatIndex;
+		this.intIndex = intIndex;
+		this.objectIndex = objectIndex;
+	}
+
+	/** @return the number of floats written, i.e. the index of the next float written */
+	public int floatSize() { return floatSize; }
+
+	/** @return the number of ints written, i.e. the index of the next int written */
+	public int intSize() { return intSize; }
+
+	/** @return the number of object references written, i.e. the index of the next reference written */
+	public int objectSize() { return objectSize; }
+
+	public void putFloat(float value) {
+		if (floatSize == floats.length) floats = Arrays.copyOf(floats, floatSize * 2);
+		floats[floatSize++] = value;
+	}
+
+	public void putInt(int value) {
+		if (intSize == ints.length) ints = Arrays.copyOf(ints, intSize * 2);
+		ints[intSize++] = value;
+	}
+
+	public void putBoolean(boolean value) {
+		putInt(value ? 1 : 0);
+	}
+
+	public void putVector(Vector2 value) {
+		putFloat(value.x);
+		putFloat(value.y);
+	}
+
+	public void putObject(Object value) {
+		if (objectSize == objects.length) objects = Arrays.copyOf(objects, objectSize * 2);
+		objects[objectSize++] = value;
+	}
+
+	public float getFloat() {
+		return floats[floatIndex++];
+	}
+
+	public int getInt() {
+		return ints[intIndex++];
+	}
+
+	public boolean getBoolean() {
+		return getInt() != 0;
+	}
+
+	/**
+	 * Reads a vector.
+	 *
+	 * This method returns the same vector each time it is called, and so cannot be used
+	 * as an allocator.
+	 *
+	 * @return the next vector in the buffer
+	 */
+	public Vector2 getVector() {
+		return vector.set(getFloat(), getFloat());
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T getObject() {
+		return (T) objects[objectIndex++];
+	}
+}
@@ -23,6 +23,30 @@ import java.util.Random;
 public class RandomController {
 	/** Pseudo-random number generator */
 	private static Random generator = new Random(0); // Make it deterministic
+	/** The seed the generator was last reset with */
+	private static long seed = 0;
+
+	/**
+	 * Resets the generator with a new seed.
+	 *
+	 * All gameplay randomness must come from this class, so that a session can be
+	 * reproduced exactly from its seed and its input log.
+	 *
+	 * @param value The new seed
+	 */
+	public static void setSeed(long value) {
+		seed = value;
+		generator.setSeed(value);
+	}
+
+	/**
+	 * Returns the seed the generator was last reset with.
+	 *
+	 * @return the seed the generator was last reset with.
+	 */
+	public static long getSeed() {
+		return seed;
+	}
 
 	/**
 	 * Returns a random int between min and max (inclusive).
@@ -47,4 +71,13 @@ public class RandomController {
 	public static float rollFloat(float min, float max) {
 		return generator.nextFloat() * (max - min) + min;
 	}
+
+	/**
+	 * Returns a normally distributed double with mean 0 and standard deviation 1.
+	 *
+	 * @return a normally distributed double with mean 0 and standard deviation 1.
+	 */
+	public static double rollGaussian() {
+		return generator.nextGaussian();
+	}
 }
@@ -0,0 +1,187 @@
+package edu.cornell.gdiac.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
+import edu.cornell.gdiac.game.object.Activatable;
+import edu.cornell.gdiac.game.object.Activator;
+import edu.cornell.gdiac.game.object.Cat;
+import edu.cornell.gdiac.game.object.Door;
+import edu.cornell.gdiac.game.obstacle.Obstacle;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link Level#restoreInitialState()} puts the level back the way it was populated.
+ * <br><br>
+ * The levels are run in a {@link HeadlessSimulation}, so the tests must be run from the assets directory.
+ */
+public class LevelResetTest {
+    /** Level with doors that are opened by activators, as in the <code>levels</code> section of the asset JSON */
+    private static final int DOOR_LEVEL = 11;
+    /** Number of physics steps for a door to open or close completely */
+    private static final int DOOR_STEPS = 180;
+    /** Largest distance between a restored position and its initial position */
+    private static final float POSITION_EPSILON = 0.0001f;
+
+    /** Headless application that provides <code>Gdx.files</code> */
+    private static HeadlessApplication application;
+    /** The simulation of the level being tested */
+    private HeadlessSimulation simulation;
+
+    /** Obstacles of the level right after it was loaded, other than the cat */
+    private final Array<Obstacle> initialObstacles = new Array<>();
+    /** Position of each obstacle in <code>initialObstacles</code> */
+    private final Array<Vector2> initialPositions = new Array<>();
+    /** Whether each obstacle in <code>initialObstacles</code> was active */
+    private final BooleanArray initialActive = new BooleanArray();
+    /** Activation of each activatable of the level right after it was loaded */
+    private final BooleanArray initialActivations = new BooleanArray();
+
+    @BeforeClass
+    public static void startApplication() {
+        application = new HeadlessApplication(new ApplicationAdapter() {});
+    }
+
+    @AfterClass
+    public static void exitApplication() {
+        application.exit();
+    }
+
+    @Before
+    public void loadLevel() {
+        simulation = new HeadlessSimulation("jsons/assets.json");
+        simulation.loadLevel(DOOR_LEVEL);
+        recordInitialState();
+    }
+
+    @After
+    public void disposeLevel() {
+        simulation.dispose();
+    }
+
+    /**
+     * Opens the doors of a level with their activators, resets the level, and checks that the doors go back to
+     * their initial activation and run its side effects, i.e. that a door that started closed closes again.
+     */
+    @Test
+    public void resetRestoresOpenedDoors() {
+        Level level = simulation.getLevel();
+        for (Activator a : level.getActivators()) a.addPress();
+        simulation.run(DOOR_STEPS);
+        for (Activator a : level.getActivators()) a.removePress();
+
+        Array<Door> switched = new Array<>();
+        for (Obstacle obj : level.getObjects()) {
+            if (obj instanceof Door && ((Door) obj).isActivated() != ((Door) obj).getInitialActivation()) {
+                switched.add((Door) obj);
+            }
+        }
+        assertTrue("no door of level " + DOOR_LEVEL + " was switched by its activators", switched.size > 0);
+
+        level.restoreInitialState();
+        for (Door door : switched) {
+            assertEquals(door.getInitialActivation(), door.isActivated());
+            assertTrue("door did not start switching back", door.isMoving());
+        }
+
+        simulation.run(DOOR_STEPS);
+        for (Door door : switched) {
+            assertEquals(door.getInitialActivation(), door.isActivated());
+            assertFalse("door did not finish switching back", door.isMoving());
+            assertEquals("door body does not match its activation", door.getInitialActivation(), door.isActive());
+        }
+    }
+
+    /**
+     * Changes a level, takes it out of the simulation like <code>GameController</code> does when the player moves
+     * to another level, and resets it while it is suspended. The reset must still hold once the level is resumed,
+     * and the level must stay suspended until then.
+     */
+    @Test
+    public void resetWhileSuspended() {
+        Level level = simulation.getLevel();
+        openDoors(level);
+        level.suspend();
+
+        level.restoreInitialState();
+        assertTrue(level.isSuspended());
+        Array<Body> bodies = new Array<>();
+        for (Obstacle obj : level.getObjects()) obj.collectBodies(bodies);
+        for (Body body : bodies) assertFalse("body of a suspended level was turned on", body.isActive());
+
+        level.resume();
+        assertInitialState(level);
+    }
+
+    /**
+     * Changes a level, suspends it and enters it again, then resets it like <code>GameController.reset()</code>
+     * does, i.e. restores the level and resumes it. The states the objects were paused in when the level was
+     * suspended must not be loaded over the reset.
+     */
+    @Test
+    public void resetAfterLevelWasSuspended() {
+        Level level = simulation.getLevel();
+        openDoors(level);
+        level.suspend();
+        level.resume();
+
+        level.restoreInitialState();
+        level.resume();
+        assertInitialState(level);
+    }
+
+    /**
+     * Presses every activator of a level until its doors have switched, and releases them.
+     *
+     * @param level  the level being simulated
+     */
+    private void openDoors(Level level) {
+        for (Activator a : level.getActivators()) a.addPress();
+        simulation.run(DOOR_STEPS);
+        for (Activator a : level.getActivators()) a.removePress();
+    }
+
+    /**
+     * Records the positions, activity and activations of the level that was just loaded.
+     */
+    private void recordInitialState() {
+        Level level = simulation.getLevel();
+        for (Obstacle obj : level.getObjects()) {
+            if (obj instanceof Cat) continue;
+            initialObstacles.add(obj);
+            initialPositions.add(obj.getPosition().cpy());
+            initialActive.add(obj.isActive());
+        }
+        for (Activatable a : level.getActivatables()) initialActivations.add(a.isActivated());
+    }
+
+    /**
+     * Checks that the positions, activity and activations of a level are the ones it was loaded with.
+     *
+     * @param level  the level being simulated
+     */
+    private void assertInitialState(Level level) {
+        for (int i = 0; i < initialObstacles.size; i++) {
+            Obstacle obj = initialObstacles.get(i);
+            String name = obj.getClass().getSimpleName() + " " + i;
+            assertFalse(name + " was removed", obj.isRemoved());
+            assertTrue(name + " was not moved back",
+                    obj.getPosition().epsilonEquals(initialPositions.get(i), POSITION_EPSILON));
+            assertEquals(name + " activity was not restored", initialActive.get(i), obj.isActive());
+        }
+        Array<Activatable> activatables = level.getActivatables();
+        for (int i = 0; i < activatables.size; i++) {
+            assertEquals("activation " + i + " was not restored",
+                    initialActivations.get(i), activatables.get(i).isActivated());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package edu.cornell.gdiac.game.desktop;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import edu.cornell.gdiac.game.HeadlessSimulation;
+
+/**
+ * Runs levels without a window, GPU or sound, and reports how fast they simulate.
+ *
+ * Usage: <code>HeadlessLauncher [firstLevel] [lastLevel] [steps]</code>. Each level is simulated for
+ * <code>steps</code> physics steps (or until it is completed). Must be run from the assets directory.
+ */
+public class HeadlessLauncher {
+
+	/**
+	 * Starts a headless application that simulates the requested levels and then exits.
+	 *
+	 * @param arg Command line arguments
+	 */
+	public static void main (String[] arg) {
+		final int firstLevel = arg.length > 0 ? Integer.parseInt(arg[0]) : 1;
+		final int lastLevel = arg.length > 1 ? Integer.parseInt(arg[1]) : firstLevel;
+		final int steps = arg.length > 2 ? Integer.parseInt(arg[2]) : 10000;
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = -1;
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				HeadlessSimulation simulation = new HeadlessSimulation("jsons/assets.json");
+				for (int i = firstLevel; i <= lastLevel; i++) {
+					long start = System.nanoTime();
+					simulation.loadLevel(i);
+					long loaded = System.nanoTime();
+					int taken = simulation.run(steps);
+					long end = System.nanoTime();
+					System.out.printf("level %d: loaded in %.2f ms, %d steps in %.2f ms (%.0f steps/s)%n",
+							i, (loaded - start) / 1e6, taken, (end - loaded) / 1e6, taken / ((end - loaded) / 1e9));
+				}
+				simulation.dispose();
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+}